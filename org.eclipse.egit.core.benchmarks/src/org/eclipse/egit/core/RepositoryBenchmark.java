@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookups of the {@link RepositoryCache}: opening a repository
+ * on a cache miss and finding a cached repository by its git directory,
+ * depending on the number of cached repositories.
+ * <p>
+ * The lookup by a location in the working tree searches the cache of the
+ * {@link Activator}, which is only started inside OSGi, and is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	/** Number of other repositories in the cache */
+	@Param({ "1", "100" })
+	public int repositories;
+
+	private SyntheticRepository synthetic;
+
+	private File others;
+
+	/** holds the cached repositories, which are only weakly referenced */
+	private final List<Repository> cached = new ArrayList<Repository>();
+
+	private RepositoryCache cache;
+
+	private File gitDir;
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		synthetic = new SyntheticRepository(100, 10, 10);
+		gitDir = synthetic.getRepository().getDirectory();
+
+		cache = new RepositoryCache();
+		others = Files.createTempDirectory("egit-benchmark").toFile(); //$NON-NLS-1$
+		for (int i = 0; i < repositories; i++) {
+			File other = new File(new File(others, "repository" + i), //$NON-NLS-1$
+					Constants.DOT_GIT);
+			try (Repository repository = FileRepositoryBuilder.create(other)) {
+				repository.create();
+			}
+			cached.add(cache.lookupRepository(other));
+		}
+		cached.add(cache.lookupRepository(gitDir));
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		for (Repository repository : cached)
+			repository.close();
+		FileUtils.delete(others, FileUtils.RECURSIVE | FileUtils.RETRY);
+		synthetic.close();
+	}
+
+	/**
+	 * @return the branch of the opened repository
+	 * @throws IOException
+	 */
+	@Benchmark
+	public String open() throws IOException {
+		try (Repository repository = new RepositoryCache()
+				.lookupRepository(gitDir)) {
+			return repository.getFullBranch();
+		}
+	}
+
+	/**
+	 * @return the cached repository
+	 * @throws IOException
+	 */
+	@Benchmark
+	public Repository lookupRepository() throws IOException {
+		return cache.lookupRepository(gitDir);
+	}
+}
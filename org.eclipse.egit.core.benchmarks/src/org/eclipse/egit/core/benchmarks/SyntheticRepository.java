@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.benchmarks;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * A repository with generated content in a temporary directory.
+ * <p>
+ * The repository has the given number of files, spread over folders of
+ * {@value #FILES_PER_FOLDER} files each, a linear history of the given depth
+ * in which every commit changes {@value #CHANGES_PER_COMMIT} files, and the
+ * given number of branches and tags pointing to commits of that history. The
+ * objects and refs are packed, the working tree matches the head commit and
+ * the index is clean, like after a fresh clone. The content is generated from
+ * a fixed seed, so repeated runs use the same repository.
+ */
+public class SyntheticRepository implements Closeable {
+
+	/** Number of files in each folder */
+	public static final int FILES_PER_FOLDER = 100;
+
+	/** Number of files changed by each commit */
+	public static final int CHANGES_PER_COMMIT = 5;
+
+	private static final int LINES_PER_FILE = 20;
+
+	private static final PersonIdent AUTHOR = new PersonIdent(
+			"Benchmark", "benchmark@example.org", 1420070400000L, 0); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final File directory;
+
+	private final Repository repository;
+
+	private final List<String> paths = new ArrayList<String>();
+
+	private final List<ObjectId> commits = new ArrayList<ObjectId>();
+
+	private final Random random = new Random(42);
+
+	/**
+	 * @param files
+	 *            number of files
+	 * @param depth
+	 *            number of commits, at least 1
+	 * @param refs
+	 *            number of branches and of tags each
+	 * @throws IOException
+	 */
+	public SyntheticRepository(int files, int depth, int refs)
+			throws IOException {
+		directory = Files.createTempDirectory("egit-benchmark").toFile(); //$NON-NLS-1$
+		repository = FileRepositoryBuilder.create(new File(directory,
+				Constants.DOT_GIT));
+		repository.create();
+		for (int i = 0; i < files; i++)
+			paths.add(String.format("folder%04d/file%06d.txt", //$NON-NLS-1$
+					Integer.valueOf(i / FILES_PER_FOLDER), Integer.valueOf(i)));
+
+		Map<String, Integer> versions = new TreeMap<String, Integer>();
+		for (String path : paths)
+			versions.put(path, Integer.valueOf(0));
+		writeHistory(versions, Math.max(1, depth));
+		writeRefs(refs);
+		pack();
+		checkout(versions);
+	}
+
+	/**
+	 * @return the repository
+	 */
+	public Repository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * @return the paths of all files, sorted
+	 */
+	public List<String> getPaths() {
+		return paths;
+	}
+
+	/**
+	 * @return the ids of all commits, oldest first
+	 */
+	public List<ObjectId> getCommits() {
+		return commits;
+	}
+
+	/**
+	 * Changes the content of distinct files in the working tree without
+	 * staging them.
+	 *
+	 * @param count
+	 *            number of files to change
+	 * @return the paths of the changed files
+	 * @throws IOException
+	 */
+	public List<String> modify(int count) throws IOException {
+		List<String> candidates = new ArrayList<String>(paths);
+		Collections.shuffle(candidates, random);
+		List<String> modified = new ArrayList<String>(count);
+		for (int i = 0; i < count && i < candidates.size(); i++) {
+			String path = candidates.get(i);
+			write(path, content(path, -1 - i));
+			modified.add(path);
+		}
+		return modified;
+	}
+
+	/**
+	 * Deletes the repository and its working tree.
+	 */
+	public void close() throws IOException {
+		repository.close();
+		FileUtils.delete(directory, FileUtils.RECURSIVE | FileUtils.RETRY);
+	}
+
+	private void writeHistory(Map<String, Integer> versions, int depth)
+			throws IOException {
+		try (ObjectInserter inserter = repository.newObjectInserter()) {
+			Map<String, ObjectId> blobs = new TreeMap<String, ObjectId>();
+			for (String path : paths)
+				blobs.put(path, inserter.insert(Constants.OBJ_BLOB,
+						content(path, 0)));
+			ObjectId parent = null;
+			for (int n = 0; n < depth; n++) {
+				if (n > 0)
+					for (int i = 0; i < CHANGES_PER_COMMIT; i++) {
+						String path = paths.get(random.nextInt(paths.size()));
+						int version = versions.get(path).intValue() + 1;
+						versions.put(path, Integer.valueOf(version));
+						blobs.put(path, inserter.insert(Constants.OBJ_BLOB,
+								content(path, version)));
+					}
+				DirCache tree = DirCache.newInCore();
+				DirCacheBuilder builder = tree.builder();
+				for (Map.Entry<String, ObjectId> blob : blobs.entrySet()) {
+					DirCacheEntry entry = new DirCacheEntry(blob.getKey());
+					entry.setFileMode(FileMode.REGULAR_FILE);
+					entry.setObjectId(blob.getValue());
+					builder.add(entry);
+				}
+				builder.finish();
+
+				CommitBuilder commit = new CommitBuilder();
+				commit.setTreeId(tree.writeTree(inserter));
+				if (parent != null)
+					commit.setParentId(parent);
+				commit.setAuthor(new PersonIdent(AUTHOR, AUTHOR.getWhen()
+						.getTime() + n * 60000L, 0));
+				commit.setCommitter(commit.getAuthor());
+				commit.setMessage("Commit " + n + '\n'); //$NON-NLS-1$
+				parent = inserter.insert(commit);
+				commits.add(parent);
+			}
+			inserter.flush();
+			updateRef(Constants.R_HEADS + Constants.MASTER, parent);
+		}
+	}
+
+	private void writeRefs(int refs) throws IOException {
+		for (int i = 0; i < refs; i++) {
+			ObjectId target = commits.get(random.nextInt(commits.size()));
+			updateRef(Constants.R_HEADS + "branch" + i, target); //$NON-NLS-1$
+			updateRef(Constants.R_TAGS + "tag" + i, target); //$NON-NLS-1$
+		}
+	}
+
+	private void updateRef(String name, ObjectId id) throws IOException {
+		RefUpdate update = repository.updateRef(name);
+		update.setNewObjectId(id);
+		update.setForceUpdate(true);
+		update.disableRefLog();
+		update.update();
+	}
+
+	private void pack() throws IOException {
+		try {
+			Git.wrap(repository).gc().call();
+		} catch (GitAPIException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Writes the files of the head commit and a matching index. The files are
+	 * dated back so that the index entries are not racily clean.
+	 */
+	private void checkout(Map<String, Integer> versions) throws IOException {
+		long time = System.currentTimeMillis() - 60000;
+		DirCache index = repository.lockDirCache();
+		try {
+			DirCacheBuilder builder = index.builder();
+			try (ObjectInserter.Formatter formatter = new ObjectInserter.Formatter()) {
+				for (Map.Entry<String, Integer> version : versions.entrySet()) {
+					String path = version.getKey();
+					byte[] content = content(path, version.getValue()
+							.intValue());
+					File file = write(path, content);
+					file.setLastModified(time);
+					DirCacheEntry entry = new DirCacheEntry(path);
+					entry.setFileMode(FileMode.REGULAR_FILE);
+					entry.setObjectId(formatter.idFor(Constants.OBJ_BLOB,
+							content));
+					entry.setLength(content.length);
+					entry.setLastModified(file.lastModified());
+					builder.add(entry);
+				}
+			}
+			builder.commit();
+		} finally {
+			index.unlock();
+		}
+	}
+
+	private File write(String path, byte[] content) throws IOException {
+		File file = new File(repository.getWorkTree(), path);
+		FileUtils.mkdirs(file.getParentFile(), true);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(content);
+		}
+		return file;
+	}
+
+	private static byte[] content(String path, int version) {
+		StringBuilder content = new StringBuilder();
+		content.append(path).append(" version ").append(version).append('\n'); //$NON-NLS-1$
+		for (int i = 0; i < LINES_PER_FILE; i++)
+			content.append("line ").append(i) //$NON-NLS-1$
+					.append(" of a generated file for benchmarks\n"); //$NON-NLS-1$
+		return Constants.encode(content.toString());
+	}
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what the IndexDiffCacheEntry does to update its
+ * {@link IndexDiffData}: a full reload of the state of a repository, the
+ * incremental update after some files have been changed, and the construction
+ * and merge of the {@link IndexDiffData} on their own. Outside of the
+ * workspace the working tree is walked with a FileTreeIterator instead of the
+ * ContainerTreeIterator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IndexDiffBenchmark {
+
+	/** Number of files in the repository */
+	@Param({ "1000", "10000" })
+	public int files;
+
+	/** Number of modified files */
+	@Param({ "10", "1000" })
+	public int modified;
+
+	private SyntheticRepository synthetic;
+
+	private List<String> modifiedPaths;
+
+	private IndexDiff fullDiff;
+
+	private IndexDiff incrementalDiff;
+
+	private IndexDiffData data;
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		synthetic = new SyntheticRepository(files, 10, 10);
+		modifiedPaths = synthetic.modify(modified);
+		fullDiff = diff(null);
+		incrementalDiff = diff(modifiedPaths);
+		data = new IndexDiffData(fullDiff);
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		synthetic.close();
+	}
+
+	/**
+	 * @return the data of a new diff of the whole repository
+	 * @throws IOException
+	 */
+	@Benchmark
+	public IndexDiffData fullReload() throws IOException {
+		return new IndexDiffData(diff(null));
+	}
+
+	/**
+	 * @return the data merged with a new diff of the modified files
+	 * @throws IOException
+	 */
+	@Benchmark
+	public IndexDiffData incrementalUpdate() throws IOException {
+		return merge(diff(modifiedPaths));
+	}
+
+	/**
+	 * @return the data of an existing diff of the whole repository
+	 */
+	@Benchmark
+	public IndexDiffData createData() {
+		return new IndexDiffData(fullDiff);
+	}
+
+	/**
+	 * @return the data merged with an existing diff of the modified files
+	 */
+	@Benchmark
+	public IndexDiffData mergeData() {
+		return merge(incrementalDiff);
+	}
+
+	private IndexDiffData merge(IndexDiff diff) {
+		return new IndexDiffData(data, modifiedPaths,
+				Collections.<IResource> emptySet(), diff);
+	}
+
+	private IndexDiff diff(List<String> paths) throws IOException {
+		Repository repository = synthetic.getRepository();
+		IndexDiff diff = new IndexDiff(repository, Constants.HEAD,
+				new FileTreeIterator(repository));
+		if (paths != null)
+			diff.setFilter(PathFilterGroup.createFromStrings(paths));
+		diff.diff();
+		return diff;
+	}
+}
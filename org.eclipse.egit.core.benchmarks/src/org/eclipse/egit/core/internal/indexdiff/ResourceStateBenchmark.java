@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures computing the {@link ResourceState} the DecoratableResourceAdapter
+ * decorates files and folders with: the state of every file and of every
+ * folder of a repository with some modified files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResourceStateBenchmark {
+
+	/** Number of files in the repository */
+	@Param({ "1000", "10000" })
+	public int files;
+
+	/** Number of modified files */
+	@Param({ "10", "1000" })
+	public int modified;
+
+	private SyntheticRepository synthetic;
+
+	private IndexDiffData data;
+
+	private final List<String> folders = new ArrayList<String>();
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		synthetic = new SyntheticRepository(files, 10, 10);
+		synthetic.modify(modified);
+		Repository repository = synthetic.getRepository();
+		IndexDiff diff = new IndexDiff(repository, Constants.HEAD,
+				new FileTreeIterator(repository));
+		diff.diff();
+		data = new IndexDiffData(diff);
+		for (String path : synthetic.getPaths()) {
+			String folder = path.substring(0, path.lastIndexOf('/') + 1);
+			if (folders.isEmpty() || !folders.get(folders.size() - 1)
+					.equals(folder))
+				folders.add(folder);
+		}
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		synthetic.close();
+	}
+
+	/**
+	 * @return number of dirty files
+	 */
+	@Benchmark
+	public int allFiles() {
+		int dirty = 0;
+		for (String path : synthetic.getPaths())
+			if (ResourceState.forFile(data, path).isDirty())
+				dirty++;
+		return dirty;
+	}
+
+	/**
+	 * @return number of dirty folders
+	 */
+	@Benchmark
+	public int allFolders() {
+		int dirty = 0;
+		for (String folder : folders)
+			if (ResourceState.forFolder(data, folder).isDirty())
+				dirty++;
+		return dirty;
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading the history of a folder the two ways the GitFileHistory
+ * does: with a tree filter on the {@link KidWalk}, as long as the
+ * {@link ChangedPathIndex} of the repository is empty, and with a
+ * {@link ChangedPathWalk} asking the complete index. Both read the first page
+ * of the history and the whole history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryBenchmark {
+
+	/** Number of commits in the history */
+	@Param({ "1000", "10000" })
+	public int depth;
+
+	/** Number of files in the repository */
+	@Param({ "1000" })
+	public int files;
+
+	/** Number of commits read for the first page of the history */
+	@Param({ "256" })
+	public int pageSize;
+
+	private SyntheticRepository synthetic;
+
+	private String path;
+
+	private TreeFilter filter;
+
+	private ChangedPathIndex index;
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		synthetic = new SyntheticRepository(files, depth, 10);
+		String first = synthetic.getPaths().get(0);
+		path = first.substring(0, first.indexOf('/'));
+		filter = AndTreeFilter.create(PathFilterGroup
+				.createFromStrings(Collections.singleton(path)),
+				TreeFilter.ANY_DIFF);
+		index = new ChangedPathIndex(null, "benchmark"); //$NON-NLS-1$
+		index.update(synthetic.getRepository(), new NullProgressMonitor());
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		synthetic.close();
+	}
+
+	/**
+	 * @return number of commits read
+	 * @throws IOException
+	 */
+	@Benchmark
+	public int treeFilterFirstPage() throws IOException {
+		return readWithTreeFilter(pageSize);
+	}
+
+	/**
+	 * @return number of commits read
+	 * @throws IOException
+	 */
+	@Benchmark
+	public int treeFilterFullHistory() throws IOException {
+		return readWithTreeFilter(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return number of commits read
+	 * @throws IOException
+	 */
+	@Benchmark
+	public int indexFirstPage() throws IOException {
+		return readWithIndex(pageSize);
+	}
+
+	/**
+	 * @return number of commits read
+	 * @throws IOException
+	 */
+	@Benchmark
+	public int indexFullHistory() throws IOException {
+		return readWithIndex(Integer.MAX_VALUE);
+	}
+
+	private int readWithTreeFilter(int limit) throws IOException {
+		try (KidWalk walk = createWalk()) {
+			walk.setTreeFilter(filter);
+			KidCommitList commits = new KidCommitList();
+			commits.source(walk);
+			commits.fillTo(limit == Integer.MAX_VALUE ? limit : limit - 1);
+			return commits.size();
+		}
+	}
+
+	private int readWithIndex(int limit) throws IOException {
+		try (KidWalk walk = createWalk()) {
+			ChangedPathWalk changedPathWalk = new ChangedPathWalk(walk, path,
+					filter, index);
+			int count = 0;
+			while (count < limit && changedPathWalk.next() != null)
+				count++;
+			return count;
+		}
+	}
+
+	private KidWalk createWalk() throws IOException {
+		Repository repository = synthetic.getRepository();
+		KidWalk walk = new KidWalk(repository);
+		for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL)
+				.values()) {
+			if (ref.isSymbolic())
+				continue;
+			RevObject target = walk.peel(walk.parseAny(ref.getObjectId()));
+			if (target instanceof RevCommit)
+				walk.markStart((RevCommit) target);
+		}
+		return walk;
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+
+/**
+ * Measures the heap retained by several {@link IndexDiffData} of the same
+ * repository state, each built from its own {@link IndexDiff} and the data
+ * built before like the reloads of the IndexDiffCacheEntry do, with the paths
+ * shared by the {@link PathInterner} and with plain copies of the sets of the
+ * diffs as {@link IndexDiffData} made before. With one copy both should retain
+ * the same, as the interner is dropped after each build.
+ * <p>
+ * The used heap is read from the {@link MemoryMXBean} after garbage
+ * collections. JMH does not report memory, so this is a program of its own,
+ * run with
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.eclipse.egit.core.internal.util.PathInternerHeapUsage [files] [copies]
+ * </pre>
+ */
+public class PathInternerHeapUsage {
+
+	private static final int RUNS = 3;
+
+	/**
+	 * @param args
+	 *            number of modified files, default 50000, and number of
+	 *            copies held, default 3
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		int copies = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		try (SyntheticRepository synthetic = new SyntheticRepository(files,
+				1, 0)) {
+			synthetic.modify(files);
+			Repository repository = synthetic.getRepository();
+			long plain = Long.MAX_VALUE;
+			long interned = Long.MAX_VALUE;
+			for (int run = 0; run < RUNS; run++) {
+				plain = Math.min(plain, retainedBytes(repository, copies,
+						false));
+				interned = Math.min(interned, retainedBytes(repository,
+						copies, true));
+			}
+			System.out.println(String.format(
+					"%d copies of %d modified paths: %,d bytes plain, %,d bytes interned", //$NON-NLS-1$
+					Integer.valueOf(copies), Integer.valueOf(files),
+					Long.valueOf(plain), Long.valueOf(interned)));
+		}
+	}
+
+	private static long retainedBytes(Repository repository, int copies,
+			boolean intern) throws IOException {
+		long before = usedHeap();
+		List<Object> held = new ArrayList<Object>(copies);
+		IndexDiffData previous = null;
+		for (int i = 0; i < copies; i++) {
+			IndexDiff diff = new IndexDiff(repository, Constants.HEAD,
+					new FileTreeIterator(repository));
+			diff.diff();
+			if (intern) {
+				previous = new IndexDiffData(diff, previous);
+				held.add(previous);
+			} else
+				held.add(copy(diff));
+		}
+		long retained = usedHeap() - before;
+		if (held.size() != copies)
+			throw new IllegalStateException();
+		return retained;
+	}
+
+	/**
+	 * @return the sets {@link IndexDiffData} holds, copied without interning
+	 */
+	private static List<Set<String>> copy(IndexDiff diff) {
+		List<Set<String>> sets = new ArrayList<Set<String>>();
+		sets.add(new HashSet<String>(diff.getAdded()));
+		sets.add(new HashSet<String>(diff.getChanged()));
+		sets.add(new HashSet<String>(diff.getRemoved()));
+		sets.add(new HashSet<String>(diff.getMissing()));
+		sets.add(new HashSet<String>(diff.getModified()));
+		sets.add(new HashSet<String>(diff.getUntracked()));
+		sets.add(new HashSet<String>(diff.getConflicting()));
+		sets.add(new HashSet<String>(diff.getIgnoredNotInIndex()));
+		return sets;
+	}
+
+	private static long usedHeap() {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for (int i = 0; i < 5; i++)
+			memory.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
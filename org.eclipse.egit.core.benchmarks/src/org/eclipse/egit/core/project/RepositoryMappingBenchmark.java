@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.project;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures resolving the repository relative paths of files through a
+ * {@link RepositoryMapping}, as done for every decorated resource, alone and
+ * on several threads while another thread keeps remapping the repository like
+ * {@link GitProjectData#setRepositoryMappings} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryMappingBenchmark {
+
+	/** Number of files in the repository */
+	@Param({ "1000" })
+	public int files;
+
+	private SyntheticRepository synthetic;
+
+	private RepositoryMapping mapping;
+
+	private final List<IPath> locations = new ArrayList<IPath>();
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		// mappings take the repository cache of the plug-in when created;
+		// outside of OSGi it is not started and the cache stays unused
+		if (Activator.getDefault() == null)
+			new Activator();
+		synthetic = new SyntheticRepository(files, 1, 0);
+		Properties properties = new Properties();
+		properties.setProperty("project.gitdir", ".git"); //$NON-NLS-1$ //$NON-NLS-2$
+		mapping = new RepositoryMapping(properties, "project.gitdir"); //$NON-NLS-1$
+		mapping.setRepository(synthetic.getRepository());
+		IPath workTree = new Path(synthetic.getRepository().getWorkTree()
+				.getAbsolutePath());
+		for (String path : synthetic.getPaths())
+			locations.add(workTree.append(path));
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		synthetic.close();
+	}
+
+	/**
+	 * @return the total length of the paths
+	 */
+	@Benchmark
+	public int getRepoRelativePaths() {
+		int length = 0;
+		for (IPath location : locations)
+			length += mapping.getRepoRelativePath(location).length();
+		return length;
+	}
+
+	/**
+	 * @return the total length of the paths
+	 */
+	@Benchmark
+	@Group("remapping")
+	@GroupThreads(7)
+	public int getRepoRelativePathsWhileRemapping() {
+		int length = 0;
+		for (IPath location : locations)
+			if (mapping.getRepository() != null)
+				length += mapping.getRepoRelativePath(location).length();
+		return length;
+	}
+
+	/**
+	 * Remaps the repository
+	 */
+	@Benchmark
+	@Group("remapping")
+	@GroupThreads(1)
+	public void remap() {
+		mapping.setRepository(synthetic.getRepository());
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.synchronize;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.egit.core.benchmarks.SyntheticRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how the GitSyncCache loads the state of a repository into a
+ * {@link GitSyncObjectCache}: for a synchronization including local changes,
+ * walking working tree, common ancestor, remote commit and index, and for one
+ * of two commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SynchronizeBenchmark {
+
+	/** Number of files in the repository */
+	@Param({ "1000", "10000" })
+	public int files;
+
+	/** Number of commits between the common ancestor and the head */
+	@Param({ "100" })
+	public int depth;
+
+	private SyntheticRepository synthetic;
+
+	private RevCommit base;
+
+	private RevCommit local;
+
+	private RevCommit remote;
+
+	/**
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		synthetic = new SyntheticRepository(files, depth, 10);
+		synthetic.modify(10);
+		List<ObjectId> commits = synthetic.getCommits();
+		try (RevWalk walk = new RevWalk(synthetic.getRepository())) {
+			base = walk.parseCommit(commits.get(0));
+			local = walk.parseCommit(commits.get(commits.size() - 1));
+			remote = walk.parseCommit(commits.get(commits.size() / 2));
+		}
+	}
+
+	/**
+	 * @throws IOException
+	 */
+	@TearDown
+	public void tearDown() throws IOException {
+		synthetic.close();
+	}
+
+	/**
+	 * @return the cache of the repository
+	 * @throws IOException
+	 */
+	@Benchmark
+	public GitSyncObjectCache includeLocal() throws IOException {
+		return load(true);
+	}
+
+	/**
+	 * @return the cache of the repository
+	 * @throws IOException
+	 */
+	@Benchmark
+	public GitSyncObjectCache commits() throws IOException {
+		return load(false);
+	}
+
+	private GitSyncObjectCache load(boolean includeLocal) throws IOException {
+		GitSyncObjectCache cache = new GitSyncObjectCache("", //$NON-NLS-1$
+				new ThreeWayDiffEntry());
+		GitSyncCache.loadDataFromGit(synthetic.getRepository(), includeLocal,
+				local, base, remote, null, cache);
+		return cache;
+	}
+}
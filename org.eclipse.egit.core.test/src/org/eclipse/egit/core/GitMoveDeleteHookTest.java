@@ -25,9 +25,11 @@
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.egit.core.op.AddToIndexOperation;
@@ -277,6 +279,50 @@ public void testMoveFile() throws Exception {
 		assertNotNull(dirCache.getEntry("file2.txt"));
 	}
 
+	@Test
+	public void testMoveAndDeleteInOneOperation() throws Exception {
+		TestProject project = initRepoInsideProjectInsideWorkspace();
+		final IProject p = project.getProject();
+		testUtils.addFileToProject(p, "a/file1.txt", "some text");
+		testUtils.addFileToProject(p, "a/file2.txt", "some other text");
+		testUtils.addFileToProject(p, "file3.txt", "more text");
+		testUtils.addFileToProject(p, "file4.txt", "even more text");
+		AddToIndexOperation addToIndexOperation = new AddToIndexOperation(
+				new IResource[] { p.getFolder("a"), p.getFile("file3.txt"),
+						p.getFile("file4.txt") });
+		addToIndexOperation.execute(null);
+
+		DirCache dirCache = DirCache.read(repository.getIndexFile(),
+				FS.DETECTED);
+		ObjectId file1Id = dirCache.getEntry("a/file1.txt").getObjectId();
+		ObjectId file3Id = dirCache.getEntry("file3.txt").getObjectId();
+
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				p.getFolder("a").move(p.getFolder("b").getFullPath(), false,
+						null);
+				p.getFile("b/file1.txt").move(
+						p.getFile("file1.txt").getFullPath(), false, null);
+				p.getFile("file3.txt").move(
+						p.getFile("file5.txt").getFullPath(), false, null);
+				p.getFile("file5.txt").move(
+						p.getFile("b/file3.txt").getFullPath(), false, null);
+				p.getFile("file4.txt").delete(true, null);
+			}
+		}, null);
+
+		dirCache.read();
+		assertEquals(3, dirCache.getEntryCount());
+		assertEquals(file1Id, dirCache.getEntry("file1.txt").getObjectId());
+		assertNotNull(dirCache.getEntry("b/file2.txt"));
+		assertEquals(file3Id, dirCache.getEntry("b/file3.txt").getObjectId());
+		assertNull(dirCache.getEntry("a/file1.txt"));
+		assertNull(dirCache.getEntry("a/file2.txt"));
+		assertNull(dirCache.getEntry("file3.txt"));
+		assertNull(dirCache.getEntry("file4.txt"));
+		assertNull(dirCache.getEntry("file5.txt"));
+	}
+
 	/**
 	 * Rename "folder" to "dir".
 	 *
@@ -513,6 +559,30 @@ public void testMoveProjectWithinGitRepoMoveFromLevelZeroDownOne()
 		}
 	}
 
+	@Test
+	public void testMoveFileWithLockedIndexShouldBeCanceled()
+			throws Exception {
+		TestProject project = initRepoInsideProjectInsideWorkspace();
+		IFile file = testUtils.addFileToProject(project.getProject(),
+				"file.txt", "some text");
+		new AddToIndexOperation(new IResource[] { file }).execute(null);
+
+		DirCache index = repository.lockDirCache();
+		try {
+			file.move(new Path("destination.txt"), false, null);
+			fail("Expected move of file with locked index to fail.");
+		} catch (CoreException e) {
+			assertEquals(IStatus.ERROR, e.getStatus().getSeverity());
+		} finally {
+			index.unlock();
+		}
+
+		assertTrue("File should still exist at old location", file.exists());
+		DirCache indexAfter = repository.readDirCache();
+		assertNotNull(indexAfter.getEntry("file.txt"));
+		assertNull(indexAfter.getEntry("destination.txt"));
+	}
+
 	@Test
 	public void testMoveFileWithConflictsShouldBeCanceled() throws Exception {
 		TestProject project = initRepoInsideProjectInsideWorkspace();
@@ -539,6 +609,8 @@ public void testMoveFileWithConflictsShouldBeCanceled() throws Exception {
 		DirCacheEntry entry = indexAfter.getEntry(filePath);
 		assertEquals("Expected entry to still be in non-zero (conflict) stage",
 				DirCacheEntry.STAGE_1, entry.getStage());
+		// the canceled move must not keep the index locked
+		repo.lockDirCache().unlock();
 	}
 
 	@Test
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.egit.core.internal.indexdiff.ResourceState.Staged;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResourceStateTest extends GitTestCase {
+
+	private TestRepository testRepository;
+
+	private Repository repository;
+
+	private IndexDiffData data;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		repository = testRepository.getRepository();
+		write(".gitignore", "ignored/\n");
+		write("folder/clean.txt", "clean");
+		write("folder/modified.txt", "modified");
+		write("folder/removed.txt", "removed");
+		write("folder/sub/deep.txt", "deep");
+		try (Git git = new Git(repository)) {
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").call();
+
+			write("folder/modified.txt", "modified locally");
+			write("folder/added.txt", "added");
+			write("folder/untracked.txt", "untracked");
+			write("folder/new/untracked.txt", "untracked");
+			write("folder/ignored/file.txt", "ignored");
+			write("folder/sub/deep.txt", "changed");
+			git.add().addFilepattern("folder/added.txt")
+					.addFilepattern("folder/sub/deep.txt").call();
+			git.rm().addFilepattern("folder/removed.txt").call();
+		}
+
+		IndexDiff diff = new IndexDiff(repository, Constants.HEAD,
+				new FileTreeIterator(repository));
+		diff.diff();
+		data = new IndexDiffData(diff);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	@Test
+	public void testFiles() throws Exception {
+		ResourceState clean = ResourceState.forFile(data, "folder/clean.txt");
+		assertTrue(clean.isTracked());
+		assertFalse(clean.isDirty());
+		assertEquals(Staged.NOT_STAGED, clean.getStaged());
+
+		ResourceState modified = ResourceState.forFile(data,
+				"folder/modified.txt");
+		assertTrue(modified.isDirty());
+		assertEquals(Staged.NOT_STAGED, modified.getStaged());
+
+		assertEquals(Staged.ADDED,
+				ResourceState.forFile(data, "folder/added.txt").getStaged());
+		assertEquals(Staged.REMOVED,
+				ResourceState.forFile(data, "folder/removed.txt").getStaged());
+		assertFalse(ResourceState.forFile(data, "folder/untracked.txt")
+				.isTracked());
+
+		ResourceState ignored = ResourceState.forFile(data,
+				"folder/ignored/file.txt");
+		assertTrue(ignored.isIgnored());
+		assertFalse(ignored.isTracked());
+	}
+
+	@Test
+	public void testFolders() throws Exception {
+		ResourceState folder = ResourceState.forFolder(data, "folder/");
+		assertTrue(folder.isTracked());
+		assertTrue(folder.isDirty());
+		assertEquals(Staged.MODIFIED, folder.getStaged());
+
+		ResourceState sub = ResourceState.forFolder(data, "folder/sub/");
+		assertTrue(sub.isTracked());
+		assertFalse(sub.isDirty());
+		assertEquals(Staged.MODIFIED, sub.getStaged());
+
+		ResourceState untracked = ResourceState.forFolder(data,
+				"folder/new/");
+		assertFalse(untracked.isTracked());
+		assertFalse(untracked.isIgnored());
+
+		assertTrue(ResourceState.forFolder(data, "folder/ignored/")
+				.isIgnored());
+
+		ResourceState root = ResourceState.forFolder(data, "/");
+		assertTrue(root.isTracked());
+		assertTrue(root.isDirty());
+		assertEquals(Staged.MODIFIED, root.getStaged());
+	}
+
+	@Test
+	public void testMembersLikeSinglePaths() throws Exception {
+		List<String> files = asList("clean.txt", "modified.txt", "added.txt",
+				"removed.txt", "untracked.txt", "unknown.txt");
+		List<String> folders = asList("sub", "new", "ignored");
+		Map<String, ResourceState> members = ResourceState.forMembers(data,
+				"folder/", files, folders);
+		assertEquals(files.size() + folders.size(), members.size());
+		for (String file : files)
+			assertSameState(ResourceState.forFile(data, "folder/" + file),
+					members.get(file));
+		for (String folder : folders)
+			assertSameState(
+					ResourceState.forFolder(data, "folder/" + folder + '/'),
+					members.get(folder));
+
+		Map<String, ResourceState> root = ResourceState.forMembers(data, "",
+				Collections.singleton(".gitignore"),
+				Collections.singleton("folder"));
+		assertSameState(ResourceState.forFile(data, ".gitignore"),
+				root.get(".gitignore"));
+		assertSameState(ResourceState.forFolder(data, "folder/"),
+				root.get("folder"));
+	}
+
+	private static void assertSameState(ResourceState expected,
+			ResourceState actual) {
+		assertEquals(expected.isIgnored(), actual.isIgnored());
+		assertEquals(expected.isTracked(), actual.isTracked());
+		assertEquals(expected.getStaged(), actual.getStaged());
+		assertEquals(expected.hasConflicts(), actual.hasConflicts());
+		assertEquals(expected.isDirty(), actual.isDirty());
+	}
+
+	private void write(String path, String content) throws Exception {
+		File file = new File(repository.getWorkTree(), path);
+		file.getParentFile().mkdirs();
+		testRepository.appendFileContent(file, content, false);
+	}
+}
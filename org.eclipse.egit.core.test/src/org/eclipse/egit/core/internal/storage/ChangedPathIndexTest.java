@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.team.core.RepositoryProvider;
+import org.eclipse.team.core.history.IFileHistory;
+import org.eclipse.team.core.history.IFileHistoryProvider;
+import org.eclipse.team.core.history.IFileRevision;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChangedPathIndexTest extends GitTestCase {
+
+	private static final String SKEWED_PATH = "skew/file";
+
+	private TestRepository testRepository;
+
+	private Repository repository;
+
+	private IFile iFile1;
+
+	private String path1;
+
+	private String path2;
+
+	private String folder;
+
+	private RevCommit commit1;
+
+	private RevCommit commit2;
+
+	private RevCommit commit3;
+
+	private RevCommit branchCommit;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		testRepository.connect(project.getProject());
+		repository = testRepository.getRepository();
+
+		File file1 = testRepository.createFile(project.getProject(), "file1");
+		File file2 = testRepository.createFile(project.getProject(), "file2");
+		iFile1 = testRepository.getIFile(project.getProject(), file1);
+		path1 = testRepository.getRepoRelativePath(file1.getAbsolutePath());
+		path2 = testRepository.getRepoRelativePath(file2.getAbsolutePath());
+		folder = path1.substring(0, path1.lastIndexOf('/'));
+
+		commit1 = testRepository.addAndCommit(project.getProject(), file1,
+				"commit-1");
+		commit2 = testRepository.addAndCommit(project.getProject(), file2,
+				"commit-2");
+		testRepository.createBranch(Constants.R_HEADS + Constants.MASTER,
+				Constants.R_HEADS + "branch");
+		commit3 = testRepository.appendContentAndCommit(project.getProject(),
+				file1, "commit-3", "commit-3");
+		testRepository.checkoutBranch(Constants.R_HEADS + "branch");
+		branchCommit = testRepository.appendContentAndCommit(
+				project.getProject(), file2, "branch", "branch");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	@Test
+	public void testChangedPaths() throws Exception {
+		ChangedPathIndex index = new ChangedPathIndex(null, "test");
+		assertTrue(index.isEmpty());
+		index.update(repository, new NullProgressMonitor());
+
+		assertFalse(index.isUnchanged(commit1, path1));
+		assertFalse(index.isUnchanged(commit1, folder));
+		assertTrue(index.isUnchanged(commit1, path2));
+		assertTrue(index.isUnchanged(commit2, path1));
+		assertFalse(index.isUnchanged(commit2, path2));
+		assertFalse(index.isUnchanged(commit3, path1));
+		assertFalse(index.isUnchanged(branchCommit, path2));
+	}
+
+	@Test
+	public void testPersisted() throws Exception {
+		File file = new File(repository.getDirectory(), "changed-paths-test");
+		ChangedPathIndex index = new ChangedPathIndex(file, "test");
+		index.update(repository, new NullProgressMonitor());
+		assertTrue(file.isFile());
+
+		ChangedPathIndex loaded = new ChangedPathIndex(file, "test");
+		for (RevCommit commit : new RevCommit[] { commit1, commit2, commit3,
+				branchCommit }) {
+			assertTrue(loaded.contains(commit));
+			assertEquals(index.isUnchanged(commit, path1),
+					loaded.isUnchanged(commit, path1));
+			assertEquals(index.isUnchanged(commit, path2),
+					loaded.isUnchanged(commit, path2));
+		}
+
+		// only the new commit is added
+		RevCommit commit4 = testRepository.commit("commit-4");
+		long length = file.length();
+		loaded.update(repository, new NullProgressMonitor());
+		assertTrue(loaded.contains(commit4));
+		assertTrue(file.length() > length);
+		assertTrue(new ChangedPathIndex(file, "test").contains(commit4));
+	}
+
+	@Test
+	public void testHistoryWithIndex() throws Exception {
+		IFileHistoryProvider provider = RepositoryProvider.getProvider(
+				project.getProject()).getFileHistoryProvider();
+		List<String> expected = getHistory(provider);
+
+		ChangedPathIndex.get(repository).update(repository,
+				new NullProgressMonitor());
+		assertEquals(expected, getHistory(provider));
+	}
+
+	@Test
+	public void testSkewedCommitTimes() throws Exception {
+		// the merge takes the content of a, so it only follows a; p is only
+		// reached through its child c, which claims to be older than p
+		RevCommit base = commit("base", 1000);
+		RevCommit a = commit("a", 1050, base);
+		RevCommit p = commit("p", 1100, base);
+		RevCommit merge = commit("a", 1200, a, p);
+		RevCommit c = commit("c", 1010, p);
+		setBranch("skew-merge", merge);
+		setBranch("skew-child", c);
+
+		ChangedPathIndex index = new ChangedPathIndex(null, "test");
+		index.update(repository, new NullProgressMonitor());
+		TreeFilter filter = AndTreeFilter.create(
+				PathFilterGroup.createFromStrings(SKEWED_PATH),
+				TreeFilter.ANY_DIFF);
+
+		Set<ObjectId> expected = new HashSet<ObjectId>();
+		try (KidWalk walk = createWalk()) {
+			walk.setTreeFilter(filter);
+			for (RevCommit commit; (commit = walk.next()) != null;)
+				expected.add(commit.copy());
+		}
+		Set<ObjectId> actual = new HashSet<ObjectId>();
+		try (KidWalk walk = createWalk()) {
+			ChangedPathWalk changedPathWalk = new ChangedPathWalk(walk,
+					SKEWED_PATH, filter, index);
+			for (RevCommit commit; (commit = changedPathWalk.next()) != null;)
+				actual.add(commit.copy());
+		}
+		assertTrue(expected.contains(p));
+		assertEquals(expected, actual);
+	}
+
+	private RevCommit commit(String content, int time, RevCommit... parents)
+			throws IOException {
+		try (ObjectInserter inserter = repository.newObjectInserter();
+				RevWalk walk = new RevWalk(repository)) {
+			DirCache dirCache = DirCache.newInCore();
+			DirCacheBuilder builder = dirCache.builder();
+			DirCacheEntry entry = new DirCacheEntry(SKEWED_PATH);
+			entry.setFileMode(FileMode.REGULAR_FILE);
+			entry.setObjectId(inserter.insert(Constants.OBJ_BLOB,
+					Constants.encode(content)));
+			builder.add(entry);
+			builder.finish();
+			PersonIdent ident = new PersonIdent("skew", "skew@example.com",
+					new Date(time * 1000L), TimeZone.getTimeZone("UTC"));
+			CommitBuilder commit = new CommitBuilder();
+			commit.setTreeId(dirCache.writeTree(inserter));
+			commit.setParentIds(parents);
+			commit.setAuthor(ident);
+			commit.setCommitter(ident);
+			commit.setMessage(content);
+			ObjectId id = inserter.insert(commit);
+			inserter.flush();
+			return walk.parseCommit(id);
+		}
+	}
+
+	private void setBranch(String name, RevCommit commit) throws IOException {
+		RefUpdate update = repository.updateRef(Constants.R_HEADS + name);
+		update.setNewObjectId(commit);
+		update.forceUpdate();
+	}
+
+	private KidWalk createWalk() throws IOException {
+		KidWalk walk = new KidWalk(repository);
+		for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL)
+				.values())
+			if (!ref.isSymbolic())
+				walk.markStart(walk.parseCommit(ref.getObjectId()));
+		return walk;
+	}
+
+	private List<String> getHistory(IFileHistoryProvider provider) {
+		IFileHistory history = provider.getFileHistoryFor(iFile1,
+				IFileHistoryProvider.NONE, new NullProgressMonitor());
+		List<String> result = new ArrayList<String>();
+		for (IFileRevision revision : history.getFileRevisions()) {
+			StringBuilder entry = new StringBuilder(
+					revision.getContentIdentifier());
+			for (IFileRevision parent : history.getContributors(revision))
+				entry.append(' ').append(parent.getContentIdentifier());
+			for (IFileRevision child : history.getTargets(revision))
+				entry.append(' ').append('>')
+						.append(child.getContentIdentifier());
+			result.add(entry.toString());
+		}
+		return result;
+	}
+}
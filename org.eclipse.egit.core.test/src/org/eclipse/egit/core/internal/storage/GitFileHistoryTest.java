@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.internal.Utils;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.team.core.history.IFileHistory;
+import org.eclipse.team.core.history.IFileHistoryProvider;
+import org.eclipse.team.core.history.IFileRevision;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitFileHistoryTest extends GitTestCase {
+
+	private TestRepository testRepository;
+
+	private IFile iFile;
+
+	private RevCommit commit1;
+
+	private RevCommit commit2;
+
+	private RevCommit commit3;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		testRepository.connect(project.getProject());
+
+		File file = testRepository.createFile(project.getProject(), "file");
+		File other = testRepository.createFile(project.getProject(), "other");
+		iFile = testRepository.getIFile(project.getProject(), file);
+
+		commit1 = testRepository.addAndCommit(project.getProject(), file,
+				"commit-1");
+		commit2 = testRepository.appendContentAndCommit(project.getProject(),
+				file, "commit-2", "commit-2");
+		commit3 = testRepository.appendContentAndCommit(project.getProject(),
+				file, "commit-3", "commit-3");
+		testRepository.addAndCommit(project.getProject(), other, "other");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	@Test
+	public void testPaged() throws Exception {
+		assertPaged();
+	}
+
+	@Test
+	public void testPagedWithIndex() throws Exception {
+		ChangedPathIndex.get(testRepository.getRepository()).update(
+				testRepository.getRepository(), new NullProgressMonitor());
+		assertPaged();
+	}
+
+	@Test
+	public void testPagedAcrossBatches() throws Exception {
+		assertPaged(2);
+	}
+
+	@Test
+	public void testPagedAcrossBatchesWithIndex() throws Exception {
+		ChangedPathIndex.get(testRepository.getRepository()).update(
+				testRepository.getRepository(), new NullProgressMonitor());
+		assertPaged(2);
+	}
+
+	private void assertPaged() {
+		assertPaged(256);
+	}
+
+	private void assertPaged(int batchSize) {
+		GitFileHistory history = new GitFileHistory(iFile,
+				IFileHistoryProvider.NONE, null, batchSize);
+		assertFalse(history.isComplete());
+
+		IFileRevision[] first = history.getFileRevisions(1, null);
+		assertEquals(1, first.length);
+		assertEquals(commit3.name(), first[0].getContentIdentifier());
+
+		IFileRevision[] second = history.getFileRevisions(2, null);
+		assertEquals(2, second.length);
+		assertEquals(first[0], second[0]);
+		assertEquals(commit2.name(), second[1].getContentIdentifier());
+
+		IFileRevision[] all = history.getFileRevisions();
+		assertTrue(history.isComplete());
+		assertEquals(3, all.length);
+		assertEquals(first[0], all[0]);
+		assertEquals(commit1.name(), all[2].getContentIdentifier());
+	}
+
+	@Test
+	public void testCanceled() throws Exception {
+		GitFileHistory history = new GitFileHistory(iFile,
+				IFileHistoryProvider.NONE, null);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+
+		assertEquals(0, history.getFileRevisions(10, monitor).length);
+		assertFalse(history.isComplete());
+		assertEquals(3, history.getFileRevisions(10, null).length);
+	}
+
+	@Test
+	public void testFileRevisionById() throws Exception {
+		GitFileHistory history = new GitFileHistory(iFile,
+				IFileHistoryProvider.NONE, null);
+
+		IFileRevision revision = history.getFileRevision(commit1.name());
+		assertNotNull(revision);
+		assertEquals(commit1.name(), revision.getContentIdentifier());
+	}
+
+	@Test
+	public void testFileRevisionByIdCanceled() throws Exception {
+		GitFileHistory history = new GitFileHistory(iFile,
+				IFileHistoryProvider.NONE, null);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+
+		assertNull(history.getFileRevision(commit1.name(), monitor));
+		assertFalse(history.isComplete());
+		assertNotNull(history.getFileRevision(commit1.name(),
+				new NullProgressMonitor()));
+	}
+
+	@Test
+	public void testFileRevisionByIdAcrossBatches() throws Exception {
+		GitFileHistory history = new GitFileHistory(iFile,
+				IFileHistoryProvider.NONE, null, 1);
+
+		IFileRevision revision = history.getFileRevision(commit1.name());
+		assertNotNull(revision);
+		assertEquals(commit1.name(), revision.getContentIdentifier());
+	}
+
+	@Test
+	public void testProviderMonitor() throws Exception {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		IFileHistory history = new GitFileHistoryProvider().getFileHistoryFor(
+				iFile, IFileHistoryProvider.NONE, monitor);
+		monitor.setCanceled(true);
+		assertEquals(0, history.getFileRevisions().length);
+		assertNull(history.getFileRevision(commit1.name()));
+
+		monitor.setCanceled(false);
+		assertEquals(3, history.getFileRevisions().length);
+	}
+
+	@Test
+	public void testPagedAdapter() throws Exception {
+		IFileHistory history = new GitFileHistoryProvider().getFileHistoryFor(
+				iFile, IFileHistoryProvider.NONE, null);
+		PagedFileHistory paged = Utils.getAdapter((IAdaptable) history,
+				PagedFileHistory.class);
+		assertNotNull(paged);
+		assertFalse(paged.isComplete());
+
+		assertEquals(1, paged.getFileRevisions(1, null).length);
+		assertNotNull(paged.getFileRevision(commit1.name(), null));
+		assertTrue(paged.isComplete());
+	}
+}
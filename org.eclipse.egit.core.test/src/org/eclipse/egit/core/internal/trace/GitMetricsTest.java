@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class GitMetricsTest {
+
+	private static final String SCOPE = "test-scope";
+
+	@After
+	public void tearDown() {
+		GitMetrics.removeScope(SCOPE);
+	}
+
+	@Test
+	public void testHistogram() {
+		Histogram histogram = GitMetrics.histogram("test.histogram", SCOPE,
+				"files");
+		for (int i = 1; i <= 100; i++)
+			histogram.record(i);
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(1, histogram.getMin());
+		assertEquals(100, histogram.getMax());
+		assertEquals(100, histogram.getLast());
+		assertEquals(50.5, histogram.getMean(), 0.001);
+		// buckets are powers of two: 50 lies in [32, 63]
+		assertEquals(63, histogram.getPercentile(0.5));
+		assertEquals(100, histogram.getPercentile(0.95));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(0.5));
+	}
+
+	@Test
+	public void testSameMetricForSameNameAndScope() {
+		Counter counter = GitMetrics.counter("test.counter", SCOPE);
+		counter.increment();
+		counter.add(2);
+		assertSame(counter, GitMetrics.counter("test.counter", SCOPE));
+		assertEquals(3, GitMetrics.counter("test.counter", SCOPE).getCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNameUsedWithOtherType() {
+		GitMetrics.counter("test.mixed", SCOPE);
+		GitMetrics.timer("test.mixed", SCOPE);
+	}
+
+	@Test
+	public void testExportJson() throws Exception {
+		GitMetrics.timer("test.timer", SCOPE).recordNanos(5000);
+		GitMetrics.registerGauge("test.gauge", SCOPE, new Gauge() {
+			public long getValue() {
+				return 42;
+			}
+		});
+		StringWriter writer = new StringWriter();
+		GitMetrics.exportJson(writer);
+		String json = writer.toString();
+		assertTrue(json, json.startsWith("{\"timestamp\":"));
+		assertTrue(json, json.contains("{\"name\":\"test.timer\","
+				+ "\"scope\":\"test-scope\",\"type\":\"timer\","
+				+ "\"unit\":\"us\",\"count\":1,\"sum\":5,"));
+		assertTrue(json, json.contains("{\"name\":\"test.gauge\","
+				+ "\"scope\":\"test-scope\",\"type\":\"gauge\","
+				+ "\"unit\":\"\",\"count\":0,\"sum\":0,\"min\":42,"));
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentConversionCheckTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Repository repository;
+
+	@Before
+	public void setUp() throws Exception {
+		repository = FileRepositoryBuilder.create(new File(folder.getRoot(),
+				".git"));
+		repository.create();
+	}
+
+	@After
+	public void tearDown() {
+		repository.close();
+	}
+
+	@Test
+	public void testNothingApplies() {
+		ContentConversionCheck check = new ContentConversionCheck(repository);
+		assertFalse(check.appliesEverywhere());
+		assertFalse(check.mayApply("a.txt"));
+		assertFalse(check.mayApply("sub/dir/a.txt"));
+	}
+
+	@Test
+	public void testAutoCRLF() throws Exception {
+		StoredConfig config = repository.getConfig();
+		config.setString("core", null, "autocrlf", "input");
+		config.save();
+		ContentConversionCheck check = new ContentConversionCheck(repository);
+		assertTrue(check.appliesEverywhere());
+		assertTrue(check.mayApply("a.txt"));
+	}
+
+	@Test
+	public void testInfoAttributes() throws Exception {
+		write(new File(repository.getDirectory(), "info/attributes"));
+		assertTrue(new ContentConversionCheck(repository).appliesEverywhere());
+	}
+
+	@Test
+	public void testAttributesFileInDirectory() throws Exception {
+		write(new File(folder.getRoot(), "sub/.gitattributes"));
+		ContentConversionCheck check = new ContentConversionCheck(repository);
+		assertFalse(check.appliesEverywhere());
+		assertFalse(check.mayApply("a.txt"));
+		assertFalse(check.mayApply("other/a.txt"));
+		assertTrue(check.mayApply("sub/a.txt"));
+		assertTrue(check.mayApply("sub/dir/a.txt"));
+	}
+
+	private static void write(File file) throws IOException {
+		file.getParentFile().mkdirs();
+		assertTrue(file.createNewFile());
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentIdHasherTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEmptyFile() throws Exception {
+		assertId(new byte[0]);
+	}
+
+	@Test
+	public void testSmallFile() throws Exception {
+		assertId(Constants.encode("line 1\nline 2\n"));
+	}
+
+	@Test
+	public void testLargeFile() throws Exception {
+		// many times the size of the buffer
+		byte[] content = new byte[3 * 1024 * 1024 + 17];
+		new Random(42).nextBytes(content);
+		assertId(content);
+	}
+
+	@Test
+	public void testPrefetch() throws Exception {
+		byte[][] contents = new byte[20][];
+		File[] files = new File[contents.length];
+		ContentIdHasher hasher = new ContentIdHasher();
+		for (int i = 0; i < contents.length; i++) {
+			contents[i] = Constants.encode("content " + i);
+			files[i] = write(contents[i]);
+			hasher.prefetch(files[i]);
+		}
+		for (int i = contents.length - 1; i >= 0; i--)
+			assertEquals(idFor(contents[i]), hasher.getId(files[i]));
+	}
+
+	@Test(expected = IOException.class)
+	public void testMissingFile() throws Exception {
+		new ContentIdHasher().getId(new File(folder.getRoot(), "missing"));
+	}
+
+	private void assertId(byte[] content) throws IOException {
+		File file = write(content);
+		assertEquals(idFor(content), ContentIdHasher.computeId(file));
+		assertEquals(idFor(content), new ContentIdHasher().getId(file));
+	}
+
+	private File write(byte[] content) throws IOException {
+		File file = folder.newFile();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(content);
+		}
+		return file;
+	}
+
+	private static ObjectId idFor(byte[] content) {
+		return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB,
+				content);
+	}
+}
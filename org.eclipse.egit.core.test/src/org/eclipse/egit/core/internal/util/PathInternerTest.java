@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class PathInternerTest {
+
+	private static final int PATHS = 50000;
+
+	@Test
+	public void testIntern() {
+		String path = new String("src/org/eclipse/Foo.java");
+		String copy = new String(path);
+		assertNotSame(path, copy);
+
+		PathInterner paths = new PathInterner();
+		String interned = paths.intern(path);
+		assertSame(interned, paths.intern(copy));
+		assertEquals(path, interned);
+		assertNull(paths.intern(null));
+	}
+
+	@Test
+	public void testInternAll() {
+		PathInterner paths = new PathInterner();
+		String a = paths.intern(new String("a/b"));
+		Set<String> set = paths.internAll(Arrays.asList(new String("a/b"),
+				new String("a/c")));
+
+		assertEquals(2, set.size());
+		for (String path : set)
+			if (path.equals("a/b"))
+				assertSame(a, path);
+		// the result is mutable
+		set.add("d");
+	}
+
+	@Test
+	public void testAddAll() {
+		List<String> previous = createPaths("previous");
+		PathInterner paths = new PathInterner();
+		paths.addAll(previous);
+		assertEquals(PATHS, paths.size());
+
+		List<String> next = createPaths("previous");
+		for (int i = 0; i < PATHS; i++)
+			assertSame(previous.get(i), paths.intern(next.get(i)));
+		assertEquals(PATHS, paths.size());
+
+		// paths added later do not replace the shared ones
+		paths.addAll(next);
+		assertSame(previous.get(0), paths.intern(next.get(0)));
+	}
+
+	@Test
+	public void testSeparateInterners() {
+		String path = new String("a/b");
+		String copy = new String(path);
+		new PathInterner().intern(path);
+		assertSame(copy, new PathInterner().intern(copy));
+	}
+
+	private static List<String> createPaths(String root) {
+		List<String> paths = new ArrayList<String>(PATHS);
+		for (int i = 0; i < PATHS; i++)
+			// build new instances every time, like a tree walk does
+			paths.add(new StringBuilder(root).append("/folder")
+					.append(i % 100).append("/sub").append(i / 100)
+					.append("/File").append(i).append(".java").toString());
+		return paths;
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PeeledRefIndexTest extends GitTestCase {
+
+	private Repository repository;
+
+	private RevCommit first;
+
+	private RevCommit second;
+
+	@Before
+	public void before() throws Exception {
+		repository = FileRepositoryBuilder.create(gitDir);
+		repository.create();
+		TestRepository<Repository> util = new TestRepository<Repository>(
+				repository);
+		first = util.commit().create();
+		second = util.commit().parent(first).create();
+		util.update("refs/heads/master", second);
+		util.update("refs/heads/side", first);
+		util.update("refs/tags/light", first);
+		util.update("refs/tags/annotated", util.tag("annotated", first));
+	}
+
+	@After
+	public void after() {
+		repository.close();
+	}
+
+	@Test
+	public void testGetRefs() throws Exception {
+		PeeledRefIndex index = PeeledRefIndex.get(repository);
+
+		List<Ref> tags = index.getRefs(first, Constants.R_TAGS);
+		assertEquals(2, tags.size());
+		assertEquals("refs/tags/annotated", tags.get(0).getName());
+		assertNotNull(tags.get(0).getPeeledObjectId());
+		assertEquals("refs/tags/light", tags.get(1).getName());
+		assertNull(tags.get(1).getPeeledObjectId());
+
+		assertEquals(3, index.getRefs(first).size());
+		List<Ref> branches = index.getRefs(second, Constants.R_HEADS);
+		assertEquals(1, branches.size());
+		assertEquals("refs/heads/master", branches.get(0).getName());
+		assertTrue(index.getRefs(second, Constants.R_TAGS).isEmpty());
+	}
+}
@@ -41,6 +41,13 @@
 import org.eclipse.egit.core.test.GitTestCase;
 import org.eclipse.egit.core.test.TestProject;
 import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.util.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -292,6 +299,56 @@ public void testFindProjectFilesNested() throws Exception {
 				"Project-1/.project")));
 	}
 
+	@Test
+	public void testFindProjectFilesFromIndex() throws Exception {
+		File workingDir = gitDir.getParentFile();
+		File trackedProject = new File(workingDir, "Project-1/.project");
+		repository.track(trackedProject);
+		project2 = new TestProject(true, "untracked/Project-Nested");
+
+		Collection<File> files = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(files,
+				repository.getRepository(), workingDir, true,
+				new NullProgressMonitor()));
+		assertEquals(2, files.size());
+		assertThat(files, hasItem(trackedProject));
+		assertThat(files, hasItem(new File(workingDir,
+				"untracked/Project-Nested/.project")));
+
+		Collection<File> inFolder = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(inFolder,
+				repository.getRepository(), new File(workingDir, "Project-1"),
+				false, new NullProgressMonitor()));
+		assertEquals(Collections.singletonList(trackedProject), inFolder);
+	}
+
+	@Test
+	public void testFindProjectFilesFromIndexConflicting() throws Exception {
+		File workingDir = gitDir.getParentFile();
+		File conflictingProject = new File(workingDir, "Project-1/.project");
+		Repository repo = repository.getRepository();
+		DirCache dirCache = repo.lockDirCache();
+		try (ObjectInserter inserter = repo.newObjectInserter()) {
+			DirCacheBuilder builder = dirCache.builder();
+			for (int stage = DirCacheEntry.STAGE_1;
+					stage <= DirCacheEntry.STAGE_3; stage++) {
+				DirCacheEntry entry = new DirCacheEntry("Project-1/.project",
+						stage);
+				entry.setFileMode(FileMode.REGULAR_FILE);
+				entry.setObjectId(inserter.insert(Constants.OBJ_BLOB,
+						Constants.encode("stage " + stage)));
+				builder.add(entry);
+			}
+			inserter.flush();
+			assertTrue(builder.commit());
+		}
+
+		Collection<File> files = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(files, repo, workingDir, true,
+				new NullProgressMonitor()));
+		assertEquals(Collections.singletonList(conflictingProject), files);
+	}
+
 	@Test
 	public void testRefreshRepositoryResources() throws Exception {
 		TestProject subdirProject = new TestProject(true, "subdir/Project-2");
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.jgit.events.RefsChangedEvent;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReachabilityIndexTest extends GitTestCase {
+
+	private Repository repository;
+
+	private TestRepository<Repository> util;
+
+	// a - b - c - d (master)
+	//      \     /
+	//       e - f (side)
+	// g (orphan, not referenced)
+	private RevCommit a, b, c, d, e, f, g;
+
+	@Before
+	public void before() throws Exception {
+		repository = FileRepositoryBuilder.create(gitDir);
+		repository.create();
+		util = new TestRepository<Repository>(repository);
+		a = util.commit().create();
+		b = util.commit().parent(a).create();
+		c = util.commit().parent(b).create();
+		e = util.commit().parent(b).create();
+		f = util.commit().parent(e).create();
+		d = util.commit().parent(c).parent(f).create();
+		g = util.commit().create();
+		util.update("refs/heads/master", d);
+		util.update("refs/heads/side", f);
+		util.update("refs/tags/v1", a);
+		util.update("refs/tags/v2", util.tag("v2", c));
+		util.update("refs/tags/v3", d);
+	}
+
+	@After
+	public void after() {
+		repository.close();
+	}
+
+	@Test
+	public void testContains() throws Exception {
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		assertTrue(index.contains(a));
+		assertTrue(index.contains(f));
+		assertFalse(index.contains(g));
+		assertSame(index, ReachabilityIndex.get(repository));
+	}
+
+	@Test
+	public void testDroppedOnRefsChange() throws Exception {
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		util.update("refs/heads/other", g);
+		// as the ref database does when it notices the change
+		repository.fireEvent(new RefsChangedEvent());
+
+		ReachabilityIndex rebuilt = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		assertNotSame(index, rebuilt);
+		assertTrue(rebuilt.contains(g));
+	}
+
+	@Test
+	public void testUpdatedOnRefsChange() throws Exception {
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		RevCommit h = util.commit().parent(d).create();
+		util.update("refs/heads/master", h);
+		util.update("refs/tags/v4", c);
+		repository.fireEvent(new RefsChangedEvent());
+
+		// the previous index answers while the update runs
+		assertSame(index, ReachabilityIndex.get(repository));
+		assertFalse(index.contains(h));
+
+		ReachabilityIndex updated = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		assertNotSame(index, updated);
+		assertTrue(updated.contains(h));
+		assertTrue(updated.contains(a));
+		assertFalse(updated.contains(g));
+		List<Ref> branches = new ArrayList<Ref>(repository.getRefDatabase()
+				.getRefs(Constants.R_HEADS).values());
+		assertEquals(2, updated.findRefsContaining(f, branches).size());
+		assertEquals(1, updated.findRefsContaining(h, branches).size());
+		assertEquals("refs/tags/v3", updated.findPrecedingTag(h).getName());
+		assertEquals("refs/tags/v3", updated.findFollowingTag(f).getName());
+		assertEquals("refs/tags/v1", updated.findPrecedingTag(b).getName());
+		assertEquals("refs/tags/v2", updated.findFollowingTag(b).getName());
+	}
+
+	@Test
+	public void testRebuiltWhenCommitsAreGone() throws Exception {
+		util.update("refs/heads/other", g);
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		assertTrue(index.contains(g));
+
+		RefUpdate delete = repository.updateRef("refs/heads/other");
+		delete.setForceUpdate(true);
+		assertEquals(RefUpdate.Result.FORCED, delete.delete());
+		repository.fireEvent(new RefsChangedEvent());
+
+		ReachabilityIndex rebuilt = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		assertFalse(rebuilt.contains(g));
+		assertTrue(rebuilt.contains(d));
+	}
+
+	@Test
+	public void testFindRefsContaining() throws Exception {
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+		List<Ref> branches = new ArrayList<Ref>(repository.getRefDatabase()
+				.getRefs(Constants.R_HEADS).values());
+
+		assertEquals(2, index.findRefsContaining(b, branches).size());
+		assertEquals(2, index.findRefsContaining(e, branches).size());
+		List<Ref> containingC = index.findRefsContaining(c, branches);
+		assertEquals(1, containingC.size());
+		assertEquals("refs/heads/master", containingC.get(0).getName());
+		assertEquals(1, index.findRefsContaining(d, branches).size());
+		assertNull(index.findRefsContaining(g, branches));
+	}
+
+	@Test
+	public void testFindNearestTags() throws Exception {
+		ReachabilityIndex index = ReachabilityIndex.build(repository,
+				new NullProgressMonitor());
+
+		assertEquals("refs/tags/v1", index.findPrecedingTag(b).getName());
+		assertEquals("refs/tags/v2", index.findFollowingTag(b).getName());
+		// the tag of the commit itself doesn't count
+		assertEquals("refs/tags/v1", index.findPrecedingTag(c).getName());
+		assertEquals("refs/tags/v3", index.findFollowingTag(c).getName());
+		assertEquals("refs/tags/v1", index.findPrecedingTag(f).getName());
+		assertEquals("refs/tags/v3", index.findFollowingTag(f).getName());
+		assertEquals("refs/tags/v2", index.findPrecedingTag(d).getName());
+		assertNull(index.findFollowingTag(d));
+		assertNull(index.findPrecedingTag(a));
+		assertNull(index.findPrecedingTag(g));
+	}
+}
@@ -12,6 +12,16 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IWorkspaceRoot;
@@ -107,6 +117,61 @@ public void shouldFindRepositoryMappingForRepository() {
 		assertEquals(repository, mapping.getRepository());
 	}
 
+	@Test
+	public void shouldResolveConcurrentlyWhileRemapping() throws Exception {
+		final IFile file = project.createFile("concurrent.txt", new byte[] {});
+		final String expectedPath = project.getProject().getName()
+				+ "/concurrent.txt";
+		final RepositoryMapping initial = RepositoryMapping.getMapping(file);
+		assertNotNull(initial);
+		GitProjectData data = GitProjectData.get(project.getProject());
+		assertNotNull(data);
+
+		int threads = 4;
+		final int lookups = 10000;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int i = 0; i < threads; i++)
+				results.add(executor.submit(new Callable<Integer>() {
+					public Integer call() throws Exception {
+						start.await();
+						int resolved = 0;
+						for (int j = 0; j < lookups; j++) {
+							RepositoryMapping mapping = RepositoryMapping
+									.getMapping(file);
+							// a mapping being remapped may be empty for a
+							// moment, but never inconsistent
+							if (mapping == null)
+								continue;
+							Repository repo = mapping.getRepository();
+							String path = mapping.getRepoRelativePath(file);
+							if (repo != null)
+								assertEquals(repository, repo);
+							if (path != null) {
+								assertEquals(expectedPath, path);
+								resolved++;
+							}
+						}
+						return Integer.valueOf(resolved);
+					}
+				}));
+
+			start.countDown();
+			for (int i = 0; i < 20; i++)
+				data.setRepositoryMappings(Collections.singletonList(initial));
+			int resolved = 0;
+			for (Future<Integer> result : results)
+				resolved += result.get().intValue();
+			assertTrue(resolved > 0);
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(expectedPath,
+				RepositoryMapping.getMapping(file).getRepoRelativePath(file));
+	}
+
 	private IPath getWorkTreePath() {
 		return new Path(repository.getWorkTree().getAbsolutePath());
 	}
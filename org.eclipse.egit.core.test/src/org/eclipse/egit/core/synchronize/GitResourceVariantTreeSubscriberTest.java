@@ -122,6 +122,37 @@ public void testSyncBranchAndMaster() throws Exception {
 		assertVariantMatchCommit(actualRemote, commitMaster);
 	}
 
+	@Test
+	public void testRefreshAfterDestinationMoved() throws Exception {
+		GitSynchronizeData gsd = new GitSynchronizeData(
+				testRepo.getRepository(), MASTER, BRANCH, false);
+		GitResourceVariantTreeSubscriber grvts = new GitResourceVariantTreeSubscriber(
+				new GitSynchronizeDataSet(gsd));
+		grvts.init(new NullProgressMonitor());
+
+		testRepo.checkoutBranch(BRANCH);
+		File otherFile = testRepo.createFile(project.getProject(),
+				"Other.java");
+		RevCommit otherCommit = testRepo.appendContentAndCommit(
+				project.getProject(), otherFile, "class Other {}",
+				"fourth commit");
+		IFile other = testRepo.getIFile(project.getProject(), otherFile);
+		testRepo.checkoutBranch(MASTER);
+
+		// the destination moved, only the paths changed by the new commit
+		// are rescanned
+		gsd.updateRevs();
+		grvts.refresh(new IResource[] { project.getProject().getWorkspace()
+				.getRoot() }, IResource.DEPTH_INFINITE,
+				new NullProgressMonitor());
+
+		assertVariantMatchCommit(getRemoteVariant(grvts, other), otherCommit);
+		assertVariantMatchCommit(getRemoteVariant(grvts, changedFile),
+				otherCommit);
+		assertVariantMatchCommit(getSourceVariant(grvts, changedFile, false),
+				commitMaster);
+	}
+
 	private void assertVariantIsLocal(IResourceVariant variant, IResource local) {
 		assertTrue(variant instanceof GitLocalResourceVariant);
 		assertEquals(local, ((GitLocalResourceVariant) variant).getResource());
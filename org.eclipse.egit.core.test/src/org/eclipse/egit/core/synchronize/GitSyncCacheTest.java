@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.synchronize;
+
+import static org.eclipse.jgit.junit.JGitTestUtil.writeTrashFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.egit.core.synchronize.ThreeWayDiffEntry.ChangeType;
+import org.eclipse.egit.core.synchronize.ThreeWayDiffEntry.Direction;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.junit.LocalDiskRepositoryTestCase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the scan of a repository by {@link GitSyncCache}, which needs no
+ * workspace.
+ */
+public class GitSyncCacheTest extends LocalDiskRepositoryTestCase {
+
+	private Repository db;
+
+	private Git git;
+
+	private RevCommit base;
+
+	private RevCommit remote;
+
+	@Before
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		db = createWorkRepository();
+		git = new Git(db);
+		writeTrashFile(db, "a.txt", "a");
+		writeTrashFile(db, "folder/c.txt", "c");
+		git.add().addFilepattern(".").call();
+		base = git.commit().setMessage("base").call();
+
+		writeTrashFile(db, "a.txt", "remote");
+		writeTrashFile(db, "b.txt", "b");
+		git.add().addFilepattern(".").call();
+		remote = git.commit().setMessage("remote").call();
+
+		git.reset().setRef(base.name()).setMode(ResetType.HARD).call();
+	}
+
+	@Test
+	public void shouldScanCommits() throws Exception {
+		GitSyncObjectCache cache = scan(false, null);
+
+		assertChange(cache, "a.txt", ChangeType.MODIFY, Direction.INCOMING);
+		assertChange(cache, "b.txt", ChangeType.ADD, Direction.INCOMING);
+		assertNull(cache.get("folder/c.txt"));
+	}
+
+	@Test
+	public void shouldScanWorkingTree() throws Exception {
+		writeTrashFile(db, "folder/c.txt", "local");
+
+		GitSyncObjectCache cache = scan(true, null);
+
+		assertChange(cache, "a.txt", ChangeType.MODIFY, Direction.INCOMING);
+		assertChange(cache, "folder/c.txt", ChangeType.MODIFY,
+				Direction.OUTGOING);
+	}
+
+	@Test
+	public void shouldScanFilteredPaths() throws Exception {
+		writeTrashFile(db, "folder/c.txt", "local");
+
+		GitSyncObjectCache cache = scan(true, PathFilter.create("folder"));
+
+		assertNull(cache.get("a.txt"));
+		assertNull(cache.get("b.txt"));
+		assertChange(cache, "folder/c.txt", ChangeType.MODIFY,
+				Direction.OUTGOING);
+	}
+
+	private GitSyncObjectCache scan(boolean includeLocal, PathFilter filter)
+			throws Exception {
+		GitSyncObjectCache cache = new GitSyncObjectCache("",
+				new ThreeWayDiffEntry());
+		GitSyncCache.loadDataFromGit(db, includeLocal, base, base, remote,
+				filter, cache);
+		return cache;
+	}
+
+	private static void assertChange(GitSyncObjectCache cache, String path,
+			ChangeType changeType, Direction direction) {
+		ThreeWayDiffEntry entry = cache.get(path).getDiffEntry();
+		assertEquals(changeType, entry.getChangeType());
+		assertEquals(direction, entry.getDirection());
+	}
+}
@@ -11,10 +11,19 @@
 import static org.eclipse.jgit.junit.JGitTestUtil.deleteTrashFile;
 import static org.eclipse.jgit.junit.JGitTestUtil.writeTrashFile;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
 import java.util.Map;
 
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffCacheEntry;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
 import org.eclipse.egit.core.synchronize.GitCommitsModelCache.Change;
 import org.eclipse.jgit.api.Git;
 import org.junit.Test;
@@ -78,6 +87,52 @@ public void shouldListTwoWorkspaceAdditionsInFolder() throws Exception {
 		assertFileAddition(result, "folder/b.txt", "b.txt");
 	}
 
+	@Test
+	public void shouldListAdditionsFromIndexDiff() throws Exception {
+		// given
+		writeTrashFile(db, "a.txt", "trash");
+		writeTrashFile(db, "folder/b.txt", "trash");
+		IndexDiffCacheEntry entry = Activator.getDefault().getIndexDiffCache()
+				.getIndexDiffCacheEntry(db);
+		Job.getJobManager().join(JobFamilies.INDEX_DIFF_CACHE_UPDATE, null);
+		assertTrue(entry.isUpToDate());
+		IndexDiffData indexDiff = WorkingTreeChangeCache.getIndexDiffData(db);
+		assertNotNull(indexDiff);
+		// not known to the index diff, so it must not be walked
+		writeTrashFile(db, "c.txt", "trash");
+
+		// when
+		Map<String, Change> result = WorkingTreeChangeCache.build(db,
+				indexDiff, Collections.singleton(""));
+
+		// then
+		assertThat(result.size(), is(2));
+		assertFileAddition(result, "a.txt", "a.txt");
+		assertFileAddition(result, "folder/b.txt", "b.txt");
+	}
+
+	@Test
+	public void shouldListAdditionsOutsideProjects() throws Exception {
+		// given
+		writeTrashFile(db, "folder/a.txt", "trash");
+		IndexDiffCacheEntry entry = Activator.getDefault().getIndexDiffCache()
+				.getIndexDiffCacheEntry(db);
+		Job.getJobManager().join(JobFamilies.INDEX_DIFF_CACHE_UPDATE, null);
+		assertTrue(entry.isUpToDate());
+		writeTrashFile(db, "folder/b.txt", "trash");
+		writeTrashFile(db, "other/c.txt", "trash");
+
+		// when
+		Map<String, Change> result = WorkingTreeChangeCache.build(db,
+				entry.getIndexDiff(), Collections.singleton("folder"));
+
+		// then
+		assertThat(result.size(), is(2));
+		assertFileAddition(result, "folder/a.txt", "a.txt");
+		assertFalse(result.containsKey("folder/b.txt"));
+		assertFileAddition(result, "other/c.txt", "c.txt");
+	}
+
 	@Test
 	public void shouldListSingleWorkspaceDeletion() throws Exception {
 		// given
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.egit.core.ContainerTreeIterator;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link ContainerTreeIterator} reports files whose content has to
+ * be checked correctly, also where it hashes them from the file system.
+ */
+public class ContainerTreeIteratorContentTest extends GitTestCase {
+
+	private TestRepository testRepository;
+
+	private Repository repository;
+
+	private IProject iProject;
+
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		repository = testRepository.getRepository();
+		iProject = project.getProject();
+		testRepository.connect(iProject);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	@Test
+	public void testSameLengthModified() throws Exception {
+		IFile modified = testUtils.addFileToProject(iProject,
+				"folder/modified.txt", "aaaa");
+		IFile touched = testUtils.addFileToProject(iProject,
+				"folder/touched.txt", "bbbb");
+		testRepository.addToIndex(modified);
+		testRepository.addToIndex(touched);
+
+		testUtils.changeContentOfFile(iProject, modified, "cccc");
+		setLastModified(modified, 10000);
+		setLastModified(touched, 10000);
+
+		assertEquals(Collections.singleton("Project-1/folder/modified.txt"),
+				getModified());
+	}
+
+	@Test
+	public void testSmudgedModified() throws Exception {
+		IFile smudged = testUtils.addFileToProject(iProject, "smudged.txt",
+				"dddd");
+		IFile unchanged = testUtils.addFileToProject(iProject,
+				"unchanged.txt", "eeee");
+		testRepository.addToIndex(smudged);
+		testRepository.addToIndex(unchanged);
+
+		long lastModified = smudge("Project-1/smudged.txt");
+		smudge("Project-1/unchanged.txt");
+		testUtils.changeContentOfFile(iProject, smudged, "ffff");
+		assertTrue(smudged.getLocation().toFile().setLastModified(
+				lastModified));
+		smudged.refreshLocal(IResource.DEPTH_ZERO, null);
+
+		assertEquals(Collections.singleton("Project-1/smudged.txt"),
+				getModified());
+	}
+
+	@Test
+	public void testSameLengthModifiedWithAttributes() throws Exception {
+		testUtils.addFileToProject(iProject, "folder/.gitattributes",
+				"*.bin binary\n");
+		IFile modified = testUtils.addFileToProject(iProject,
+				"folder/modified.txt", "aaaa");
+		IFile touched = testUtils.addFileToProject(iProject,
+				"other/touched.txt", "bbbb");
+		testRepository.addToIndex(modified);
+		testRepository.addToIndex(touched);
+
+		testUtils.changeContentOfFile(iProject, modified, "cccc");
+		setLastModified(modified, 10000);
+		setLastModified(touched, 10000);
+
+		assertEquals(Collections.singleton("Project-1/folder/modified.txt"),
+				getModified());
+	}
+
+	private void setLastModified(IFile file, long delta) throws CoreException {
+		File location = file.getLocation().toFile();
+		assertTrue(location.setLastModified(location.lastModified() + delta));
+		file.refreshLocal(IResource.DEPTH_ZERO, null);
+	}
+
+	/**
+	 * Smudges the index entry of a path like a racily clean entry
+	 *
+	 * @return the last modification time of the entry before
+	 */
+	private long smudge(String path) throws IOException {
+		DirCache dirCache = repository.lockDirCache();
+		DirCacheEntry entry = dirCache.getEntry(path);
+		long lastModified = entry.getLastModified();
+		entry.smudgeRacilyClean();
+		try {
+			dirCache.write();
+		} catch (IOException e) {
+			dirCache.unlock();
+			throw e;
+		}
+		assertTrue(dirCache.commit());
+		return lastModified;
+	}
+
+	private Set<String> getModified() throws IOException {
+		IndexDiff diff = new IndexDiff(repository, Constants.HEAD,
+				new ContainerTreeIterator(repository, iProject));
+		diff.diff();
+		return new HashSet<String>(diff.getModified());
+	}
+}
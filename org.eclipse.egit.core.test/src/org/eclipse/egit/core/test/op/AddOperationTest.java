@@ -161,4 +161,58 @@ public void testAddFilesInFolder() throws Exception {
 		 assertEquals(file2.getLocalTimeStamp() / 10,
 				 testRepository.lastModifiedInIndex(file2.getLocation().toPortableString()) / 10);
 	}
+
+	@Test
+	public void testAddManyFiles() throws Exception {
+		// more files than one hash chunk, so the bulk path hashes in parallel
+		for (int i = 0; i < 600; i++)
+			resources.add(testUtils.addFileToProject(project.getProject(),
+					"many/f" + i + ".txt", "content " + i));
+
+		new AddToIndexOperation(resources).execute(null);
+
+		for (IResource resource : resources) {
+			String path = resource.getLocation().toPortableString();
+			assertTrue(testRepository.inIndex(path));
+			assertEquals(resource.getLocation().toFile().length(),
+					testRepository.getDirCacheEntryLength(path));
+		}
+	}
+
+	@Test
+	public void testAddFileAndFolder() throws Exception {
+		IFile file1 = testUtils.addFileToProject(project.getProject(), "a.txt",
+				"some text");
+		IFile file2 = testUtils.addFileToProject(project.getProject(),
+				"sub/b.txt", "some text");
+
+		resources.add(file1);
+		resources.add(project.getProject().getFolder("sub"));
+		new AddToIndexOperation(resources).execute(null);
+
+		assertTrue(testRepository.inIndex(file1.getLocation()
+				.toPortableString()));
+		assertTrue(testRepository.inIndex(file2.getLocation()
+				.toPortableString()));
+	}
+
+	@Test
+	public void testAddFilesWithAttributes() throws Exception {
+		IFile file1 = testUtils.addFileToProject(project.getProject(), "a.txt",
+				"some text");
+		testUtils.addFileToProject(project.getProject(), "sub/.gitattributes",
+				"*.txt text\n");
+		IFile file2 = testUtils.addFileToProject(project.getProject(),
+				"sub/b.txt", "some text");
+
+		// a.txt is hashed directly, sub/b.txt is left to AddCommand
+		resources.add(file1);
+		resources.add(file2);
+		new AddToIndexOperation(resources).execute(null);
+
+		assertTrue(testRepository.inIndex(file1.getLocation()
+				.toPortableString()));
+		assertTrue(testRepository.inIndex(file2.getLocation()
+				.toPortableString()));
+	}
 }
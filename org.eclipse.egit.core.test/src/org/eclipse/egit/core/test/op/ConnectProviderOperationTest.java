@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.egit.core.test.op;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -18,9 +19,12 @@
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.jobs.Job;
@@ -31,7 +35,9 @@
 import org.eclipse.egit.core.JobFamilies;
 import org.eclipse.egit.core.RepositoryUtil;
 import org.eclipse.egit.core.op.ConnectProviderOperation;
+import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestProject;
 import org.eclipse.egit.core.test.TestRepository;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
@@ -73,6 +79,33 @@ public void testNewRepository() throws CoreException, IOException {
 		assertTrue(gitDir.exists());
 	}
 
+	@Test
+	public void testConnectSeveralProjects() throws Exception {
+		Repository repository = FileRepositoryBuilder.create(gitDir);
+		repository.create();
+		repository.close();
+		TestProject project2 = new TestProject(true, "Project-2");
+		TestProject project3 = new TestProject(true, "Project-3");
+		try {
+			Map<IProject, File> projects = new LinkedHashMap<IProject, File>();
+			projects.put(project.getProject(), gitDir);
+			projects.put(project2.getProject(), gitDir);
+			projects.put(project3.getProject(), gitDir);
+			new ConnectProviderOperation(projects).execute(null);
+
+			for (IProject p : projects.keySet()) {
+				assertTrue(RepositoryProvider.isShared(p));
+				RepositoryMapping mapping = RepositoryMapping.getMapping(p);
+				assertNotNull(mapping);
+				assertEquals(gitDir.getAbsoluteFile(), mapping
+						.getRepository().getDirectory().getAbsoluteFile());
+			}
+		} finally {
+			project2.dispose();
+			project3.dispose();
+		}
+	}
+
 	@Test
 	public void testAutoIgnoresDerivedFolder() throws Exception {
 		// enable auto-ignore
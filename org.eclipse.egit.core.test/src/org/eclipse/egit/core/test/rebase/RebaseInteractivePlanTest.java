@@ -13,9 +13,12 @@
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -23,9 +26,12 @@
 import java.util.ListIterator;
 
 import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan;
+import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.ElementAction;
+import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.ElementType;
 import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.JoinedList;
 import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.MoveHelper;
 import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.PlanElement;
+import org.eclipse.egit.core.internal.rebase.RebaseInteractivePlan.RebaseInteractivePlanChangeListener;
 import org.eclipse.egit.core.test.GitTestCase;
 import org.eclipse.egit.core.test.TestRepository;
 import org.eclipse.jgit.lib.Constants;
@@ -159,6 +165,74 @@ public void moveDownTestThreeElementsWithOneComment() throws Exception {
 		assertEquals(element1, toDoElements.get(2));
 	}
 
+	@Test
+	public void processedStepsKeepElements() throws Exception {
+		File rebaseDir = new File(gitDir, "rebase-merge");
+		assertTrue(rebaseDir.mkdirs());
+		write(new File(rebaseDir, "interactive"), "");
+		write(new File(rebaseDir, "git-rebase-todo"),
+				"# comment\npick 1234567 first\npick 89abcde second\n");
+		write(new File(rebaseDir, "done"), "");
+		plan.parse();
+		List<PlanElement> elements = new ArrayList<PlanElement>(plan.getList());
+		assertEquals(3, elements.size());
+
+		final List<PlanElement> processed = new ArrayList<PlanElement>();
+		final int[] updates = new int[1];
+		plan.addRebaseInteractivePlanChangeListener(new RebaseInteractivePlanChangeListener() {
+			public void planElementsOrderChanged(
+					RebaseInteractivePlan rebaseInteractivePlan,
+					PlanElement element, int oldIndex, int newIndex) {
+				// not tested
+			}
+
+			public void planElementTypeChanged(
+					RebaseInteractivePlan rebaseInteractivePlan,
+					PlanElement element, ElementAction oldType,
+					ElementAction newType) {
+				// not tested
+			}
+
+			public void planWasUpdatedFromRepository(RebaseInteractivePlan p) {
+				updates[0]++;
+			}
+
+			public void planElementsProcessed(RebaseInteractivePlan p,
+					List<PlanElement> processedElements) {
+				processed.addAll(processedElements);
+			}
+		});
+		// unchanged files are not read again
+		plan.parse();
+		assertEquals(0, updates[0]);
+		assertTrue(processed.isEmpty());
+
+		// the rebase takes the first step
+		write(new File(rebaseDir, "git-rebase-todo"),
+				"# comment\npick 89abcde second\n");
+		write(new File(rebaseDir, "done"), "pick 1234567 first\n");
+		plan.parse();
+		assertEquals(0, updates[0]);
+		assertEquals(Arrays.asList(elements.get(1)), processed);
+		assertSame(elements.get(1), plan.getList().get(0));
+		assertSame(elements.get(0), plan.getList().get(1));
+		assertSame(elements.get(2), plan.getList().get(2));
+		assertEquals(ElementType.DONE_CURRENT,
+				elements.get(1).getElementType());
+
+		// the plan is edited outside
+		write(new File(rebaseDir, "git-rebase-todo"),
+				"# comment\nedit 89abcde second\n");
+		plan.parse();
+		assertEquals(1, updates[0]);
+		assertEquals(ElementAction.EDIT,
+				plan.getList().get(2).getPlanElementAction());
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Files.write(file.toPath(), content.getBytes("UTF-8"));
+	}
+
 	public static class JoinedListTest {
 		private RebaseInteractivePlan.JoinedList<List<Integer>, Integer> joined;
 
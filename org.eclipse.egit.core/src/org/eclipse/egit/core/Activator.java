@@ -48,6 +48,7 @@
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffCache;
 import org.eclipse.egit.core.internal.job.JobUtil;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.trace.GitTraceLocation;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
 import org.eclipse.egit.core.op.ConnectProviderOperation;
@@ -80,6 +81,7 @@ public class Activator extends Plugin implements DebugOptionsListener {
 	private AutoShareProjects shareGitProjectsJob;
 	private IResourceChangeListener preDeleteProjectListener;
 	private IgnoreDerivedResources ignoreDerivedResourcesListener;
+	private IndexEditBatch indexEditBatch;
 	private MergeStrategyRegistryListener mergeStrategyRegistryListener;
 
 	/**
@@ -174,6 +176,8 @@ public void start(final BundleContext context) throws Exception {
 		context.registerService(DebugOptionsListener.class.getName(), this,
 				props);
 
+		GitMetrics.registerMBean();
+
 		repositoryCache = new RepositoryCache();
 		indexDiffCache = new IndexDiffCache();
 		try {
@@ -191,6 +195,7 @@ public void start(final BundleContext context) throws Exception {
 		registerAutoIgnoreDerivedResources();
 		registerPreDeleteResourceChangeListener();
 		registerMergeStrategyRegistryListener();
+		registerIndexEditBatch();
 	}
 
 	private void registerPreDeleteResourceChangeListener() {
@@ -306,9 +311,25 @@ public EGitSecureStore getSecureStore() {
 		return secureStore;
 	}
 
+	/**
+	 * @return the batch collecting the index updates of move/delete hooks
+	 */
+	IndexEditBatch getIndexEditBatch() {
+		return indexEditBatch;
+	}
+
 	public void stop(final BundleContext context) throws Exception {
+		if (indexEditBatch != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					indexEditBatch);
+			IStatus status = indexEditBatch.flush();
+			if (!status.isOK())
+				getLog().log(status);
+			indexEditBatch = null;
+		}
 		GitProjectData.detachFromWorkspace();
 		repositoryCache = null;
+		GitMetrics.unregisterMBean();
 		indexDiffCache.dispose();
 		indexDiffCache = null;
 		repositoryUtil.dispose();
@@ -332,6 +353,12 @@ public void stop(final BundleContext context) throws Exception {
 		}
 	}
 
+	private void registerIndexEditBatch() {
+		indexEditBatch = new IndexEditBatch();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				indexEditBatch, IResourceChangeEvent.POST_CHANGE);
+	}
+
 	private void registerAutoShareProjects() {
 		shareGitProjectsJob = new AutoShareProjects();
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(
@@ -442,10 +469,11 @@ protected IStatus run(IProgressMonitor monitor) {
 			}
 
 			final Map<IProject, File> projects = new HashMap<IProject, File>();
+			Map<File, File> gitDirCache = new HashMap<File, File>();
 			for (IProject project : projectsToCheck) {
 				if (project.isAccessible()) {
 					try {
-						visitConnect(project, projects);
+						visitConnect(project, projects, gitDirCache);
 					} catch (CoreException e) {
 						logError(e.getMessage(), e);
 					}
@@ -465,7 +493,8 @@ protected IStatus run(IProgressMonitor monitor) {
 		}
 
 		private void visitConnect(IProject project,
-				final Map<IProject, File> projects) throws CoreException {
+				final Map<IProject, File> projects,
+				Map<File, File> gitDirCache) throws CoreException {
 
 			if (RepositoryMapping.getMapping(project) != null) {
 				return;
@@ -479,6 +508,7 @@ private void visitConnect(IProject project,
 			}
 			RepositoryFinder f = new RepositoryFinder(project);
 			f.setFindInChildren(false);
+			f.setGitDirCache(gitDirCache);
 			Collection<RepositoryMapping> mappings = f.find(new NullProgressMonitor());
 			if (mappings.size() != 1) {
 				return;
@@ -11,6 +11,7 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
@@ -29,6 +30,11 @@
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.util.ContentConversionCheck;
+import org.eclipse.egit.core.internal.util.ContentIdHasher;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
@@ -37,9 +43,11 @@
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.FileTreeIterator.FileEntry;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.WorkingTreeIterator;
 import org.eclipse.jgit.treewalk.WorkingTreeOptions;
 import org.eclipse.jgit.util.FS;
+import org.eclipse.jgit.util.RawParseUtils;
 
 /**
  * Adapts an Eclipse {@link IContainer} for use in a <code>TreeWalk</code>.
@@ -54,6 +62,13 @@
  * requires the user refresh their workspace when external modifications take
  * place. This is not really a concern as it is common practice to need to do a
  * workspace refresh after externally modifying a file.
+ * <p>
+ * If no line ending conversion, attribute or filter applies to the files of
+ * a container (see {@link ContentConversionCheck}), the content ids of files
+ * whose metadata doesn't match the index are computed by a
+ * {@link ContentIdHasher} directly from the file system, and the ids of the
+ * other files of the same container which will need a content check are
+ * computed in the background ahead of the walk.
  *
  * @see org.eclipse.jgit.treewalk.TreeWalk
  */
@@ -73,6 +88,19 @@ private static String computePrefix(final Repository repository,
 
 	private final IContainer node;
 
+	private final Entry[] members;
+
+	private final ContentIdState contentIds;
+
+	private boolean prefetched;
+
+	/** whether the ids of the files may be hashed directly, lazily set */
+	private Boolean hashDirectly;
+
+	private Entry hashedEntry;
+
+	private byte[] hashedId;
+
 	/**
 	 * Construct a new iterator from a container in the workspace.
 	 * <p>
@@ -91,8 +119,10 @@ public ContainerTreeIterator(final Repository repository, final IContainer base)
 		super(computePrefix(repository, base), repository.getConfig().get(
 				WorkingTreeOptions.KEY));
 		node = base;
-		init(entries(false));
+		members = entries(false);
+		init(members);
 		initRootIterator(repository);
+		contentIds = createContentIdState(repository);
 	}
 
 	/**
@@ -111,8 +141,10 @@ public ContainerTreeIterator(final Repository repository, final IContainer base)
 	public ContainerTreeIterator(final Repository repository, final IWorkspaceRoot root) {
 		super("", repository.getConfig().get(WorkingTreeOptions.KEY));  //$NON-NLS-1$
 		node = root;
-		init(entries(false));
+		members = entries(false);
+		init(members);
 		initRootIterator(repository);
+		contentIds = createContentIdState(repository);
 	}
 
 	/**
@@ -139,7 +171,152 @@ private ContainerTreeIterator(final WorkingTreeIterator p,
 			final IContainer base, final boolean hasInheritedResourceFilters) {
 		super(p);
 		node = base;
-		init(entries(hasInheritedResourceFilters));
+		members = entries(hasInheritedResourceFilters);
+		init(members);
+		if (p instanceof ContainerTreeIterator)
+			contentIds = ((ContainerTreeIterator) p).contentIds;
+		else
+			contentIds = null;
+	}
+
+	private static ContentIdState createContentIdState(Repository repository) {
+		// the hasher doesn't convert the content
+		ContentConversionCheck conversions = new ContentConversionCheck(
+				repository);
+		if (conversions.appliesEverywhere())
+			return null;
+		return new ContentIdState(repository, conversions);
+	}
+
+	@Override
+	public void setDirCacheIterator(TreeWalk walk, int treeId) {
+		super.setDirCacheIterator(walk, treeId);
+		if (contentIds != null) {
+			contentIds.walk = walk;
+			contentIds.dirCacheTree = treeId;
+		}
+	}
+
+	@Override
+	public byte[] idBuffer() {
+		Entry entry = current();
+		if (entry == hashedEntry)
+			return hashedId;
+		File file = getRegularFile(entry);
+		if (file == null || isClean())
+			return super.idBuffer();
+		prefetch();
+		try {
+			byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+			contentIds.hasher.getId(file).copyRawTo(id, 0);
+			hashedEntry = entry;
+			hashedId = id;
+			return id;
+		} catch (IOException e) {
+			// let JGit handle the file
+			return super.idBuffer();
+		}
+	}
+
+	@Override
+	public int idOffset() {
+		if (current() == hashedEntry)
+			return 0;
+		return super.idOffset();
+	}
+
+	/**
+	 * @param entry
+	 * @return the file of the entry if its id may be computed by the
+	 *         {@link ContentIdHasher}, <code>null</code> otherwise
+	 */
+	private File getRegularFile(Entry entry) {
+		if (!canHashDirectly())
+			return null;
+		FileMode entryMode = entry.getMode();
+		if (entryMode != FileMode.REGULAR_FILE
+				&& entryMode != FileMode.EXECUTABLE_FILE)
+			return null;
+		if (entry instanceof ResourceEntry)
+			return ((ResourceEntry) entry).asFile();
+		if (entry instanceof FileEntry)
+			return ((FileEntry) entry).getFile();
+		return null;
+	}
+
+	/**
+	 * @return whether no conversion applies to the files of this container
+	 */
+	private boolean canHashDirectly() {
+		if (contentIds == null)
+			return false;
+		if (hashDirectly == null) {
+			String directory = RawParseUtils.decode(Constants.CHARSET, path,
+					0, pathOffset);
+			if (directory.endsWith("/")) //$NON-NLS-1$
+				directory = directory.substring(0, directory.length() - 1);
+			hashDirectly = Boolean.valueOf(!contentIds.conversions
+					.mayApplyInDirectory(directory));
+		}
+		return hashDirectly.booleanValue();
+	}
+
+	/**
+	 * @return whether the id of the current entry will be taken from the index
+	 */
+	private boolean isClean() {
+		if (contentIds.walk == null)
+			return false;
+		DirCacheIterator i = contentIds.walk.getTree(contentIds.dirCacheTree,
+				DirCacheIterator.class);
+		if (i == null)
+			return false;
+		DirCacheEntry entry = i.getDirCacheEntry();
+		return entry != null && compareMetadata(entry) == MetadataDiff.EQUAL;
+	}
+
+	/**
+	 * Starts hashing the files after the current entry which will need a
+	 * content check, once per container
+	 */
+	private void prefetch() {
+		if (prefetched)
+			return;
+		prefetched = true;
+		if (contentIds.walk == null)
+			return;
+		DirCache dirCache = contentIds.getDirCache();
+		if (dirCache == null)
+			return;
+		String prefix = RawParseUtils.decode(Constants.CHARSET, path, 0,
+				pathOffset);
+		Entry current = current();
+		boolean ahead = false;
+		for (Entry entry : members) {
+			if (!ahead) {
+				ahead = entry == current;
+				continue;
+			}
+			File file = getRegularFile(entry);
+			if (file == null)
+				continue;
+			DirCacheEntry cached = dirCache.getEntry(prefix + entry.getName());
+			if (cached != null && needsContentCheck(cached, entry))
+				contentIds.hasher.prefetch(file);
+		}
+	}
+
+	/**
+	 * Approximates the decision of
+	 * {@link WorkingTreeIterator#isModified(DirCacheEntry, boolean, ObjectReader)}
+	 * whether the content of a file has to be compared with the index
+	 */
+	private static boolean needsContentCheck(DirCacheEntry cached, Entry entry) {
+		if (cached.isAssumeValid() || cached.getStage() != DirCacheEntry.STAGE_0
+				|| cached.getLength() != (int) entry.getLength())
+			return false;
+		return cached.isSmudged()
+				|| cached.getLastModified() != entry.getLastModified();
 	}
 
 	@Override
@@ -385,7 +562,11 @@ public InputStream openInputStream() throws IOException {
 				return new ByteArrayInputStream(FS.DETECTED.readSymLink(file)
 						.getBytes(Constants.CHARACTER_ENCODING));
 			} else {
-				if (rsrc.getType() == IResource.FILE)
+				if (rsrc.getType() == IResource.FILE) {
+					// read local files directly, without the workspace layer
+					File file = asFile();
+					if (file != null)
+						return new FileInputStream(file);
 					try {
 						return ((IFile) rsrc).getContents(true);
 					} catch (CoreException err) {
@@ -393,6 +574,7 @@ public InputStream openInputStream() throws IOException {
 						ioe.initCause(err);
 						throw ioe;
 					}
+				}
 			}
 			throw new IOException("Not a regular file: " + rsrc);  //$NON-NLS-1$
 		}
@@ -414,6 +596,48 @@ private File asFile() {
 		}
 	}
 
+	/**
+	 * State shared by the iterators of one walk for computing content ids
+	 */
+	private static class ContentIdState {
+
+		final Repository repository;
+
+		final ContentConversionCheck conversions;
+
+		final ContentIdHasher hasher = new ContentIdHasher();
+
+		TreeWalk walk;
+
+		int dirCacheTree;
+
+		private DirCache dirCache;
+
+		private boolean dirCacheRead;
+
+		ContentIdState(Repository repository,
+				ContentConversionCheck conversions) {
+			this.repository = repository;
+			this.conversions = conversions;
+		}
+
+		/**
+		 * @return the index, read once per walk, or <code>null</code> if it
+		 *         can't be read
+		 */
+		DirCache getDirCache() {
+			if (!dirCacheRead) {
+				dirCacheRead = true;
+				try {
+					dirCache = repository.readDirCache();
+				} catch (IOException e) {
+					// no prefetching then
+				}
+			}
+			return dirCache;
+		}
+	}
+
 	private static File asFile(IResource resource) {
 		final IPath location = resource.getLocation();
 		return location != null ? location.toFile() : null;
@@ -38,11 +38,9 @@
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
 import org.eclipse.egit.core.project.GitProjectData;
 import org.eclipse.egit.core.project.RepositoryMapping;
-import org.eclipse.jgit.dircache.DirCache;
-import org.eclipse.jgit.dircache.DirCacheBuilder;
-import org.eclipse.jgit.dircache.DirCacheEditor;
 import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.errors.LockFailedException;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.TeamException;
 
@@ -92,24 +90,16 @@ public boolean deleteFile(final IResourceTree tree, final IFile file,
 		if (file.isDerived())
 			return false;
 
-		DirCache dirc = null;
+		final Repository repository = map.getRepository();
+		final IndexEditBatch batch = getIndexEditBatch();
 		try {
-			dirc = map.getRepository().lockDirCache();
-			final int first = dirc.findEntry(repoRelativePath);
-			if (first < 0) {
-				dirc.unlock();
+			if (batch.getEntry(repository, repoRelativePath) == null) {
+				batch.releaseUnused(repository);
 				return false;
 			}
-
-			final DirCacheBuilder edit = dirc.builder();
-			if (first > 0)
-				edit.keep(0, first);
-			final int next = dirc.nextEntry(first);
-			if (next < dirc.getEntryCount())
-				edit.keep(next, dirc.getEntryCount() - next);
-			if (!edit.commit())
-				tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(),
-						0, CoreText.MoveDeleteHook_operationError, null));
+			batch.delete(repository, repoRelativePath);
+			if (!writeUnbatched(tree, batch))
+				return true;
 			tree.standardDeleteFile(file, updateFlags, monitor);
 		} catch (LockFailedException e) {
 			// FIXME The index is currently locked. This notably happens during
@@ -133,9 +123,6 @@ public boolean deleteFile(final IResourceTree tree, final IFile file,
 		} catch (IOException e) {
 			tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(), 0,
 					CoreText.MoveDeleteHook_operationError, e));
-		} finally {
-			if (dirc != null)
-				dirc.unlock();
 		}
 		return true;
 	}
@@ -172,42 +159,36 @@ public boolean moveFile(final IResourceTree tree, final IFile srcf,
 			return false;
 		final RepositoryMapping dstm = RepositoryMapping.getMapping(dstf);
 
-		DirCache sCache = null;
+		final Repository repository = srcm.getRepository();
+		final IndexEditBatch batch = getIndexEditBatch();
 		try {
-			sCache = srcm.getRepository().lockDirCache();
 			final String sPath = srcm.getRepoRelativePath(srcf);
-			final DirCacheEntry sEnt = sCache.getEntry(sPath);
-			if (sEnt == null)
+			final DirCacheEntry sEnt = batch.getEntry(repository, sPath);
+			if (sEnt == null) {
+				batch.releaseUnused(repository);
 				return FINISH_FOR_ME;
+			}
 
 			if (!sEnt.isMerged()) {
+				batch.releaseUnused(repository);
 				tree.failed(new Status(IStatus.WARNING, Activator.getPluginId(),
 						CoreText.MoveDeleteHook_unmergedFileError));
 				return I_AM_DONE;
 			}
 
-			final DirCacheEditor sEdit = sCache.editor();
-			sEdit.add(new DirCacheEditor.DeletePath(sEnt));
-			if (dstm != null && dstm.getRepository() == srcm.getRepository()) {
-				final String dPath = srcm.getRepoRelativePath(dstf);
-				sEdit.add(new DirCacheEditor.PathEdit(dPath) {
-					@Override
-					public void apply(final DirCacheEntry dEnt) {
-						dEnt.copyMetaData(sEnt);
-					}
-				});
-			}
-			if (!sEdit.commit())
-				tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(),
-						0, CoreText.MoveDeleteHook_operationError, null));
+			if (dstm != null && dstm.getRepository() == repository)
+				batch.move(repository, sEnt, srcm.getRepoRelativePath(dstf));
+			else
+				batch.delete(repository, sPath);
+			if (!writeUnbatched(tree, batch))
+				return I_AM_DONE;
 
 			tree.standardMoveFile(srcf, dstf, updateFlags, monitor);
+		} catch (LockFailedException e) {
+			return cannotUpdateIndex(tree, repository);
 		} catch (IOException e) {
 			tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(), 0,
 					CoreText.MoveDeleteHook_operationError, e));
-		} finally {
-			if (sCache != null)
-				sCache.unlock();
 		}
 		return I_AM_DONE;
 	}
@@ -229,7 +210,8 @@ public boolean moveFolder(final IResourceTree tree, final IFolder srcf,
 			if (dstm != null && dstm.getRepository() == srcm.getRepository()) {
 				final String dPath =
 					srcm.getRepoRelativePath(dstf) + "/"; //$NON-NLS-1$
-				MoveResult result = moveIndexContent(dPath, srcm, sPath);
+				MoveResult result = moveIndexContent(getIndexEditBatch(),
+						dPath, srcm, sPath);
 				switch (result) {
 				case SUCCESS:
 					break;
@@ -247,6 +229,8 @@ public boolean moveFolder(final IResourceTree tree, final IFolder srcf,
 				}
 			}
 			tree.standardMoveFolder(srcf, dstf, updateFlags, monitor);
+		} catch (LockFailedException e) {
+			return cannotUpdateIndex(tree, srcm.getRepository());
 		} catch (IOException e) {
 			tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(), 0,
 					CoreText.MoveDeleteHook_operationError, e));
@@ -345,14 +329,19 @@ private boolean moveProjectHelperMoveOnlyProject(final IResourceTree tree,
 			dPath = new Path(
 					newLocationAbsolutePath.substring(absoluteWorkTreePath
 							.length() + 1) + "/").toPortableString(); //$NON-NLS-1$
+		final IndexEditBatch batch = getIndexEditBatch();
 		try {
+			// refuse the move before the project is disconnected
+			batch.lockIndex(srcm.getRepository());
 			IPath gitDir = srcm.getGitDirAbsolutePath();
-			if (unmapProject(tree, source))
+			if (unmapProject(tree, source)) {
+				batch.releaseUnused(srcm.getRepository());
 				return true;
+			}
 
 			monitor.worked(100);
 
-			MoveResult result = moveIndexContent(dPath, srcm, sPath);
+			MoveResult result = moveIndexContent(batch, dPath, srcm, sPath);
 			switch (result) {
 			case SUCCESS:
 				break;
@@ -378,6 +367,8 @@ private boolean moveProjectHelperMoveOnlyProject(final IResourceTree tree,
 					source.getWorkspace().getRoot()
 							.getProject(description.getName()),
 					description, monitor, gitDir);
+		} catch (LockFailedException e) {
+			return cannotUpdateIndex(tree, srcm.getRepository());
 		} catch (IOException e) {
 			tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(),
 					0, CoreText.MoveDeleteHook_operationError, e));
@@ -420,40 +411,79 @@ private boolean moveProjectHelperMoveRepo(final IResourceTree tree, final IProje
 
 	enum MoveResult { SUCCESS, FAILED, UNTRACKED, UNMERGED }
 
-	private MoveResult moveIndexContent(String dPath,
-			final RepositoryMapping srcm, final String sPath) throws IOException {
+	private MoveResult moveIndexContent(final IndexEditBatch batch,
+			String dPath, final RepositoryMapping srcm, final String sPath)
+			throws IOException {
+		final Repository repository = srcm.getRepository();
+		final DirCacheEntry[] sEnt = batch.getEntriesWithin(repository, sPath);
+		if (sEnt.length == 0) {
+			batch.releaseUnused(repository);
+			return MoveResult.UNTRACKED;
+		}
 
-		final DirCache sCache = srcm.getRepository().lockDirCache();
-		try {
-			final DirCacheEntry[] sEnt = sCache.getEntriesWithin(sPath);
-			if (sEnt.length == 0) {
-				sCache.unlock();
-				return MoveResult.UNTRACKED;
+		for (final DirCacheEntry se : sEnt)
+			if (!se.isMerged()) {
+				batch.releaseUnused(repository);
+				return MoveResult.UNMERGED;
 			}
+		batch.moveTree(repository, sPath, sEnt, dPath);
+		if (isUnbatched(batch) && !batch.flush().isOK())
+			return MoveResult.FAILED;
+		return MoveResult.SUCCESS;
+	}
 
-			final DirCacheEditor sEdit = sCache.editor();
-			sEdit.add(new DirCacheEditor.DeleteTree(sPath));
-			final int sPathLen = sPath.length() == 0 ? sPath.length() : sPath
-					.length() + 1;
-			for (final DirCacheEntry se : sEnt) {
-				if (!se.isMerged())
-					return MoveResult.UNMERGED;
-				final String p = se.getPathString().substring(sPathLen);
-				sEdit.add(new DirCacheEditor.PathEdit(dPath + p) {
-					@Override
-					public void apply(final DirCacheEntry dEnt) {
-						dEnt.copyMetaData(se);
-					}
-				});
-			}
-			if (sEdit.commit())
-				return MoveResult.SUCCESS;
-			else
-				return MoveResult.FAILED;
-		} finally {
-			if (sCache != null)
-				sCache.unlock();
-		}
+	/**
+	 * @return the batch collecting the index edits of the current workspace
+	 *         operation, or a new batch which has to be written right away if
+	 *         the plug-in is shutting down
+	 */
+	private static IndexEditBatch getIndexEditBatch() {
+		Activator activator = Activator.getDefault();
+		IndexEditBatch batch = activator != null ? activator
+				.getIndexEditBatch() : null;
+		return batch != null ? batch : new IndexEditBatch();
+	}
+
+	private static boolean isUnbatched(IndexEditBatch batch) {
+		Activator activator = Activator.getDefault();
+		return activator == null || activator.getIndexEditBatch() != batch;
+	}
+
+	/**
+	 * Writes the edits of a batch which isn't written at the end of the
+	 * workspace operation
+	 *
+	 * @param tree
+	 * @param batch
+	 * @return <code>false</code> if the edits could not be written, which
+	 *         has been reported to the tree
+	 */
+	private static boolean writeUnbatched(IResourceTree tree,
+			IndexEditBatch batch) {
+		if (!isUnbatched(batch))
+			return true;
+		IStatus status = batch.flush();
+		if (status.isOK())
+			return true;
+		tree.failed(status);
+		return false;
+	}
+
+	/**
+	 * The index edits are only written after the resources have been moved,
+	 * so refuse to move them if someone else holds the lock of the index
+	 *
+	 * @param tree
+	 * @param repository
+	 * @return {@link #I_AM_DONE}
+	 */
+	private static boolean cannotUpdateIndex(IResourceTree tree,
+			Repository repository) {
+		tree.failed(new Status(IStatus.ERROR, Activator.getPluginId(),
+				MessageFormat.format(
+						CoreText.MoveDeleteHook_cannotAutoStageChanges,
+						repository.getDirectory())));
+		return I_AM_DONE;
 	}
 
 	private boolean cannotModifyRepository(final IResourceTree tree) {
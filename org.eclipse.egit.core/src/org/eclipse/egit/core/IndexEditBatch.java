@@ -0,0 +1,456 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEditor.DeletePath;
+import org.eclipse.jgit.dircache.DirCacheEditor.DeleteTree;
+import org.eclipse.jgit.dircache.DirCacheEditor.PathEdit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.errors.LockFailedException;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Collects the index updates of the {@link GitMoveDeleteHook} and applies
+ * them when the workspace operation which moved or deleted the resources has
+ * finished.
+ * <p>
+ * Without batching every moved or deleted file locks, reads and writes the
+ * complete index, which makes refactorings touching hundreds of files
+ * needlessly slow. Here the edits are recorded per repository and written
+ * with a single lock/write cycle on the next {@link IResourceChangeEvent#POST_CHANGE}
+ * event, which the workspace sends at the end of the outermost operation.
+ * <p>
+ * The index of a repository is locked by the first lookup of an operation and
+ * stays locked until the edits have been written, so no other process can
+ * change it in between. If the index is already locked the lookup fails with a
+ * {@link LockFailedException} and the hook refuses to update it, like it did
+ * when it locked the index for every file. The hook needs to see the effect of
+ * earlier edits of the same operation (e.g. a file moved twice), so lookups
+ * are answered from the locked index with the pending edits applied in
+ * memory. Edits which don't touch overlapping paths are grouped and applied
+ * with one {@link DirCacheEditor}.
+ * <p>
+ * The files have already been moved when the edits are written, so edits
+ * which cannot be written are kept and retried by a job for a while. If they
+ * still fail the job reports the problem to the user and drops the edits of
+ * the repositories which failed.
+ */
+class IndexEditBatch implements IResourceChangeListener {
+
+	private static final int MAX_WRITE_ATTEMPTS = 5;
+
+	private static final long RETRY_DELAY = 1000;
+
+	// guarded by this
+	private final Map<Repository, PendingEdits> pending = new HashMap<Repository, PendingEdits>();
+
+	private final WriteJob writeJob = new WriteJob();
+
+	/**
+	 * Locks the index of the repository until the pending edits have been
+	 * written
+	 *
+	 * @param repository
+	 * @throws LockFailedException
+	 *             if someone else holds the lock of the index
+	 * @throws IOException
+	 */
+	synchronized void lockIndex(Repository repository) throws IOException {
+		getPendingEdits(repository);
+	}
+
+	/**
+	 * Releases the lock of the index of the repository if no edits are
+	 * pending for it
+	 *
+	 * @param repository
+	 */
+	synchronized void releaseUnused(Repository repository) {
+		PendingEdits edits = pending.get(repository);
+		if (edits != null && edits.groups.isEmpty()) {
+			pending.remove(repository);
+			edits.unlock();
+		}
+	}
+
+	/**
+	 * @param repository
+	 * @param path
+	 *            repository relative path
+	 * @return the index entry of the path including the pending edits, or
+	 *         <code>null</code> if the path is not in the index
+	 * @throws LockFailedException
+	 *             if someone else holds the lock of the index
+	 * @throws IOException
+	 */
+	synchronized DirCacheEntry getEntry(Repository repository, String path)
+			throws IOException {
+		return getPendingEdits(repository).lookup(path).getEntry(path);
+	}
+
+	/**
+	 * @param repository
+	 * @param path
+	 *            repository relative path of a folder
+	 * @return the index entries below the folder including the pending edits
+	 * @throws LockFailedException
+	 *             if someone else holds the lock of the index
+	 * @throws IOException
+	 */
+	synchronized DirCacheEntry[] getEntriesWithin(Repository repository,
+			String path) throws IOException {
+		return getPendingEdits(repository).lookup(path).getEntriesWithin(path);
+	}
+
+	/**
+	 * Removes a path from the index
+	 *
+	 * @param repository
+	 * @param path
+	 * @throws IOException
+	 */
+	synchronized void delete(Repository repository, String path)
+			throws IOException {
+		List<PathEdit> edits = new ArrayList<PathEdit>(1);
+		edits.add(new DeletePath(path));
+		getPendingEdits(repository).add(edits, path);
+	}
+
+	/**
+	 * Moves an index entry to a new path, keeping its staged content
+	 *
+	 * @param repository
+	 * @param source
+	 *            the entry to move as returned by {@link #getEntry}
+	 * @param destination
+	 *            the new repository relative path
+	 * @throws IOException
+	 */
+	synchronized void move(Repository repository, DirCacheEntry source,
+			String destination) throws IOException {
+		List<PathEdit> edits = new ArrayList<PathEdit>(2);
+		edits.add(new DeletePath(source.getPathString()));
+		edits.add(new CopyEntry(destination, source));
+		getPendingEdits(repository).add(edits, source.getPathString(),
+				destination);
+	}
+
+	/**
+	 * Moves all index entries below a folder to a new folder
+	 *
+	 * @param repository
+	 * @param source
+	 *            repository relative path of the source folder
+	 * @param entries
+	 *            the entries to move as returned by {@link #getEntriesWithin}
+	 * @param destination
+	 *            repository relative path of the destination folder, ending
+	 *            with a slash unless it is the root of the working tree
+	 * @throws IOException
+	 */
+	synchronized void moveTree(Repository repository, String source,
+			DirCacheEntry[] entries, String destination) throws IOException {
+		List<PathEdit> edits = new ArrayList<PathEdit>(entries.length + 1);
+		edits.add(new DeleteTree(source));
+		int sourceLength = source.length() == 0 ? 0 : source.length() + 1;
+		for (DirCacheEntry entry : entries)
+			edits.add(new CopyEntry(destination
+					+ entry.getPathString().substring(sourceLength), entry));
+		String destinationTree = destination.endsWith("/") ? destination //$NON-NLS-1$
+				.substring(0, destination.length() - 1) : destination;
+		getPendingEdits(repository).add(edits, source, destinationTree);
+	}
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (!flush().isOK())
+			writeJob.schedule(RETRY_DELAY);
+	}
+
+	/**
+	 * Writes all pending edits to the indexes of their repositories and
+	 * releases their locks. Edits which could not be written stay pending.
+	 *
+	 * @return the result of writing the edits
+	 */
+	IStatus flush() {
+		return flush(null);
+	}
+
+	/**
+	 * @param failed
+	 *            receives the repositories whose edits could not be written,
+	 *            may be <code>null</code>
+	 * @return the result of writing the edits
+	 */
+	private synchronized IStatus flush(Collection<Repository> failed) {
+		if (pending.isEmpty())
+			return Status.OK_STATUS;
+		MultiStatus result = new MultiStatus(Activator.getPluginId(), 0,
+				CoreText.IndexEditBatch_writeFailed, null);
+		for (Iterator<Map.Entry<Repository, PendingEdits>> it = pending
+				.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Repository, PendingEdits> entry = it.next();
+			IStatus status = entry.getValue().write(entry.getKey());
+			if (status.isOK())
+				it.remove();
+			else {
+				result.add(status);
+				if (failed != null)
+					failed.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the pending edits of the given repositories
+	 *
+	 * @param repositories
+	 */
+	private synchronized void discard(Collection<Repository> repositories) {
+		for (Repository repository : repositories) {
+			PendingEdits edits = pending.remove(repository);
+			if (edits != null)
+				edits.unlock();
+		}
+	}
+
+	private PendingEdits getPendingEdits(Repository repository)
+			throws IOException {
+		PendingEdits edits = pending.get(repository);
+		if (edits == null) {
+			edits = new PendingEdits(repository);
+			pending.put(repository, edits);
+			// writes the edits and releases the lock if the operation ends
+			// without changes, which doesn't send a POST_CHANGE event
+			writeJob.schedule();
+		} else
+			edits.lock(repository);
+		return edits;
+	}
+
+	private static class PendingEdits {
+
+		private final List<EditGroup> groups = new ArrayList<EditGroup>();
+
+		/** the last group, if it has not been applied to the index yet */
+		private EditGroup current;
+
+		/** the locked index, or <code>null</code> after a failed write */
+		private DirCache index;
+
+		PendingEdits(Repository repository) throws IOException {
+			lock(repository);
+		}
+
+		/**
+		 * Locks and reads the index again after a failed write, and applies
+		 * the pending edits again
+		 *
+		 * @param repository
+		 * @throws IOException
+		 */
+		void lock(Repository repository) throws IOException {
+			if (index != null)
+				return;
+			DirCache dc = repository.lockDirCache();
+			for (EditGroup group : groups)
+				group.apply(dc);
+			index = dc;
+			current = null;
+		}
+
+		void unlock() {
+			if (index != null) {
+				index.unlock();
+				index = null;
+			}
+		}
+
+		/**
+		 * @param path
+		 * @return the locked index, with all edits affecting the given path
+		 *         applied
+		 */
+		DirCache lookup(String path) {
+			if (current != null && current.overlaps(path)) {
+				current.apply(index);
+				current = null;
+			}
+			return index;
+		}
+
+		void add(List<PathEdit> edits, String... touchedPaths) {
+			if (current != null) {
+				for (String path : touchedPaths)
+					if (current.overlaps(path)) {
+						current.apply(index);
+						current = null;
+						break;
+					}
+			}
+			if (current == null) {
+				current = new EditGroup();
+				groups.add(current);
+			}
+			current.edits.addAll(edits);
+			current.touched.addAll(Arrays.asList(touchedPaths));
+		}
+
+		/**
+		 * Writes the edits and releases the lock of the index. If the edits
+		 * can't be written the lock is released as well, and taken again by
+		 * the next attempt.
+		 *
+		 * @param repository
+		 * @return the result of writing the edits
+		 */
+		IStatus write(Repository repository) {
+			if (groups.isEmpty()) {
+				unlock();
+				return Status.OK_STATUS;
+			}
+			String message = MessageFormat.format(
+					CoreText.MoveDeleteHook_cannotAutoStageChanges,
+					repository.getDirectory());
+			try {
+				lock(repository);
+				if (current != null) {
+					current.apply(index);
+					current = null;
+				}
+				index.write();
+				// commit releases the lock even if it fails
+				DirCache dc = index;
+				index = null;
+				if (!dc.commit())
+					return new Status(IStatus.ERROR, Activator.getPluginId(),
+							message);
+				return Status.OK_STATUS;
+			} catch (IOException e) {
+				unlock();
+				return new Status(IStatus.ERROR, Activator.getPluginId(),
+						message, e);
+			}
+		}
+	}
+
+	/**
+	 * Retries writing the edits which could not be written at the end of their
+	 * workspace operation, e.g. because another process held the lock of the
+	 * index. Gives up after a few attempts and returns the error, which makes
+	 * the job framework report it to the user.
+	 */
+	private class WriteJob extends Job {
+
+		private int attempts;
+
+		WriteJob() {
+			super(CoreText.IndexEditBatch_writeJobName);
+			// don't interleave with the workspace operations adding edits
+			setRule(ResourcesPlugin.getWorkspace().getRoot());
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			List<Repository> failed = new ArrayList<Repository>();
+			IStatus status = flush(failed);
+			if (status.isOK()) {
+				attempts = 0;
+				return status;
+			}
+			if (++attempts < MAX_WRITE_ATTEMPTS && !monitor.isCanceled()) {
+				schedule(RETRY_DELAY);
+				return Status.OK_STATUS;
+			}
+			attempts = 0;
+			// the status only reports the repositories which failed
+			discard(failed);
+			return status;
+		}
+	}
+
+	/**
+	 * Edits of paths which don't overlap with each other, so they can be
+	 * applied by a single {@link DirCacheEditor}
+	 */
+	private static class EditGroup {
+
+		final List<PathEdit> edits = new ArrayList<PathEdit>();
+
+		/** paths of files and folders touched by the edits */
+		final TreeSet<String> touched = new TreeSet<String>();
+
+		void apply(DirCache dc) {
+			DirCacheEditor editor = dc.editor();
+			for (PathEdit edit : edits)
+				editor.add(edit);
+			editor.finish();
+		}
+
+		/**
+		 * @param path
+		 * @return whether the path is, contains or is contained in a touched
+		 *         path
+		 */
+		boolean overlaps(String path) {
+			if (touched.isEmpty())
+				return false;
+			if (path.length() == 0 || touched.contains(path)
+					|| touched.contains("")) //$NON-NLS-1$
+				return true;
+			int slash = path.lastIndexOf('/');
+			while (slash > 0) {
+				if (touched.contains(path.substring(0, slash)))
+					return true;
+				slash = path.lastIndexOf('/', slash - 1);
+			}
+			String prefix = path + '/';
+			String next = touched.ceiling(prefix);
+			return next != null && next.startsWith(prefix);
+		}
+	}
+
+	private static class CopyEntry extends PathEdit {
+
+		private final DirCacheEntry source;
+
+		CopyEntry(String path, DirCacheEntry source) {
+			super(path);
+			this.source = source;
+		}
+
+		@Override
+		public void apply(DirCacheEntry ent) {
+			ent.copyMetaData(source);
+		}
+	}
+}
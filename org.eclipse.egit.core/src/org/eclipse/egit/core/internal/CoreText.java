@@ -94,6 +94,9 @@ public class CoreText extends NLS {
 	/** */
 	public static String ContainerTreeIterator_DeletedFile;
 
+	/** */
+	public static String ContentIdHasher_fileModified;
+
 	/** */
 	public static String DeleteBranchOperation_TaskName;
 
@@ -151,6 +154,18 @@ public class CoreText extends NLS {
 	/** */
 	public static String UntrackOperation_writingIndex;
 
+	/** */
+	public static String ChangedPathIndex_jobName;
+
+	/** */
+	public static String ChangedPathIndex_readError;
+
+	/** */
+	public static String ChangedPathIndex_updateError;
+
+	/** */
+	public static String ChangedPathIndex_writeError;
+
 	/** */
 	public static String GitFileHistory_errorParsingHistory;
 
@@ -259,6 +274,18 @@ public class CoreText extends NLS {
 	/** */
 	public static String MoveDeleteHook_cannotAutoStageDeletion;
 
+	/** */
+	public static String MoveDeleteHook_cannotAutoStageChanges;
+
+	/** */
+	public static String IndexEditBatch_writeJobName;
+
+	/** */
+	public static String ReachabilityIndex_buildJobName;
+
+	/** */
+	public static String IndexEditBatch_writeFailed;
+
 	/** */
 	public static String Error_CanonicalFile;
 
@@ -337,6 +364,12 @@ public class CoreText extends NLS {
 	/** */
 	public static String AddToIndexOperation_failed;
 
+	/** */
+	public static String BulkIndexAdder_hashingFiles;
+
+	/** */
+	public static String BulkIndexAdder_hashingProgress;
+
 	/** */
 	public static String RemoveFromIndexOperation_removingFilesFromIndex;
 
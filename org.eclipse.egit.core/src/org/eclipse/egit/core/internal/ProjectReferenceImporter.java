@@ -278,6 +278,7 @@ private List<IProject> importProjects(final Set<ProjectReference> projects,
 			// import projects from the current repository to workspace
 			final IWorkspace workspace = ResourcesPlugin.getWorkspace();
 			final IWorkspaceRoot root = workspace.getRoot();
+			final Map<IProject, File> projectsToConnect = new LinkedHashMap<IProject, File>();
 			for (final ProjectReference projectToImport : projects) {
 				final IPath projectDir = workDir.append(projectToImport
 						.getProjectDir());
@@ -292,10 +293,11 @@ private List<IProject> importProjects(final Set<ProjectReference> projects,
 				}
 
 				project.open(monitor);
-				final ConnectProviderOperation connectProviderOperation = new ConnectProviderOperation(
-						project, repositoryPath);
-				connectProviderOperation.execute(monitor);
+				projectsToConnect.put(project, repositoryPath);
 			}
+			final ConnectProviderOperation connectProviderOperation = new ConnectProviderOperation(
+					projectsToConnect);
+			connectProviderOperation.execute(monitor);
 
 			return importedProjects;
 
@@ -41,6 +41,8 @@
 import org.eclipse.egit.core.JobFamilies;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
+import org.eclipse.egit.core.internal.trace.Gauge;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.trace.GitTraceLocation;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
 import org.eclipse.jgit.dircache.DirCache;
@@ -71,6 +73,8 @@ public class IndexDiffCacheEntry {
 
 	private Repository repository;
 
+	private final String metricsScope;
+
 	private volatile IndexDiffData indexDiffData;
 
 	private Job reloadJob;
@@ -97,6 +101,14 @@ public class IndexDiffCacheEntry {
 	 */
 	public IndexDiffCacheEntry(Repository repository) {
 		this.repository = repository;
+		metricsScope = GitMetrics.scope(repository);
+		GitMetrics.registerGauge(GitMetrics.INDEX_DIFF_PENDING, metricsScope,
+				new Gauge() {
+					public long getValue() {
+						IndexDiffUpdateJob job = updateJob;
+						return job != null ? job.getPendingFiles() : 0;
+					}
+				});
 		indexChangedListenerHandle = repository.getListenerList().addIndexChangedListener(
 				new IndexChangedListener() {
 					public void onIndexChanged(IndexChangedEvent event) {
@@ -252,6 +264,20 @@ public IndexDiffData getIndexDiff() {
 		return indexDiffData;
 	}
 
+	/**
+	 * @return <code>true</code> if an index diff has been calculated and no
+	 *         update of it is scheduled or running, i.e. the result of
+	 *         {@link #getIndexDiff()} contains all changes this entry has been
+	 *         notified about
+	 */
+	public boolean isUpToDate() {
+		Job reload = reloadJob;
+		Job update = updateJob;
+		return indexDiffData != null
+				&& (reload == null || reload.getState() == Job.NONE)
+				&& (update == null || update.getState() == Job.NONE);
+	}
+
 	/**
 	 * THIS METHOD IS PROTECTED FOR TESTS ONLY!
 	 *
@@ -287,11 +313,17 @@ protected IStatus run(IProgressMonitor monitor) {
 					}
 					parallelism.acquire();
 					long startTime = System.currentTimeMillis();
+					long startNanos = System.nanoTime();
 					IndexDiffData result = calcIndexDiffDataFull(monitor, getName());
 					if (monitor.isCanceled() || (result == null)) {
 						return Status.CANCEL_STATUS;
 					}
 					indexDiffData = result;
+					GitMetrics.timer(GitMetrics.INDEX_DIFF_RELOAD, metricsScope)
+							.recordSince(startNanos);
+					GitMetrics.histogram(GitMetrics.INDEX_DIFF_RELOAD_SIZE,
+							metricsScope, "files") //$NON-NLS-1$
+							.record(countChanges(result));
 					if (GitTraceLocation.INDEXDIFFCACHE.isActive()) {
 						long time = System.currentTimeMillis() - startTime;
 						StringBuilder message = new StringBuilder(
@@ -337,6 +369,13 @@ public boolean belongsTo(Object family) {
 		reloadJob.schedule();
 	}
 
+	private static int countChanges(IndexDiffData data) {
+		return data.getAdded().size() + data.getChanged().size()
+				+ data.getRemoved().size() + data.getMissing().size()
+				+ data.getModified().size() + data.getUntracked().size()
+				+ data.getConflicting().size();
+	}
+
 	private boolean checkRepository() {
 		if (Activator.getDefault() == null)
 			return false;
@@ -416,12 +455,18 @@ protected IStatus updateIndexDiff(Collection<String> files,
 				lock.lock();
 				try {
 					long startTime = System.currentTimeMillis();
+					long startNanos = System.nanoTime();
 					IndexDiffData result = calcIndexDiffDataIncremental(monitor,
 							getName(), files, resources);
 					if (monitor.isCanceled() || (result == null)) {
 						return Status.CANCEL_STATUS;
 					}
 					indexDiffData = result;
+					GitMetrics.timer(GitMetrics.INDEX_DIFF_UPDATE, metricsScope)
+							.recordSince(startNanos);
+					GitMetrics.histogram(GitMetrics.INDEX_DIFF_UPDATE_SIZE,
+							metricsScope, "resources") //$NON-NLS-1$
+							.record(resources.size());
 					if (GitTraceLocation.INDEXDIFFCACHE.isActive()) {
 						long time = System.currentTimeMillis() - startTime;
 						StringBuilder message = new StringBuilder(
@@ -539,7 +584,7 @@ private IndexDiffData calcIndexDiffDataFull(IProgressMonitor monitor, String job
 			return null; // workspace is closed
 		newIndexDiff = new IndexDiff(repository, Constants.HEAD, iterator);
 		newIndexDiff.diff(jgitMonitor, 0, 0, jobName);
-		return new IndexDiffData(newIndexDiff);
+		return new IndexDiffData(newIndexDiff, indexDiffData);
 	}
 
 	private String getReloadJobName() {
@@ -598,6 +643,7 @@ public void dispose() {
 		refsChangedListenerHandle.remove();
 		if (resourceChangeListener != null)
 			ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceChangeListener);
+		GitMetrics.removeScope(metricsScope);
 	}
 
 }
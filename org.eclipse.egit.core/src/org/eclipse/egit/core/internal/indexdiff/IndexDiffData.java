@@ -14,6 +14,7 @@
 import java.util.Set;
 
 import org.eclipse.core.resources.IResource;
+import org.eclipse.egit.core.internal.util.PathInterner;
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.IndexDiff;
@@ -73,34 +74,63 @@ public IndexDiffData() {
 	 * @param indexDiff
 	 */
 	public IndexDiffData(IndexDiff indexDiff) {
-		added = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		this(indexDiff, null);
+	}
+
+	/**
+	 * @param indexDiff
+	 * @param previous
+	 *            data of the same repository this one replaces, whose path
+	 *            instances are shared with this one, or <code>null</code>
+	 */
+	public IndexDiffData(IndexDiff indexDiff, IndexDiffData previous) {
+		PathInterner paths = new PathInterner();
+		if (previous != null)
+			previous.addPathsTo(paths);
+		added = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getAdded()));
-		changed = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		changed = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getChanged()));
-		removed = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		removed = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getRemoved()));
-		missing = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		missing = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getMissing()));
-		modified = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		modified = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getModified()));
-		untracked = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		untracked = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getUntracked()));
-		untrackedFolders = Collections.unmodifiableSet(getUntrackedFolders(indexDiff));
-		conflicts = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		untrackedFolders = Collections.unmodifiableSet(getUntrackedFolders(
+				indexDiff, paths));
+		conflicts = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getConflicting()));
-		ignored = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		ignored = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getIgnoredNotInIndex()));
-		symlinks = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		symlinks = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getPathsWithIndexMode(FileMode.SYMLINK)));
-		submodules = Collections.unmodifiableSet(new HashSet<String>(indexDiff
+		submodules = Collections.unmodifiableSet(paths.internAll(indexDiff
 				.getPathsWithIndexMode(FileMode.GITLINK)));
 		changedResources = Collections.emptySet();
 	}
 
-	private Set<String> getUntrackedFolders(IndexDiff indexDiff) {
+	private void addPathsTo(PathInterner paths) {
+		paths.addAll(added);
+		paths.addAll(changed);
+		paths.addAll(removed);
+		paths.addAll(missing);
+		paths.addAll(modified);
+		paths.addAll(untracked);
+		paths.addAll(untrackedFolders);
+		paths.addAll(conflicts);
+		paths.addAll(ignored);
+		paths.addAll(symlinks);
+		paths.addAll(submodules);
+	}
+
+	private static Set<String> getUntrackedFolders(IndexDiff indexDiff,
+			PathInterner paths) {
 		HashSet<String> result = new HashSet<String>();
 		for (String folder:indexDiff.getUntrackedFolders())
-			result.add(folder + "/"); //$NON-NLS-1$
+			result.add(paths.intern(folder + "/")); //$NON-NLS-1$
 		return result;
 	}
 
@@ -143,7 +173,7 @@ public IndexDiffData(IndexDiffData baseDiff,
 				diffForChangedFiles.getPathsWithIndexMode(FileMode.GITLINK));
 		Set<String> untrackedFolders2 = mergeUntrackedFolders(
 				baseDiff.getUntrackedFolders(), changedFiles,
-				getUntrackedFolders(diffForChangedFiles));
+				getUntrackedFolders(diffForChangedFiles, new PathInterner()));
 		mergeList(conflicts2, changedFiles,
 				diffForChangedFiles.getConflicting());
 		Set<String> ignored2 = mergeIgnored(baseDiff.getIgnoredNotInIndex(), changedFiles,
@@ -33,6 +33,8 @@ abstract class IndexDiffUpdateJob extends Job {
 
 	private Set<IResource> resources;
 
+	private volatile int pendingFiles;
+
 	/**
 	 * @param name
 	 *            non null job name
@@ -88,12 +90,20 @@ protected void addChanges(Collection<String> filesToUpdate,
 		synchronized (lock) {
 			files.addAll(filesToUpdate);
 			resources.addAll(resourcesToUpdate);
+			pendingFiles = files.size();
 		}
 		if (!filesToUpdate.isEmpty()) {
 			schedule(defaultDelay);
 		}
 	}
 
+	/**
+	 * @return number of files waiting for the next run of this job
+	 */
+	int getPendingFiles() {
+		return pendingFiles;
+	}
+
 	@Override
 	protected void canceling() {
 		// always run cleanup on cancel
@@ -111,6 +121,7 @@ private void cleanup() {
 		synchronized (lock) {
 			files = new HashSet<String>();
 			resources = new HashSet<IResource>();
+			pendingFiles = 0;
 		}
 	}
 
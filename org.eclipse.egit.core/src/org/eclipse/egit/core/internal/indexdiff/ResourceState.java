@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The git state of a file or folder as recorded in an {@link IndexDiffData},
+ * e.g. for decorating the resource.
+ * <p>
+ * The state is computed from repository relative paths only and does not
+ * access the workspace or the file system.
+ */
+public class ResourceState {
+
+	/**
+	 * The staged state of a resource
+	 */
+	public enum Staged {
+		/** Nothing is staged */
+		NOT_STAGED,
+		/** The resource, or a resource in the folder, is staged as modified */
+		MODIFIED,
+		/** The resource is staged as added */
+		ADDED,
+		/** The resource is staged as removed */
+		REMOVED
+	}
+
+	private static final int IGNORED = 1;
+
+	private static final int UNTRACKED = 1 << 1;
+
+	private static final int UNTRACKED_FOLDER = 1 << 2;
+
+	private static final int ADDED = 1 << 3;
+
+	private static final int REMOVED = 1 << 4;
+
+	private static final int CHANGED = 1 << 5;
+
+	private static final int CONFLICTING = 1 << 6;
+
+	private static final int MODIFIED = 1 << 7;
+
+	private static final int STAGED_BELOW = 1 << 8;
+
+	private static final int CONFLICTING_BELOW = 1 << 9;
+
+	private static final int DIRTY_BELOW = 1 << 10;
+
+	private final boolean ignored;
+
+	private final boolean tracked;
+
+	private final Staged staged;
+
+	private final boolean conflicts;
+
+	private final boolean dirty;
+
+	private ResourceState(boolean ignored, boolean tracked, Staged staged,
+			boolean conflicts, boolean dirty) {
+		this.ignored = ignored;
+		this.tracked = tracked;
+		this.staged = staged;
+		this.conflicts = conflicts;
+		this.dirty = dirty;
+	}
+
+	/**
+	 * @param data
+	 * @param path
+	 *            repository relative path of the file
+	 * @return the state of the file
+	 */
+	public static ResourceState forFile(IndexDiffData data, String path) {
+		int slash = path.lastIndexOf('/');
+		String name = path.substring(slash + 1);
+		return forMembers(data, path.substring(0, slash + 1),
+				Collections.singleton(name), Collections.<String> emptySet())
+				.get(name);
+	}
+
+	/**
+	 * Computes the state of a folder from the state of the files in it. A
+	 * folder without any file is not known to the index diff; callers have
+	 * to check this themselves and treat such a folder as ignored.
+	 *
+	 * @param data
+	 * @param path
+	 *            repository relative path of the folder, ending with a slash
+	 * @return the state of the folder
+	 */
+	public static ResourceState forFolder(IndexDiffData data, String path) {
+		if (path.length() == 1)
+			// the root of the working tree contains every path
+			return forFolder(getRootFlags(data), false, false);
+		int slash = path.lastIndexOf('/', path.length() - 2);
+		String name = path.substring(slash + 1, path.length() - 1);
+		return forMembers(data, path.substring(0, slash + 1),
+				Collections.<String> emptySet(), Collections.singleton(name))
+				.get(name);
+	}
+
+	/**
+	 * Computes the state of the files and folders directly in a folder by a
+	 * single pass over the sets of the index diff. The result is the same as
+	 * calling {@link #forFile(IndexDiffData, String)} or
+	 * {@link #forFolder(IndexDiffData, String)} for each of them.
+	 *
+	 * @param data
+	 * @param prefix
+	 *            repository relative path of the folder including the trailing
+	 *            slash, or the empty string for the root of the working tree
+	 * @param files
+	 *            names of the files in the folder
+	 * @param folders
+	 *            names of the folders in the folder
+	 * @return the state of the files and folders by their names
+	 */
+	public static Map<String, ResourceState> forMembers(IndexDiffData data,
+			String prefix, Collection<String> files,
+			Collection<String> folders) {
+		Map<String, int[]> flags = new HashMap<String, int[]>(
+				(files.size() + folders.size()) * 2);
+		for (String name : files)
+			flags.put(name, new int[1]);
+		for (String name : folders)
+			flags.put(name, new int[1]);
+
+		collect(data.getIgnoredNotInIndex(), prefix, flags, IGNORED, 0);
+		collect(data.getUntracked(), prefix, flags, UNTRACKED, DIRTY_BELOW);
+		collect(data.getUntrackedFolders(), prefix, flags, UNTRACKED_FOLDER,
+				0);
+		collect(data.getAdded(), prefix, flags, ADDED, STAGED_BELOW);
+		collect(data.getRemoved(), prefix, flags, REMOVED, STAGED_BELOW);
+		collect(data.getChanged(), prefix, flags, CHANGED, STAGED_BELOW);
+		collect(data.getConflicting(), prefix, flags, CONFLICTING,
+				CONFLICTING_BELOW);
+		collect(data.getModified(), prefix, flags, MODIFIED, DIRTY_BELOW);
+		collect(data.getMissing(), prefix, flags, 0, DIRTY_BELOW);
+
+		// an ignored or untracked ancestor applies to all members
+		boolean ignoredAncestor = hasAncestor(data.getIgnoredNotInIndex(),
+				prefix);
+		boolean untrackedAncestor = hasAncestor(data.getUntrackedFolders(),
+				prefix);
+
+		Map<String, ResourceState> states = new HashMap<String, ResourceState>(
+				flags.size() * 2);
+		for (String name : files)
+			states.put(name, forFile(flags.get(name)[0], ignoredAncestor));
+		for (String name : folders)
+			states.put(name, forFolder(flags.get(name)[0], ignoredAncestor,
+					untrackedAncestor));
+		return states;
+	}
+
+	private static ResourceState forFile(int flags, boolean ignoredAncestor) {
+		boolean ignored = ignoredAncestor || is(flags, IGNORED);
+		boolean tracked = !is(flags, UNTRACKED) && !ignored;
+		Staged staged;
+		if (is(flags, ADDED))
+			staged = Staged.ADDED;
+		else if (is(flags, REMOVED))
+			staged = Staged.REMOVED;
+		else if (is(flags, CHANGED))
+			staged = Staged.MODIFIED;
+		else
+			staged = Staged.NOT_STAGED;
+		return new ResourceState(ignored, tracked, staged, is(flags,
+				CONFLICTING), is(flags, MODIFIED));
+	}
+
+	private static ResourceState forFolder(int flags, boolean ignoredAncestor,
+			boolean untrackedAncestor) {
+		boolean ignored = ignoredAncestor || is(flags, IGNORED);
+		boolean tracked = !ignored && !untrackedAncestor
+				&& !is(flags, UNTRACKED_FOLDER);
+		// folders are marked as staged whenever a file was added, removed or
+		// changed
+		Staged staged = is(flags, STAGED_BELOW) ? Staged.MODIFIED
+				: Staged.NOT_STAGED;
+		return new ResourceState(ignored, tracked, staged, is(flags,
+				CONFLICTING_BELOW), is(flags, DIRTY_BELOW));
+	}
+
+	private static int getRootFlags(IndexDiffData data) {
+		int flags = 0;
+		if (!data.getChanged().isEmpty() || !data.getAdded().isEmpty()
+				|| !data.getRemoved().isEmpty())
+			flags |= STAGED_BELOW;
+		if (!data.getConflicting().isEmpty())
+			flags |= CONFLICTING_BELOW;
+		// locally modified / untracked
+		if (!data.getModified().isEmpty() || !data.getUntracked().isEmpty()
+				|| !data.getMissing().isEmpty())
+			flags |= DIRTY_BELOW;
+		return flags;
+	}
+
+	private static boolean is(int flags, int flag) {
+		return (flags & flag) != 0;
+	}
+
+	/**
+	 * Marks the members the given paths belong to
+	 *
+	 * @param paths
+	 *            repository relative paths, folders may end with a slash
+	 * @param prefix
+	 *            path of the folder including the trailing slash, or the
+	 *            empty string for the root of the working tree
+	 * @param members
+	 *            the flags of the members of the folder by name
+	 * @param flag
+	 *            set on the member having one of the paths
+	 * @param belowFlag
+	 *            set on the member containing one of the paths
+	 */
+	private static void collect(Set<String> paths, String prefix,
+			Map<String, int[]> members, int flag, int belowFlag) {
+		int start = prefix.length();
+		for (String path : paths) {
+			if (path.length() <= start || !path.startsWith(prefix))
+				continue;
+			int slash = path.indexOf('/', start);
+			String name = slash < 0 ? path.substring(start) : path.substring(
+					start, slash);
+			int[] member = members.get(name);
+			if (member == null)
+				continue;
+			if (slash < 0 || slash == path.length() - 1)
+				member[0] |= flag;
+			if (slash >= 0)
+				member[0] |= belowFlag;
+		}
+	}
+
+	/**
+	 * @param paths
+	 *            repository relative paths, folders may end with a slash
+	 * @param prefix
+	 *            path of a folder including the trailing slash
+	 * @return whether one of the paths is the folder or one of its ancestors
+	 */
+	private static boolean hasAncestor(Set<String> paths, String prefix) {
+		if (prefix.length() == 0)
+			return false;
+		for (String path : paths) {
+			int length = path.endsWith("/") ? path.length() : path.length() + 1; //$NON-NLS-1$
+			if (length <= prefix.length() && prefix.startsWith(path)
+					&& prefix.charAt(length - 1) == '/')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the resource is ignored
+	 */
+	public boolean isIgnored() {
+		return ignored;
+	}
+
+	/**
+	 * @return whether the resource is tracked
+	 */
+	public boolean isTracked() {
+		return tracked;
+	}
+
+	/**
+	 * @return the staged state of the resource
+	 */
+	public Staged getStaged() {
+		return staged;
+	}
+
+	/**
+	 * @return whether the resource has conflicts
+	 */
+	public boolean hasConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * @return whether the resource is modified in the working tree
+	 */
+	public boolean isDirty() {
+		return dirty;
+	}
+}
@@ -17,9 +17,11 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.egit.core.Activator;
@@ -31,7 +33,9 @@
 import org.eclipse.jgit.events.ListenerHandle;
 import org.eclipse.jgit.events.RefsChangedEvent;
 import org.eclipse.jgit.events.RefsChangedListener;
+import org.eclipse.jgit.internal.storage.file.FileSnapshot;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.RebaseTodoFile;
@@ -42,6 +46,7 @@
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.util.GitDateFormatter;
+import org.eclipse.jgit.util.IO;
 
 /**
  * Representation of the {@link RebaseTodoFile} for Rebase-Todo and
@@ -49,6 +54,8 @@
  *
  * Reparses the rebase plan when the index changes or when a {@code Ref} is
  * moving in order to keep the in-memory plan in sync with the one on disk.
+ * The files are only read again if they changed since they were read last,
+ * and author and committer of the commits are looked up only once.
  */
 public class RebaseInteractivePlan implements IndexDiffChangedListener,
 		RefsChangedListener {
@@ -100,6 +107,19 @@ public void planElementTypeChanged(
 		 * @param plan
 		 */
 		public void planWasUpdatedFromRepository(RebaseInteractivePlan plan);
+
+		/**
+		 * Will be invoked if the rebase processed steps of the plan, i.e. moved
+		 * {@link PlanElement Elements} from the Rebase-Todo-File to the
+		 * Rebase-Done-File, without changing the plan otherwise.
+		 *
+		 * @param plan
+		 * @param elements
+		 *            the {@link PlanElement Elements} whose
+		 *            {@link ElementType} changed, in the order of the plan
+		 */
+		public void planElementsProcessed(RebaseInteractivePlan plan,
+				List<PlanElement> elements);
 	}
 
 	private ArrayList<RebaseInteractivePlanChangeListener> planChangeListeners = new ArrayList<RebaseInteractivePlanChangeListener>();
@@ -120,6 +140,17 @@ public void planElementTypeChanged(
 
 	private static final String REBASE_DONE = "rebase-merge/done"; //$NON-NLS-1$
 
+	private static final String REBASE_ORIG_HEAD = "rebase-merge/orig-head"; //$NON-NLS-1$
+
+	private static final String REBASE_ONTO = "rebase-merge/onto"; //$NON-NLS-1$
+
+	private volatile FileSnapshot todoSnapshot = FileSnapshot.DIRTY;
+
+	private volatile FileSnapshot doneSnapshot = FileSnapshot.DIRTY;
+
+	/** author and committer of the commits of the plan, by abbreviated id */
+	private final Map<AbbreviatedObjectId, CommitInfo> commitInfos = new HashMap<AbbreviatedObjectId, CommitInfo>();
+
 	/**
 	 * Provides a singleton instance of {@link RebaseInteractivePlan} for a
 	 * given {@link Repository}
@@ -143,7 +174,7 @@ public static RebaseInteractivePlan getPlan(Repository repo) {
 
 	private RebaseInteractivePlan(Repository repo) {
 		this.repository = repo;
-		reparsePlan();
+		reparsePlan(true);
 		registerIndexDiffChangeListener();
 		registerRefChangedListener();
 	}
@@ -176,7 +207,7 @@ private void registerRefChangedListener() {
 	 */
 	public void indexDiffChanged(Repository repo, IndexDiffData indexDiffData) {
 		if (RebaseInteractivePlan.this.repository == repo)
-			reparsePlan();
+			reparsePlan(false);
 	}
 
 	/**
@@ -187,7 +218,7 @@ public void indexDiffChanged(Repository repo, IndexDiffData indexDiffData) {
 	public void onRefsChanged(RefsChangedEvent event) {
 		Repository repo = event.getRepository();
 		if (this.repository == repo)
-			reparsePlan();
+			reparsePlan(false);
 	}
 
 	/**
@@ -197,7 +228,7 @@ public void onRefsChanged(RefsChangedEvent event) {
 	 * will create a new {@link RebaseInteractivePlan} instance.
 	 */
 	public void dispose() {
-		reparsePlan();
+		reparsePlan(true);
 		notifyPlanWasUpdatedFromRepository();
 		planRegistry.remove(this.repository.getDirectory());
 		planList.clear();
@@ -268,80 +299,227 @@ private void notifyPlanWasUpdatedFromRepository() {
 			listener.planWasUpdatedFromRepository(this);
 	}
 
-	private void reparsePlan() {
-		try (RevWalk walk = new RevWalk(repository.newObjectReader())) {
-			doneList = parseDone(walk);
-			todoList = parseTodo(walk);
+	private void notifyPlanElementsProcessed(List<PlanElement> elements) {
+		for (RebaseInteractivePlanChangeListener listener : planChangeListeners)
+			listener.planElementsProcessed(this, elements);
+	}
+
+	/**
+	 * Reads the plan if the todo-File or the done-File changed since they were
+	 * read last, or unconditionally if {@code force} is true.
+	 * <p>
+	 * If the rebase only processed steps since then, the existing
+	 * {@link PlanElement Elements} are moved from the todo list to the done
+	 * list and the listeners are told which elements have been processed.
+	 * Otherwise the plan is rebuilt and the listeners are told that it was
+	 * updated from the repository.
+	 *
+	 * @param force
+	 */
+	private synchronized void reparsePlan(boolean force) {
+		File todoFile = new File(repository.getDirectory(), REBASE_TODO);
+		File doneFile = new File(repository.getDirectory(), REBASE_DONE);
+		if (!force && planList != null && !todoSnapshot.isModified(todoFile)
+				&& !doneSnapshot.isModified(doneFile))
+			return;
+		// save before reading so that a concurrent write is seen next time
+		todoSnapshot = FileSnapshot.save(todoFile);
+		doneSnapshot = FileSnapshot.save(doneFile);
+		List<RebaseTodoLine> doneLines = readLines(REBASE_DONE, false);
+		List<RebaseTodoLine> todoLines = readLines(REBASE_TODO, true);
+
+		if (!force && planList != null) {
+			List<PlanElement> processed = applyProcessedLines(doneLines,
+					todoLines);
+			if (processed != null) {
+				if (!processed.isEmpty())
+					notifyPlanElementsProcessed(processed);
+				return;
+			}
 		}
+
+		resolveCommits(doneLines, todoLines);
+		doneList = createElementList(doneLines);
+		todoList = createElementList(todoLines);
 		planList = JoinedList.wrap(doneList, todoList);
 		notifyPlanWasUpdatedFromRepository();
 	}
 
-	private List<PlanElement> parseTodo(RevWalk walk) {
-		List<RebaseTodoLine> rebaseTodoLines;
+	private List<RebaseTodoLine> readLines(String path, boolean includeComments) {
 		try {
-			rebaseTodoLines = repository.readRebaseTodo(REBASE_TODO, true);
+			return repository.readRebaseTodo(path, includeComments);
 		} catch (IOException e) {
-			rebaseTodoLines = new LinkedList<RebaseTodoLine>();
+			return new LinkedList<RebaseTodoLine>();
+		}
+	}
+
+	/**
+	 * Moves the {@link PlanElement Elements} which the rebase processed since
+	 * the plan was read last from the todo list to the done list.
+	 *
+	 * @param doneLines
+	 * @param todoLines
+	 * @return the elements whose {@link ElementType} changed, an empty list if
+	 *         the plan didn't change, or null if the plan changed in any other
+	 *         way than by processing steps
+	 */
+	private List<PlanElement> applyProcessedLines(
+			List<RebaseTodoLine> doneLines, List<RebaseTodoLine> todoLines) {
+		int processed = doneLines.size() - doneList.size();
+		if (processed < 0 || todoLines.size() != todoList.size() - processed)
+			return null;
+		for (int i = 0; i < doneList.size(); i++)
+			if (!sameLine(doneList.get(i).line, doneLines.get(i)))
+				return null;
+		// the rebase leaves comments, including skipped steps, in the todo file
+		// when taking the next steps
+		List<PlanElement> newDone = new ArrayList<PlanElement>(doneLines.size());
+		newDone.addAll(doneList);
+		List<PlanElement> newTodo = new ArrayList<PlanElement>(todoLines.size());
+		for (PlanElement element : todoList) {
+			if (newDone.size() < doneLines.size()
+					&& element.line.getAction() != Action.COMMENT) {
+				if (!sameLine(element.line, doneLines.get(newDone.size())))
+					return null;
+				newDone.add(element);
+			} else
+				newTodo.add(element);
+		}
+		if (newDone.size() != doneLines.size())
+			return null;
+		for (int i = 0; i < newTodo.size(); i++)
+			if (!sameLine(newTodo.get(i).line, todoLines.get(i)))
+				return null;
+		if (processed == 0)
+			return Collections.emptyList();
+
+		List<PlanElement> changed = new ArrayList<PlanElement>(processed + 1);
+		if (!doneList.isEmpty())
+			// no longer the current step
+			changed.add(doneList.get(doneList.size() - 1));
+		changed.addAll(newDone.subList(doneList.size(), newDone.size()));
+		// replace the lists instead of changing them, they may be iterated
+		// concurrently
+		doneList = newDone;
+		todoList = newTodo;
+		planList = JoinedList.wrap(doneList, todoList);
+		return changed;
+	}
+
+	private static boolean sameLine(RebaseTodoLine a, RebaseTodoLine b) {
+		return a.getAction() == b.getAction()
+				&& equal(a.getCommit(), b.getCommit())
+				&& equal(a.getShortMessage(), b.getShortMessage())
+				&& equal(a.getComment(), b.getComment());
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	/**
+	 * Looks up author and committer of the commits of the given lines which
+	 * have not been looked up before.
+	 * <p>
+	 * The commits of the plan are the commits being rebased, so instead of
+	 * resolving each abbreviated id on its own they are searched with a single
+	 * walk from the original head to the commit the rebase is onto. Ids not
+	 * found that way are resolved one by one.
+	 *
+	 * @param doneLines
+	 * @param todoLines
+	 */
+	private void resolveCommits(List<RebaseTodoLine> doneLines,
+			List<RebaseTodoLine> todoLines) {
+		Map<String, AbbreviatedObjectId> missing = new HashMap<String, AbbreviatedObjectId>();
+		Set<Integer> lengths = new HashSet<Integer>();
+		collectMissingIds(doneLines, missing, lengths);
+		collectMissingIds(todoLines, missing, lengths);
+		if (missing.isEmpty())
+			return;
+
+		try (RevWalk walk = new RevWalk(repository)) {
+			ObjectId origHead = readRebaseId(REBASE_ORIG_HEAD);
+			ObjectId onto = readRebaseId(REBASE_ONTO);
+			if (origHead != null && onto != null) {
+				try {
+					walk.markStart(walk.parseCommit(origHead));
+					walk.markUninteresting(walk.parseCommit(onto));
+					for (RevCommit commit : walk) {
+						String name = commit.name();
+						for (Integer length : lengths) {
+							AbbreviatedObjectId id = missing.remove(name
+									.substring(0, length.intValue()));
+							if (id != null)
+								commitInfos.put(id, new CommitInfo(commit));
+						}
+						if (missing.isEmpty())
+							break;
+					}
+				} catch (IOException e) {
+					// ignore, resolve the remaining ids one by one
+				}
+			}
+			for (AbbreviatedObjectId id : missing.values())
+				commitInfos.put(id, loadCommitInfo(id, walk));
 		}
-		List<PlanElement> todoElements = createElementList(rebaseTodoLines,
-				walk);
-		return todoElements;
 	}
 
-	private List<PlanElement> parseDone(RevWalk walk) {
-		List<RebaseTodoLine> rebaseDoneLines;
+	private void collectMissingIds(List<RebaseTodoLine> lines,
+			Map<String, AbbreviatedObjectId> missing, Set<Integer> lengths) {
+		for (RebaseTodoLine line : lines) {
+			AbbreviatedObjectId id = line.getCommit();
+			if (id != null && !commitInfos.containsKey(id)) {
+				missing.put(id.name(), id);
+				lengths.add(Integer.valueOf(id.length()));
+			}
+		}
+	}
+
+	private ObjectId readRebaseId(String path) {
 		try {
-			rebaseDoneLines = repository.readRebaseTodo(REBASE_DONE, false);
-		} catch (IOException e) {
-			rebaseDoneLines = new LinkedList<RebaseTodoLine>();
+			byte[] content = IO.readFully(new File(repository.getDirectory(),
+					path));
+			if (content.length < Constants.OBJECT_ID_STRING_LENGTH)
+				return null;
+			return ObjectId.fromString(content, 0);
+		} catch (IOException | IllegalArgumentException e) {
+			return null;
 		}
-		List<PlanElement> doneElements = createElementList(rebaseDoneLines,
-				walk);
-		return doneElements;
 	}
 
 	private List<PlanElement> createElementList(
-			List<RebaseTodoLine> rebaseTodoLines, RevWalk walk) {
+			List<RebaseTodoLine> rebaseTodoLines) {
 		List<PlanElement> planElements = new ArrayList<PlanElement>(
 				rebaseTodoLines.size());
 		for (RebaseTodoLine todoLine : rebaseTodoLines) {
-			PlanElement element = createElement(todoLine, walk);
+			PlanElement element = createElement(todoLine);
 			planElements.add(element);
 		}
 		return planElements;
 	}
 
-	private PlanElement createElement(RebaseTodoLine todoLine, RevWalk walk) {
-		PersonIdent author = null;
-		PersonIdent committer = null;
-
-		RevCommit commit = loadCommit(todoLine.getCommit(), walk);
-		if (commit != null) {
-			author = commit.getAuthorIdent();
-			committer = commit.getCommitterIdent();
-		}
-
-		PlanElement element = new PlanElement(todoLine, author, committer);
-		return element;
+	private PlanElement createElement(RebaseTodoLine todoLine) {
+		CommitInfo info = null;
+		if (todoLine.getCommit() != null)
+			info = commitInfos.get(todoLine.getCommit());
+		if (info == null)
+			return new PlanElement(todoLine, null, null);
+		return new PlanElement(todoLine, info.author, info.committer);
 	}
 
-	private RevCommit loadCommit(AbbreviatedObjectId abbreviatedObjectId,
+	private CommitInfo loadCommitInfo(AbbreviatedObjectId abbreviatedObjectId,
 			RevWalk walk) {
-		if (abbreviatedObjectId != null) {
-			try {
-				Collection<ObjectId> resolved = walk.getObjectReader().resolve(
-						abbreviatedObjectId);
-				if (resolved.size() == 1) {
-					RevCommit commit = walk.parseCommit(resolved
-							.iterator().next());
-					return commit;
-				}
-			} catch (IOException e) {
-				// ignore, we assume no author/committer then
-			}
+		try {
+			Collection<ObjectId> resolved = walk.getObjectReader().resolve(
+					abbreviatedObjectId);
+			if (resolved.size() == 1)
+				return new CommitInfo(walk.parseCommit(resolved.iterator()
+						.next()));
+		} catch (IOException e) {
+			// ignore, we assume no author/committer then
 		}
-		return null;
+		return CommitInfo.UNKNOWN;
 	}
 
 	/**
@@ -416,6 +594,9 @@ public boolean persist() {
 			todoLines.add(element.getRebaseTodoLine());
 		try {
 			repository.writeRebaseTodoFile(REBASE_TODO, todoLines, false);
+			// the plan is already up to date with what was written
+			todoSnapshot = FileSnapshot.save(new File(repository
+					.getDirectory(), REBASE_TODO));
 		} catch (IOException e) {
 			Activator.logError(CoreText.RebaseInteractivePlan_WriteRebaseTodoFailed, e);
 			throw new RuntimeException(e);
@@ -432,7 +613,28 @@ public boolean persist() {
 	public void parse() throws IOException {
 		if (!isRebasingInteractive())
 			return;
-		reparsePlan();
+		reparsePlan(false);
+	}
+
+	/**
+	 * Author and committer of a commit of the plan.
+	 */
+	private static class CommitInfo {
+		/** for commits which can't be found */
+		static final CommitInfo UNKNOWN = new CommitInfo(null, null);
+
+		final PersonIdent author;
+
+		final PersonIdent committer;
+
+		CommitInfo(RevCommit commit) {
+			this(commit.getAuthorIdent(), commit.getCommitterIdent());
+		}
+
+		private CommitInfo(PersonIdent author, PersonIdent committer) {
+			this.author = author;
+			this.committer = committer;
+		}
 	}
 
 	/**
@@ -0,0 +1,567 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Remembers for every commit of a repository a Bloom filter of the paths it
+ * changed relative to its first parent, or added if it has no parent.
+ * <p>
+ * The paths of the changed files and of all folders containing them are put
+ * into the filter. If the filter of a commit does not contain a path, the
+ * commit definitely did not change that file or anything below that folder,
+ * and a history walk for the path can skip diffing the trees of the commit.
+ * Commits changing too many paths get no filter and always need to be
+ * diffed.
+ * <p>
+ * The index is built incrementally by a background job, starting from the
+ * tips of all refs and stopping at the commits indexed by its last complete
+ * run, and persisted in the git directory of the repository. New filters are
+ * appended to the file; after every {@link #PRUNE_INTERVAL} of them, the
+ * filters of commits no longer reachable from any ref, like those of rebased
+ * or deleted branches, are dropped and the file is written anew.
+ * <p>
+ * Indexes are only softly referenced, so the index of a repository whose
+ * history is not looked at may be collected, and is loaded again when needed.
+ */
+class ChangedPathIndex {
+
+	private static final String FILE_NAME = "egit-changed-paths"; //$NON-NLS-1$
+
+	private static final int MAGIC = 0x45435049; // "ECPI"
+
+	private static final int VERSION = 1;
+
+	private static final byte TYPE_FILTER = 1;
+
+	private static final byte TYPE_TIPS = 2;
+
+	/** commits changing more paths get no filter */
+	private static final int MAX_PATHS = 512;
+
+	private static final int BITS_PER_PATH = 10;
+
+	private static final int HASH_COUNT = 7;
+
+	/** number of new filters written at once while building */
+	private static final int FLUSH_INTERVAL = 1000;
+
+	/** number of new filters after which unreachable ones are pruned */
+	private static final int PRUNE_INTERVAL = 10000;
+
+	/** by git directory, so that a file has only one index appending to it */
+	private static final Map<File, SoftReference<ChangedPathIndex>> INDEXES = new HashMap<File, SoftReference<ChangedPathIndex>>();
+
+	private final File file;
+
+	// guarded by this
+	private ObjectIdOwnerMap<Filter> filters = new ObjectIdOwnerMap<Filter>();
+
+	/**
+	 * tips of the last complete build; all their ancestors have a filter.
+	 * Guarded by this.
+	 */
+	private Set<ObjectId> completeTips = new HashSet<ObjectId>();
+
+	/** serializes updates, which append to the file */
+	private final Object updateLock = new Object();
+
+	/**
+	 * whether the file must be written anew instead of appended to, guarded
+	 * by updateLock
+	 */
+	private boolean rewrite;
+
+	/**
+	 * number of filters when unreachable ones were last pruned, guarded by
+	 * updateLock
+	 */
+	private int prunedSize;
+
+	private final UpdateJob job;
+
+	/**
+	 * Returns the index of the given repository, loading it from disk if
+	 * necessary
+	 *
+	 * @param repository
+	 * @return the index, which may not contain all commits yet
+	 */
+	static ChangedPathIndex get(Repository repository) {
+		File gitDir = repository.getDirectory();
+		if (gitDir == null)
+			return new ChangedPathIndex(null, repository.toString());
+		synchronized (INDEXES) {
+			Iterator<SoftReference<ChangedPathIndex>> references = INDEXES
+					.values().iterator();
+			while (references.hasNext())
+				if (references.next().get() == null)
+					references.remove();
+			SoftReference<ChangedPathIndex> reference = INDEXES.get(gitDir);
+			ChangedPathIndex index = reference == null ? null : reference
+					.get();
+			if (index == null) {
+				index = new ChangedPathIndex(new File(gitDir, FILE_NAME),
+						repository.toString());
+				INDEXES.put(gitDir, new SoftReference<ChangedPathIndex>(index));
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * @param file
+	 *            the file to persist the index in, or <code>null</code>
+	 * @param name
+	 *            name of the repository, for the job
+	 */
+	ChangedPathIndex(File file, String name) {
+		this.file = file;
+		job = new UpdateJob(name);
+		if (file != null)
+			load();
+		prunedSize = filters.size();
+	}
+
+	/**
+	 * @return whether the index does not contain any filter yet
+	 */
+	synchronized boolean isEmpty() {
+		return filters.isEmpty();
+	}
+
+	/**
+	 * @param commit
+	 * @return whether the index has a filter for the commit
+	 */
+	synchronized boolean contains(AnyObjectId commit) {
+		return filters.contains(commit);
+	}
+
+	/**
+	 * @param commit
+	 * @param path
+	 *            repository relative path of a file or folder
+	 * @return <code>true</code> if the commit definitely did not change the
+	 *         path relative to its first parent, <code>false</code> if it may
+	 *         have or if the commit is not indexed
+	 */
+	boolean isUnchanged(AnyObjectId commit, String path) {
+		Filter filter;
+		synchronized (this) {
+			filter = filters.get(commit);
+		}
+		return filter != null && !filter.mightContain(path);
+	}
+
+	/**
+	 * Schedules the job indexing the commits of the repository not indexed
+	 * yet
+	 *
+	 * @param repository
+	 */
+	void scheduleUpdate(Repository repository) {
+		job.repository = repository;
+		job.schedule();
+	}
+
+	/**
+	 * Indexes the commits reachable from the refs of the repository which are
+	 * not indexed yet
+	 *
+	 * @param repository
+	 * @param monitor
+	 * @throws IOException
+	 */
+	void update(Repository repository, IProgressMonitor monitor)
+			throws IOException {
+		synchronized (updateLock) {
+			doUpdate(repository, monitor);
+		}
+	}
+
+	private void doUpdate(Repository repository, IProgressMonitor monitor)
+			throws IOException {
+		Set<ObjectId> tips = new HashSet<ObjectId>();
+		List<Filter> added = new ArrayList<Filter>();
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			Map<String, Ref> refs = repository.getRefDatabase().getRefs(
+					RefDatabase.ALL);
+			for (Ref ref : refs.values()) {
+				if (ref.getObjectId() == null)
+					continue;
+				try {
+					RevObject object = walk.peel(walk.parseAny(ref
+							.getObjectId()));
+					if (object instanceof RevCommit) {
+						walk.markStart((RevCommit) object);
+						tips.add(object.copy());
+					}
+				} catch (MissingObjectException e) {
+					// ignore refs pointing nowhere, like the history does
+				}
+			}
+			Set<ObjectId> previousTips;
+			synchronized (this) {
+				previousTips = completeTips;
+			}
+			if (tips.equals(previousTips))
+				return;
+			for (ObjectId tip : previousTips) {
+				try {
+					walk.markUninteresting(walk.parseCommit(tip));
+				} catch (MissingObjectException e) {
+					// gone with a deleted ref
+				}
+			}
+
+			TreeWalk treeWalk = new TreeWalk(walk.getObjectReader());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(TreeFilter.ANY_DIFF);
+			for (RevCommit commit; (commit = walk.next()) != null;) {
+				if (monitor.isCanceled()) {
+					add(added, null);
+					return;
+				}
+				if (contains(commit))
+					continue;
+				added.add(createFilter(walk, treeWalk, commit));
+				if (added.size() >= FLUSH_INTERVAL) {
+					add(added, null);
+					added.clear();
+				}
+			}
+		}
+		add(added, tips);
+		int size;
+		synchronized (this) {
+			size = filters.size();
+		}
+		if (size >= prunedSize + PRUNE_INTERVAL)
+			prune(repository, tips, monitor);
+	}
+
+	/**
+	 * Drops the filters of the commits not reachable from the tips and
+	 * rewrites the file if there were any
+	 */
+	private void prune(Repository repository, Set<ObjectId> tips,
+			IProgressMonitor monitor) throws IOException {
+		ObjectIdOwnerMap<Filter> reachable = new ObjectIdOwnerMap<Filter>();
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			for (ObjectId tip : tips)
+				walk.markStart(walk.parseCommit(tip));
+			for (RevCommit commit; (commit = walk.next()) != null;) {
+				if (monitor.isCanceled())
+					return;
+				Filter filter;
+				synchronized (this) {
+					filter = filters.get(commit);
+				}
+				// an entry can only be in one map
+				if (filter != null)
+					reachable.add(new Filter(filter, filter.bits));
+			}
+		}
+		boolean pruned;
+		synchronized (this) {
+			pruned = reachable.size() < filters.size();
+			if (pruned)
+				filters = reachable;
+			prunedSize = filters.size();
+		}
+		if (pruned && file != null && file.getParentFile().isDirectory()) {
+			try {
+				save();
+			} catch (IOException e) {
+				Activator.logError(NLS.bind(
+						CoreText.ChangedPathIndex_writeError, file), e);
+			}
+		}
+	}
+
+	private static Filter createFilter(RevWalk walk, TreeWalk treeWalk,
+			RevCommit commit) throws IOException {
+		treeWalk.reset();
+		if (commit.getParentCount() == 0)
+			treeWalk.addTree(new EmptyTreeIterator());
+		else
+			treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+		treeWalk.addTree(commit.getTree());
+		Set<String> paths = new HashSet<String>();
+		while (treeWalk.next()) {
+			String path = treeWalk.getPathString();
+			paths.add(path);
+			// and the folders containing it
+			for (int i = path.lastIndexOf('/'); i > 0; i = path.lastIndexOf(
+					'/', i - 1))
+				if (!paths.add(path.substring(0, i)))
+					break;
+			if (paths.size() > MAX_PATHS)
+				return new Filter(commit, null);
+		}
+		return new Filter(commit, createBits(paths));
+	}
+
+	static long[] createBits(Collection<String> paths) {
+		int words = Math.max(1, (paths.size() * BITS_PER_PATH + 63) / 64);
+		long[] bits = new long[words];
+		for (String path : paths) {
+			int h1 = mix(path.hashCode());
+			int h2 = mix(h1 + 0x9e3779b9) | 1;
+			for (int i = 0; i < HASH_COUNT; i++) {
+				int bit = (int) (((h1 + i * h2) & 0xffffffffL) % (words * 64));
+				bits[bit >>> 6] |= 1L << bit;
+			}
+		}
+		return bits;
+	}
+
+	static boolean mightContain(long[] bits, String path) {
+		int h1 = mix(path.hashCode());
+		int h2 = mix(h1 + 0x9e3779b9) | 1;
+		for (int i = 0; i < HASH_COUNT; i++) {
+			int bit = (int) (((h1 + i * h2) & 0xffffffffL) % (bits.length * 64));
+			if ((bits[bit >>> 6] & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/** the finalizer of MurmurHash3, spreading the bits of a string hash */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	/**
+	 * Adds the new filters to the index and persists them
+	 *
+	 * @param added
+	 * @param tips
+	 *            the tips if the build is complete, or <code>null</code>
+	 */
+	private void add(List<Filter> added, Set<ObjectId> tips) {
+		synchronized (this) {
+			for (Filter filter : added)
+				if (!filters.contains(filter))
+					filters.add(filter);
+			if (tips != null)
+				completeTips = tips;
+		}
+		if (file == null || (added.isEmpty() && tips == null))
+			return;
+		if (!file.getParentFile().isDirectory())
+			// the repository was deleted
+			return;
+		try {
+			if (rewrite)
+				save();
+			else
+				append(added, tips);
+		} catch (IOException e) {
+			Activator.logError(NLS.bind(
+					CoreText.ChangedPathIndex_writeError, file), e);
+		}
+	}
+
+	private void append(List<Filter> added, Set<ObjectId> tips)
+			throws IOException {
+		boolean exists = file.exists();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file, exists)))) {
+			if (!exists)
+				writeHeader(out);
+			for (Filter filter : added)
+				filter.write(out);
+			if (tips != null)
+				writeTips(out, tips);
+		}
+	}
+
+	private void save() throws IOException {
+		File tmp = new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			writeHeader(out);
+			synchronized (this) {
+				for (Filter filter : filters)
+					filter.write(out);
+				writeTips(out, completeTips);
+			}
+		}
+		if (!file.delete() && file.exists() || !tmp.renameTo(file))
+			throw new IOException(tmp.getPath());
+		rewrite = false;
+	}
+
+	private static void writeHeader(DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	private static void writeTips(DataOutputStream out, Set<ObjectId> tips)
+			throws IOException {
+		out.writeByte(TYPE_TIPS);
+		out.writeInt(tips.size());
+		for (ObjectId tip : tips)
+			tip.copyRawTo(out);
+	}
+
+	private void load() {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				rewrite = true;
+				return;
+			}
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			for (int type; (type = in.read()) != -1;) {
+				if (type == TYPE_FILTER) {
+					in.readFully(raw);
+					ObjectId id = ObjectId.fromRaw(raw);
+					int words = in.readInt();
+					long[] bits = null;
+					if (words >= 0) {
+						bits = new long[words];
+						for (int i = 0; i < words; i++)
+							bits[i] = in.readLong();
+					}
+					if (!filters.contains(id))
+						filters.add(new Filter(id, bits));
+				} else if (type == TYPE_TIPS) {
+					int count = in.readInt();
+					Set<ObjectId> tips = new HashSet<ObjectId>();
+					for (int i = 0; i < count; i++) {
+						in.readFully(raw);
+						tips.add(ObjectId.fromRaw(raw));
+					}
+					completeTips = tips;
+				} else {
+					rewrite = true;
+					return;
+				}
+			}
+		} catch (FileNotFoundException e) {
+			// not built yet
+		} catch (EOFException e) {
+			// interrupted while appending, drop the incomplete record
+			rewrite = true;
+		} catch (IOException e) {
+			Activator.logError(NLS.bind(CoreText.ChangedPathIndex_readError,
+					file), e);
+			rewrite = true;
+		}
+	}
+
+	private static class Filter extends ObjectIdOwnerMap.Entry {
+
+		/** <code>null</code> if the commit changed too many paths */
+		private final long[] bits;
+
+		Filter(AnyObjectId id, long[] bits) {
+			super(id);
+			this.bits = bits;
+		}
+
+		boolean mightContain(String path) {
+			return bits == null || ChangedPathIndex.mightContain(bits, path);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeByte(TYPE_FILTER);
+			copyRawTo(out);
+			if (bits == null)
+				out.writeInt(-1);
+			else {
+				out.writeInt(bits.length);
+				for (long word : bits)
+					out.writeLong(word);
+			}
+		}
+	}
+
+	private class UpdateJob extends Job {
+
+		private final String repositoryName;
+
+		volatile Repository repository;
+
+		UpdateJob(String name) {
+			super(NLS.bind(CoreText.ChangedPathIndex_jobName, name));
+			repositoryName = name;
+			setSystem(true);
+			setPriority(DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Repository repo = repository;
+			repository = null;
+			if (repo == null)
+				return Status.OK_STATUS;
+			try {
+				update(repo, monitor);
+			} catch (IOException e) {
+				Activator.logError(NLS.bind(
+						CoreText.ChangedPathIndex_updateError, repositoryName),
+						e);
+			}
+			return monitor.isCanceled() ? Status.CANCEL_STATUS
+					: Status.OK_STATUS;
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Walks the history of a path like a {@link KidWalk} with a tree filter
+ * does, but asks a {@link ChangedPathIndex} first and only diffs the trees of
+ * commits which may have changed the path.
+ * <p>
+ * Since the tree filter of a {@link org.eclipse.jgit.revwalk.RevWalk} cannot
+ * be told to skip a commit, the walk runs without one, and the simplification
+ * of merges and the rewriting of parents done by JGit for a tree filter are
+ * applied to the walked commits: a merge not changing the path relative to
+ * one of its parents only follows that parent, commits not changing the path
+ * are left out and the history parents of the remaining commits skip them.
+ * Unlike the rewriting of JGit, which needs the whole history first, this
+ * only looks ahead along the parents of the commits returned, so the history
+ * can be read page by page.
+ */
+class ChangedPathWalk {
+
+	private static final RevCommit[] NO_PARENTS = {};
+
+	private final KidWalk walk;
+
+	private final String path;
+
+	private final ChangedPathIndex index;
+
+	private final RevFlag evaluated;
+
+	private final RevFlag changed;
+
+	private final RevFlag reached;
+
+	private final RevFlag deferred;
+
+	/** deferred commits reached since, to be returned next */
+	private final Deque<RevCommit> pending = new ArrayDeque<RevCommit>();
+
+	/** parents of simplified merges and of commits cut by a merge */
+	private final Map<RevCommit, RevCommit[]> simplifiedParents = new HashMap<RevCommit, RevCommit[]>();
+
+	private final TreeWalk treeWalk;
+
+	/**
+	 * @param walk
+	 *            the walk, with all start commits marked and without a tree
+	 *            filter
+	 * @param path
+	 *            repository relative path of the file or folder
+	 * @param filter
+	 *            the tree filter JGit would use for the path
+	 * @param index
+	 */
+	ChangedPathWalk(KidWalk walk, String path, TreeFilter filter,
+			ChangedPathIndex index) {
+		this.walk = walk;
+		this.path = path;
+		this.index = index;
+		evaluated = walk.newFlag("EVALUATED"); //$NON-NLS-1$
+		changed = walk.newFlag("CHANGED"); //$NON-NLS-1$
+		reached = walk.newFlag("REACHED"); //$NON-NLS-1$
+		deferred = walk.newFlag("DEFERRED"); //$NON-NLS-1$
+		for (RevCommit start : walk.getStarts())
+			start.add(reached);
+		treeWalk = new TreeWalk(walk.getObjectReader());
+		treeWalk.setFilter(filter);
+		treeWalk.setRecursive(filter.shouldBeRecursive());
+	}
+
+	/**
+	 * @return the next commit changing the path in the order of the walk,
+	 *         with its {@link KidCommit#historyParents} set and added to the
+	 *         {@link KidCommit#children} of those, or <code>null</code> if
+	 *         there are no more
+	 * @throws IOException
+	 */
+	KidCommit next() throws IOException {
+		for (;;) {
+			RevCommit commit = pending.poll();
+			if (commit == null) {
+				commit = walk.next();
+				if (commit == null)
+					return null;
+				// JGit would not have walked the parents dropped by a
+				// simplification. The walk usually comes to a commit after
+				// its children, but with clock skew a child reaching it may
+				// still follow, so the commit is decided on only then.
+				if (!commit.has(reached)) {
+					commit.add(deferred);
+					continue;
+				}
+			}
+			evaluate(commit);
+			for (RevCommit parent : getParents(commit)) {
+				parent.add(reached);
+				if (parent.has(deferred)) {
+					parent.remove(deferred);
+					pending.add(parent);
+				}
+			}
+			if (!commit.has(changed))
+				continue;
+
+			KidCommit result = (KidCommit) commit;
+			RevCommit[] parents = getParents(commit);
+			List<KidCommit> historyParents = new ArrayList<KidCommit>(
+					parents.length);
+			for (RevCommit parent : parents) {
+				KidCommit rewritten = rewrite(parent);
+				if (rewritten != null && !historyParents.contains(rewritten))
+					historyParents.add(rewritten);
+			}
+			result.historyParents = historyParents
+					.toArray(new KidCommit[historyParents.size()]);
+			for (KidCommit parent : result.historyParents)
+				parent.addChild(result);
+			return result;
+		}
+	}
+
+	private void evaluate(RevCommit commit) throws IOException {
+		if (commit.has(evaluated))
+			return;
+		if (include(commit))
+			commit.add(changed);
+		commit.add(evaluated);
+	}
+
+	private RevCommit[] getParents(RevCommit commit) {
+		RevCommit[] parents = simplifiedParents.get(commit);
+		return parents != null ? parents : commit.getParents();
+	}
+
+	/**
+	 * Follows the first parents of commits not changing the path, like the
+	 * RewriteGenerator of JGit does, deciding about them ahead of the walk
+	 * if necessary
+	 */
+	private KidCommit rewrite(RevCommit commit) throws IOException {
+		RevCommit p = commit;
+		for (;;) {
+			evaluate(p);
+			RevCommit[] parents = getParents(p);
+			if (parents.length > 1 || p.has(changed))
+				return (KidCommit) p;
+			if (parents.length == 0)
+				return null;
+			p = parents[0];
+		}
+	}
+
+	/**
+	 * Decides whether the commit changes the path in the same way the
+	 * TreeRevFilter of JGit does, simplifying merges
+	 */
+	private boolean include(RevCommit commit) throws IOException {
+		boolean simplified = simplifiedParents.containsKey(commit);
+		RevCommit[] parents = simplified ? simplifiedParents.get(commit)
+				: commit.getParents();
+		// the filters of the index are relative to the real first parent
+		if (!simplified && index.isUnchanged(commit, path)) {
+			if (parents.length > 1)
+				simplifiedParents.put(commit, new RevCommit[] { parents[0] });
+			return false;
+		}
+
+		int n = parents.length;
+		ObjectId[] trees = new ObjectId[n + 1];
+		for (int i = 0; i < n; i++)
+			trees[i] = walk.parseCommit(parents[i]).getTree();
+		trees[n] = commit.getTree();
+		treeWalk.reset(trees);
+		if (n <= 1)
+			return treeWalk.next();
+
+		int[] changes = new int[n];
+		int[] adds = new int[n];
+		while (treeWalk.next()) {
+			int mode = treeWalk.getRawMode(n);
+			for (int i = 0; i < n; i++) {
+				int parentMode = treeWalk.getRawMode(i);
+				if (mode == parentMode && treeWalk.idEqual(i, n))
+					continue;
+				changes[i]++;
+				if (parentMode == 0 && mode != 0)
+					adds[i]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (changes[i] == 0) {
+				simplifiedParents.put(commit, new RevCommit[] { parents[i] });
+				return false;
+			}
+			if (changes[i] == adds[i])
+				// the path did not exist in this parent, so its history is
+				// not relevant
+				simplifiedParents.put(parents[i], NO_PARENTS);
+		}
+		return true;
+	}
+}
@@ -12,7 +12,9 @@
 package org.eclipse.egit.core.internal.storage;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.eclipse.core.resources.IResource;
@@ -21,6 +23,7 @@
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.Utils;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.core.synchronize.GitRemoteResource;
 import org.eclipse.osgi.util.NLS;
@@ -44,25 +47,59 @@
  * A list of revisions for a specific resource according to some filtering
  * criterion. Though git really does not do file tracking, this corresponds to
  * listing all files with the same path.
+ * <p>
+ * The history is read lazily: the walk is kept open and pages of revisions
+ * are read from it only when revisions beyond the ones already read are asked
+ * for, e.g. by {@link #getFileRevisions(int, IProgressMonitor)}, which
+ * {@link #getFileRevision(String, IProgressMonitor)} reads through until it
+ * finds the revision. Callers reach these methods through
+ * {@link #getAdapter(Class)} with {@link PagedFileHistory}.
  */
-class GitFileHistory extends FileHistory implements IAdaptable {
+class GitFileHistory extends FileHistory implements IAdaptable,
+		PagedFileHistory {
 	private static final IFileRevision[] NO_REVISIONS = {};
 
 	private static final int BATCH_SIZE = 256;
 
+	private final int batchSize;
+
 	private final IResource resource;
 
+	/** the monitor of the provider, for the methods which take none */
+	private final IProgressMonitor monitor;
+
 	private String gitPath;
 
 	private final Repository db;
 
-	private final RevWalk walk;
+	private final KidWalk walk;
+
+	private TreeFilter pathFilter;
+
+	private ChangedPathIndex changedPaths;
+
+	/** the revisions read so far, guarded by this */
+	private final List<IFileRevision> revisions = new ArrayList<IFileRevision>();
+
+	/** whether all revisions were read, guarded by this */
+	private boolean complete;
+
+	/** the source of the revisions if the tree filter of the walk is used */
+	private KidCommitList commits;
 
-	private final IFileRevision[] revisions;
+	/** the source of the revisions if the changed path index is used */
+	private ChangedPathWalk changedPathWalk;
 
 	GitFileHistory(final IResource rsrc, final int flags,
 			final IProgressMonitor monitor) {
+		this(rsrc, flags, monitor, BATCH_SIZE);
+	}
+
+	GitFileHistory(final IResource rsrc, final int flags,
+			final IProgressMonitor monitor, final int batchSize) {
 		resource = rsrc;
+		this.monitor = monitor;
+		this.batchSize = batchSize;
 
 		final RepositoryMapping rm = RepositoryMapping.getMapping(resource);
 		if (rm == null) {
@@ -77,19 +114,28 @@ class GitFileHistory extends FileHistory implements IAdaptable {
 			if (gitPath == null || gitPath.length() == 0) {
 				walk.setTreeFilter(TreeFilter.ANY_DIFF);
 			} else {
-				walk.setTreeFilter(AndTreeFilter.create(PathFilterGroup
+				pathFilter = AndTreeFilter.create(PathFilterGroup
 						.createFromStrings(Collections.singleton(gitPath)),
-						TreeFilter.ANY_DIFF));
+						TreeFilter.ANY_DIFF);
+				changedPaths = ChangedPathIndex.get(db);
+				// an empty index cannot skip any commit
+				if (changedPaths.isEmpty())
+					walk.setTreeFilter(pathFilter);
 			}
 		}
 
-		revisions = buildRevisions(monitor, flags);
+		complete = !startWalk(flags);
 	}
 
-	private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
-			final int flags) {
+	/**
+	 * Marks the start commits of the walk. The revisions are read page by
+	 * page when asked for.
+	 *
+	 * @return <code>false</code> if there are no more revisions to read
+	 */
+	private boolean startWalk(final int flags) {
 		if (walk == null)
-			return NO_REVISIONS;
+			return false;
 
 		final RevCommit root;
 		try {
@@ -98,7 +144,7 @@ private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
 				Activator.logError(NLS.bind(
 						CoreText.GitFileHistory_noHeadRevisionAvailable,
 						resource.getProject().getName()), null);
-				return NO_REVISIONS;
+				return false;
 			}
 
 			root = walk.parseCommit(headId);
@@ -108,9 +154,8 @@ private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
 				// just the repository HEAD, even though it may not be
 				// the revision that most recently modified the path.
 				//
-				final CommitFileRevision single;
-				single = new CommitFileRevision(db, root, gitPath);
-				return new IFileRevision[] { single };
+				revisions.add(new CommitFileRevision(db, root, gitPath));
+				return false;
 			}
 
 			markStartAllRefs(walk, Constants.R_HEADS);
@@ -122,31 +167,70 @@ private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
 			Activator.logError(NLS.bind(
 					CoreText.GitFileHistory_invalidHeadRevision, resource
 							.getProject().getName()), e);
-			return NO_REVISIONS;
+			return false;
+		}
+
+		// the index tells which commits need their trees diffed
+		if (walk.getTreeFilter() == TreeFilter.ALL)
+			changedPathWalk = new ChangedPathWalk(walk, gitPath, pathFilter,
+					changedPaths);
+		else {
+			commits = new KidCommitList();
+			commits.source(walk);
+		}
+		return true;
+	}
+
+	/**
+	 * Reads pages of revisions until the given number of revisions was read,
+	 * the history is complete or the monitor is canceled
+	 *
+	 * @param count
+	 * @param pageMonitor
+	 *            checked between pages, may be <code>null</code>
+	 */
+	private synchronized void readRevisions(final int count,
+			final IProgressMonitor pageMonitor) {
+		while (!complete && revisions.size() < count) {
+			if (pageMonitor != null && pageMonitor.isCanceled())
+				return;
+			readPage();
 		}
+	}
 
-		final KidCommitList list = new KidCommitList();
-		list.source(walk);
+	private void readPage() {
+		long startNanos = System.nanoTime();
+		int read = 0;
 		try {
-			for (;;) {
-				final int oldsz = list.size();
-				list.fillTo(oldsz + BATCH_SIZE - 1);
-				if (oldsz == list.size())
-					break;
-				if (monitor != null && monitor.isCanceled())
-					break;
+			if (changedPathWalk != null) {
+				KidCommit commit;
+				while (read < batchSize
+						&& (commit = changedPathWalk.next()) != null) {
+					revisions.add(new CommitFileRevision(db, commit, gitPath));
+					read++;
+				}
+			} else {
+				final int oldsz = commits.size();
+				commits.fillTo(oldsz + batchSize - 1);
+				for (int i = oldsz; i < commits.size(); i++)
+					revisions.add(new CommitFileRevision(db, commits.get(i),
+							gitPath));
+				read = commits.size() - oldsz;
 			}
+			if (read < batchSize)
+				complete = true;
 		} catch (IOException e) {
 			Activator.logError(NLS.bind(
 					CoreText.GitFileHistory_errorParsingHistory, resource
 							.getFullPath()), e);
-			return NO_REVISIONS;
+			complete = true;
 		}
-
-		final IFileRevision[] r = new IFileRevision[list.size()];
-		for (int i = 0; i < r.length; i++)
-			r[i] = new CommitFileRevision(db, list.get(i), gitPath);
-		return r;
+		GitMetrics.timer(GitMetrics.HISTORY_LOAD, GitMetrics.scope(db))
+				.recordSince(startNanos);
+		GitMetrics.counter(GitMetrics.HISTORY_COMMITS, GitMetrics.scope(db))
+				.add(read);
+		if (complete && changedPaths != null)
+			changedPaths.scheduleUpdate(db);
 	}
 
 	private void markStartAllRefs(RevWalk theWalk, String prefix)
@@ -174,21 +258,28 @@ private void markStartRef(RevWalk theWalk, Ref ref) throws IOException,
 		}
 	}
 
-	public IFileRevision[] getContributors(final IFileRevision ifr) {
+	public synchronized IFileRevision[] getContributors(
+			final IFileRevision ifr) {
 		String path = getGitPath(ifr);
 		RevCommit commit = getRevCommit(ifr);
 
 		if (path != null && commit != null) {
-			final IFileRevision[] r = new IFileRevision[commit.getParentCount()];
+			final RevCommit[] parents;
+			if (commit instanceof KidCommit
+					&& ((KidCommit) commit).historyParents != null)
+				parents = ((KidCommit) commit).historyParents;
+			else
+				parents = commit.getParents();
+			final IFileRevision[] r = new IFileRevision[parents.length];
 			for (int i = 0; i < r.length; i++)
-				r[i] = new CommitFileRevision(db, commit.getParent(i), path);
+				r[i] = new CommitFileRevision(db, parents[i], path);
 			return r;
 		}
 
 		return NO_REVISIONS;
 	}
 
-	public IFileRevision[] getTargets(final IFileRevision ifr) {
+	public synchronized IFileRevision[] getTargets(final IFileRevision ifr) {
 		String path = getGitPath(ifr);
 		RevCommit commit = getRevCommit(ifr);
 
@@ -216,7 +307,7 @@ else if (revision instanceof IAdaptable) {
 		return null;
 	}
 
-	private RevCommit getRevCommit(IFileRevision revision) {
+	private synchronized RevCommit getRevCommit(IFileRevision revision) {
 		if (revision instanceof CommitFileRevision)
 			return ((CommitFileRevision) revision).getRevCommit();
 		else if (revision instanceof IAdaptable) {
@@ -238,6 +329,11 @@ else if (revision instanceof IAdaptable) {
 	}
 
 	public IFileRevision getFileRevision(final String id) {
+		return getFileRevision(id, monitor);
+	}
+
+	public IFileRevision getFileRevision(final String id,
+			final IProgressMonitor pageMonitor) {
 		if (id == null || id.equals("") //$NON-NLS-1$
 				|| GitFileRevision.WORKSPACE.equals(id))
 			return new WorkspaceFileRevision(resource);
@@ -245,20 +341,36 @@ public IFileRevision getFileRevision(final String id) {
 			return new IndexFileRevision(db, gitPath);
 
 		// Only return a revision if it was matched by this filtered history
-		for (IFileRevision r : revisions) {
-			if (r.getContentIdentifier().equals(id))
-				return r;
+		int checked = 0;
+		for (int count = batchSize;; count += batchSize) {
+			IFileRevision[] read = getFileRevisions(count, pageMonitor);
+			for (; checked < read.length; checked++)
+				if (read[checked].getContentIdentifier().equals(id))
+					return read[checked];
+			if (read.length < count)
+				// complete or canceled
+				return null;
 		}
-		return null;
 	}
 
 	public IFileRevision[] getFileRevisions() {
-		final IFileRevision[] r = new IFileRevision[revisions.length];
-		System.arraycopy(revisions, 0, r, 0, r.length);
-		return r;
+		return getFileRevisions(Integer.MAX_VALUE, monitor);
+	}
+
+	public synchronized IFileRevision[] getFileRevisions(final int count,
+			final IProgressMonitor pageMonitor) {
+		readRevisions(count, pageMonitor);
+		final int size = Math.min(count, revisions.size());
+		return revisions.subList(0, size).toArray(new IFileRevision[size]);
+	}
+
+	public synchronized boolean isComplete() {
+		return complete;
 	}
 
 	public Object getAdapter(Class adapter) {
+		if (adapter == PagedFileHistory.class)
+			return this;
 		return null;
 	}
 }
@@ -16,6 +16,13 @@ class KidCommit extends RevCommit {
 
 	KidCommit[] children = NO_CHILDREN;
 
+	/**
+	 * the parents in the history of a path if set by a
+	 * {@link ChangedPathWalk}, otherwise the parents of the commit, which
+	 * were rewritten by the walk
+	 */
+	KidCommit[] historyParents;
+
 	KidCommit(final AnyObjectId id) {
 		super(id);
 	}
@@ -37,6 +44,7 @@ else if (cnt == 1)
 	@Override
 	public void reset() {
 		children = NO_CHILDREN;
+		historyParents = null;
 		super.reset();
 	}
 }
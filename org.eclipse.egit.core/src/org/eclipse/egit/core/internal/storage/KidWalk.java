@@ -9,12 +9,20 @@
  *******************************************************************************/
 package org.eclipse.egit.core.internal.storage;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 
 class KidWalk extends RevWalk {
+	private final List<RevCommit> starts = new ArrayList<RevCommit>();
+
 	KidWalk(final Repository repo) {
 		super(repo);
 	}
@@ -23,4 +31,15 @@ class KidWalk extends RevWalk {
 	protected RevCommit createCommit(final AnyObjectId id) {
 		return new KidCommit(id);
 	}
+
+	@Override
+	public void markStart(final RevCommit c) throws MissingObjectException,
+			IncorrectObjectTypeException, IOException {
+		super.markStart(c);
+		starts.add(c);
+	}
+
+	List<RevCommit> getStarts() {
+		return starts;
+	}
 }
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.core.history.IFileHistory;
+import org.eclipse.team.core.history.IFileRevision;
+
+/**
+ * A file history which reads its revisions page by page only when they are
+ * asked for. The file histories of Git adapt to it.
+ *
+ * @see IFileHistory#getFileRevisions()
+ */
+public interface PagedFileHistory {
+
+	/**
+	 * Returns the latest revisions of the history, reading only as many pages
+	 * of the history as needed for them
+	 *
+	 * @param count
+	 *            the maximum number of revisions to return
+	 * @param monitor
+	 *            monitor checked between pages, may be <code>null</code>.
+	 *            Reading stops if it is canceled, and continues with the next
+	 *            call.
+	 * @return the first <code>count</code> revisions, fewer if the history
+	 *         has no more or the monitor was canceled
+	 */
+	public IFileRevision[] getFileRevisions(int count,
+			IProgressMonitor monitor);
+
+	/**
+	 * Returns the revision with the given id, reading only as many pages of
+	 * the history as needed to find it
+	 *
+	 * @param id
+	 *            content identifier of the revision
+	 * @param monitor
+	 *            monitor checked between pages, may be <code>null</code>
+	 * @return the revision, or <code>null</code> if the history does not
+	 *         contain it or the monitor was canceled before it was found
+	 */
+	public IFileRevision getFileRevision(String id, IProgressMonitor monitor);
+
+	/**
+	 * @return whether all revisions of the history were read
+	 */
+	public boolean isComplete();
+}
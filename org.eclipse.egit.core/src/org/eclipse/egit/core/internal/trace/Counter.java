@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonically increasing count of events.
+ */
+public class Counter {
+
+	private final AtomicLong count = new AtomicLong();
+
+	Counter() {
+		// created by GitMetrics
+	}
+
+	/**
+	 * Counts one event.
+	 */
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * @param n
+	 *            number of events to count
+	 */
+	public void add(long n) {
+		count.addAndGet(n);
+	}
+
+	/**
+	 * @return number of counted events
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Sets the count back to 0.
+	 */
+	public void reset() {
+		count.set(0);
+	}
+}
@@ -0,0 +1,22 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+/**
+ * A value which is computed when a snapshot of the metrics is taken, e.g. the
+ * length of a queue.
+ */
+public interface Gauge {
+
+	/**
+	 * @return the current value; must be cheap to compute and must not lock
+	 *         anything which may be held while metrics are recorded
+	 */
+	long getValue();
+}
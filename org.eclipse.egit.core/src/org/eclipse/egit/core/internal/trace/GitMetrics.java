@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.eclipse.egit.core.Activator;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Registry of the performance metrics of EGit.
+ * <p>
+ * Unlike the {@link GitTraceLocation}s, which write free text only while
+ * tracing is enabled, metrics are always recorded. Recording is cheap and
+ * doesn't lock: a counter is a single atomic increment, a timer or histogram
+ * a handful of them. Metrics are identified by a name, one of the constants of
+ * this class, and a scope, usually the directory of a repository as returned
+ * by {@link #scope(Repository)}, or the empty string for global metrics.
+ * <p>
+ * Snapshots of all metrics can be taken with {@link #snapshot()}, exported as
+ * JSON with {@link #exportJson(Writer)}, and are available through JMX as
+ * {@value #OBJECT_NAME} while the core plug-in is active.
+ */
+public class GitMetrics {
+
+	/** Name of the MXBean */
+	public static final String OBJECT_NAME = "org.eclipse.egit.core:type=Metrics"; //$NON-NLS-1$
+
+	/** {@link Timer}: full reloads of the index diff of a repository */
+	public static final String INDEX_DIFF_RELOAD = "indexdiff.reload"; //$NON-NLS-1$
+
+	/** {@link Histogram}: changed files found by a full index diff reload */
+	public static final String INDEX_DIFF_RELOAD_SIZE = "indexdiff.reload.changes"; //$NON-NLS-1$
+
+	/** {@link Timer}: incremental updates of the index diff of a repository */
+	public static final String INDEX_DIFF_UPDATE = "indexdiff.update"; //$NON-NLS-1$
+
+	/** {@link Histogram}: resources checked by an incremental update */
+	public static final String INDEX_DIFF_UPDATE_SIZE = "indexdiff.update.resources"; //$NON-NLS-1$
+
+	/** {@link Gauge}: files waiting for an incremental index diff update */
+	public static final String INDEX_DIFF_PENDING = "indexdiff.pending"; //$NON-NLS-1$
+
+	/** {@link Timer}: decorations of resources with their Git state */
+	public static final String DECORATION = "decoration"; //$NON-NLS-1$
+
+	/** {@link Counter}: decorations taken from the decoration cache */
+	public static final String DECORATION_CACHE_HITS = "decoration.cache.hits"; //$NON-NLS-1$
+
+	/** {@link Counter}: decorations which had to be computed */
+	public static final String DECORATION_CACHE_MISSES = "decoration.cache.misses"; //$NON-NLS-1$
+
+	/** {@link Timer}: loads of pages of the history of a resource */
+	public static final String HISTORY_LOAD = "history.load"; //$NON-NLS-1$
+
+	/** {@link Counter}: commits read while loading file histories */
+	public static final String HISTORY_COMMITS = "history.commits"; //$NON-NLS-1$
+
+	/** {@link Timer}: fetch operations */
+	public static final String FETCH = "fetch"; //$NON-NLS-1$
+
+	/** {@link Timer}: push operations */
+	public static final String PUSH = "push"; //$NON-NLS-1$
+
+	private static final ConcurrentMap<Key, Object> metrics = new ConcurrentHashMap<Key, Object>();
+
+	private static ObjectName registeredName;
+
+	/**
+	 * @param repository
+	 * @return scope of the metrics about the repository
+	 */
+	public static String scope(Repository repository) {
+		File directory = repository.getDirectory();
+		return directory != null ? directory.getAbsolutePath() : ""; //$NON-NLS-1$
+	}
+
+	/**
+	 * @param name
+	 * @return the global counter with the given name
+	 */
+	public static Counter counter(String name) {
+		return counter(name, ""); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param name
+	 * @param scope
+	 * @return the counter with the given name and scope, created if necessary
+	 */
+	public static Counter counter(String name, String scope) {
+		Object metric = metrics.get(new Key(name, scope));
+		if (metric == null)
+			metric = register(new Key(name, scope), new Counter());
+		return cast(Counter.class, metric, name);
+	}
+
+	/**
+	 * @param name
+	 * @return the global timer with the given name
+	 */
+	public static Timer timer(String name) {
+		return timer(name, ""); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param name
+	 * @param scope
+	 * @return the timer with the given name and scope, created if necessary
+	 */
+	public static Timer timer(String name, String scope) {
+		Object metric = metrics.get(new Key(name, scope));
+		if (metric == null)
+			metric = register(new Key(name, scope), new Timer());
+		return cast(Timer.class, metric, name);
+	}
+
+	/**
+	 * @param name
+	 * @param scope
+	 * @param unit
+	 *            unit of the values, used if the histogram is created
+	 * @return the histogram with the given name and scope, created if
+	 *         necessary
+	 */
+	public static Histogram histogram(String name, String scope, String unit) {
+		Object metric = metrics.get(new Key(name, scope));
+		if (metric == null)
+			metric = register(new Key(name, scope), new Histogram(unit));
+		return cast(Histogram.class, metric, name);
+	}
+
+	/**
+	 * Registers a gauge, replacing a gauge registered before with the same
+	 * name and scope.
+	 *
+	 * @param name
+	 * @param scope
+	 * @param gauge
+	 */
+	public static void registerGauge(String name, String scope, Gauge gauge) {
+		metrics.put(new Key(name, scope), gauge);
+	}
+
+	/**
+	 * Removes all metrics of a scope, e.g. when a repository is removed.
+	 *
+	 * @param scope
+	 */
+	public static void removeScope(String scope) {
+		for (Iterator<Key> keys = metrics.keySet().iterator(); keys
+				.hasNext();)
+			if (keys.next().scope.equals(scope))
+				keys.remove();
+	}
+
+	/**
+	 * @return snapshots of all metrics, sorted by name and scope
+	 */
+	public static List<MetricSnapshot> snapshot() {
+		List<MetricSnapshot> result = new ArrayList<MetricSnapshot>(
+				metrics.size());
+		for (Map.Entry<Key, Object> entry : metrics.entrySet()) {
+			String name = entry.getKey().name;
+			String scope = entry.getKey().scope;
+			Object metric = entry.getValue();
+			if (metric instanceof Counter)
+				result.add(MetricSnapshot.of(name, scope, (Counter) metric));
+			else if (metric instanceof Gauge)
+				result.add(MetricSnapshot.of(name, scope, (Gauge) metric));
+			else
+				result.add(MetricSnapshot.of(name, scope, (Histogram) metric));
+		}
+		Collections.sort(result, new Comparator<MetricSnapshot>() {
+			public int compare(MetricSnapshot o1, MetricSnapshot o2) {
+				int c = o1.getName().compareTo(o2.getName());
+				return c != 0 ? c : o1.getScope().compareTo(o2.getScope());
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Writes snapshots of all metrics as JSON object with the time of the
+	 * snapshot and an array of the metrics.
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public static void exportJson(Writer writer) throws IOException {
+		writer.write("{\"timestamp\":"); //$NON-NLS-1$
+		writer.write(Long.toString(System.currentTimeMillis()));
+		writer.write(",\"metrics\":["); //$NON-NLS-1$
+		boolean first = true;
+		for (MetricSnapshot s : snapshot()) {
+			if (!first)
+				writer.write(',');
+			first = false;
+			writer.write("\n{\"name\":"); //$NON-NLS-1$
+			writeString(writer, s.getName());
+			writer.write(",\"scope\":"); //$NON-NLS-1$
+			writeString(writer, s.getScope());
+			writer.write(",\"type\":"); //$NON-NLS-1$
+			writeString(writer, s.getType());
+			writer.write(",\"unit\":"); //$NON-NLS-1$
+			writeString(writer, s.getUnit());
+			writer.write(",\"count\":" + s.getCount()); //$NON-NLS-1$
+			writer.write(",\"sum\":" + s.getSum()); //$NON-NLS-1$
+			writer.write(",\"min\":" + s.getMin()); //$NON-NLS-1$
+			writer.write(",\"max\":" + s.getMax()); //$NON-NLS-1$
+			writer.write(",\"last\":" + s.getLast()); //$NON-NLS-1$
+			writer.write(",\"mean\":" + s.getMean()); //$NON-NLS-1$
+			writer.write(",\"median\":" + s.getMedian()); //$NON-NLS-1$
+			writer.write(",\"p95\":" + s.getP95()); //$NON-NLS-1$
+			writer.write('}');
+		}
+		writer.write("\n]}\n"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Resets all counters and distributions. Gauges are not affected.
+	 */
+	public static void reset() {
+		for (Object metric : metrics.values())
+			if (metric instanceof Counter)
+				((Counter) metric).reset();
+			else if (metric instanceof Histogram)
+				((Histogram) metric).reset();
+	}
+
+	/**
+	 * Registers the {@link GitMetricsMXBean} with the platform MBean server.
+	 */
+	public static synchronized void registerMBean() {
+		if (registeredName != null)
+			return;
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(name))
+				server.registerMBean(new StandardMBean(new MXBean(),
+						GitMetricsMXBean.class, true), name);
+			registeredName = name;
+		} catch (JMException e) {
+			Activator.logError(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Unregisters the {@link GitMetricsMXBean}.
+	 */
+	public static synchronized void unregisterMBean() {
+		if (registeredName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+					registeredName);
+		} catch (JMException e) {
+			Activator.logError(e.getMessage(), e);
+		} finally {
+			registeredName = null;
+		}
+	}
+
+	private static Object register(Key key, Object metric) {
+		Object existing = metrics.putIfAbsent(key, metric);
+		return existing != null ? existing : metric;
+	}
+
+	private static <T> T cast(Class<T> type, Object metric, String name) {
+		if (!type.isInstance(metric))
+			throw new IllegalArgumentException(name + " is a " //$NON-NLS-1$
+					+ metric.getClass().getSimpleName());
+		return type.cast(metric);
+	}
+
+	private static void writeString(Writer writer, String value)
+			throws IOException {
+		writer.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\')
+				writer.write('\\');
+			if (c < 0x20)
+				writer.write(String.format("\\u%04x", Integer.valueOf(c))); //$NON-NLS-1$
+			else
+				writer.write(c);
+		}
+		writer.write('"');
+	}
+
+	private GitMetrics() {
+		// utility class
+	}
+
+	private static final class Key {
+
+		final String name;
+
+		final String scope;
+
+		Key(String name, String scope) {
+			this.name = name;
+			this.scope = scope;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return name.equals(other.name) && scope.equals(other.scope);
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode() * 31 + scope.hashCode();
+		}
+	}
+
+	private static class MXBean implements GitMetricsMXBean {
+
+		public List<MetricSnapshot> getMetrics() {
+			return snapshot();
+		}
+
+		public String exportJson() {
+			StringWriter writer = new StringWriter();
+			try {
+				GitMetrics.exportJson(writer);
+			} catch (IOException e) {
+				// can't happen with a StringWriter
+			}
+			return writer.toString();
+		}
+
+		public void reset() {
+			GitMetrics.reset();
+		}
+	}
+}
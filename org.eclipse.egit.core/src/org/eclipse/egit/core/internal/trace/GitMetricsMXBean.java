@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link GitMetrics}, registered as
+ * {@value GitMetrics#OBJECT_NAME}.
+ */
+public interface GitMetricsMXBean {
+
+	/**
+	 * @return snapshots of all metrics
+	 */
+	List<MetricSnapshot> getMetrics();
+
+	/**
+	 * @return snapshots of all metrics as JSON
+	 */
+	String exportJson();
+
+	/**
+	 * Resets all counters and distributions.
+	 */
+	void reset();
+}
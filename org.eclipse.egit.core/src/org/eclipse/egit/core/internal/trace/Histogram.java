@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of non-negative values, e.g. sizes or durations.
+ * <p>
+ * Values are counted in buckets of powers of two, so recording a value takes a
+ * few atomic operations and constant memory, and percentiles are estimated
+ * with an error of at most a factor of two. Count, sum, minimum, maximum and
+ * the last value are exact.
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 64;
+
+	private final String unit;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	private volatile long last;
+
+	/**
+	 * @param unit
+	 *            unit of the values, for display
+	 */
+	Histogram(String unit) {
+		this.unit = unit;
+	}
+
+	/**
+	 * @param value
+	 *            the value to record, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		buckets.incrementAndGet(bucket(v));
+		sum.addAndGet(v);
+		last = v;
+		long current;
+		while (v < (current = min.get()) && !min.compareAndSet(current, v)) {
+			// retry
+		}
+		while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+			// retry
+		}
+		count.incrementAndGet();
+	}
+
+	/**
+	 * @return the unit of the values
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return sum of the recorded values
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * @return smallest recorded value, 0 if there is none
+	 */
+	public long getMin() {
+		long value = min.get();
+		return value == Long.MAX_VALUE ? 0 : value;
+	}
+
+	/**
+	 * @return largest recorded value, 0 if there is none
+	 */
+	public long getMax() {
+		long value = max.get();
+		return value == Long.MIN_VALUE ? 0 : value;
+	}
+
+	/**
+	 * @return the value recorded last, 0 if there is none
+	 */
+	public long getLast() {
+		return last;
+	}
+
+	/**
+	 * @return average of the recorded values, 0 if there are none
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * @param quantile
+	 *            between 0 and 1, e.g. 0.95 for the 95th percentile
+	 * @return estimated value below which the given fraction of the recorded
+	 *         values lies, 0 if there are none
+	 */
+	public long getPercentile(double quantile) {
+		long total = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0)
+			return 0;
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0)
+				return Math.min(upperBound(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forgets all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			buckets.set(i, 0);
+		count.set(0);
+		sum.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+		last = 0;
+	}
+
+	/** bucket i holds the values with i significant bits */
+	private static int bucket(long value) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket == 0)
+			return 0;
+		if (bucket >= 63)
+			return Long.MAX_VALUE;
+		return (1L << bucket) - 1;
+	}
+}
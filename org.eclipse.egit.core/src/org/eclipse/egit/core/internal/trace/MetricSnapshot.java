@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Immutable state of one metric at the time a snapshot was taken.
+ * <p>
+ * For counters only {@link #getCount()} is set, for gauges only
+ * {@link #getLast()}. The constructor is annotated so that snapshots can be
+ * passed through JMX as composite data.
+ */
+public class MetricSnapshot {
+
+	/** Type of {@link Counter}s */
+	public static final String COUNTER = "counter"; //$NON-NLS-1$
+
+	/** Type of {@link Gauge}s */
+	public static final String GAUGE = "gauge"; //$NON-NLS-1$
+
+	/** Type of {@link Histogram}s */
+	public static final String HISTOGRAM = "histogram"; //$NON-NLS-1$
+
+	/** Type of {@link Timer}s */
+	public static final String TIMER = "timer"; //$NON-NLS-1$
+
+	private final String name;
+
+	private final String scope;
+
+	private final String type;
+
+	private final String unit;
+
+	private final long count;
+
+	private final long sum;
+
+	private final long min;
+
+	private final long max;
+
+	private final long last;
+
+	private final double mean;
+
+	private final long median;
+
+	private final long p95;
+
+	/**
+	 * @param name
+	 * @param scope
+	 * @param type
+	 * @param unit
+	 * @param count
+	 * @param sum
+	 * @param min
+	 * @param max
+	 * @param last
+	 * @param mean
+	 * @param median
+	 * @param p95
+	 */
+	@ConstructorProperties({ "name", "scope", "type", "unit", "count", "sum", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			"min", "max", "last", "mean", "median", "p95" }) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	public MetricSnapshot(String name, String scope, String type, String unit,
+			long count, long sum, long min, long max, long last, double mean,
+			long median, long p95) {
+		this.name = name;
+		this.scope = scope;
+		this.type = type;
+		this.unit = unit;
+		this.count = count;
+		this.sum = sum;
+		this.min = min;
+		this.max = max;
+		this.last = last;
+		this.mean = mean;
+		this.median = median;
+		this.p95 = p95;
+	}
+
+	static MetricSnapshot of(String name, String scope, Counter counter) {
+		return new MetricSnapshot(name, scope, COUNTER, "", //$NON-NLS-1$
+				counter.getCount(), 0, 0, 0, 0, 0, 0, 0);
+	}
+
+	static MetricSnapshot of(String name, String scope, Gauge gauge) {
+		long value = gauge.getValue();
+		return new MetricSnapshot(name, scope, GAUGE, "", 0, 0, value, //$NON-NLS-1$
+				value, value, value, value, value);
+	}
+
+	static MetricSnapshot of(String name, String scope, Histogram histogram) {
+		return new MetricSnapshot(name, scope,
+				histogram instanceof Timer ? TIMER : HISTOGRAM,
+				histogram.getUnit(), histogram.getCount(), histogram.getSum(),
+				histogram.getMin(), histogram.getMax(), histogram.getLast(),
+				histogram.getMean(), histogram.getPercentile(0.5),
+				histogram.getPercentile(0.95));
+	}
+
+	/**
+	 * @return name of the metric, one of the constants of {@link GitMetrics}
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return what the metric is about, e.g. the directory of a repository,
+	 *         or the empty string for global metrics
+	 */
+	public String getScope() {
+		return scope;
+	}
+
+	/**
+	 * @return one of {@link #COUNTER}, {@link #GAUGE}, {@link #HISTOGRAM} and
+	 *         {@link #TIMER}
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return unit of the values, may be empty
+	 */
+	public String getUnit() {
+		return unit;
+	}
+
+	/**
+	 * @return number of events or recorded values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return sum of the recorded values
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return smallest recorded value
+	 */
+	public long getMin() {
+		return min;
+	}
+
+	/**
+	 * @return largest recorded value
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return last recorded value, or the value of a gauge
+	 */
+	public long getLast() {
+		return last;
+	}
+
+	/**
+	 * @return average of the recorded values
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return estimated median of the recorded values
+	 */
+	public long getMedian() {
+		return median;
+	}
+
+	/**
+	 * @return estimated 95th percentile of the recorded values
+	 */
+	public long getP95() {
+		return p95;
+	}
+}
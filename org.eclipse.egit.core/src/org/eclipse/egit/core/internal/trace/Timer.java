@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribution of durations, recorded in microseconds.
+ * <p>
+ * Typical use:
+ *
+ * <pre>
+ * long start = System.nanoTime();
+ * // ...
+ * GitMetrics.timer(GitMetrics.FETCH, scope).recordSince(start);
+ * </pre>
+ */
+public class Timer extends Histogram {
+
+	Timer() {
+		super("us"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param nanos
+	 *            a duration in nanoseconds
+	 */
+	public void recordNanos(long nanos) {
+		record(TimeUnit.NANOSECONDS.toMicros(nanos));
+	}
+
+	/**
+	 * Records the time elapsed since the given start.
+	 *
+	 * @param startNanos
+	 *            start time obtained from {@link System#nanoTime()}
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long recordSince(long startNanos) {
+		long nanos = System.nanoTime() - startNanos;
+		recordNanos(nanos);
+		return nanos;
+	}
+}
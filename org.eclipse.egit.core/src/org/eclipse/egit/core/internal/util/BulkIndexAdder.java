@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffCacheEntry;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEditor.PathEdit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.WorkingTreeOptions;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Stages a large number of files in one go.
+ * <p>
+ * Instead of handing every path as a file pattern to JGit's
+ * {@link AddCommand} (which walks the complete working tree and matches each
+ * entry against all patterns), the paths are sorted, the blobs are hashed and
+ * inserted by the shared {@link WorkerPool}, and all resulting index entries
+ * are applied with a single {@link DirCacheEditor} commit.
+ * <p>
+ * The index is only locked after hashing, so other index writers are not
+ * blocked while the files are read. Under the lock every entry is checked
+ * again: files modified since they were hashed and paths whose index state
+ * changed in the meantime are left to the fallback.
+ * <p>
+ * Paths which cannot be handled by the fast path (directories, symbolic
+ * links, gitlinks, conflicts, file/directory replacements, ignored files and
+ * files to which line ending conversions, attributes or filters may apply,
+ * see {@link ContentConversionCheck}) are passed on to an {@link AddCommand}
+ * after the bulk edit has been committed, so the overall result is the same
+ * as if all paths had been added through {@link AddCommand}.
+ */
+public class BulkIndexAdder {
+
+	/** Number of paths hashed by one worker task */
+	private static final int CHUNK_SIZE = 256;
+
+	private final Repository repository;
+
+	private final List<String> paths;
+
+	/**
+	 * @param repository
+	 *            the non-bare repository to stage the paths in
+	 * @param paths
+	 *            repository relative paths of the files to stage
+	 */
+	public BulkIndexAdder(Repository repository, Collection<String> paths) {
+		this.repository = repository;
+		this.paths = new ArrayList<String>(paths);
+		Collections.sort(this.paths);
+	}
+
+	/**
+	 * Hashes and stages all paths.
+	 *
+	 * @param m
+	 *            progress monitor, may be <code>null</code>
+	 * @throws IOException
+	 * @throws GitAPIException
+	 *             if staging the paths not eligible for the fast path fails
+	 */
+	public void addToIndex(IProgressMonitor m) throws IOException,
+			GitAPIException {
+		IProgressMonitor monitor = m != null ? m : new NullProgressMonitor();
+		try {
+			if (paths.isEmpty())
+				return;
+			List<String> fallback = new ArrayList<String>();
+			ContentConversionCheck conversions = repository.isBare() ? null
+					: new ContentConversionCheck(repository);
+			if (conversions != null && !conversions.appliesEverywhere()) {
+				Set<String> ignored = getIgnoredNotInIndex();
+				List<String> candidates = selectCandidates(
+						repository.readDirCache(), ignored, conversions,
+						fallback);
+				StagedFile[] staged = hash(candidates, monitor);
+				DirCache dc = repository.lockDirCache();
+				try {
+					DirCacheEditor editor = dc.editor();
+					for (StagedFile file : staged)
+						if (file.isUnchanged()
+								&& isEligible(dc, file.filePath, ignored))
+							editor.add(file);
+						else
+							fallback.add(file.filePath);
+					editor.commit();
+				} finally {
+					dc.unlock();
+				}
+			} else
+				fallback.addAll(paths);
+			if (!fallback.isEmpty())
+				addWithCommand(fallback);
+		} finally {
+			monitor.done();
+		}
+	}
+
+	private List<String> selectCandidates(DirCache dc, Set<String> ignored,
+			ContentConversionCheck conversions, List<String> fallback) {
+		FS fs = repository.getFS();
+		File workTree = repository.getWorkTree();
+		List<String> candidates = new ArrayList<String>(paths.size());
+		for (String path : paths) {
+			if (path.length() == 0 || ".".equals(path)) { //$NON-NLS-1$
+				fallback.add(path);
+				continue;
+			}
+			File file = new File(workTree, path);
+			if (!file.isFile() || fs.isSymLink(file)
+					|| conversions.mayApply(path)
+					|| !isEligible(dc, path, ignored))
+				fallback.add(path);
+			else
+				candidates.add(path);
+		}
+		return candidates;
+	}
+
+	/**
+	 * @param dc
+	 * @param path
+	 * @param ignored
+	 *            the ignored paths not in the index, <code>null</code> if not
+	 *            known
+	 * @return whether the index state of the path allows to stage it with a
+	 *         simple edit
+	 */
+	private static boolean isEligible(DirCache dc, String path,
+			Set<String> ignored) {
+		int idx = dc.findEntry(path);
+		if (idx >= 0)
+			// conflicts are resolved by AddCommand
+			return dc.getEntry(idx).getStage() == DirCacheEntry.STAGE_0;
+		// let AddCommand decide about (possibly) ignored files
+		if (ignored == null || ignored.contains(path))
+			return false;
+		return !replacesTreeOrFile(dc, path);
+	}
+
+	private Set<String> getIgnoredNotInIndex() {
+		IndexDiffCacheEntry entry = Activator.getDefault().getIndexDiffCache()
+				.getIndexDiffCacheEntry(repository);
+		if (entry == null)
+			return null;
+		IndexDiffData data = entry.getIndexDiff();
+		if (data == null)
+			return null;
+		return data.getIgnoredNotInIndex();
+	}
+
+	private static boolean replacesTreeOrFile(DirCache dc, String path) {
+		if (dc.getEntriesWithin(path).length > 0)
+			return true;
+		int slash = path.lastIndexOf('/');
+		while (slash > 0) {
+			if (dc.findEntry(path.substring(0, slash)) >= 0)
+				return true;
+			slash = path.lastIndexOf('/', slash - 1);
+		}
+		return false;
+	}
+
+	private StagedFile[] hash(List<String> candidates, IProgressMonitor monitor)
+			throws IOException {
+		int total = candidates.size();
+		StagedFile[] result = new StagedFile[total];
+		monitor.beginTask(CoreText.BulkIndexAdder_hashingFiles, total);
+		if (total == 0)
+			return result;
+
+		int chunks = (total + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if (chunks == 1 || WorkerPool.getParallelism() <= 1) {
+			new HashTask(candidates, 0, total, result).call();
+			monitor.worked(total);
+			return result;
+		}
+
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>(chunks);
+		try {
+			for (int start = 0; start < total; start += CHUNK_SIZE)
+				futures.add(WorkerPool.getExecutor().submit(
+						new HashTask(candidates, start, Math.min(start
+								+ CHUNK_SIZE, total), result)));
+
+			long startTime = System.currentTimeMillis();
+			int done = 0;
+			for (Future<Integer> future : futures) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				int count = waitFor(future);
+				done += count;
+				monitor.worked(count);
+				long elapsed = Math.max(1,
+						System.currentTimeMillis() - startTime);
+				monitor.subTask(NLS.bind(
+						CoreText.BulkIndexAdder_hashingProgress,
+						new Object[] { Integer.valueOf(done),
+								Integer.valueOf(total),
+								Long.valueOf(done * 1000L / elapsed) }));
+			}
+			return result;
+		} finally {
+			// stop the remaining tasks if waiting failed or was canceled
+			for (Future<Integer> future : futures)
+				future.cancel(true);
+		}
+	}
+
+	private static int waitFor(Future<Integer> future) throws IOException {
+		try {
+			return future.get().intValue();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	private void addWithCommand(List<String> fallback) throws GitAPIException {
+		AddCommand command = new Git(repository).add();
+		for (String path : fallback)
+			command.addFilepattern(path.length() == 0 ? "." : path); //$NON-NLS-1$
+		command.call();
+	}
+
+	/**
+	 * Hashes a range of the candidate paths. {@link ObjectInserter} is not
+	 * thread-safe, so every task uses its own inserter on the repository's
+	 * object database.
+	 */
+	private class HashTask implements Callable<Integer> {
+
+		private final List<String> candidates;
+
+		private final int start;
+
+		private final int end;
+
+		private final StagedFile[] result;
+
+		HashTask(List<String> candidates, int start, int end,
+				StagedFile[] result) {
+			this.candidates = candidates;
+			this.start = start;
+			this.end = end;
+			this.result = result;
+		}
+
+		public Integer call() throws IOException {
+			FS fs = repository.getFS();
+			File workTree = repository.getWorkTree();
+			boolean honorExecutable = fs.supportsExecute()
+					&& repository.getConfig().get(WorkingTreeOptions.KEY)
+							.isFileMode();
+			try (ObjectInserter inserter = repository.newObjectInserter()) {
+				for (int i = start; i < end; i++) {
+					String path = candidates.get(i);
+					File file = new File(workTree, path);
+					long lastModified = file.lastModified();
+					long length = file.length();
+					ObjectId id;
+					try (InputStream in = new FileInputStream(file)) {
+						id = inserter.insert(Constants.OBJ_BLOB, length, in);
+					}
+					FileMode mode = honorExecutable && fs.canExecute(file) ? FileMode.EXECUTABLE_FILE
+							: FileMode.REGULAR_FILE;
+					result[i] = new StagedFile(path, id, mode, length,
+							lastModified, honorExecutable);
+				}
+				inserter.flush();
+			}
+			return Integer.valueOf(end - start);
+		}
+	}
+
+	private class StagedFile extends PathEdit {
+
+		private final String filePath;
+
+		private final ObjectId id;
+
+		private final FileMode mode;
+
+		private final long length;
+
+		private final long lastModified;
+
+		private final boolean honorExecutable;
+
+		StagedFile(String path, ObjectId id, FileMode mode, long length,
+				long lastModified, boolean honorExecutable) {
+			super(path);
+			this.filePath = path;
+			this.id = id;
+			this.mode = mode;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.honorExecutable = honorExecutable;
+		}
+
+		/**
+		 * @return whether the file still has the length and modification time
+		 *         it had when it was hashed
+		 */
+		boolean isUnchanged() {
+			File file = new File(repository.getWorkTree(), filePath);
+			return file.lastModified() == lastModified
+					&& file.length() == length;
+		}
+
+		@Override
+		public void apply(DirCacheEntry ent) {
+			FileMode current = ent.getRawMode() != 0 ? ent.getFileMode() : null;
+			if (!honorExecutable && current == FileMode.EXECUTABLE_FILE)
+				// keep the executable bit if the file system can't tell
+				ent.setFileMode(current);
+			else
+				ent.setFileMode(mode);
+			ent.setObjectId(id);
+			ent.setLength(length);
+			ent.setLastModified(lastModified);
+		}
+	}
+}
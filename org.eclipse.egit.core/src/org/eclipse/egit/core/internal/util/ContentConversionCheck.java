@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.CoreConfig.AutoCRLF;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Tells whether the content of a working tree file may differ from the
+ * content stored in the repository, i.e. whether line ending conversions,
+ * text or eol attributes or clean filters may apply to it.
+ * <p>
+ * Code which hashes working tree files directly, bypassing JGit's
+ * {@code WorkingTreeIterator}, may only do so for files to which nothing
+ * applies. The check is conservative: any attributes file in one of the
+ * directories of a file, or in the repository's info directory, counts, no
+ * matter which attributes it sets.
+ * <p>
+ * Results for directories are cached, so an instance should be used for one
+ * operation only. Instances are not thread-safe.
+ */
+public class ContentConversionCheck {
+
+	private static final String DOT_GIT_ATTRIBUTES = ".gitattributes"; //$NON-NLS-1$
+
+	private static final String INFO_ATTRIBUTES = "info/attributes"; //$NON-NLS-1$
+
+	private static final String KEY_ATTRIBUTES_FILE = "attributesfile"; //$NON-NLS-1$
+
+	private static final String KEY_EOL = "eol"; //$NON-NLS-1$
+
+	private final File workTree;
+
+	private final boolean everywhere;
+
+	private final Map<String, Boolean> directories = new HashMap<String, Boolean>();
+
+	/**
+	 * @param repository
+	 *            a non-bare repository
+	 */
+	public ContentConversionCheck(Repository repository) {
+		workTree = repository.getWorkTree();
+		everywhere = appliesEverywhere(repository);
+	}
+
+	private static boolean appliesEverywhere(Repository repository) {
+		Config config = repository.getConfig();
+		AutoCRLF autoCRLF = config.getEnum(
+				ConfigConstants.CONFIG_CORE_SECTION, null,
+				ConfigConstants.CONFIG_KEY_AUTOCRLF, AutoCRLF.FALSE);
+		if (autoCRLF != AutoCRLF.FALSE)
+			return true;
+		if (config.getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+				KEY_EOL) != null)
+			return true;
+		if (config.getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+				KEY_ATTRIBUTES_FILE) != null)
+			return true;
+		return new File(repository.getDirectory(), INFO_ATTRIBUTES).exists();
+	}
+
+	/**
+	 * @return whether conversions may apply to all files of the repository
+	 */
+	public boolean appliesEverywhere() {
+		return everywhere;
+	}
+
+	/**
+	 * @param path
+	 *            repository relative path of a file
+	 * @return whether conversions may apply to the file
+	 */
+	public boolean mayApply(String path) {
+		if (everywhere)
+			return true;
+		int slash = path.lastIndexOf('/');
+		return mayApplyInDirectory(slash < 0 ? "" : path.substring(0, slash)); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param directory
+	 *            repository relative path of a directory, the empty string for
+	 *            the root of the working tree
+	 * @return whether conversions may apply to the files in the directory
+	 */
+	public boolean mayApplyInDirectory(String directory) {
+		if (everywhere)
+			return true;
+		Boolean cached = directories.get(directory);
+		if (cached != null)
+			return cached.booleanValue();
+		boolean result;
+		if (directory.length() == 0)
+			result = hasAttributesFile(workTree);
+		else {
+			int slash = directory.lastIndexOf('/');
+			result = mayApplyInDirectory(slash < 0 ? "" //$NON-NLS-1$
+					: directory.substring(0, slash))
+					|| hasAttributesFile(new File(workTree, directory));
+		}
+		directories.put(directory, Boolean.valueOf(result));
+		return result;
+	}
+
+	private static boolean hasAttributesFile(File directory) {
+		return new File(directory, DOT_GIT_ATTRIBUTES).exists();
+	}
+}
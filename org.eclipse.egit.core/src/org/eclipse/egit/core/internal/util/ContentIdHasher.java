@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Computes the blob ids of files in the working tree.
+ * <p>
+ * The content is read through a {@link FileChannel} into a reused heap buffer,
+ * whose array the digest hashes without copying, so it is not copied through
+ * the stream layer of the workspace. Files are not memory mapped: if another
+ * process truncates a mapped file, reading it fails with an
+ * {@link InternalError} instead of an {@link IOException}.
+ * <p>
+ * The content is hashed as is, i.e. the caller has to make sure that no line
+ * ending conversion applies to the files.
+ * <p>
+ * Ids of files which will be needed soon can be requested with
+ * {@link #prefetch(File)}; they are then computed by the {@link WorkerPool}
+ * while the caller is busy with other files. Instances are not thread-safe.
+ */
+public class ContentIdHasher {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(BUFFER_SIZE);
+		}
+	};
+
+	private final Map<File, Future<ObjectId>> pending = new HashMap<File, Future<ObjectId>>();
+
+	/**
+	 * Starts computing the id of a file in the background, unless this has
+	 * already been done.
+	 *
+	 * @param file
+	 *            a regular file
+	 */
+	public void prefetch(final File file) {
+		if (pending.containsKey(file))
+			return;
+		pending.put(file,
+				WorkerPool.getExecutor().submit(new Callable<ObjectId>() {
+					public ObjectId call() throws IOException {
+						return computeId(file);
+					}
+				}));
+	}
+
+	/**
+	 * Gets the id of a file, waiting for the result if it has been prefetched
+	 * and computing it right away otherwise.
+	 *
+	 * @param file
+	 *            a regular file
+	 * @return the id the content of the file would have as blob
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public ObjectId getId(File file) throws IOException {
+		Future<ObjectId> future = pending.remove(file);
+		if (future == null)
+			return computeId(file);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(false);
+			return computeId(file);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Computes the id of a file in the calling thread.
+	 *
+	 * @param file
+	 *            a regular file
+	 * @return the id the content of the file would have as blob
+	 * @throws IOException
+	 *             if the file can't be read or is modified while reading it
+	 */
+	public static ObjectId computeId(File file) throws IOException {
+		try (FileInputStream in = new FileInputStream(file);
+				FileChannel channel = in.getChannel()) {
+			long size = channel.size();
+			MessageDigest md = Constants.newMessageDigest();
+			md.update(Constants.encodedTypeString(Constants.OBJ_BLOB));
+			md.update((byte) ' ');
+			md.update(Constants.encodeASCII(size));
+			md.update((byte) 0);
+
+			long read = hashRead(channel, size, md);
+			if (read != size || channel.size() != size)
+				throw new IOException(NLS.bind(
+						CoreText.ContentIdHasher_fileModified, file));
+			return ObjectId.fromRaw(md.digest());
+		}
+	}
+
+	private static long hashRead(FileChannel channel, long size,
+			MessageDigest md) throws IOException {
+		ByteBuffer buffer = BUFFER.get();
+		long total = 0;
+		for (;;) {
+			buffer.clear();
+			int n = channel.read(buffer);
+			if (n < 0)
+				return total;
+			total += n;
+			if (total > size)
+				// grown while reading, no need to hash the rest
+				return total;
+			buffer.flip();
+			md.update(buffer);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares one {@link String} instance between the equal paths or path segments
+ * read while building one cache, and with the paths of the cache it replaces.
+ * <p>
+ * Each new {@link org.eclipse.egit.core.internal.indexdiff.IndexDiffData} and
+ * each load of the synchronize caches reads its paths anew from the index or
+ * from trees. An interner is created for one such build, seeded with the paths
+ * of the previous build through {@link #addAll(Collection)}, and dropped
+ * afterwards. Unlike a global table it retains nothing once the build is done
+ * and needs no locking, it is only used by the thread doing the build.
+ */
+public class PathInterner {
+
+	private final Map<String, String> paths = new HashMap<String, String>();
+
+	/**
+	 * Makes the given paths the shared instances of equal paths interned
+	 * later, unless equal paths were added before.
+	 *
+	 * @param shared
+	 *            paths held by the previous build
+	 */
+	public void addAll(Collection<String> shared) {
+		for (String path : shared)
+			intern(path);
+	}
+
+	/**
+	 * @param path
+	 *            a path, path segment or <code>null</code>
+	 * @return the shared instance equal to the given path, or the path itself
+	 *         if it is the first one
+	 */
+	public String intern(String path) {
+		if (path == null)
+			return null;
+		String existing = paths.get(path);
+		if (existing != null)
+			return existing;
+		paths.put(path, path);
+		return path;
+	}
+
+	/**
+	 * @param collection
+	 * @return a new mutable set containing the shared instances of the given
+	 *         paths
+	 */
+	public Set<String> internAll(Collection<String> collection) {
+		Set<String> result = new HashSet<String>(
+				(int) (collection.size() / .75f) + 1);
+		for (String path : collection)
+			result.add(intern(path));
+		return result;
+	}
+
+	/**
+	 * @return the number of distinct paths interned
+	 */
+	int size() {
+		return paths.size();
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Maps the objects of a repository to the refs pointing at them, looking
+ * through annotated tags.
+ * <p>
+ * Finding the tags or branches of a commit otherwise means peeling and
+ * comparing every ref of the repository for every commit shown. The index is
+ * built from all refs on first use, which should happen outside of the UI
+ * thread, and is replaced by a new one when the refs of the repository
+ * change. An index, once built, never changes, so it can be used by several
+ * threads.
+ */
+public class PeeledRefIndex {
+
+	private static final RefsIndexRegistry<PeeledRefIndex> REGISTRY = new RefsIndexRegistry<PeeledRefIndex>();
+
+	private final ObjectIdOwnerMap<Entry> entries;
+
+	/**
+	 * Returns the index of the given repository, building it if necessary
+	 *
+	 * @param repository
+	 * @return the index of the current refs of the repository
+	 * @throws IOException
+	 */
+	public static PeeledRefIndex get(Repository repository)
+			throws IOException {
+		PeeledRefIndex index = REGISTRY.get(repository);
+		if (index != null)
+			return index;
+		long generation = REGISTRY.getGeneration();
+		return REGISTRY.put(repository, new PeeledRefIndex(repository),
+				generation);
+	}
+
+	private PeeledRefIndex(Repository repository) throws IOException {
+		entries = new ObjectIdOwnerMap<Entry>();
+		Map<String, Ref> refs = repository.getRefDatabase().getRefs(
+				RefDatabase.ALL);
+		for (Ref ref : refs.values()) {
+			Ref peeled = repository.peel(ref);
+			ObjectId target = peeled.getPeeledObjectId();
+			if (target == null)
+				target = peeled.getObjectId();
+			if (target == null)
+				continue;
+			Entry entry = entries.get(target);
+			if (entry == null) {
+				entry = new Entry(target);
+				entries.add(entry);
+			}
+			entry.refs.add(peeled);
+		}
+	}
+
+	/**
+	 * @param id
+	 *            the id of a commit or other object
+	 * @return the refs pointing at the object, directly or through annotated
+	 *         tags, sorted by name
+	 */
+	public List<Ref> getRefs(AnyObjectId id) {
+		Entry entry = entries.get(id);
+		if (entry == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(entry.refs);
+	}
+
+	/**
+	 * @param id
+	 *            the id of a commit or other object
+	 * @param prefix
+	 *            prefix of the names of the refs to return, e.g.
+	 *            {@link org.eclipse.jgit.lib.Constants#R_TAGS}
+	 * @return the refs with the given prefix pointing at the object, directly
+	 *         or through annotated tags, sorted by name
+	 */
+	public List<Ref> getRefs(AnyObjectId id, String prefix) {
+		Entry entry = entries.get(id);
+		if (entry == null)
+			return Collections.emptyList();
+		List<Ref> result = new ArrayList<Ref>(entry.refs.size());
+		for (Ref ref : entry.refs)
+			if (ref.getName().startsWith(prefix))
+				result.add(ref);
+		return result;
+	}
+
+	private static class Entry extends ObjectIdOwnerMap.Entry {
+
+		final List<Ref> refs = new ArrayList<Ref>(1);
+
+		Entry(AnyObjectId id) {
+			super(id);
+		}
+	}
+}
@@ -17,8 +17,10 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -35,11 +37,16 @@
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.project.RepositoryMapping;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache.FileKey;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
 import org.eclipse.jgit.util.FS;
 import org.eclipse.jgit.util.FileUtils;
 import org.eclipse.osgi.util.NLS;
@@ -413,7 +420,9 @@ public static IProject[] getProjectsUnderPath(final IPath path) {
 
 	/**
 	 * Find directories containing .project files recursively starting at given
-	 * directory
+	 * directory, searching the file system only. Use
+	 * {@link #findProjectFiles(Collection, Repository, File, boolean, IProgressMonitor)}
+	 * to take the tracked project files from the index of a repository.
 	 *
 	 * @param files
 	 *            the collection to add the found projects to
@@ -430,6 +439,177 @@ public static boolean findProjectFiles(final Collection<File> files,
 		return findProjectFiles(files, directory, searchNested, null, monitor);
 	}
 
+	/**
+	 * Find directories containing .project files starting at given directory
+	 * in the working tree of a repository.
+	 * <p>
+	 * The tracked .project files are taken from the index of the repository,
+	 * so only the directories containing tracked files are listed, and only
+	 * untracked directories are searched recursively on the file system.
+	 * Submodules are searched the same way using their own index. Directories
+	 * outside the working tree of the repository are searched on the file
+	 * system only.
+	 *
+	 * @param files
+	 *            the collection to add the found projects to
+	 * @param repository
+	 *            the repository containing the directory
+	 * @param directory
+	 *            where to search for project files
+	 * @param searchNested
+	 *            whether to search for nested projects or not
+	 * @param monitor
+	 * @return true if projects files found, false otherwise
+	 */
+	public static boolean findProjectFiles(final Collection<File> files,
+			final Repository repository, final File directory,
+			final boolean searchNested, final IProgressMonitor monitor) {
+		IProgressMonitor pm = monitor;
+		if (pm == null)
+			pm = new NullProgressMonitor();
+		if (directory == null)
+			return false;
+		if (repository.isBare())
+			return findProjectFiles(files, directory, searchNested, null, pm);
+		String base = Repository.stripWorkDir(repository.getWorkTree(),
+				directory);
+		if (!directory.getAbsoluteFile().equals(
+				new File(repository.getWorkTree(), base).getAbsoluteFile()))
+			// not inside the working tree
+			return findProjectFiles(files, directory, searchNested, null, pm);
+
+		// a conflicting project file has an index entry per stage
+		Set<File> found = new LinkedHashSet<File>();
+		try {
+			findProjectFilesInIndex(found, repository, base, pm);
+		} catch (IOException e) {
+			Activator.logError(e.getMessage(), e);
+			return findProjectFiles(files, directory, searchNested, null, pm);
+		}
+		List<File> result = new ArrayList<File>(found);
+		if (!searchNested)
+			removeNestedProjectFiles(result);
+		files.addAll(result);
+		return !result.isEmpty();
+	}
+
+	/**
+	 * @param files
+	 *            the collection to add the found project files to
+	 * @param repository
+	 * @param base
+	 *            working tree relative path of the directory to search, ""
+	 *            for the whole working tree
+	 * @param monitor
+	 * @throws IOException
+	 */
+	private static void findProjectFilesInIndex(Collection<File> files,
+			Repository repository, String base, IProgressMonitor monitor)
+			throws IOException {
+		File workTree = repository.getWorkTree();
+		String prefix = base.length() == 0 ? base : base + '/';
+		final String dotProject = IProjectDescription.DESCRIPTION_FILE_NAME;
+		DirCache dirCache = repository.readDirCache();
+
+		// the tracked paths below the directory, including their folders
+		Set<String> trackedPaths = new HashSet<String>();
+		Set<String> trackedFolders = new LinkedHashSet<String>();
+		List<String> submodules = new ArrayList<String>();
+		// listed even if nothing is tracked below it
+		trackedFolders.add(base);
+		for (int i = 0; i < dirCache.getEntryCount(); i++) {
+			DirCacheEntry entry = dirCache.getEntry(i);
+			String path = entry.getPathString();
+			if (!path.startsWith(prefix))
+				continue;
+			trackedPaths.add(path);
+			if (entry.getFileMode() == FileMode.GITLINK)
+				submodules.add(path);
+			else if (path.endsWith(dotProject)
+					&& (path.length() == dotProject.length() || path
+							.charAt(path.length() - dotProject.length() - 1) == '/')) {
+				File file = new File(workTree, path);
+				if (file.isFile())
+					files.add(file);
+			}
+			for (int slash = path.lastIndexOf('/'); slash > base.length(); slash = path
+					.lastIndexOf('/', slash - 1)) {
+				String folder = path.substring(0, slash);
+				trackedPaths.add(folder);
+				if (!trackedFolders.add(folder))
+					break;
+			}
+		}
+
+		// look for untracked projects, only listing the tracked folders
+		Set<String> visitedDirs = new HashSet<String>();
+		for (String folder : trackedFolders) {
+			if (monitor.isCanceled())
+				return;
+			File dir = new File(workTree, folder);
+			monitor.subTask(NLS.bind(CoreText.ProjectUtil_taskCheckingDirectory,
+					dir.getPath()));
+			String[] names = dir.list();
+			if (names == null)
+				continue;
+			String folderPrefix = folder.length() == 0 ? folder : folder + '/';
+			for (String name : names) {
+				if (trackedPaths.contains(folderPrefix + name)
+						|| name.equals(Constants.DOT_GIT)
+						|| name.equals(METADATA_FOLDER))
+					continue;
+				File file = new File(dir, name);
+				if (name.equals(dotProject)) {
+					if (file.isFile())
+						files.add(file);
+				} else if (file.isDirectory()
+						&& visitedDirs.add(file.getAbsolutePath()))
+					findProjectFiles(files, file, true, visitedDirs, monitor);
+			}
+		}
+
+		for (String path : submodules) {
+			if (monitor.isCanceled())
+				return;
+			Repository submodule = SubmoduleWalk.getSubmoduleRepository(
+					repository, path);
+			if (submodule == null)
+				continue;
+			try {
+				if (!submodule.isBare())
+					findProjectFilesInIndex(files, submodule, "", monitor); //$NON-NLS-1$
+			} finally {
+				submodule.close();
+			}
+		}
+	}
+
+	/**
+	 * Removes the project files in folders below the folder of another
+	 * project file, like a search not looking for nested projects would
+	 */
+	private static void removeNestedProjectFiles(List<File> files) {
+		Collections.sort(files, new Comparator<File>() {
+			public int compare(File f1, File f2) {
+				return f1.getPath().length() - f2.getPath().length();
+			}
+		});
+		List<String> projectDirs = new ArrayList<String>();
+		for (Iterator<File> it = files.iterator(); it.hasNext();) {
+			String dir = it.next().getParentFile().getPath() + File.separator;
+			boolean nested = false;
+			for (String projectDir : projectDirs)
+				if (dir.startsWith(projectDir)) {
+					nested = true;
+					break;
+				}
+			if (nested)
+				it.remove();
+			else
+				projectDirs.add(dir);
+		}
+	}
+
 	private static boolean findProjectFiles(final Collection<File> files,
 			final File directory, final boolean searchNested,
 			final Set<String> visistedDirs, final IProgressMonitor monitor) {
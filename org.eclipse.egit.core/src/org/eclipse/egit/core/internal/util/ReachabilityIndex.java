@@ -0,0 +1,510 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.trace.GitTraceLocation;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.IntList;
+
+/**
+ * Answers reachability questions about the commits reachable from the refs of
+ * a repository without walking the history for every ref.
+ * <p>
+ * The index numbers all commits reachable from any ref in topological order
+ * and stores their parent and child relations as int arrays, together with a
+ * generation number (length of the longest path to a root commit). Queries
+ * then only visit the descendants or ancestors of the commit in question:
+ * <ul>
+ * <li>the refs containing a commit are the refs pointing at one of its
+ * descendants,</li>
+ * <li>the nearest tag in the ancestors is the tagged ancestor with the
+ * highest generation number, since any tagged commit between it and the
+ * commit would have a higher one,</li>
+ * <li>and accordingly the nearest tag in the descendants is the tagged
+ * descendant with the lowest generation number.</li>
+ * </ul>
+ * Building the index walks the complete history, so {@link #get(Repository)}
+ * builds it in a background job and callers fall back to walking the history
+ * themselves until it is ready.
+ * <p>
+ * When the refs of the repository change, the index is updated from the
+ * previous one: only the commits not reachable from the previous ref tips are
+ * walked and appended. The history is rebuilt only if commits of the previous
+ * index are no longer reachable, e.g. after deleting an unmerged branch or a
+ * forced update. The previous index keeps answering while the update runs.
+ */
+public class ReachabilityIndex {
+
+	private static final int CANCEL_CHECK_INTERVAL = 1000;
+
+	private static final RefsIndexRegistry<ReachabilityIndex> REGISTRY = new RefsIndexRegistry<ReachabilityIndex>();
+
+	/** the running build jobs, guarded by BUILDS */
+	private static final Map<Repository, Job> BUILDS = new WeakHashMap<Repository, Job>();
+
+	/**
+	 * the last index built per repository, also for outdated refs, guarded by
+	 * BUILDS
+	 */
+	private static final Map<Repository, ReachabilityIndex> LATEST = new WeakHashMap<Repository, ReachabilityIndex>();
+
+	/** the commits the refs pointed at, all nodes are reachable from them */
+	private final ObjectId[] tips;
+
+	private final ObjectIdOwnerMap<Node> nodes;
+
+	private final int[] generations;
+
+	private final int[] parentStart;
+
+	private final int[] parents;
+
+	private final int[] childStart;
+
+	private final int[] children;
+
+	private final Map<Integer, List<Ref>> tags;
+
+	/** traversal buffer of the queries, guarded by this */
+	private final int[] visitedNodes;
+
+	/** marks the nodes in visitedNodes, guarded by this */
+	private final BitSet visited;
+
+	/**
+	 * Returns the index of the given repository if it has already been built
+	 * for the current refs. Otherwise a job building or updating it is
+	 * scheduled, and the index of the previous refs is returned meanwhile.
+	 * <p>
+	 * Commits which are only reachable from new refs are unknown to the
+	 * previous index, as are refs pointing at them, so the queries return
+	 * <code>null</code> for them. Its tags are those of the previous refs.
+	 *
+	 * @param repository
+	 * @return the index of the commits reachable from the current refs, the
+	 *         index of the previous refs while it is updated, or
+	 *         <code>null</code> if no index has been built yet
+	 */
+	public static ReachabilityIndex get(final Repository repository) {
+		ReachabilityIndex index = REGISTRY.get(repository);
+		if (index != null)
+			return index;
+		synchronized (BUILDS) {
+			ReachabilityIndex previous = LATEST.get(repository);
+			if (BUILDS.containsKey(repository))
+				return previous;
+			Job job = new Job(MessageFormat.format(
+					CoreText.ReachabilityIndex_buildJobName,
+					repository.getDirectory())) {
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					try {
+						build(repository, monitor);
+						return Status.OK_STATUS;
+					} catch (OperationCanceledException e) {
+						return Status.CANCEL_STATUS;
+					} catch (IOException e) {
+						return Activator.error(e.getMessage(), e);
+					} finally {
+						synchronized (BUILDS) {
+							BUILDS.remove(repository);
+						}
+					}
+				}
+			};
+			job.setSystem(true);
+			BUILDS.put(repository, job);
+			job.schedule();
+			return previous;
+		}
+	}
+
+	/**
+	 * Returns the index of the given repository, building or updating it in
+	 * the calling thread if necessary
+	 *
+	 * @param repository
+	 * @param monitor
+	 *            to cancel building the index
+	 * @return the index of the commits reachable from the current refs
+	 * @throws IOException
+	 * @throws OperationCanceledException
+	 *             if the monitor has been canceled
+	 */
+	public static ReachabilityIndex build(Repository repository,
+			IProgressMonitor monitor) throws IOException {
+		ReachabilityIndex index = REGISTRY.get(repository);
+		if (index != null)
+			return index;
+		long generation = REGISTRY.getGeneration();
+		ReachabilityIndex previous;
+		synchronized (BUILDS) {
+			previous = LATEST.get(repository);
+		}
+		index = new ReachabilityIndex(repository, previous, monitor);
+		if (previous != null && !index.isReachableFromTips())
+			// some commits are gone from the history of the refs
+			index = new ReachabilityIndex(repository, null, monitor);
+		synchronized (BUILDS) {
+			LATEST.put(repository, index);
+		}
+		return REGISTRY.put(repository, index, generation);
+	}
+
+	/**
+	 * @param repository
+	 * @param previous
+	 *            the index to update, or <code>null</code> to walk the
+	 *            complete history
+	 * @param monitor
+	 * @throws IOException
+	 */
+	private ReachabilityIndex(Repository repository,
+			ReachabilityIndex previous, IProgressMonitor monitor)
+			throws IOException {
+		long start = System.currentTimeMillis();
+		ObjectIdOwnerMap<Node> map = new ObjectIdOwnerMap<Node>();
+		IntList generation = new IntList();
+		IntList parentOffsets = new IntList();
+		IntList parentList = new IntList();
+		if (previous != null) {
+			// keep the numbering, the new commits are appended
+			for (Node node : previous.nodes)
+				map.add(new Node(node, node.index));
+			for (int i = 0; i < previous.generations.length; i++) {
+				generation.add(previous.generations[i]);
+				parentOffsets.add(previous.parentStart[i]);
+			}
+			for (int parent : previous.parents)
+				parentList.add(parent);
+		}
+		int known = generation.size();
+		Map<Integer, List<Ref>> tagged = new HashMap<Integer, List<Ref>>();
+		List<Ref> tagRefs = new ArrayList<Ref>();
+		List<RevCommit> tagTargets = new ArrayList<RevCommit>();
+		List<ObjectId> tipList = new ArrayList<ObjectId>();
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			walk.sort(RevSort.TOPO, true);
+			walk.sort(RevSort.REVERSE, true);
+			Map<String, Ref> refs = repository.getRefDatabase().getRefs(
+					RefDatabase.ALL);
+			for (Ref ref : refs.values()) {
+				RevCommit tip = peelToCommit(walk, ref.getObjectId());
+				if (tip == null)
+					continue;
+				tipList.add(tip.copy());
+				if (map.get(tip) == null)
+					walk.markStart(tip);
+				if (ref.getName().startsWith(Constants.R_TAGS)) {
+					tagRefs.add(ref);
+					tagTargets.add(tip);
+				}
+			}
+			if (previous != null)
+				// all commits of the previous index are reachable from these
+				for (ObjectId tip : previous.tips) {
+					RevCommit commit = peelToCommit(walk, tip);
+					if (commit != null)
+						walk.markUninteresting(commit);
+				}
+			if (monitor.isCanceled())
+				throw new OperationCanceledException();
+			// parents are returned before their children
+			for (RevCommit commit = walk.next(); commit != null; commit = walk
+					.next()) {
+				if (map.get(commit) != null)
+					// known, e.g. if a previous tip is gone
+					continue;
+				int index = generation.size();
+				if (index % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled())
+					throw new OperationCanceledException();
+				map.add(new Node(commit, index));
+				parentOffsets.add(parentList.size());
+				int gen = 1;
+				for (RevCommit parent : commit.getParents()) {
+					Node p = map.get(parent);
+					if (p == null)
+						// e.g. the boundary of a shallow clone
+						continue;
+					parentList.add(p.index);
+					gen = Math.max(gen, generation.get(p.index) + 1);
+				}
+				generation.add(gen);
+			}
+		}
+		parentOffsets.add(parentList.size());
+		for (int i = 0; i < tagRefs.size(); i++) {
+			Node node = map.get(tagTargets.get(i));
+			if (node == null)
+				continue;
+			Integer key = Integer.valueOf(node.index);
+			List<Ref> list = tagged.get(key);
+			if (list == null) {
+				list = new ArrayList<Ref>(1);
+				tagged.put(key, list);
+			}
+			list.add(tagRefs.get(i));
+		}
+
+		int count = generation.size();
+		generations = toArray(generation);
+		parentStart = toArray(parentOffsets);
+		parents = toArray(parentList);
+		// invert the parent relation
+		childStart = new int[count + 1];
+		for (int parent : parents)
+			childStart[parent + 1]++;
+		for (int i = 0; i < count; i++)
+			childStart[i + 1] += childStart[i];
+		children = new int[parents.length];
+		int[] fill = new int[count];
+		for (int child = 0; child < count; child++)
+			for (int j = parentStart[child]; j < parentStart[child + 1]; j++) {
+				int parent = parents[j];
+				children[childStart[parent] + fill[parent]++] = child;
+			}
+		tags = tagged;
+		nodes = map;
+		tips = tipList.toArray(new ObjectId[tipList.size()]);
+		visitedNodes = new int[count];
+		visited = new BitSet(count);
+
+		if (GitTraceLocation.CORE.isActive())
+			GitTraceLocation.getTrace().trace(
+					GitTraceLocation.CORE.getLocation(),
+					"Built reachability index of " + count + " commits, " //$NON-NLS-1$ //$NON-NLS-2$
+							+ (count - known) + " new, in " //$NON-NLS-1$
+							+ (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return whether all commits of this index are reachable from its tips,
+	 *         which is not the case after an update if refs were deleted or
+	 *         rewound
+	 */
+	private synchronized boolean isReachableFromTips() {
+		int count = 0;
+		for (ObjectId tip : tips) {
+			Node node = nodes.get(tip);
+			if (node != null && !visited.get(node.index)) {
+				visited.set(node.index);
+				visitedNodes[count++] = node.index;
+			}
+		}
+		for (int i = 0; i < count; i++) {
+			int current = visitedNodes[i];
+			for (int j = parentStart[current]; j < parentStart[current + 1]; j++) {
+				int parent = parents[j];
+				if (!visited.get(parent)) {
+					visited.set(parent);
+					visitedNodes[count++] = parent;
+				}
+			}
+		}
+		clearVisited(count);
+		return count == generations.length;
+	}
+
+	private static RevCommit peelToCommit(RevWalk walk, ObjectId id)
+			throws IOException {
+		if (id == null)
+			return null;
+		try {
+			RevObject any = walk.peel(walk.parseAny(id));
+			if (any instanceof RevCommit)
+				return (RevCommit) any;
+		} catch (MissingObjectException e) {
+			// ignore broken refs
+		}
+		return null;
+	}
+
+	private static int[] toArray(IntList list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
+	/**
+	 * @param commit
+	 * @return whether the commit is reachable from the refs the index was
+	 *         built or updated from; if not, the other queries can't answer
+	 *         questions about it
+	 */
+	public boolean contains(AnyObjectId commit) {
+		return nodes.get(commit) != null;
+	}
+
+	/**
+	 * Finds the refs a commit has been merged into
+	 *
+	 * @param commit
+	 * @param refs
+	 *            the refs to examine, e.g. all local and remote branches
+	 * @return the refs pointing at the commit or one of its descendants, or
+	 *         <code>null</code> if the commit or one of the refs is not known
+	 *         to the index
+	 */
+	public synchronized List<Ref> findRefsContaining(AnyObjectId commit,
+			Collection<Ref> refs) {
+		Node node = nodes.get(commit);
+		if (node == null)
+			return null;
+		// every commit is visited at most once
+		int count = 0;
+		visited.set(node.index);
+		visitedNodes[count++] = node.index;
+		for (int i = 0; i < count; i++) {
+			int current = visitedNodes[i];
+			for (int j = childStart[current]; j < childStart[current + 1]; j++) {
+				int child = children[j];
+				if (!visited.get(child)) {
+					visited.set(child);
+					visitedNodes[count++] = child;
+				}
+			}
+		}
+		try {
+			return selectRefs(refs);
+		} finally {
+			clearVisited(count);
+		}
+	}
+
+	private List<Ref> selectRefs(Collection<Ref> refs) {
+		List<Ref> result = new ArrayList<Ref>();
+		for (Ref ref : refs) {
+			ObjectId target = ref.getPeeledObjectId();
+			if (target == null)
+				target = ref.getObjectId();
+			if (target == null)
+				continue;
+			Node tip = nodes.get(target);
+			if (tip == null)
+				return null;
+			if (visited.get(tip.index))
+				result.add(ref);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the nearest tag in the ancestors of a commit, not counting tags
+	 * pointing at the commit itself
+	 *
+	 * @param commit
+	 * @return the tag, or <code>null</code> if no ancestor is tagged or the
+	 *         commit is not known to the index
+	 */
+	public Ref findPrecedingTag(AnyObjectId commit) {
+		return findNearestTag(commit, false);
+	}
+
+	/**
+	 * Finds the nearest tag in the descendants of a commit, not counting tags
+	 * pointing at the commit itself
+	 *
+	 * @param commit
+	 * @return the tag, or <code>null</code> if no descendant is tagged or the
+	 *         commit is not known to the index
+	 */
+	public Ref findFollowingTag(AnyObjectId commit) {
+		return findNearestTag(commit, true);
+	}
+
+	private synchronized Ref findNearestTag(AnyObjectId commit,
+			final boolean descendants) {
+		Node node = nodes.get(commit);
+		if (node == null || tags.isEmpty())
+			return null;
+		// visit ancestors by decreasing, descendants by increasing generation
+		PriorityQueue<Integer> queue = new PriorityQueue<Integer>(64,
+				new Comparator<Integer>() {
+					public int compare(Integer o1, Integer o2) {
+						int g1 = generations[o1.intValue()];
+						int g2 = generations[o2.intValue()];
+						return descendants ? g1 - g2 : g2 - g1;
+					}
+				});
+		int[] start = descendants ? childStart : parentStart;
+		int[] edges = descendants ? children : parents;
+		int count = 0;
+		visited.set(node.index);
+		visitedNodes[count++] = node.index;
+		queue.add(Integer.valueOf(node.index));
+		try {
+			while (!queue.isEmpty()) {
+				int current = queue.poll().intValue();
+				if (current != node.index) {
+					List<Ref> list = tags.get(Integer.valueOf(current));
+					if (list != null)
+						return list.get(0);
+				}
+				for (int j = start[current]; j < start[current + 1]; j++) {
+					int next = edges[j];
+					if (!visited.get(next)) {
+						visited.set(next);
+						visitedNodes[count++] = next;
+						queue.add(Integer.valueOf(next));
+					}
+				}
+			}
+			return null;
+		} finally {
+			clearVisited(count);
+		}
+	}
+
+	private void clearVisited(int count) {
+		for (int i = 0; i < count; i++)
+			visited.clear(visitedNodes[i]);
+	}
+
+	private static class Node extends ObjectIdOwnerMap.Entry {
+
+		final int index;
+
+		Node(AnyObjectId id, int index) {
+			super(id);
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jgit.events.RefsChangedEvent;
+import org.eclipse.jgit.events.RefsChangedListener;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Holds one immutable index per repository of data derived from the refs of
+ * the repository, and drops it when the refs change.
+ * <p>
+ * Indexes are built outside of the registry. To avoid keeping an index which
+ * already misses a ref change, callers remember the
+ * {@link #getGeneration() generation} before building it and hand it to
+ * {@link #put(Repository, Object, long)} afterwards.
+ *
+ * @param <T>
+ *            the type of the index
+ */
+class RefsIndexRegistry<T> {
+
+	private static final List<RefsIndexRegistry<?>> REGISTRIES = new ArrayList<RefsIndexRegistry<?>>();
+
+	static {
+		Repository.getGlobalListenerList().addRefsChangedListener(
+				new RefsChangedListener() {
+					public void onRefsChanged(RefsChangedEvent event) {
+						List<RefsIndexRegistry<?>> registries;
+						synchronized (REGISTRIES) {
+							registries = new ArrayList<RefsIndexRegistry<?>>(
+									REGISTRIES);
+						}
+						for (RefsIndexRegistry<?> registry : registries)
+							registry.refsChanged(event.getRepository());
+					}
+				});
+	}
+
+	// guarded by this
+	private final Map<Repository, T> indexes = new WeakHashMap<Repository, T>();
+
+	/** incremented whenever refs change, guarded by this */
+	private long generation;
+
+	RefsIndexRegistry() {
+		synchronized (REGISTRIES) {
+			REGISTRIES.add(this);
+		}
+	}
+
+	/**
+	 * @param repository
+	 * @return the index of the current refs of the repository, or
+	 *         <code>null</code> if there is none
+	 */
+	synchronized T get(Repository repository) {
+		return indexes.get(repository);
+	}
+
+	/**
+	 * @return the number of ref changes seen so far
+	 */
+	synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Registers a newly built index unless the refs changed while building it
+	 * or another thread has been faster
+	 *
+	 * @param repository
+	 * @param index
+	 * @param builtAt
+	 *            the {@link #getGeneration() generation} before the index was
+	 *            built
+	 * @return the registered index of the repository, or the given index if
+	 *         it is already outdated
+	 */
+	synchronized T put(Repository repository, T index, long builtAt) {
+		T current = indexes.get(repository);
+		if (current != null)
+			return current;
+		if (builtAt == generation)
+			indexes.put(repository, index);
+		return index;
+	}
+
+	private synchronized void refsChanged(Repository repository) {
+		indexes.remove(repository);
+		generation++;
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of daemon threads shared by the short CPU and I/O bound tasks of EGit
+ * core, e.g. hashing files. Idle threads terminate after a few seconds, so
+ * the pool costs nothing while it isn't used.
+ * <p>
+ * Tasks must not wait for other tasks of the pool.
+ */
+public class WorkerPool {
+
+	private static final ThreadPoolExecutor EXECUTOR;
+
+	static {
+		int threads = Runtime.getRuntime().availableProcessors();
+		EXECUTOR = new ThreadPoolExecutor(threads, threads, 10,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "EGit-Worker-" //$NON-NLS-1$
+								+ count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @return the shared executor
+	 */
+	public static ExecutorService getExecutor() {
+		return EXECUTOR;
+	}
+
+	/**
+	 * @return the number of tasks which can run in parallel
+	 */
+	public static int getParallelism() {
+		return EXECUTOR.getMaximumPoolSize();
+	}
+
+	private WorkerPool() {
+		// utility class
+	}
+}
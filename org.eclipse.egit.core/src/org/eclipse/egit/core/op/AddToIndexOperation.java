@@ -9,21 +9,27 @@
  *******************************************************************************/
 package org.eclipse.egit.core.op;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.AdaptableFileTreeIterator;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
+import org.eclipse.egit.core.internal.util.BulkIndexAdder;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.Git;
@@ -67,13 +73,25 @@ public void execute(IProgressMonitor m) throws CoreException {
 		else
 			monitor = m;
 
-		Map<RepositoryMapping, AddCommand> addCommands = new HashMap<RepositoryMapping, AddCommand>();
+		Map<IProject, RepositoryMapping> mappings = new HashMap<IProject, RepositoryMapping>();
+		Map<RepositoryMapping, AddCommand> addCommands = new LinkedHashMap<RepositoryMapping, AddCommand>();
+		Map<RepositoryMapping, Collection<String>> files = new LinkedHashMap<RepositoryMapping, Collection<String>>();
+		monitor.beginTask(CoreText.BulkIndexAdder_hashingFiles,
+				rsrcList.size() * 200 + 1000);
 		try {
 			for (IResource obj : rsrcList) {
-				addToCommand(obj, addCommands);
+				addToCommand(obj, mappings, addCommands, files);
 				monitor.worked(200);
 			}
 
+			for (Map.Entry<RepositoryMapping, Collection<String>> entry : files
+					.entrySet()) {
+				BulkIndexAdder adder = new BulkIndexAdder(entry.getKey()
+						.getRepository(), entry.getValue());
+				adder.addToIndex(new SubProgressMonitor(monitor,
+						1000 / files.size()));
+			}
+
 			for (AddCommand command : addCommands.values()) {
 				command.call();
 			}
@@ -81,9 +99,14 @@ public void execute(IProgressMonitor m) throws CoreException {
 			throw new CoreException(Activator.error(CoreText.AddToIndexOperation_failed, e));
 		} catch (GitAPIException e) {
 			throw new CoreException(Activator.error(CoreText.AddToIndexOperation_failed, e));
+		} catch (IOException e) {
+			throw new CoreException(Activator.error(CoreText.AddToIndexOperation_failed, e));
 		} finally {
 			for (final RepositoryMapping rm : addCommands.keySet())
 				rm.fireRepositoryChanged();
+			for (final RepositoryMapping rm : files.keySet())
+				if (!addCommands.containsKey(rm))
+					rm.fireRepositoryChanged();
 			monitor.done();
 		}
 	}
@@ -95,12 +118,35 @@ public ISchedulingRule getSchedulingRule() {
 		return RuleUtil.getRuleForRepositories(rsrcList.toArray(new IResource[rsrcList.size()]));
 	}
 
-	private void addToCommand(IResource resource, Map<RepositoryMapping, AddCommand> addCommands) {
+	private void addToCommand(IResource resource,
+			Map<IProject, RepositoryMapping> mappings,
+			Map<RepositoryMapping, AddCommand> addCommands,
+			Map<RepositoryMapping, Collection<String>> files) {
 		IProject project = resource.getProject();
-		RepositoryMapping map = RepositoryMapping.getMapping(project);
+		RepositoryMapping map;
+		if (mappings.containsKey(project))
+			map = mappings.get(project);
+		else {
+			map = RepositoryMapping.getMapping(project);
+			mappings.put(project, map);
+		}
 		if (map == null) {
 			return;
 		}
+		String filepattern = map.getRepoRelativePath(resource);
+		if (filepattern == null)
+			return;
+		if (resource instanceof IFile
+				&& !resource.isLinked(IResource.CHECK_ANCESTORS)) {
+			// single files are staged in bulk, see BulkIndexAdder
+			Collection<String> paths = files.get(map);
+			if (paths == null) {
+				paths = new ArrayList<String>();
+				files.put(map, paths);
+			}
+			paths.add(filepattern);
+			return;
+		}
 		AddCommand command = addCommands.get(map);
 		if (command == null) {
 			Repository repo = map.getRepository();
@@ -110,7 +156,6 @@ private void addToCommand(IResource resource, Map<RepositoryMapping, AddCommand>
 			command = git.add().setWorkingTreeIterator(it);
 			addCommands.put(map, command);
 		}
-		String filepattern = map.getRepoRelativePath(resource);
 		if ("".equals(filepattern)) //$NON-NLS-1$
 			filepattern = "."; //$NON-NLS-1$
 		command.addFilepattern(filepattern);
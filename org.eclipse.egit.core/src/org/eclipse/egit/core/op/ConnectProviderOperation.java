@@ -16,6 +16,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,9 @@
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -95,23 +99,43 @@ public void execute(IProgressMonitor m) throws CoreException {
 			monitor = m;
 		}
 
-		monitor.beginTask(CoreText.ConnectProviderOperation_connecting,
-				100 * projects.size());
-		MultiStatus ms = new MultiStatus(Activator.getPluginId(), 0,
+		final MultiStatus ms = new MultiStatus(Activator.getPluginId(), 0,
 				CoreText.ConnectProviderOperation_ConnectErrors, null);
-		try {
-			for (Entry<IProject, File> entry : projects.entrySet()) {
-				connectProject(entry, ms, monitor);
+		IWorkspaceRunnable action = new IWorkspaceRunnable() {
+			public void run(IProgressMonitor actMonitor) throws CoreException {
+				actMonitor.beginTask(
+						CoreText.ConnectProviderOperation_connecting,
+						100 * projects.size() + 1);
+				try {
+					Map<File, File> gitDirCache = new HashMap<File, File>();
+					List<IPath> derived = new ArrayList<IPath>();
+					for (Entry<IProject, File> entry : projects.entrySet()) {
+						connectProject(entry, gitDirCache, derived, ms,
+								actMonitor);
+					}
+					if (!derived.isEmpty()) {
+						IgnoreOperation ignoreOp = new IgnoreOperation(derived);
+						ignoreOp.execute(new SubProgressMonitor(actMonitor, 1));
+					}
+				} finally {
+					actMonitor.done();
+				}
 			}
-		} finally {
-			monitor.done();
-		}
+		};
+		// Connect all projects in one workspace operation, so that the
+		// resource changes caused by connecting them, and the index diff
+		// updates these trigger, are processed once for all projects. No rule:
+		// ignoring derived resources may change .gitignore files outside of
+		// the projects.
+		ResourcesPlugin.getWorkspace().run(action, null,
+				IWorkspace.AVOID_UPDATE, monitor);
 		if (!ms.isOK()) {
 			throw new CoreException(ms);
 		}
 	}
 
-	private void connectProject(Entry<IProject, File> entry, MultiStatus ms,
+	private void connectProject(Entry<IProject, File> entry,
+			Map<File, File> gitDirCache, List<IPath> derived, MultiStatus ms,
 			IProgressMonitor monitor) throws CoreException {
 		IProject project = entry.getKey();
 
@@ -127,6 +151,7 @@ private void connectProject(Entry<IProject, File> entry, MultiStatus ms,
 
 		RepositoryFinder finder = new RepositoryFinder(project);
 		finder.setFindInChildren(false);
+		finder.setGitDirCache(gitDirCache);
 		Collection<RepositoryMapping> repos = finder
 				.find(new SubProgressMonitor(monitor, 40));
 		if (repos.isEmpty()) {
@@ -163,7 +188,8 @@ private void connectProject(Entry<IProject, File> entry, MultiStatus ms,
 			return;
 		}
 		RepositoryProvider.map(project, GitProvider.ID);
-		autoIgnoreDerivedResources(project, monitor);
+		if (Activator.autoIgnoreDerived())
+			derived.addAll(findDerivedResources(project));
 		project.refreshLocal(IResource.DEPTH_INFINITE,
 				new SubProgressMonitor(monitor, 50));
 		monitor.worked(10);
@@ -177,19 +203,6 @@ private void deleteGitProvider(MultiStatus ms, IProject project) {
 		}
 	}
 
-	private void autoIgnoreDerivedResources(IProject project,
-			IProgressMonitor monitor) throws CoreException {
-		if (!Activator.autoIgnoreDerived()) {
-			return;
-		}
-		List<IPath> paths = findDerivedResources(project);
-		if (paths.size() > 0) {
-			IgnoreOperation ignoreOp = new IgnoreOperation(paths);
-			IProgressMonitor subMonitor = new SubProgressMonitor(monitor, 1);
-			ignoreOp.execute(subMonitor);
-		}
-	}
-
 	private List<IPath> findDerivedResources(IContainer c)
 			throws CoreException {
 		List<IPath> derived = new ArrayList<IPath>();
@@ -15,6 +15,7 @@
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.egit.core.EclipseGitProgressTransformer;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.JGitInternalException;
@@ -130,6 +131,7 @@ public void run(IProgressMonitor monitor) throws InvocationTargetException {
 				.setDryRun(dryRun).setProgressMonitor(gitMonitor);
 		if (tagOpt != null)
 			command.setTagOpt(tagOpt);
+		long startNanos = System.nanoTime();
 		try {
 			operationResult = command.call();
 		} catch (JGitInternalException e) {
@@ -137,6 +139,9 @@ public void run(IProgressMonitor monitor) throws InvocationTargetException {
 					.getCause() : e);
 		} catch (Exception e) {
 			throw new InvocationTargetException(e);
+		} finally {
+			GitMetrics.timer(GitMetrics.FETCH, GitMetrics.scope(repository))
+					.recordSince(startNanos);
 		}
 	}
 
@@ -21,6 +21,7 @@
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.EclipseGitProgressTransformer;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.lib.Repository;
@@ -170,6 +171,7 @@ public void run(IProgressMonitor actMonitor)
 
 		operationResult = new PushOperationResult();
 		Git git = new Git(localDb);
+		long startNanos = System.nanoTime();
 
 		if (specification != null)
 			for (final URIish uri : specification.getURIs()) {
@@ -242,6 +244,8 @@ public void run(IProgressMonitor actMonitor)
 				handleException(uri, e, e.getMessage());
 			}
 		}
+		GitMetrics.timer(GitMetrics.PUSH, GitMetrics.scope(localDb))
+				.recordSince(startNanos);
 		monitor.done();
 	}
 
@@ -19,11 +19,14 @@
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
@@ -61,12 +64,19 @@
 /**
  * This class keeps information about how a project is mapped to
  * a Git repository.
+ * <p>
+ * The data of the projects is kept in a concurrent map and the mappings and
+ * protected resources of a project are replaced as immutable snapshots, so
+ * looking them up doesn't lock. Only loading the data of a project not cached
+ * yet is serialized.
  */
 public class GitProjectData {
 
-	private static final Map<IProject, GitProjectData> projectDataCache = new HashMap<IProject, GitProjectData>();
+	private static final ConcurrentMap<IProject, GitProjectData> projectDataCache = new ConcurrentHashMap<IProject, GitProjectData>();
 
-	private static Set<RepositoryChangeListener> repositoryChangeListeners = new HashSet<RepositoryChangeListener>();
+	private static final Object loadLock = new Object();
+
+	private static final Set<RepositoryChangeListener> repositoryChangeListeners = new CopyOnWriteArraySet<RepositoryChangeListener>();
 
 	@SuppressWarnings("synthetic-access")
 	private static final IResourceChangeListener rcl = new RCL();
@@ -126,7 +136,7 @@ public static void detachFromWorkspace() {
 	 * @param objectThatCares
 	 *            the new listener to register. Must not be null.
 	 */
-	public static synchronized void addRepositoryChangeListener(
+	public static void addRepositoryChangeListener(
 			final RepositoryChangeListener objectThatCares) {
 		if (objectThatCares == null)
 			throw new NullPointerException();
@@ -139,7 +149,7 @@ public static synchronized void addRepositoryChangeListener(
 	 * @param objectThatCares
 	 *            The listener to remove
 	 */
-	public static synchronized void removeRepositoryChangeListener(
+	public static void removeRepositoryChangeListener(
 			final RepositoryChangeListener objectThatCares) {
 		repositoryChangeListeners.remove(objectThatCares);
 	}
@@ -189,7 +199,7 @@ public boolean belongsTo(Object family) {
 	 *
 	 * @return a copy of the current repository change listeners
 	 */
-	private static synchronized RepositoryChangeListener[] getRepositoryChangeListeners() {
+	private static RepositoryChangeListener[] getRepositoryChangeListeners() {
 		return repositoryChangeListeners
 				.toArray(new RepositoryChangeListener[repositoryChangeListeners
 						.size()]);
@@ -202,17 +212,25 @@ private static synchronized RepositoryChangeListener[] getRepositoryChangeListen
 	 *         occurred
 	 */
 	@Nullable
-	public synchronized static GitProjectData get(final @NonNull IProject p) {
-		try {
-			GitProjectData d = lookup(p);
-			if (d == null && ResourceUtil.isSharedWithGit(p)) {
-				d = new GitProjectData(p).load();
-				cache(p, d);
-			}
+	public static GitProjectData get(final @NonNull IProject p) {
+		GitProjectData d = lookup(p);
+		if (d != null || !ResourceUtil.isSharedWithGit(p))
 			return d;
-		} catch (IOException err) {
-			Activator.logError(CoreText.GitProjectData_missing, err);
-			return null;
+		synchronized (loadLock) {
+			try {
+				d = lookup(p);
+				if (d == null) {
+					d = new GitProjectData(p).load();
+					// add() does not take the lock; keep what it cached
+					GitProjectData added = projectDataCache.putIfAbsent(p, d);
+					if (added != null)
+						d = added;
+				}
+				return d;
+			} catch (IOException err) {
+				Activator.logError(CoreText.GitProjectData_missing, err);
+				return null;
+			}
 		}
 	}
 
@@ -255,19 +273,18 @@ static void trace(final String m) {
 					"(GitProjectData) " + m); //$NON-NLS-1$
 	}
 
-	private synchronized static void cache(final IProject p,
-			final GitProjectData d) {
+	private static void cache(final IProject p, final GitProjectData d) {
 		projectDataCache.put(p, d);
 	}
 
-	private synchronized static void uncache(final IProject p) {
+	private static void uncache(final IProject p) {
 		if (projectDataCache.remove(p) != null) {
 			trace("uncacheDataFor(" //$NON-NLS-1$
 				+ p.getName() + ")"); //$NON-NLS-1$
 		}
 	}
 
-	private synchronized static GitProjectData lookup(final IProject p) {
+	private static GitProjectData lookup(final IProject p) {
 		return projectDataCache.get(p);
 	}
 
@@ -288,9 +305,11 @@ public static void reconfigureWindowCache() {
 
 	private final IProject project;
 
-	private final Collection<RepositoryMapping> mappings = new ArrayList<RepositoryMapping>();
+	private volatile List<RepositoryMapping> mappings = Collections
+			.emptyList();
 
-	private final Set<IResource> protectedResources = new HashSet<IResource>();
+	private volatile Set<IResource> protectedResources = Collections
+			.emptySet();
 
 	/**
 	 * Construct a {@link GitProjectData} for the mapping
@@ -315,8 +334,8 @@ public IProject getProject() {
 	 * @param newMappings
 	 */
 	public void setRepositoryMappings(final Collection<RepositoryMapping> newMappings) {
-		mappings.clear();
-		mappings.addAll(newMappings);
+		mappings = Collections.unmodifiableList(new ArrayList<RepositoryMapping>(
+				newMappings));
 		remapAll();
 	}
 
@@ -457,13 +476,14 @@ private GitProjectData load() throws IOException {
 			final Properties p = new Properties();
 			p.load(o);
 
-			mappings.clear();
+			List<RepositoryMapping> loaded = new ArrayList<RepositoryMapping>();
 			for (final Object keyObj : p.keySet()) {
 				final String key = keyObj.toString();
 				if (RepositoryMapping.isInitialKey(key)) {
-					mappings.add(new RepositoryMapping(p, key));
+					loaded.add(new RepositoryMapping(p, key));
 				}
 			}
+			mappings = Collections.unmodifiableList(loaded);
 		} finally {
 			o.close();
 		}
@@ -473,13 +493,15 @@ private GitProjectData load() throws IOException {
 	}
 
 	private void remapAll() {
-		protectedResources.clear();
+		Set<IResource> protectedSet = new HashSet<IResource>();
 		for (final RepositoryMapping repoMapping : mappings) {
-			map(repoMapping);
+			map(repoMapping, protectedSet);
 		}
+		protectedResources = Collections.unmodifiableSet(protectedSet);
 	}
 
-	private void map(final RepositoryMapping m) {
+	private void map(final RepositoryMapping m,
+			final Set<IResource> protectedSet) {
 		final IResource r;
 		final File git;
 		final IResource dotGit;
@@ -533,7 +555,7 @@ private void map(final RepositoryMapping m) {
 
 		dotGit = c.findMember(Constants.DOT_GIT);
 		if (dotGit != null && dotGit.getLocation().toFile().equals(git)) {
-			protect(dotGit);
+			protect(dotGit, protectedSet);
 		}
 	}
 
@@ -546,11 +568,11 @@ private void logAndUnmapGoneMappedResource(final RepositoryMapping m) {
 		unmapJob.schedule();
 	}
 
-	private void protect(IResource resource) {
+	private void protect(IResource resource, Set<IResource> protectedSet) {
 		IResource c = resource;
 		while (c != null && !c.equals(getProject())) {
 			trace("protect " + c);  //$NON-NLS-1$
-			protectedResources.add(c);
+			protectedSet.add(c);
 			try {
 				c.setTeamPrivateMember(true);
 			} catch (CoreException e) {
@@ -16,6 +16,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
@@ -63,6 +64,8 @@ public class RepositoryFinder {
 
 	private boolean findInChildren = true;
 
+	private Map<File, File> gitDirCache;
+
 	/**
 	 * Create a new finder to locate Git repositories for a project.
 	 *
@@ -90,6 +93,23 @@ public void setFindInChildren(boolean findInChildren) {
 		this.findInChildren = findInChildren;
 	}
 
+	/**
+	 * Shares the results of looking for Git directories with other finders.
+	 * Projects located in the same repository have most of their parent
+	 * directories in common, so a finder for each of many such projects looks
+	 * at these directories only once if they all share the same cache.
+	 *
+	 * @param cache
+	 *            maps directories already looked at to the Git directory
+	 *            found there, or to <code>null</code> if there is none; not
+	 *            thread-safe, must only be shared by finders running in the
+	 *            same thread
+	 * @since 4.1
+	 */
+	public void setGitDirCache(Map<File, File> cache) {
+		this.gitDirCache = cache;
+	}
+
 	/**
 	 * Run the search algorithm, ignoring linked resources.
 	 *
@@ -192,12 +212,19 @@ private void findInDirectory(final IContainer container,
 					"Looking at candidate dir: " //$NON-NLS-1$
 							+ path);
 
-		FileRepositoryBuilder builder = new FileRepositoryBuilder();
-		File parent = path.getParentFile();
-		if (parent != null)
-			builder.addCeilingDirectory(parent);
-		builder.findGitDir(path);
-		File gitDir = builder.getGitDir();
+		File gitDir;
+		if (gitDirCache != null && gitDirCache.containsKey(path))
+			gitDir = gitDirCache.get(path);
+		else {
+			FileRepositoryBuilder builder = new FileRepositoryBuilder();
+			File parent = path.getParentFile();
+			if (parent != null)
+				builder.addCeilingDirectory(parent);
+			builder.findGitDir(path);
+			gitDir = builder.getGitDir();
+			if (gitDirCache != null)
+				gitDirCache.put(path, gitDir);
+		}
 		if (gitDir != null)
 			register(container, gitDir);
 	}
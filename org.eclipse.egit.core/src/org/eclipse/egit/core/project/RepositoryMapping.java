@@ -39,27 +39,47 @@
 
 /**
  * This class provides means to map resources, projects and repositories
+ * <p>
+ * The mapped container and repository are held in an immutable snapshot which
+ * is replaced as a whole when the mapping changes, so the getters, which are
+ * called for every decorated or changed resource, don't need to lock.
  */
 public class RepositoryMapping {
 	static boolean isInitialKey(final String key) {
 		return key.endsWith(".gitdir");  //$NON-NLS-1$
 	}
 
-	private final String containerPathString;
+	/**
+	 * Immutable state of a mapping
+	 */
+	private static class Mapped {
 
-	private IPath containerPath;
+		static final Mapped EMPTY = new Mapped(null, null, null);
 
-	private final String gitDirPathString;
+		final Repository db;
 
-	private IPath gitDirPath;
+		final String workdirPrefix;
 
-	private IPath gitDirAbsolutePath;
+		final IContainer container;
 
-	private Repository db;
+		Mapped(Repository db, String workdirPrefix, IContainer container) {
+			this.db = db;
+			this.workdirPrefix = workdirPrefix;
+			this.container = container;
+		}
+	}
 
-	private String workdirPrefix;
+	private final String containerPathString;
 
-	private IContainer container;
+	private volatile IPath containerPath;
+
+	private final String gitDirPathString;
+
+	private volatile IPath gitDirPath;
+
+	private volatile IPath gitDirAbsolutePath;
+
+	private volatile Mapped mapped = Mapped.EMPTY;
 
 	private final RepositoryCache repositoryCache = org.eclipse.egit.core.Activator
 			.getDefault().getRepositoryCache();
@@ -104,8 +124,8 @@ private RepositoryMapping(@NonNull
 				.removeTrailingSeparator();
 		final IPath gLocParent = gLoc.removeLastSegments(1);
 
-		container = mappedContainer;
-		containerPathString = container.getProjectRelativePath()
+		mapped = new Mapped(null, null, mappedContainer);
+		containerPathString = mappedContainer.getProjectRelativePath()
 				.toPortableString();
 
 		if (cLoc.isPrefixOf(gLoc)) {
@@ -161,17 +181,15 @@ public File getWorkTree() {
 	}
 
 	synchronized void clear() {
-		db = null;
-		workdirPrefix = null;
-		container = null;
+		mapped = Mapped.EMPTY;
 	}
 
 	/**
 	 * @return a reference to the repository object handled by this mapping
 	 */
 	/* TODO currently the value is @Nullable but it must be NonNull */
-	public synchronized Repository getRepository() {
-		return db;
+	public Repository getRepository() {
+		return mapped.db;
 	}
 
 	/**
@@ -185,12 +203,13 @@ public synchronized Repository getRepository() {
 	 *         TODO add support for multiple nesting levels of submodules
 	 */
 	@Nullable
-	public synchronized Repository getSubmoduleRepository(@NonNull IResource res) {
+	public Repository getSubmoduleRepository(@NonNull IResource res) {
 		IPath projectRelativePath = res.getProjectRelativePath();
 		if (projectRelativePath == null)
 			return null;
 
 		String projectRelativePathStr = res.getProjectRelativePath().toString();
+		Repository db = getRepository();
 		try {
 			if (!db.isBare() && SubmoduleWalk.containsGitModulesFile(db)) {
 				SubmoduleWalk sw = SubmoduleWalk.forIndex(db);
@@ -219,28 +238,28 @@ public synchronized Repository getSubmoduleRepository(@NonNull IResource res) {
 	}
 
 	synchronized void setRepository(final Repository r) {
-		db = r;
-		File workTree = getWorkTree();
-		if (workTree == null) {
-			return;
-		}
-		workdirPrefix = workTree.getAbsolutePath();
-		workdirPrefix = workdirPrefix.replace('\\', '/');
-		if (!workdirPrefix.endsWith("/")) {  //$NON-NLS-1$
-			workdirPrefix += "/";  //$NON-NLS-1$
+		String workdirPrefix = null;
+		if (r != null && !r.isBare()) {
+			workdirPrefix = r.getWorkTree().getAbsolutePath();
+			workdirPrefix = workdirPrefix.replace('\\', '/');
+			if (!workdirPrefix.endsWith("/")) {  //$NON-NLS-1$
+				workdirPrefix += "/";  //$NON-NLS-1$
+			}
 		}
+		mapped = new Mapped(r, workdirPrefix, mapped.container);
 	}
 
 	/**
 	 * @return the mapped container (currently project)
 	 */
 	/* TODO currently the value is @Nullable but it must be NonNull */
-	public synchronized IContainer getContainer() {
-		return container;
+	public IContainer getContainer() {
+		return mapped.container;
 	}
 
 	synchronized void setContainer(final IContainer c) {
-		container = c;
+		Mapped current = mapped;
+		mapped = new Mapped(current.db, current.workdirPrefix, c);
 	}
 
 	/**
@@ -252,7 +271,7 @@ public void fireRepositoryChanged() {
 		GitProjectData.fireRepositoryChanged(this);
 	}
 
-	synchronized void store(final Properties p) {
+	void store(final Properties p) {
 		p.setProperty(containerPathString + ".gitdir", gitDirPathString); //$NON-NLS-1$
 	}
 
@@ -308,7 +327,8 @@ public String getRepoRelativePath(@NonNull final IResource rsrc) {
 	 *         determined.
 	 */
 	@Nullable
-	public synchronized String getRepoRelativePath(@NonNull IPath location) {
+	public String getRepoRelativePath(@NonNull IPath location) {
+		String workdirPrefix = mapped.workdirPrefix;
 		if (workdirPrefix == null) {
 			return null;
 		}
@@ -451,17 +471,21 @@ public String getGitDir() {
 	 *         and container does not exist
 	 */
 	@Nullable
-	public synchronized IPath getGitDirAbsolutePath() {
-		if (gitDirAbsolutePath == null) {
+	public IPath getGitDirAbsolutePath() {
+		IPath absolutePath = gitDirAbsolutePath;
+		if (absolutePath == null) {
 			IPath p = getGitDirPath();
+			IContainer container = getContainer();
 			if (p.isAbsolute())
-				gitDirAbsolutePath = p;
+				absolutePath = p;
 			else if (container != null) {
 				IPath cloc = container.getLocation();
 				if (cloc != null)
-					gitDirAbsolutePath = cloc.append(p);
+					absolutePath = cloc.append(p);
 			}
+			// computing it twice in concurrent calls doesn't hurt
+			gitDirAbsolutePath = absolutePath;
 		}
-		return gitDirAbsolutePath;
+		return absolutePath;
 	}
 }
@@ -18,6 +18,7 @@
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.egit.core.internal.util.PathInterner;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
 import org.eclipse.jgit.lib.MutableObjectId;
 import org.eclipse.jgit.lib.ObjectId;
@@ -354,6 +355,8 @@ public static List<Commit> build(Repository repo, ObjectId srcId,
 				rw.setTreeFilter(pathFilter);
 
 			List<Commit> result = new ArrayList<Commit>();
+			// paths changed by several commits share one instance
+			PathInterner paths = new PathInterner();
 			for (RevCommit revCommit : rw) {
 				if (revCommit.hasAll(allFlags))
 					break;
@@ -376,7 +379,7 @@ else if (revCommit.has(remoteFlag))
 					throw new GitCommitsModelDirectionException();
 
 				commit.children = getChangedObjects(repo, revCommit,
-						parentCommit, pathFilter, commit.direction);
+						parentCommit, pathFilter, commit.direction, paths);
 
 				if (commit.children != null)
 					result.add(commit);
@@ -395,7 +398,8 @@ private static RevCommit getParentCommit(RevCommit commit) {
 
 	private static Map<String, Change> getChangedObjects(Repository repo,
 			RevCommit commit, RevCommit parentCommit,
-			TreeFilter pathFilter, final int direction) throws IOException {
+			TreeFilter pathFilter, final int direction, PathInterner paths)
+			throws IOException {
 		final Map<String, Change> result = new HashMap<String, GitCommitsModelCache.Change>();
 		try (final TreeWalk tw = new TreeWalk(repo)) {
 			int commitIndex = addTree(tw, commit);
@@ -415,7 +419,7 @@ private static Map<String, Change> getChangedObjects(Repository repo,
 				Change change = new Change();
 				change.commitId = commitId;
 				change.remoteCommitId = parentCommitId;
-				change.name = tw.getNameString();
+				change.name = paths.intern(tw.getNameString());
 				tw.getObjectId(idBuf, commitIndex);
 				change.objectId = AbbreviatedObjectId.fromObjectId(idBuf);
 				tw.getObjectId(idBuf, parentCommitIndex);
@@ -423,7 +427,7 @@ private static Map<String, Change> getChangedObjects(Repository repo,
 
 				calculateAndSetChangeKind(direction, change);
 
-				result.put(tw.getPathString(), change);
+				result.put(paths.intern(tw.getPathString()), change);
 			}
 		}
 
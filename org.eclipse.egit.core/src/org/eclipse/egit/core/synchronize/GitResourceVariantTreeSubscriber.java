@@ -17,6 +17,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -26,6 +27,8 @@
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.egit.core.Activator;
@@ -78,6 +81,8 @@ public class GitResourceVariantTreeSubscriber extends
 
 	private GitSyncCache cache;
 
+	private final GitSyncChangeTracker changeTracker = new GitSyncChangeTracker();
+
 	private GitSyncInfoToDiffConverter syncInfoConverter = new GitSyncInfoToDiffConverter();
 
 	/**
@@ -100,6 +105,9 @@ public void init(IProgressMonitor monitor) {
 				gsds.size());
 		try {
 			cache = GitSyncCache.getAllData(gsds, monitor);
+			recordBuilds();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(
+					changeTracker, IResourceChangeEvent.POST_CHANGE);
 		} finally {
 			monitor.done();
 		}
@@ -161,7 +169,7 @@ public void refresh(IResource[] resources, int depth,
 			// check to see if there is a full refresh
 			if (resource.getType() == IResource.ROOT) {
 				// refresh entire cache
-				cache = GitSyncCache.getAllData(gsds, monitor);
+				refreshChanged(monitor);
 				super.refresh(resources, depth, monitor);
 				return;
 			}
@@ -202,6 +210,43 @@ public void refresh(IResource[] resources, int depth,
 		super.refresh(resources, depth, monitor);
 	}
 
+	/**
+	 * Updates the cache for a refresh of the whole workspace. Only the paths
+	 * which changed since the last build are rescanned; repositories whose
+	 * changes are unknown or too many are rebuilt completely.
+	 *
+	 * @param monitor
+	 */
+	private void refreshChanged(IProgressMonitor monitor) {
+		if (cache == null) {
+			cache = GitSyncCache.getAllData(gsds, monitor);
+			recordBuilds();
+			return;
+		}
+		Map<GitSynchronizeData, Collection<String>> updateRequests = new HashMap<GitSynchronizeData, Collection<String>>();
+		Set<Repository> rebuilt = new HashSet<Repository>();
+		for (GitSynchronizeData data : gsds) {
+			Collection<String> paths = changeTracker.getChangedPaths(data);
+			if (paths == null)
+				rebuilt.add(data.getRepository());
+			else if (!paths.isEmpty())
+				updateRequests.put(data, paths);
+		}
+		// a full rescan replaces the data of all synchronize data of the
+		// repository, so all of them have to be rescanned
+		for (GitSynchronizeData data : gsds)
+			if (rebuilt.contains(data.getRepository()))
+				updateRequests.put(data, Collections.<String> emptyList());
+		if (!updateRequests.isEmpty())
+			GitSyncCache.mergeAllDataIntoCache(updateRequests, monitor, cache);
+		recordBuilds();
+	}
+
+	private void recordBuilds() {
+		for (GitSynchronizeData data : gsds)
+			changeTracker.recordBuild(data);
+	}
+
 	@Override
 	public IResource[] roots() {
 		if (roots == null)
@@ -229,6 +274,8 @@ public void reset(GitSynchronizeDataSet data) {
 	 * Disposes nested resources
 	 */
 	public void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+				changeTracker);
 		if (sourceTree != null)
 			sourceTree.dispose();
 		if (baseTree != null)
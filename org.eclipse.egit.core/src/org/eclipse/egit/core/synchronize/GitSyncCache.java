@@ -9,6 +9,7 @@
 package org.eclipse.egit.core.synchronize;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,6 +23,7 @@
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.util.PathInterner;
 import org.eclipse.egit.core.synchronize.dto.GitSynchronizeData;
 import org.eclipse.egit.core.synchronize.dto.GitSynchronizeDataSet;
 import org.eclipse.jgit.dircache.DirCache;
@@ -62,16 +64,42 @@ public static GitSyncCache getAllData(
 		return cache;
 	}
 
+	/**
+	 * Rescans the requested paths and merges the result into the cache.
+	 * <p>
+	 * An empty path collection, or one containing the empty path, rescans the
+	 * whole repository and replaces the repository's data in the cache, so
+	 * entries which vanished don't linger. If several synchronize data of the
+	 * same repository are rescanned completely, the first one replaces the
+	 * data and the others are merged into it; callers requesting a full
+	 * rescan therefore have to request it for all synchronize data of the
+	 * repository.
+	 *
+	 * @param updateRequests
+	 *            the paths to rescan per synchronize data
+	 * @param monitor
+	 * @param cache
+	 *            the cache to update
+	 */
 	public static void mergeAllDataIntoCache(
 			Map<GitSynchronizeData, Collection<String>> updateRequests,
 			IProgressMonitor monitor, GitSyncCache cache) {
 		SubMonitor m = SubMonitor.convert(monitor, updateRequests.size());
+		Set<File> replaced = new HashSet<File>();
 
 		for (Entry<GitSynchronizeData, Collection<String>> entry : updateRequests
 				.entrySet()) {
 			Collection<String> paths = entry.getValue();
 			GitSyncCache partialCache = getAllData(entry.getKey(), paths);
-			cache.merge(partialCache, new HashSet<String>(paths));
+			File gitDir = entry.getKey().getRepository().getDirectory();
+			if (paths.isEmpty() || paths.contains("")) { //$NON-NLS-1$
+				if (replaced.add(gitDir))
+					// the whole repository was scanned, drop stale entries
+					cache.cache.putAll(partialCache.cache);
+				else
+					cache.merge(partialCache, Collections.<String> emptySet());
+			} else
+				cache.merge(partialCache, new HashSet<String>(paths));
 			m.worked(1);
 		}
 
@@ -114,14 +142,43 @@ private static TreeFilter createPathFilter(Collection<String> paths) {
 
 	private static void loadDataFromGit(GitSynchronizeData gsd,
 			TreeFilter filter, GitSyncObjectCache repoCache) {
-		Repository repo = gsd.getRepository();
+		try {
+			loadDataFromGit(gsd.getRepository(), gsd.shouldIncludeLocal(),
+					gsd.getSrcRevCommit(), gsd.getCommonAncestorRev(),
+					gsd.getDstRevCommit(), filter, repoCache);
+		} catch (Exception e) {
+			Activator.logError(e.getMessage(), e);
+		}
+	}
 
+	/**
+	 * Scans the differences between the local, base and remote state of a
+	 * repository and adds them to the cache of the repository
+	 *
+	 * @param repo
+	 * @param includeLocal
+	 *            whether the working tree and the index are the local state,
+	 *            otherwise the source commit is
+	 * @param src
+	 *            the source commit, may be <code>null</code>
+	 * @param base
+	 *            the common ancestor, may be <code>null</code>
+	 * @param dst
+	 *            the destination commit, may be <code>null</code>
+	 * @param filter
+	 *            the paths to scan, <code>null</code> for all
+	 * @param repoCache
+	 * @throws IOException
+	 */
+	static void loadDataFromGit(Repository repo, boolean includeLocal,
+			RevCommit src, RevCommit base, RevCommit dst, TreeFilter filter,
+			GitSyncObjectCache repoCache) throws IOException {
 		try (TreeWalk tw = new TreeWalk(repo)) {
 			if (filter != null)
 				tw.setFilter(filter);
 			// setup local tree
 			FileTreeIterator fti = null;
-			if (gsd.shouldIncludeLocal()) {
+			if (includeLocal) {
 				fti = new FileTreeIterator(repo);
 				tw.addTree(fti);
 				if (filter != null)
@@ -129,20 +186,20 @@ private static void loadDataFromGit(GitSynchronizeData gsd,
 							new NotIgnoredFilter(0)));
 				else
 					tw.setFilter(new NotIgnoredFilter(0));
-			} else if (gsd.getSrcRevCommit() != null)
-				tw.addTree(gsd.getSrcRevCommit().getTree());
+			} else if (src != null)
+				tw.addTree(src.getTree());
 			else
 				tw.addTree(new EmptyTreeIterator());
 
 			// setup base tree
-			if (gsd.getCommonAncestorRev() != null)
-				tw.addTree(gsd.getCommonAncestorRev().getTree());
+			if (base != null)
+				tw.addTree(base.getTree());
 			else
 				tw.addTree(new EmptyTreeIterator());
 
 			// setup remote tree
-			if (gsd.getDstRevCommit() != null)
-				tw.addTree(gsd.getDstRevCommit().getTree());
+			if (dst != null)
+				tw.addTree(dst.getTree());
 			else
 				tw.addTree(new EmptyTreeIterator());
 
@@ -154,10 +211,9 @@ private static void loadDataFromGit(GitSynchronizeData gsd,
 			}
 			List<ThreeWayDiffEntry> diffEntrys = ThreeWayDiffEntry.scan(tw);
 
+			PathInterner names = new PathInterner();
 			for (ThreeWayDiffEntry diffEntry : diffEntrys)
-				repoCache.addMember(diffEntry);
-		} catch (Exception e) {
-			Activator.logError(e.getMessage(), e);
+				repoCache.addMember(diffEntry, names);
 		}
 	}
 
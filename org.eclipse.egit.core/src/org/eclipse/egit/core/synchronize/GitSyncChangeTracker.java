@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.synchronize;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.project.RepositoryMapping;
+import org.eclipse.egit.core.synchronize.dto.GitSynchronizeData;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Records what changed since the {@link GitSyncCache} was built, so that a
+ * refresh of the whole workspace only needs to recompute the affected paths.
+ * <p>
+ * For every {@link GitSynchronizeData} the trees of the source, destination
+ * and common ancestor commits used for the last build are remembered. On the
+ * next refresh the paths which differ between the old and new trees are
+ * computed by a tree walk that skips identical subtrees. If the local working
+ * tree is included, the files changed in the workspace since the last refresh
+ * are added, and a change of the index or of the ignore rules forces a full
+ * rebuild of the repository, since the latter may change the state of any
+ * untracked file.
+ */
+class GitSyncChangeTracker implements IResourceChangeListener {
+
+	/**
+	 * Above this number of changed paths rebuilding the repository's data is
+	 * cheaper than filtering by path
+	 */
+	private static final int MAX_CHANGED_PATHS = 500;
+
+	// guarded by this
+	private final Map<GitSynchronizeData, BuildState> builds = new HashMap<GitSynchronizeData, BuildState>();
+
+	// guarded by this, keyed by git directory, null value on overflow
+	private final Map<File, Set<String>> changedFiles = new HashMap<File, Set<String>>();
+
+	/**
+	 * Remembers the state the cache data of the given synchronize data has
+	 * just been built from
+	 *
+	 * @param gsd
+	 */
+	synchronized void recordBuild(GitSynchronizeData gsd) {
+		builds.put(gsd, new BuildState(gsd));
+	}
+
+	/**
+	 * Computes the paths whose cache data has to be recomputed, and forgets
+	 * the files changed in the workspace so far
+	 *
+	 * @param gsd
+	 * @return repository relative paths which changed since the last build,
+	 *         or <code>null</code> if all data of the repository has to be
+	 *         rebuilt
+	 */
+	Collection<String> getChangedPaths(GitSynchronizeData gsd) {
+		Repository repo = gsd.getRepository();
+		BuildState last;
+		Set<String> files;
+		boolean overflow;
+		synchronized (this) {
+			last = builds.get(gsd);
+			overflow = changedFiles.containsKey(repo.getDirectory())
+					&& changedFiles.get(repo.getDirectory()) == null;
+			files = changedFiles.remove(repo.getDirectory());
+		}
+		if (last == null)
+			return null;
+
+		BuildState current = new BuildState(gsd);
+		Set<String> paths = new HashSet<String>();
+		if (gsd.shouldIncludeLocal()) {
+			if (overflow || current.indexLastModified != last.indexLastModified
+					|| current.excludeLastModified != last.excludeLastModified)
+				return null;
+			if (files != null)
+				paths.addAll(files);
+		}
+		try (TreeWalk walk = new TreeWalk(repo)) {
+			if (!addChangedPaths(walk, last.srcTree, current.srcTree, paths)
+					|| !addChangedPaths(walk, last.dstTree, current.dstTree,
+							paths)
+					|| !addChangedPaths(walk, last.baseTree, current.baseTree,
+							paths))
+				return null;
+		} catch (IOException e) {
+			Activator.logError(e.getMessage(), e);
+			return null;
+		}
+		if (paths.size() > MAX_CHANGED_PATHS)
+			return null;
+		return paths;
+	}
+
+	private static boolean addChangedPaths(TreeWalk walk, ObjectId oldTree,
+			ObjectId newTree, Set<String> paths) throws IOException {
+		if (oldTree.equals(newTree))
+			return true;
+		walk.reset();
+		walk.setRecursive(true);
+		walk.setFilter(TreeFilter.ANY_DIFF);
+		addTree(walk, oldTree);
+		addTree(walk, newTree);
+		while (walk.next()) {
+			paths.add(walk.getPathString());
+			if (paths.size() > MAX_CHANGED_PATHS)
+				return false;
+		}
+		return true;
+	}
+
+	private static void addTree(TreeWalk walk, ObjectId tree)
+			throws IOException {
+		if (ObjectId.zeroId().equals(tree))
+			walk.addTree(new EmptyTreeIterator());
+		else
+			walk.addTree(tree);
+	}
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta d) throws CoreException {
+					IResource resource = d.getResource();
+					if (resource.getType() != IResource.FILE)
+						return true;
+					if (d.getKind() == IResourceDelta.CHANGED
+							&& (d.getFlags() & IResourceDelta.CONTENT) == 0)
+						return false;
+					RepositoryMapping mapping = RepositoryMapping
+							.getMapping(resource);
+					if (mapping == null)
+						return false;
+					String path = mapping.getRepoRelativePath(resource);
+					if (path != null)
+						addChangedFile(mapping.getRepository().getDirectory(),
+								path);
+					return false;
+				}
+			});
+		} catch (CoreException e) {
+			Activator.logError(e.getMessage(), e);
+		}
+	}
+
+	private synchronized void addChangedFile(File gitDir, String path) {
+		if (path.equals(Constants.DOT_GIT_IGNORE)
+				|| path.endsWith("/" + Constants.DOT_GIT_IGNORE)) { //$NON-NLS-1$
+			// may change whether any untracked file is ignored
+			changedFiles.put(gitDir, null);
+			return;
+		}
+		Set<String> files = changedFiles.get(gitDir);
+		if (files == null) {
+			if (changedFiles.containsKey(gitDir))
+				// overflow
+				return;
+			files = new HashSet<String>();
+			changedFiles.put(gitDir, files);
+		}
+		files.add(path);
+		if (files.size() > MAX_CHANGED_PATHS)
+			changedFiles.put(gitDir, null);
+	}
+
+	private static class BuildState {
+
+		final ObjectId srcTree;
+
+		final ObjectId dstTree;
+
+		final ObjectId baseTree;
+
+		final long indexLastModified;
+
+		/** of .git/info/exclude, which isn't part of the workspace */
+		final long excludeLastModified;
+
+		BuildState(GitSynchronizeData gsd) {
+			srcTree = getTree(gsd.getSrcRevCommit());
+			dstTree = getTree(gsd.getDstRevCommit());
+			baseTree = getTree(gsd.getCommonAncestorRev());
+			if (gsd.shouldIncludeLocal()) {
+				Repository repo = gsd.getRepository();
+				indexLastModified = repo.getIndexFile().lastModified();
+				excludeLastModified = new File(repo.getDirectory(),
+						Constants.INFO_EXCLUDE).lastModified();
+			} else {
+				indexLastModified = 0;
+				excludeLastModified = 0;
+			}
+		}
+
+		private static ObjectId getTree(RevCommit commit) {
+			if (commit == null)
+				return ObjectId.zeroId();
+			return commit.getTree().copy();
+		}
+	}
+}
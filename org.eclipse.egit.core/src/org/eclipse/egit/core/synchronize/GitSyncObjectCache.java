@@ -15,6 +15,7 @@
 import java.util.Set;
 
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.util.PathInterner;
 import org.eclipse.egit.core.synchronize.ThreeWayDiffEntry.ChangeType;
 import org.eclipse.osgi.util.NLS;
 
@@ -65,10 +66,12 @@ public ThreeWayDiffEntry getDiffEntry() {
 	 *
 	 * @param entry
 	 *            that should be stored in cache
+	 * @param names
+	 *            shares the names of the entries stored in one load
 	 * @throws RuntimeException
 	 *             when cannot find parent of given {@code entry} in cache
 	 */
-	public void addMember(ThreeWayDiffEntry entry) {
+	public void addMember(ThreeWayDiffEntry entry, PathInterner names) {
 		String memberPath = entry.getPath();
 
 		if (members == null)
@@ -94,9 +97,9 @@ public void addMember(ThreeWayDiffEntry entry) {
 
 		String newName;
 		if (start > 0)
-			newName = memberPath.substring(start + 1);
+			newName = names.intern(memberPath.substring(start + 1));
 		else
-			newName = memberPath;
+			newName = names.intern(memberPath);
 
 		GitSyncObjectCache obj = new GitSyncObjectCache(newName, entry);
 		parent.put(newName, obj);
@@ -173,12 +176,8 @@ void merge(GitSyncObjectCache other, Set<String> filterPaths) {
 
 			for (Entry<String, GitSyncObjectCache> entry : members.entrySet()) {
 				String key = entry.getKey();
-				if (!other.members.containsKey(key)) {
-					GitSyncObjectCache obj = entry.getValue();
-					String entryPath = obj.getDiffEntry().getPath();
-					if (containsPathOrParent(filterPaths, entryPath))
-						obj.getDiffEntry().changeType = ChangeType.IN_SYNC;
-				}
+				if (!other.members.containsKey(key))
+					entry.getValue().markInSync(filterPaths);
 			}
 
 			for (Entry<String, GitSyncObjectCache> entry : other.members
@@ -192,11 +191,8 @@ void merge(GitSyncObjectCache other, Set<String> filterPaths) {
 				}
 			}
 		} else if (members != null) {
-			for (GitSyncObjectCache obj : members.values()) {
-				String entryPath = obj.getDiffEntry().getPath();
-				if (containsPathOrParent(filterPaths, entryPath))
-					obj.getDiffEntry().changeType = ChangeType.IN_SYNC;
-			}
+			for (GitSyncObjectCache obj : members.values())
+				obj.markInSync(filterPaths);
 		} else {
 			// we are on a leaf entry, use the newer diff entry (need to update
 			// changeType, direction and other fields)
@@ -204,6 +200,37 @@ void merge(GitSyncObjectCache other, Set<String> filterPaths) {
 		}
 	}
 
+	/**
+	 * Marks the filtered parts of this subtree as being in sync; called when
+	 * a rescan of the filter paths didn't report this object anymore
+	 *
+	 * @param filterPaths
+	 */
+	private void markInSync(Set<String> filterPaths) {
+		String entryPath = diffEntry.getPath();
+		if (containsPathOrParent(filterPaths, entryPath))
+			markInSync();
+		else if (members != null && containsChild(filterPaths, entryPath))
+			for (GitSyncObjectCache obj : members.values())
+				obj.markInSync(filterPaths);
+	}
+
+	private void markInSync() {
+		diffEntry.changeType = ChangeType.IN_SYNC;
+		if (members != null)
+			for (GitSyncObjectCache obj : members.values())
+				obj.markInSync();
+	}
+
+	private static boolean containsChild(Set<String> filterPaths,
+			String parentPath) {
+		String prefix = parentPath + '/';
+		for (String path : filterPaths)
+			if (path.startsWith(prefix))
+				return true;
+		return false;
+	}
+
 	private static boolean containsPathOrParent(Set<String> filterPaths,
 			String pathToTest) {
 		if (filterPaths.contains(pathToTest))
@@ -17,9 +17,12 @@
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
 import org.eclipse.egit.core.synchronize.GitCommitsModelCache.Change;
 import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
@@ -30,9 +33,14 @@
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 /**
  * Builds list of changes in git staging area.
+ * <p>
+ * Like {@link WorkingTreeChangeCache}, only the paths the index diff reports
+ * as added, changed or removed are walked if it is available.
  */
 public class StagedChangeCache {
 
@@ -42,6 +50,17 @@ public class StagedChangeCache {
 	 * @return list of changes in git staging area
 	 */
 	public static Map<String, Change> build(Repository repo) {
+		TreeFilter pathFilter = TreeFilter.ALL;
+		IndexDiffData indexDiff = WorkingTreeChangeCache.getIndexDiffData(repo);
+		if (indexDiff != null) {
+			Set<String> paths = new HashSet<String>();
+			paths.addAll(indexDiff.getAdded());
+			paths.addAll(indexDiff.getChanged());
+			paths.addAll(indexDiff.getRemoved());
+			if (paths.isEmpty())
+				return new HashMap<String, Change>(0);
+			pathFilter = PathFilterGroup.createFromStrings(paths);
+		}
 		try (TreeWalk tw = new TreeWalk(repo)) {
 			tw.addTree(new DirCacheIterator(repo.readDirCache()));
 			ObjectId headId = repo.resolve(HEAD);
@@ -61,6 +80,7 @@ public static Map<String, Change> build(Repository repo) {
 				commitId =AbbreviatedObjectId.fromObjectId(zeroId());
 			}
 
+			tw.setFilter(pathFilter);
 			tw.setRecursive(true);
 			headCommit = null;
 
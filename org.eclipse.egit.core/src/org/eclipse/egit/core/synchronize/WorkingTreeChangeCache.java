@@ -12,10 +12,21 @@
 import static org.eclipse.egit.core.synchronize.GitCommitsModelCache.calculateAndSetChangeKind;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffCache;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffCacheEntry;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.util.ProjectUtil;
+import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.core.synchronize.GitCommitsModelCache.Change;
 import org.eclipse.jgit.dircache.DirCacheIterator;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
@@ -23,10 +34,22 @@
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.IndexDiffFilter;
+import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 
 /**
  * Builds list of working tree changes.
+ * <p>
+ * If the {@link IndexDiffCache} has computed the index diff of the
+ * repository, only the paths it reports as modified, missing, untracked or
+ * conflicting are walked (and hashed), otherwise the whole working tree is
+ * compared with the index. The index diff is only updated for changes of
+ * resources, so the parts of the working tree outside of the projects are
+ * always walked completely. Files in projects which have been changed without
+ * refreshing the workspace are missed, like by the rest of the workspace.
  */
 public class WorkingTreeChangeCache {
 
@@ -36,10 +59,47 @@ public class WorkingTreeChangeCache {
 	 * @return list of changes in working tree
 	 */
 	public static Map<String, Change> build(Repository repo) {
+		IndexDiffData indexDiff = getIndexDiffData(repo);
+		if (indexDiff == null)
+			return build(repo, TreeFilter.ALL);
+		return build(repo, indexDiff, getProjectPaths(repo));
+	}
+
+	/**
+	 * @param repo
+	 * @param indexDiff
+	 *            the current index diff of the repository
+	 * @param projectPaths
+	 *            repository relative paths of the projects, whose changes are
+	 *            known to the index diff
+	 * @return list of changes in working tree
+	 */
+	static Map<String, Change> build(Repository repo, IndexDiffData indexDiff,
+			Collection<String> projectPaths) {
+		Set<String> paths = new HashSet<String>();
+		paths.addAll(indexDiff.getModified());
+		paths.addAll(indexDiff.getMissing());
+		paths.addAll(indexDiff.getUntracked());
+		paths.addAll(indexDiff.getConflicting());
+		TreeFilter outside = projectPaths.contains("") ? null //$NON-NLS-1$
+				: new OutsideFoldersFilter(projectPaths);
+		if (paths.isEmpty())
+			return outside != null ? build(repo, outside)
+					: new HashMap<String, Change>(0);
+		TreeFilter changed = PathFilterGroup.createFromStrings(paths);
+		return build(repo, outside != null ? OrTreeFilter.create(changed,
+				outside) : changed);
+	}
+
+	private static Map<String, Change> build(Repository repo,
+			TreeFilter pathFilter) {
 		try (TreeWalk tw = new TreeWalk(repo)) {
 			int fileNth = tw.addTree(new FileTreeIterator(repo));
 			int cacheNth = tw.addTree(new DirCacheIterator(repo.readDirCache()));
-			tw.setFilter(new IndexDiffFilter(cacheNth, fileNth));
+			TreeFilter filter = new IndexDiffFilter(cacheNth, fileNth);
+			if (pathFilter != TreeFilter.ALL)
+				filter = AndTreeFilter.create(pathFilter, filter);
+			tw.setFilter(filter);
 			tw.setRecursive(true);
 
 			Map<String, Change> result = new HashMap<String, Change>();
@@ -63,4 +123,70 @@ public static Map<String, Change> build(Repository repo) {
 		}
 	}
 
+	/**
+	 * The {@link IndexDiffCache} already knows which paths differ, so the
+	 * change caches only need to walk these paths to get the object ids.
+	 *
+	 * @param repo
+	 * @return the current index diff of the repository, or <code>null</code>
+	 *         if it has not been computed yet or is being updated
+	 */
+	static IndexDiffData getIndexDiffData(Repository repo) {
+		IndexDiffCacheEntry entry = Activator.getDefault().getIndexDiffCache()
+				.getIndexDiffCacheEntry(repo);
+		if (entry == null || !entry.isUpToDate())
+			return null;
+		return entry.getIndexDiff();
+	}
+
+	private static List<String> getProjectPaths(Repository repo) {
+		List<String> result = new ArrayList<String>();
+		for (IProject project : ProjectUtil.getProjects(repo)) {
+			RepositoryMapping mapping = RepositoryMapping.getMapping(project);
+			String path = mapping != null ? mapping
+					.getRepoRelativePath(project) : null;
+			if (path != null)
+				result.add(path);
+		}
+		return result;
+	}
+
+	/**
+	 * Matches the paths which are not in one of the given folders
+	 */
+	private static class OutsideFoldersFilter extends TreeFilter {
+
+		private final String[] folders;
+
+		OutsideFoldersFilter(Collection<String> folders) {
+			this.folders = folders.toArray(new String[folders.size()]);
+		}
+
+		@Override
+		public boolean include(TreeWalk walker) {
+			String path = walker.getPathString();
+			for (String folder : folders)
+				if (path.startsWith(folder)
+						&& (path.length() == folder.length() || path
+								.charAt(folder.length()) == '/'))
+					return false;
+			return true;
+		}
+
+		@Override
+		public boolean shouldBeRecursive() {
+			return false;
+		}
+
+		@Override
+		public TreeFilter clone() {
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			return "OUTSIDE_FOLDERS"; //$NON-NLS-1$
+		}
+	}
+
 }
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.commit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SectionOffsets}.
+ */
+public class SectionOffsetsTest {
+
+	@Test
+	public void offsetsShouldBeSumsOfLengths() {
+		int[] lengths = { 3, 1, 4, 1, 5, 9, 2 };
+		SectionOffsets offsets = new SectionOffsets(lengths);
+		assertOffsets(lengths, offsets);
+	}
+
+	@Test
+	public void sectionsShouldBeFoundByOffset() {
+		SectionOffsets offsets = new SectionOffsets(new int[] { 3, 1, 4 });
+		assertEquals(0, offsets.findSection(0));
+		assertEquals(0, offsets.findSection(2));
+		assertEquals(1, offsets.findSection(3));
+		assertEquals(2, offsets.findSection(4));
+		assertEquals(2, offsets.findSection(7));
+		assertEquals(3, offsets.findSection(8));
+		assertEquals(3, offsets.findSection(100));
+	}
+
+	@Test
+	public void emptySectionsShouldBeSkipped() {
+		SectionOffsets offsets = new SectionOffsets(new int[] { 2, 0, 0, 3 });
+		assertEquals(2, offsets.getOffset(1));
+		assertEquals(2, offsets.getOffset(3));
+		assertEquals(3, offsets.findSection(2));
+	}
+
+	@Test
+	public void noSections() {
+		SectionOffsets offsets = new SectionOffsets(new int[0]);
+		assertEquals(0, offsets.getOffset(0));
+		assertEquals(0, offsets.findSection(0));
+		assertEquals(0, offsets.findSection(10));
+	}
+
+	@Test
+	public void changedLengthsShouldMoveFollowingSections() {
+		int[] lengths = { 5, 5, 5, 5, 5 };
+		SectionOffsets offsets = new SectionOffsets(lengths);
+		offsets.add(1, 20);
+		lengths[1] += 20;
+		offsets.add(3, -4);
+		lengths[3] -= 4;
+		assertOffsets(lengths, offsets);
+		assertEquals(1, offsets.findSection(29));
+		assertEquals(2, offsets.findSection(30));
+	}
+
+	@Test
+	public void randomChangesShouldMatchSums() {
+		Random random = new Random(42);
+		int[] lengths = new int[100];
+		for (int i = 0; i < lengths.length; i++)
+			lengths[i] = 1 + random.nextInt(50);
+		SectionOffsets offsets = new SectionOffsets(lengths);
+		for (int n = 0; n < 1000; n++) {
+			int index = random.nextInt(lengths.length);
+			int length = 1 + random.nextInt(500);
+			offsets.add(index, length - lengths[index]);
+			lengths[index] = length;
+		}
+		assertOffsets(lengths, offsets);
+	}
+
+	private static void assertOffsets(int[] lengths, SectionOffsets offsets) {
+		int offset = 0;
+		for (int i = 0; i < lengths.length; i++) {
+			assertEquals(offset, offsets.getOffset(i));
+			assertEquals(i, offsets.findSection(offset));
+			assertEquals(i, offsets.findSection(offset + lengths[i] - 1));
+			offset += lengths[i];
+		}
+		assertEquals(offset, offsets.getOffset(lengths.length));
+		assertEquals(lengths.length, offsets.findSection(offset));
+	}
+}
@@ -18,6 +18,7 @@
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.List;
 
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
@@ -404,6 +405,51 @@ public void testDecorationNewFileInOneSubfolder() throws Exception {
 		assertArrayEquals(expectedDRs, actualDRs);
 	}
 
+	@Test
+	public void testMemberStatesOfContainer() throws Exception {
+		IFolder folder = project.getFolder(TEST_FOLDER);
+		folder.create(true, true, null);
+		folder.getFolder(SUB_FOLDER).create(true, true, null);
+		File dir = folder.getLocation().toFile();
+		write(new File(dir, "committed"), "Something");
+		write(new File(dir, "modified"), "Something");
+		write(new File(dir, "SubFolder2/committed"), "Something");
+		git.add().addFilepattern(".").call();
+		git.commit().setMessage("First commit").call();
+		write(new File(dir, "modified"), "SomethingElse");
+		write(new File(dir, "added"), "Something");
+		git.add().addFilepattern(PROJ1 + "/" + TEST_FOLDER + "/added")
+				.call();
+		write(new File(dir, "untracked"), "Something");
+		write(new File(dir, "ignoredDir/file"), "Something");
+		write(new File(dir, "SubFolder2/untracked"), "Something");
+		write(new File(dir, ".gitignore"), "ignoredDir");
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+
+		waitForIndexDiffUpdate(true);
+		IndexDiffData indexDiffData = indexDiffCacheEntry.getIndexDiff();
+		List<DecoratableResource> states = DecorationCache.getMemberStates(
+				folder, indexDiffData);
+
+		assertEquals(folder.members().length, states.size());
+		for (DecoratableResource state : states) {
+			IDecoratableResource expected = new DecoratableResourceAdapter(
+					indexDiffData, folder.findMember(state.getName()));
+			assertEquals(expected.toString(), state.getType(),
+					expected.getType());
+			assertEquals(expected.toString(), expected.isTracked(),
+					state.isTracked());
+			assertEquals(expected.toString(), expected.isIgnored(),
+					state.isIgnored());
+			assertEquals(expected.toString(), expected.isDirty(),
+					state.isDirty());
+			assertEquals(expected.toString(), expected.hasConflicts(),
+					state.hasConflicts());
+			assertEquals(expected.toString(), expected.staged(),
+					state.staged());
+		}
+	}
+
 }
 
 class TestDecoratableResource extends DecoratableResource {
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.decorators;
+
+import static org.eclipse.jgit.junit.JGitTestUtil.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffCacheEntry;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.ui.common.LocalRepositoryTestCase;
+import org.eclipse.egit.ui.test.TestUtil;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DecorationDeltaTest extends LocalRepositoryTestCase {
+
+	private Repository repository;
+
+	private IProject project;
+
+	private IndexDiffCacheEntry indexDiffCacheEntry;
+
+	@Before
+	public void setUp() throws Exception {
+		File gitDir = createProjectAndCommitToRepository();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJ1);
+		repository = lookupRepository(gitDir);
+		indexDiffCacheEntry = Activator.getDefault().getIndexDiffCache()
+				.getIndexDiffCacheEntry(repository);
+		refreshIndexDiff();
+	}
+
+	private IndexDiffData refreshIndexDiff() throws Exception {
+		indexDiffCacheEntry.refresh();
+		TestUtil.joinJobs(JobFamilies.INDEX_DIFF_CACHE_UPDATE);
+		return indexDiffCacheEntry.getIndexDiff();
+	}
+
+	@Test
+	public void testUnchanged() throws Exception {
+		IndexDiffData data = indexDiffCacheEntry.getIndexDiff();
+		Set<IResource> changed = DecorationDelta.getChangedResources(
+				repository, data, refreshIndexDiff());
+
+		// only the projects, for the branch
+		for (IResource resource : changed)
+			assertEquals(IResource.PROJECT, resource.getType());
+		assertTrue(changed.contains(project));
+	}
+
+	@Test
+	public void testModifiedFile() throws Exception {
+		IndexDiffData before = indexDiffCacheEntry.getIndexDiff();
+		IFolder folder = project.getFolder(FOLDER);
+		write(folder.getFile(FILE1).getLocation().toFile(), "Changed");
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+		IndexDiffData after = refreshIndexDiff();
+
+		Set<IResource> changed = DecorationDelta.getChangedResources(
+				repository, before, after);
+
+		assertTrue(changed.contains(folder.getFile(FILE1)));
+		assertTrue(changed.contains(folder));
+		assertTrue(changed.contains(project));
+		assertFalse(changed.contains(folder.getFile(FILE2)));
+	}
+
+	@Test
+	public void testIgnoredFolder() throws Exception {
+		IndexDiffData before = indexDiffCacheEntry.getIndexDiff();
+		File dir = project.getLocation().toFile();
+		write(new File(dir, "ignored/sub/file"), "Something");
+		write(new File(dir, ".gitignore"), "ignored");
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+		IndexDiffData after = refreshIndexDiff();
+
+		Set<IResource> changed = DecorationDelta.getChangedResources(
+				repository, before, after);
+
+		// the contents of the ignored folder are not listed in the index diff
+		IFolder ignored = project.getFolder("ignored");
+		assertTrue(changed.contains(ignored));
+		assertTrue(changed.contains(ignored.getFolder("sub")));
+		assertTrue(changed.contains(ignored.getFile("sub/file")));
+		assertTrue(changed.contains(project.getFile(".gitignore")));
+		assertFalse(changed.contains(project.getFolder(FOLDER)));
+	}
+}
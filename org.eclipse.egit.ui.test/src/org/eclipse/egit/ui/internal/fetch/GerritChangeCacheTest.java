@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.fetch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.egit.ui.internal.fetch.GerritChangeCache.Changes;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Ref.Storage;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GerritChangeCache}.
+ */
+public class GerritChangeCacheTest {
+
+	@Test
+	public void findByPrefixReturnsNewestFirst() {
+		Changes changes = Changes.fromRefs(refs("refs/heads/master",
+				"refs/changes/01/1/1", "refs/changes/01/1/2",
+				"refs/changes/12/12/1", "refs/changes/23/123/1",
+				"refs/changes/02/2/1", "refs/changes/30/1230/4",
+				"refs/changes/20/20/1", "refs/changes/xx/yy/1"));
+		assertEquals(7, changes.size());
+
+		assertEquals("1230/4 123/1 12/1 1/2 1/1",
+				describe(changes, changes.findByPrefix("1", 10)));
+		assertEquals("1230/4 123/1 12/1",
+				describe(changes, changes.findByPrefix("12", 10)));
+		assertEquals("1230/4", describe(changes, changes.findByPrefix("123", 1)));
+		assertEquals("20/1 2/1", describe(changes, changes.findByPrefix("2", 10)));
+		assertEquals("1230/4 123/1 20/1",
+				describe(changes, changes.findByPrefix("", 3)));
+		assertEquals("", describe(changes, changes.findByPrefix("0", 10)));
+		assertEquals("", describe(changes, changes.findByPrefix("99999", 10)));
+		assertEquals("", describe(changes,
+				changes.findByPrefix("123456789012345678901234567890", 10)));
+	}
+
+	private static List<Ref> refs(String... names) {
+		List<Ref> refs = new ArrayList<Ref>();
+		for (String name : names)
+			refs.add(new ObjectIdRef.Unpeeled(Storage.NETWORK, name,
+					ObjectId.zeroId()));
+		return refs;
+	}
+
+	private static String describe(Changes changes, int[] indexes) {
+		StringBuilder result = new StringBuilder();
+		for (int i : indexes) {
+			if (result.length() > 0)
+				result.append(' ');
+			result.append(changes.getChangeNumber(i)).append('/')
+					.append(changes.getPatchSetNumber(i));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jgit.junit.LocalDiskRepositoryTestCase;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that {@link SWTWalk} only keeps the bodies of the most recently shown
+ * rows, without discarding bodies which other threads are reading.
+ */
+public class SWTWalkTest extends LocalDiskRepositoryTestCase {
+
+	private static final int PINNED = 10;
+
+	private SWTWalk walk;
+
+	private List<SWTCommit> commits;
+
+	@Before
+	@Override
+	public void setUp() throws Exception {
+		super.setUp();
+		Repository db = createWorkRepository();
+		TestRepository<Repository> util = new TestRepository<Repository>(db);
+		walk = new SWTWalk(db);
+		commits = new ArrayList<SWTCommit>();
+		RevCommit parent = null;
+		for (int i = 0; i < SWTWalk.RETAINED_BODIES + PINNED; i++) {
+			TestRepository<Repository>.CommitBuilder builder = util.commit()
+					.message(message(i));
+			if (parent != null)
+				builder.parent(parent);
+			parent = builder.create();
+			commits.add((SWTCommit) walk.lookupCommit(parent));
+		}
+	}
+
+	@After
+	@Override
+	public void tearDown() throws Exception {
+		walk.close();
+		super.tearDown();
+	}
+
+	@Test
+	public void shouldDiscardBodiesOfRowsOutOfView() throws Exception {
+		for (SWTCommit commit : commits)
+			commit.parseVisibleBody();
+
+		for (int i = 0; i < PINNED; i++)
+			assertNull(commits.get(i).getRawBuffer());
+		for (int i = PINNED; i < commits.size(); i++)
+			assertNotNull(commits.get(i).getRawBuffer());
+
+		SWTCommit first = commits.get(0);
+		first.parseVisibleBody();
+		assertEquals(message(0), first.getFullMessage());
+	}
+
+	@Test
+	public void shouldKeepPinnedBodiesUntilUnpinned() throws Exception {
+		SWTCommit first = commits.get(0);
+		first.parseVisibleBody();
+		first.pinBody();
+		for (int i = 1; i < commits.size(); i++)
+			commits.get(i).parseVisibleBody();
+
+		assertEquals(message(0), first.getFullMessage());
+		first.unpinBody();
+		assertNull(first.getRawBuffer());
+	}
+
+	@Test
+	public void shouldNotDiscardBodiesReadByOtherThreads() throws Exception {
+		final List<SWTCommit> pinned = commits.subList(0, PINNED);
+		for (SWTCommit commit : pinned)
+			commit.parseVisibleBody();
+
+		final CountDownLatch pinnedLatch = new CountDownLatch(1);
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = //
+				new AtomicReference<Throwable>();
+		Thread reader = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (SWTCommit commit : pinned)
+						commit.pinBody();
+					pinnedLatch.countDown();
+					do {
+						for (int i = 0; i < PINNED; i++)
+							assertEquals(message(i),
+									pinned.get(i).getFullMessage());
+					} while (!done.get());
+					for (SWTCommit commit : pinned)
+						commit.unpinBody();
+				} catch (Throwable e) {
+					failure.set(e);
+				} finally {
+					pinnedLatch.countDown();
+				}
+			}
+		};
+		reader.start();
+		pinnedLatch.await();
+
+		// scrolls the pinned rows out of view while they are read
+		for (int i = PINNED; i < commits.size(); i++)
+			commits.get(i).parseVisibleBody();
+		done.set(true);
+		reader.join();
+
+		if (failure.get() != null)
+			throw new AssertionError(failure.get());
+		for (SWTCommit commit : pinned)
+			assertNull(commit.getRawBuffer());
+	}
+
+	private static String message(int i) {
+		return "commit " + i;
+	}
+}
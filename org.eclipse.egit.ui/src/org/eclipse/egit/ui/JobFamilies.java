@@ -23,6 +23,11 @@ public class JobFamilies {
 	 */
 	public final static Object HISTORY_DIFF = new Object();
 
+	/**
+	 * Prefetching of the changed files of commits in the history view
+	 */
+	public final static Object HISTORY_FILE_DIFF_PREFETCH = new Object();
+
 	/**
 	 * Commit job
 	 */
@@ -2859,6 +2859,9 @@ public class UIText extends NLS {
 	/** */
 	public static String FetchGerritChangePage_UriLabel;
 
+	/** */
+	public static String FetchGerritChangePage_UpdatingChangesJobName;
+
 	/** */
 	public static String FetchGerritChangeWizard_WizardTitle;
 
@@ -2946,6 +2949,9 @@ public class UIText extends NLS {
 	/** */
 	public static String FileDiffContentProvider_errorGettingDifference;
 
+	/** */
+	public static String FileDiffPrefetcher_JobName;
+
 	/** */
 	public static String FileDiffLabelProvider_RenamedFromToolTip;
 
@@ -3507,6 +3513,9 @@ public class UIText extends NLS {
 	/** */
 	public static String DialogsPreferencePage_ShowCloneFailedDialog;
 
+	/** */
+	public static String DiffEditorPage_FormatError;
+
 	/** */
 	public static String DiffEditorPage_TaskGeneratingDiff;
 
@@ -4282,6 +4291,51 @@ public class UIText extends NLS {
 	/** */
 	public static String GitBranchSynchronizeWizardPage_fetchChangesFromRemote;
 
+	/** */
+	public static String GitPerformanceView_ConfigureTraceAction;
+
+	/** */
+	public static String GitPerformanceView_CountColumn;
+
+	/** */
+	public static String GitPerformanceView_ExportAction;
+
+	/** */
+	public static String GitPerformanceView_ExportError;
+
+	/** */
+	public static String GitPerformanceView_GlobalNode;
+
+	/** */
+	public static String GitPerformanceView_LastColumn;
+
+	/** */
+	public static String GitPerformanceView_MaxColumn;
+
+	/** */
+	public static String GitPerformanceView_MeanColumn;
+
+	/** */
+	public static String GitPerformanceView_MetricColumn;
+
+	/** */
+	public static String GitPerformanceView_P95Column;
+
+	/** */
+	public static String GitPerformanceView_RateColumn;
+
+	/** */
+	public static String GitPerformanceView_RefreshAction;
+
+	/** */
+	public static String GitPerformanceView_RepositoryNode;
+
+	/** */
+	public static String GitPerformanceView_ResetAction;
+
+	/** */
+	public static String GitPerformanceView_UnitColumn;
+
 	/** */
 	public static String GitTraceConfigurationDialog_ApplyButton;
 
@@ -23,7 +23,6 @@
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.JobFamilies;
 import org.eclipse.egit.ui.internal.UIText;
-import org.eclipse.egit.ui.internal.decorators.GitLightweightDecorator;
 import org.eclipse.egit.ui.internal.dialogs.CreateTagDialog;
 import org.eclipse.egit.ui.internal.push.PushTagsWizard;
 import org.eclipse.jface.dialogs.IDialogConstants;
@@ -102,8 +101,6 @@ protected IStatus run(IProgressMonitor monitor) {
 				} catch (CoreException e) {
 					return Activator.createErrorStatus(
 							UIText.TagAction_taggingFailed, e);
-				} finally {
-					GitLightweightDecorator.refresh();
 				}
 
 				return Status.OK_STATUS;
@@ -47,7 +47,6 @@
 import org.eclipse.egit.ui.JobFamilies;
 import org.eclipse.egit.ui.UIPreferences;
 import org.eclipse.egit.ui.internal.UIText;
-import org.eclipse.egit.ui.internal.decorators.GitLightweightDecorator;
 import org.eclipse.egit.ui.internal.dialogs.AbstractBranchSelectionDialog;
 import org.eclipse.egit.ui.internal.dialogs.CheckoutDialog;
 import org.eclipse.egit.ui.internal.dialogs.DeleteBranchDialog;
@@ -293,8 +292,6 @@ public void postExecute(Repository pRepo,
 						return Activator.createErrorStatus(
 								UIText.BranchAction_branchFailed, e);
 					}
-				} finally {
-					GitLightweightDecorator.refresh();
 				}
 				return Status.OK_STATUS;
 			}
@@ -373,8 +373,8 @@ private void importProjects(final Repository repository,
 			@Override
 			public IStatus runInWorkspace(IProgressMonitor monitor) {
 				List<File> files = new ArrayList<File>();
-				ProjectUtil.findProjectFiles(files, repository.getWorkTree(),
-						true, monitor);
+				ProjectUtil.findProjectFiles(files, repository,
+						repository.getWorkTree(), true, monitor);
 				if (files.isEmpty())
 					return Status.OK_STATUS;
 
@@ -83,7 +83,8 @@ public void setVisible(boolean visible) {
 		myProjectsImportPage = new GitProjectsImportPage() {
 			@Override
 			public void setVisible(boolean visible) {
-				setProjectsList(mySelectionPage.getPath());
+				setProjectsList(mySelectionPage.getPath(),
+						mySelectionPage.getRepository());
 				super.setVisible(visible);
 			}
 		};
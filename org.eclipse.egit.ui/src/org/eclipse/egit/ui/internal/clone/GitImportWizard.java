@@ -18,7 +18,9 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
@@ -89,7 +91,8 @@ public void run() {
 		@Override
 		public void setVisible(boolean visible) {
 			if (visible)
-				setProjectsList(importWithDirectoriesPage.getPath());
+				setProjectsList(importWithDirectoriesPage.getPath(),
+						importWithDirectoriesPage.getRepository());
 			super.setVisible(visible);
 		}
 	};
@@ -279,12 +282,15 @@ public void run(IProgressMonitor actMonitor)
 						throws CoreException {
 					IProject[] currentProjects = ResourcesPlugin.getWorkspace()
 							.getRoot().getProjects();
+					Map<IProject, File> projectsToConnect = new LinkedHashMap<IProject, File>();
 					for (IProject current : currentProjects)
-						if (!previousProjects.contains(current)) {
-							ConnectProviderOperation cpo = new ConnectProviderOperation(
-									current, repoDir[0]);
-							cpo.execute(actMonitor);
-						}
+						if (!previousProjects.contains(current))
+							projectsToConnect.put(current, repoDir[0]);
+					if (!projectsToConnect.isEmpty()) {
+						ConnectProviderOperation cpo = new ConnectProviderOperation(
+								projectsToConnect);
+						cpo.execute(actMonitor);
+					}
 				}
 			};
 			try {
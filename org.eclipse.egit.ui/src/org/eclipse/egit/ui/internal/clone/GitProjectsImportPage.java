@@ -44,6 +44,7 @@
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.wizard.WizardPage;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -106,6 +107,9 @@ public Color getBackground(Object element) {
 	// The last selected path to minimize searches
 	private String lastPath;
 
+	// The repository containing the last selected path, may be null
+	private Repository lastRepository;
+
 	// The last time that the file or folder at the selected path was modified
 	// to minimize searches
 	private long lastModified;
@@ -374,6 +378,20 @@ private void createProjectsRoot(Composite workArea) {
 	 * @param path
 	 */
 	void setProjectsList(final String path) {
+		setProjectsList(path, lastRepository);
+	}
+
+	/**
+	 * Update the list of projects based on path. This will not check any
+	 * projects.
+	 *
+	 * @param path
+	 * @param repository
+	 *            the repository whose working tree contains the path, to take
+	 *            the tracked projects from its index, or <code>null</code> to
+	 *            search the file system
+	 */
+	void setProjectsList(final String path, final Repository repository) {
 		// on an empty path empty selectedProjects
 		if (path == null || path.length() == 0) {
 			selectedProjects = new ProjectRecord[0];
@@ -387,7 +405,8 @@ void setProjectsList(final String path) {
 		final File directory = new File(path);
 		long modified = directory.lastModified();
 		if (path.equals(lastPath) && lastModified == modified
-				&& lastNestedProjects == nestedProjects) {
+				&& lastNestedProjects == nestedProjects
+				&& repository == lastRepository) {
 			// since the file/folder was not modified and the path did not
 			// change, no refreshing is required
 			return;
@@ -396,6 +415,7 @@ void setProjectsList(final String path) {
 		setErrorMessage(null);
 
 		lastPath = path;
+		lastRepository = repository;
 		lastModified = modified;
 		lastNestedProjects = nestedProjects;
 
@@ -414,8 +434,14 @@ public void run(IProgressMonitor monitor) {
 					if (directory.isDirectory()) {
 						boolean searchNested = nestedProjects;
 
-						boolean found = ProjectUtil.findProjectFiles(files,
-								directory, searchNested, monitor);
+						boolean found;
+						if (repository != null)
+							found = ProjectUtil.findProjectFiles(files,
+									repository, directory, searchNested,
+									monitor);
+						else
+							found = ProjectUtil.findProjectFiles(files,
+									directory, searchNested, monitor);
 
 						if (!found)
 							return;
@@ -114,6 +114,17 @@ public String getPath() {
 		return null;
 	}
 
+	/**
+	 * @return the repository of the selected path, or <code>null</code>
+	 */
+	public Repository getRepository() {
+		IStructuredSelection sel = (IStructuredSelection) tv.getSelection();
+		RepositoryTreeNode node = (RepositoryTreeNode) sel.getFirstElement();
+		if (node == null)
+			return null;
+		return node.getRepository();
+	}
+
 	/**
 	 * @param repo
 	 */
@@ -90,6 +90,7 @@ public void run(IProgressMonitor actMonitor) throws CoreException {
 					if (actMonitor.isCanceled())
 						throw new OperationCanceledException();
 					Map<IProject, File> projectsToConnect = new HashMap<IProject, File>();
+					Map<File, File> gitDirCache = new HashMap<File, File>();
 					for (ProjectRecord projectRecord : projectsToCreate) {
 						if (actMonitor.isCanceled())
 							throw new OperationCanceledException();
@@ -101,6 +102,7 @@ public void run(IProgressMonitor actMonitor) throws CoreException {
 
 						RepositoryFinder finder = new RepositoryFinder(project);
 						finder.setFindInChildren(false);
+						finder.setGitDirCache(gitDirCache);
 						Collection<RepositoryMapping> mappings = finder
 								.find(new SubProgressMonitor(actMonitor, 1));
 						if (!mappings.isEmpty()) {
@@ -12,7 +12,6 @@
 
 import java.io.IOException;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -28,6 +27,8 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.internal.util.PeeledRefIndex;
+import org.eclipse.egit.core.internal.util.ReachabilityIndex;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIUtils;
 import org.eclipse.egit.ui.internal.CommonUtils;
@@ -290,9 +291,7 @@ String getParentCommitLabel(int i) {
 		return UIText.CommitEditorPage_LabelParent;
 	}
 
-	private List<Ref> getTags() {
-		Repository repository = getCommit().getRepository();
-		List<Ref> tags = new ArrayList<Ref>(repository.getTags().values());
+	private static void sortTags(List<Ref> tags) {
 		Collections.sort(tags, new Comparator<Ref>() {
 
 			@Override
@@ -302,7 +301,6 @@ public int compare(Ref r1, Ref r2) {
 								Repository.shortenRefName(r2.getName()));
 			}
 		});
-		return tags;
 	}
 
 	void createTagsArea(Composite parent, FormToolkit toolkit,
@@ -505,19 +503,15 @@ void createChangesArea(Composite displayArea, FormToolkit toolkit) {
 
 	private List<Ref> loadTags() {
 		RepositoryCommit repoCommit = getCommit();
-		RevCommit commit = repoCommit.getRevCommit();
-		Repository repository = repoCommit.getRepository();
-		List<Ref> tags = new ArrayList<Ref>();
-		for (Ref tag : getTags()) {
-			tag = repository.peel(tag);
-			ObjectId id = tag.getPeeledObjectId();
-			if (id == null)
-				id = tag.getObjectId();
-			if (!commit.equals(id))
-				continue;
-			tags.add(tag);
+		try {
+			List<Ref> tags = PeeledRefIndex.get(repoCommit.getRepository())
+					.getRefs(repoCommit.getRevCommit(), Constants.R_TAGS);
+			sortTags(tags);
+			return tags;
+		} catch (IOException e) {
+			Activator.logError(e.getMessage(), e);
+			return Collections.emptyList();
 		}
-		return tags;
 	}
 
 	private List<Ref> loadBranches() {
@@ -529,6 +523,11 @@ private List<Ref> loadBranches() {
 					Constants.R_HEADS));
 			refsMap.putAll(repository.getRefDatabase().getRefs(
 					Constants.R_REMOTES));
+			ReachabilityIndex index = ReachabilityIndex.get(repository);
+			List<Ref> branches = index != null ? index.findRefsContaining(
+					commit, refsMap.values()) : null;
+			if (branches != null)
+				return branches;
 			return RevWalkUtils.findBranchesReachableFrom(commit, revWalk, refsMap.values());
 		} catch (IOException e) {
 			Activator.handleError(e.getMessage(), e, false);
@@ -24,7 +24,6 @@
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.JobFamilies;
 import org.eclipse.egit.ui.internal.UIText;
-import org.eclipse.egit.ui.internal.decorators.GitLightweightDecorator;
 import org.eclipse.egit.ui.internal.dialogs.CommitMessageComponentStateManager;
 import org.eclipse.egit.ui.internal.push.PushBranchWizard;
 import org.eclipse.egit.ui.internal.push.PushOperationUI;
@@ -114,8 +113,6 @@ protected IStatus run(IProgressMonitor monitor) {
 				return Activator.createErrorStatus(
 						UIText.CommitAction_CommittingFailed, e);
 			}
-		} finally {
-			GitLightweightDecorator.refresh();
 		}
 
 		if (commit != null) {
@@ -13,33 +13,54 @@
 import static java.util.Arrays.asList;
 
 import java.io.IOException;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIUtils;
 import org.eclipse.egit.ui.internal.CommonUtils;
 import org.eclipse.egit.ui.internal.UIText;
+import org.eclipse.egit.ui.internal.commit.DiffStyleRangeFormatter.DiffStyleRange;
+import org.eclipse.egit.ui.internal.commit.DiffStyleRangeFormatter.DiffStyleRange.Type;
 import org.eclipse.egit.ui.internal.history.FileDiff;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
+import org.eclipse.jface.commands.ActionHandler;
 import org.eclipse.jface.layout.GridDataFactory;
 import org.eclipse.jface.layout.GridLayoutFactory;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.source.CompositeRuler;
+import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
+import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.dnd.Clipboard;
+import org.eclipse.swt.dnd.TextTransfer;
+import org.eclipse.swt.dnd.Transfer;
+import org.eclipse.swt.events.ControlAdapter;
+import org.eclipse.swt.events.ControlEvent;
+import org.eclipse.swt.events.FocusEvent;
+import org.eclipse.swt.events.FocusListener;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.IEditorSite;
@@ -47,12 +68,20 @@
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.editor.FormEditor;
 import org.eclipse.ui.forms.editor.FormPage;
+import org.eclipse.ui.handlers.IHandlerActivation;
+import org.eclipse.ui.handlers.IHandlerService;
+import org.eclipse.ui.model.WorkbenchLabelProvider;
 import org.eclipse.ui.progress.UIJob;
 import org.eclipse.ui.texteditor.AbstractTextEditor;
 import org.eclipse.ui.texteditor.IUpdate;
 
 /**
  * Diff editor page class for displaying a {@link DiffViewer}.
+ * <p>
+ * The diffs of the files are formatted when they are scrolled into view, and
+ * a list of the files next to the viewer allows to jump to a file. Only a
+ * limited number of files stays formatted; files far away from the visible
+ * ones are shown as a single line again.
  */
 public class DiffEditorPage extends FormPage {
 
@@ -90,9 +119,159 @@ public void run() {
 		}
 	}
 
+	/**
+	 * The diff of one file in the document. Until the section is scrolled
+	 * into view, it only consists of a line with the path of the file.
+	 */
+	private static class FileSection {
+
+		final FileDiff diff;
+
+		/** position in the document */
+		final int index;
+
+		/** current length in the document */
+		int length;
+
+		/** current number of lines in the document */
+		int lines;
+
+		/** style ranges, relative to the start of the section */
+		DiffStyleRange[] ranges;
+
+		/** whether formatting of the section has been requested */
+		boolean requested;
+
+		/** whether the formatted diff is shown */
+		boolean formatted;
+
+		FileSection(FileDiff diff, int index) {
+			this.diff = diff;
+			this.index = index;
+			length = getPlaceholder().length();
+			lines = 1;
+			ranges = getPlaceholderRanges();
+		}
+
+		String getPlaceholder() {
+			return diff.getPath() + '\n';
+		}
+
+		DiffStyleRange[] getPlaceholderRanges() {
+			DiffStyleRange headline = new DiffStyleRange();
+			headline.diffType = Type.HEADLINE;
+			headline.length = getPlaceholder().length();
+			return new DiffStyleRange[] { headline };
+		}
+	}
+
+	private static class FormattedSection {
+
+		final FileSection section;
+
+		final String text;
+
+		final DiffStyleRange[] ranges;
+
+		FormattedSection(FileSection section, String text,
+				DiffStyleRange[] ranges) {
+			this.section = section;
+			this.text = text;
+			this.ranges = ranges;
+		}
+	}
+
+	/**
+	 * Formats the requested sections in the background and passes them on to
+	 * the UI thread in batches
+	 */
+	private class DiffFormatJob extends Job {
+
+		DiffFormatJob() {
+			super(UIText.DiffEditorPage_TaskGeneratingDiff);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			List<FormattedSection> formatted = new ArrayList<FormattedSection>();
+			long batchStart = System.currentTimeMillis();
+			while (!monitor.isCanceled()) {
+				FileSection section;
+				synchronized (formatQueue) {
+					section = formatQueue.poll();
+				}
+				if (section == null)
+					break;
+				formatted.add(formatSection(section));
+				if (System.currentTimeMillis() - batchStart > BATCH_MILLIS) {
+					showFormatted(formatted);
+					formatted = new ArrayList<FormattedSection>();
+					batchStart = System.currentTimeMillis();
+				}
+			}
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			if (!formatted.isEmpty())
+				showFormatted(formatted);
+			return Status.OK_STATUS;
+		}
+
+		private void showFormatted(final List<FormattedSection> formatted) {
+			new UIJob(UIText.DiffEditorPage_TaskUpdatingViewer) {
+
+				@Override
+				public IStatus runInUIThread(IProgressMonitor uiMonitor) {
+					if (UIUtils.isUsable(viewer))
+						for (FormattedSection section : formatted)
+							replaceSection(section);
+					return Status.OK_STATUS;
+				}
+			}.schedule();
+		}
+	}
+
+	/** Maximum number of lines shown of the diff of a single file */
+	private static final int MAX_LINES_PER_FILE = 10000;
+
+	/** Number of sections below the visible ones formatted in advance */
+	private static final int PREFETCH_SECTIONS = 2;
+
+	/** Time after which formatted sections are shown */
+	private static final long BATCH_MILLIS = 200;
+
+	/** Number of formatted sections above which distant ones are released */
+	private static final int MAX_FORMATTED_SECTIONS = 20;
+
+	/**
+	 * Number of sections above and below the visible ones which are not
+	 * released
+	 */
+	private static final int KEEP_SECTIONS = 5;
+
 	private DiffViewer viewer;
 
-	private DiffStyleRangeFormatter formatter;
+	private TableViewer fileViewer;
+
+	// accessed in the UI thread only
+	private FileSection[] sections = new FileSection[0];
+
+	// accessed in the UI thread only
+	private SectionOffsets offsets = new SectionOffsets(new int[0]);
+
+	// accessed in the UI thread only
+	private final List<FileSection> formattedSections = new ArrayList<FileSection>();
+
+	// guarded by itself, most recently requested sections first
+	private final LinkedList<FileSection> formatQueue = new LinkedList<FileSection>();
+
+	private final DiffFormatJob formatJob = new DiffFormatJob();
+
+	private Job loadJob;
+
+	private TextViewerAction copyAction;
+
+	private volatile Repository repository;
 
 	/**
 	 * @param editor
@@ -130,45 +309,288 @@ protected FileDiff[] getDiffs(RepositoryCommit commit) {
 	}
 
 	private void formatDiff() {
-		final IDocument document = new Document();
-		formatter = new DiffStyleRangeFormatter(document);
-		viewer.setFormatter(formatter);
-
-		Job job = new Job(UIText.DiffEditorPage_TaskGeneratingDiff) {
+		loadJob = new Job(UIText.DiffEditorPage_TaskGeneratingDiff) {
 
 			@Override
 			protected IStatus run(IProgressMonitor monitor) {
 				RepositoryCommit commit = CommonUtils.getAdapter(getEditor(), RepositoryCommit.class);
-				FileDiff diffs[] = getDiffs(commit);
-				monitor.beginTask("", diffs.length); //$NON-NLS-1$
-				Repository repository = commit.getRepository();
-				for (FileDiff diff : diffs) {
-					if (monitor.isCanceled())
-						break;
-					monitor.setTaskName(diff.getPath());
-					try {
-						formatter.write(repository, diff);
-					} catch (IOException ignore) {
-						// Ignored
-					}
-					monitor.worked(1);
-				}
-				monitor.done();
+				final FileDiff diffs[] = getDiffs(commit);
+				if (monitor.isCanceled())
+					return Status.CANCEL_STATUS;
+				repository = commit.getRepository();
 				new UIJob(UIText.DiffEditorPage_TaskUpdatingViewer) {
 
 					@Override
 					public IStatus runInUIThread(IProgressMonitor uiMonitor) {
-						if (UIUtils.isUsable(viewer)) {
-							viewer.setDocument(document);
-							viewer.refreshStyleRanges();
-						}
+						if (UIUtils.isUsable(viewer))
+							showSections(diffs);
 						return Status.OK_STATUS;
 					}
 				}.schedule();
 				return Status.OK_STATUS;
 			}
 		};
-		job.schedule();
+		loadJob.schedule();
+	}
+
+	/**
+	 * Shows a placeholder line for every file; the diffs are formatted when
+	 * they are scrolled into view
+	 *
+	 * @param diffs
+	 */
+	private void showSections(FileDiff[] diffs) {
+		FileSection[] newSections = new FileSection[diffs.length];
+		int[] lengths = new int[diffs.length];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < diffs.length; i++) {
+			newSections[i] = new FileSection(diffs[i], i);
+			lengths[i] = newSections[i].length;
+			text.append(newSections[i].getPlaceholder());
+		}
+		sections = newSections;
+		offsets = new SectionOffsets(lengths);
+		formattedSections.clear();
+		viewer.setDocument(new Document(text.toString()));
+		viewer.refreshStyleRanges();
+		fileViewer.setInput(diffs);
+		formatVisibleSections();
+	}
+
+	private void formatVisibleSections() {
+		if (!UIUtils.isUsable(viewer) || sections.length == 0)
+			return;
+		int first = offsets.findSection(viewer.getTopIndexStartOffset());
+		int last = Math.min(
+				offsets.findSection(viewer.getBottomIndexEndOffset())
+						+ PREFETCH_SECTIONS, sections.length - 1);
+		List<FileSection> requested = new ArrayList<FileSection>();
+		for (int i = first; i <= last; i++) {
+			FileSection section = sections[i];
+			if (!section.requested) {
+				section.requested = true;
+				requested.add(section);
+			}
+		}
+		releaseDistantSections(first, last);
+		if (requested.isEmpty())
+			return;
+		synchronized (formatQueue) {
+			formatQueue.addAll(0, requested);
+		}
+		formatJob.schedule();
+	}
+
+	/**
+	 * Shows the sections far away from the given ones as placeholders again
+	 * if too many sections are formatted
+	 *
+	 * @param first
+	 *            index of the first visible section
+	 * @param last
+	 *            index of the last visible or prefetched section
+	 */
+	private void releaseDistantSections(int first, int last) {
+		if (formattedSections.size() <= MAX_FORMATTED_SECTIONS)
+			return;
+		List<FileSection> distant = new ArrayList<FileSection>();
+		for (Iterator<FileSection> it = formattedSections.iterator(); it
+				.hasNext();) {
+			FileSection section = it.next();
+			if (section.index >= first - KEEP_SECTIONS
+					&& section.index <= last + KEEP_SECTIONS)
+				continue;
+			it.remove();
+			section.formatted = false;
+			section.requested = false;
+			distant.add(section);
+		}
+		// keeping the top line in place notifies the viewport listener again
+		for (FileSection section : distant)
+			setSectionContent(section, section.getPlaceholder(),
+					section.getPlaceholderRanges());
+	}
+
+	/**
+	 * Formats the diff of a section. May be called from any thread.
+	 *
+	 * @param section
+	 * @return the formatted section, or the placeholder followed by an error
+	 *         message if the diff could not be computed
+	 */
+	private FormattedSection formatSection(FileSection section) {
+		IDocument document = new Document();
+		DiffStyleRangeFormatter formatter = new DiffStyleRangeFormatter(
+				document, 0, MAX_LINES_PER_FILE);
+		try {
+			formatter.write(repository, section.diff);
+		} catch (IOException e) {
+			String message = MessageFormat.format(
+					UIText.DiffEditorPage_FormatError, section.diff.getPath());
+			Activator.logError(message, e);
+			return new FormattedSection(section, section.getPlaceholder()
+					+ message + '\n', section.getPlaceholderRanges());
+		}
+		return new FormattedSection(section, document.get(),
+				formatter.getRanges());
+	}
+
+	private void replaceSection(FormattedSection formatted) {
+		FileSection section = formatted.section;
+		if (section.formatted || section.index >= sections.length
+				|| sections[section.index] != section
+				|| formatted.text.length() == 0)
+			return;
+		if (setSectionContent(section, formatted.text, formatted.ranges)) {
+			section.formatted = true;
+			formattedSections.add(section);
+		}
+	}
+
+	/**
+	 * Replaces the text of a section in the document
+	 *
+	 * @param section
+	 * @param text
+	 * @param ranges
+	 *            style ranges relative to the start of the section
+	 * @return whether the document has been changed
+	 */
+	private boolean setSectionContent(FileSection section, String text,
+			DiffStyleRange[] ranges) {
+		int start = offsets.getOffset(section.index);
+		// keep the visible text in place if the section is above it
+		int topIndex = viewer.getTopIndex();
+		boolean above = start + section.length <= viewer
+				.getTopIndexStartOffset();
+		try {
+			viewer.getDocument().replace(start, section.length, text);
+		} catch (BadLocationException e) {
+			return false;
+		}
+		int lines = countLines(text);
+		offsets.add(section.index, text.length() - section.length);
+		if (above)
+			viewer.setTopIndex(topIndex + lines - section.lines);
+		section.length = text.length();
+		section.lines = lines;
+		section.ranges = ranges;
+		viewer.replaceStyleRanges(start, section.length,
+				shift(section.ranges, start));
+		return true;
+	}
+
+	private DiffStyleRange[] getSectionStyleRanges() {
+		List<DiffStyleRange> ranges = new ArrayList<DiffStyleRange>();
+		int offset = 0;
+		for (FileSection section : sections) {
+			ranges.addAll(asList(shift(section.ranges, offset)));
+			offset += section.length;
+		}
+		return ranges.toArray(new DiffStyleRange[ranges.size()]);
+	}
+
+	private static DiffStyleRange[] shift(DiffStyleRange[] ranges, int offset) {
+		DiffStyleRange[] result = new DiffStyleRange[ranges.length];
+		for (int i = 0; i < ranges.length; i++) {
+			result[i] = (DiffStyleRange) ranges[i].clone();
+			result[i].start += offset;
+		}
+		return result;
+	}
+
+	private static int countLines(String text) {
+		int lines = 0;
+		for (int i = 0; i < text.length(); i++)
+			if (text.charAt(i) == '\n')
+				lines++;
+		return lines;
+	}
+
+	/**
+	 * Copies the selected text to the clipboard. Selected sections which are
+	 * only shown as placeholders are formatted first, so that their diffs are
+	 * copied instead of their placeholders.
+	 */
+	private void copySelection() {
+		Point selection = viewer.getSelectedRange();
+		int start = selection.x;
+		int end = selection.x + selection.y;
+		if (selection.y == 0 || !hasPlaceholders(start, end)) {
+			viewer.doOperation(ITextOperationTarget.COPY);
+			return;
+		}
+		final StringBuilder text = new StringBuilder();
+		final IDocument document = viewer.getDocument();
+		final int first = offsets.findSection(start);
+		final int last = Math.min(offsets.findSection(end - 1),
+				sections.length - 1);
+		final int from = start - offsets.getOffset(first);
+		final int to = end - offsets.getOffset(last);
+		BusyIndicator.showWhile(viewer.getTextWidget().getDisplay(),
+				new Runnable() {
+
+					@Override
+					public void run() {
+						for (int i = first; i <= last; i++) {
+							FileSection section = sections[i];
+							if (!section.formatted) {
+								String diff = formatSection(section).text;
+								text.append(diff.length() > 0 ? diff : section
+										.getPlaceholder());
+								continue;
+							}
+							// only the selected part of formatted sections
+							String sectionText = getText(document, section);
+							if (i == last)
+								sectionText = sectionText.substring(0,
+										Math.min(to, sectionText.length()));
+							if (i == first)
+								sectionText = sectionText.substring(Math.min(
+										from, sectionText.length()));
+							text.append(sectionText);
+						}
+					}
+				});
+		if (text.length() == 0)
+			return;
+		Clipboard clipboard = new Clipboard(viewer.getTextWidget()
+				.getDisplay());
+		try {
+			clipboard.setContents(new Object[] { text.toString() },
+					new Transfer[] { TextTransfer.getInstance() });
+		} finally {
+			clipboard.dispose();
+		}
+	}
+
+	private boolean hasPlaceholders(int start, int end) {
+		int last = Math.min(offsets.findSection(end - 1), sections.length - 1);
+		for (int i = offsets.findSection(start); i <= last; i++)
+			if (!sections[i].formatted)
+				return true;
+		return false;
+	}
+
+	private String getText(IDocument document, FileSection section) {
+		try {
+			return document.get(offsets.getOffset(section.index),
+					section.length);
+		} catch (BadLocationException e) {
+			return ""; //$NON-NLS-1$
+		}
+	}
+
+	private void revealSection(int index) {
+		if (index < 0 || index >= sections.length)
+			return;
+		try {
+			viewer.setTopIndex(viewer.getDocument().getLineOfOffset(
+					offsets.getOffset(index)));
+		} catch (BadLocationException e) {
+			return;
+		}
+		formatVisibleSections();
 	}
 
 	/**
@@ -177,8 +599,13 @@ public IStatus runInUIThread(IProgressMonitor uiMonitor) {
 	 * @param manager
 	 */
 	protected void addEditorActions(MenuManager manager) {
-		final TextViewerAction copyAction = new TextViewerAction(viewer,
-				ITextOperationTarget.COPY);
+		copyAction = new TextViewerAction(viewer, ITextOperationTarget.COPY) {
+
+			@Override
+			public void run() {
+				copySelection();
+			}
+		};
 		copyAction.setText(UIText.SpellCheckingMessageArea_copy);
 		copyAction.setActionDefinitionId(IWorkbenchCommandConstants.EDIT_COPY);
 
@@ -210,11 +637,45 @@ protected void createFormContent(IManagedForm managedForm) {
 		Composite body = managedForm.getForm().getBody();
 		GridLayoutFactory.fillDefaults().numColumns(1).applyTo(body);
 
-		viewer = new DiffViewer(body, new CompositeRuler(), SWT.V_SCROLL
-				| SWT.H_SCROLL, true);
+		SashForm sash = new SashForm(body, SWT.HORIZONTAL);
+		GridDataFactory.fillDefaults().grab(true, true).applyTo(sash);
+
+		fileViewer = new TableViewer(sash, SWT.SINGLE | SWT.V_SCROLL
+				| SWT.H_SCROLL | SWT.FULL_SELECTION | SWT.VIRTUAL);
+		fileViewer.setContentProvider(ArrayContentProvider.getInstance());
+		fileViewer.setLabelProvider(new WorkbenchLabelProvider());
+		fileViewer.addSelectionChangedListener(new ISelectionChangedListener() {
+
+			@Override
+			public void selectionChanged(SelectionChangedEvent event) {
+				revealSection(fileViewer.getTable().getSelectionIndex());
+			}
+		});
+
+		viewer = new DiffViewer(sash, new CompositeRuler(), SWT.V_SCROLL
+				| SWT.H_SCROLL, true) {
+
+			@Override
+			protected DiffStyleRange[] getStyleRanges() {
+				return getSectionStyleRanges();
+			}
+		};
 		viewer.setEditable(false);
-		GridDataFactory.fillDefaults().grab(true, true)
-				.applyTo(viewer.getControl());
+		viewer.addViewportListener(new IViewportListener() {
+
+			@Override
+			public void viewportChanged(int verticalOffset) {
+				formatVisibleSections();
+			}
+		});
+		viewer.getTextWidget().addControlListener(new ControlAdapter() {
+
+			@Override
+			public void controlResized(ControlEvent e) {
+				formatVisibleSections();
+			}
+		});
+		sash.setWeights(new int[] { 1, 3 });
 
 		MenuManager manager = new MenuManager();
 		addEditorActions(manager);
@@ -228,7 +689,44 @@ protected void createFormContent(IManagedForm managedForm) {
 				AbstractTextEditor.DEFAULT_EDITOR_CONTEXT_MENU_ID, manager,
 				viewer, true);
 		viewer.getTextWidget().setMenu(menu);
+		// the text widget would copy the placeholders of unformatted sections
+		viewer.getTextWidget().addFocusListener(new FocusListener() {
+
+			private IHandlerActivation copyActivation;
+
+			@Override
+			public void focusGained(FocusEvent e) {
+				IHandlerService service = getHandlerService();
+				if (service != null && copyAction != null)
+					copyActivation = service.activateHandler(
+							IWorkbenchCommandConstants.EDIT_COPY,
+							new ActionHandler(copyAction));
+			}
+
+			@Override
+			public void focusLost(FocusEvent e) {
+				IHandlerService service = getHandlerService();
+				if (service != null && copyActivation != null)
+					service.deactivateHandler(copyActivation);
+				copyActivation = null;
+			}
+		});
 
 		formatDiff();
 	}
+
+	private IHandlerService getHandlerService() {
+		return CommonUtils.getService(getSite(), IHandlerService.class);
+	}
+
+	@Override
+	public void dispose() {
+		if (loadJob != null)
+			loadJob.cancel();
+		formatJob.cancel();
+		synchronized (formatQueue) {
+			formatQueue.clear();
+		}
+		super.dispose();
+	}
 }
@@ -238,33 +238,63 @@ private void styleViewer() {
 
 	/** Refresh style ranges */
 	public void refreshStyleRanges() {
-		DiffStyleRange[] ranges = formatter != null ? formatter.getRanges()
-				: new DiffStyleRange[0];
+		DiffStyleRange[] ranges = getStyleRanges();
 		for (DiffStyleRange range : ranges)
-			switch (range.diffType) {
-			case ADD:
-				range.foreground = addForegroundColor;
-				range.lineBackground = addBackgroundColor;
-				break;
-			case REMOVE:
-				range.foreground = removeForegroundColor;
-				range.lineBackground = removeBackgroundColor;
-				break;
-			case HUNK:
-				range.foreground = hunkForegroundColor;
-				range.lineBackground = hunkBackgroundColor;
-				break;
-			case HEADLINE:
-				range.font = headlineFont;
-				range.foreground = headlineForegroundColor;
-				range.lineBackground = headlineBackgroundColor;
-				break;
-			default:
-				break;
-			}
+			applyColors(range);
 		getTextWidget().setStyleRanges(ranges);
 	}
 
+	/**
+	 * Replaces the style ranges of a part of the document, e.g. after the
+	 * text of the part has been replaced
+	 *
+	 * @param start
+	 *            start offset of the part
+	 * @param length
+	 *            length of the part
+	 * @param ranges
+	 *            the new ranges within the part, sorted by offset
+	 */
+	public void replaceStyleRanges(int start, int length,
+			DiffStyleRange[] ranges) {
+		for (DiffStyleRange range : ranges)
+			applyColors(range);
+		getTextWidget().replaceStyleRanges(start, length, ranges);
+	}
+
+	/**
+	 * @return the style ranges of the whole document, by default those of the
+	 *         formatter set with {@link #setFormatter(DiffStyleRangeFormatter)}
+	 */
+	protected DiffStyleRange[] getStyleRanges() {
+		return formatter != null ? formatter.getRanges()
+				: new DiffStyleRange[0];
+	}
+
+	private void applyColors(DiffStyleRange range) {
+		switch (range.diffType) {
+		case ADD:
+			range.foreground = addForegroundColor;
+			range.lineBackground = addBackgroundColor;
+			break;
+		case REMOVE:
+			range.foreground = removeForegroundColor;
+			range.lineBackground = removeBackgroundColor;
+			break;
+		case HUNK:
+			range.foreground = hunkForegroundColor;
+			range.lineBackground = hunkBackgroundColor;
+			break;
+		case HEADLINE:
+			range.font = headlineFont;
+			range.foreground = headlineForegroundColor;
+			range.lineBackground = headlineBackgroundColor;
+			break;
+		default:
+			break;
+		}
+	}
+
 	/** @param formatter */
 	public void setFormatter(DiffStyleRangeFormatter formatter) {
 		this.formatter = formatter;
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.commit;
+
+/**
+ * Lengths of consecutive sections of a document in a Fenwick tree, so that the
+ * offset of a section and the section at an offset are found in logarithmic
+ * time, and the length of a section is changed in logarithmic time as well.
+ */
+class SectionOffsets {
+
+	/** one-based */
+	private final int[] tree;
+
+	/**
+	 * @param lengths
+	 *            initial lengths of the sections
+	 */
+	SectionOffsets(int[] lengths) {
+		tree = new int[lengths.length + 1];
+		for (int i = 0; i < lengths.length; i++) {
+			tree[i + 1] += lengths[i];
+			int parent = i + 1 + ((i + 1) & -(i + 1));
+			if (parent < tree.length)
+				tree[parent] += tree[i + 1];
+		}
+	}
+
+	/**
+	 * @param index
+	 * @param delta
+	 *            change of the length of the section with the given index
+	 */
+	void add(int index, int delta) {
+		for (int i = index + 1; i < tree.length; i += i & -i)
+			tree[i] += delta;
+	}
+
+	/**
+	 * @param index
+	 * @return the offset of the section with the given index
+	 */
+	int getOffset(int index) {
+		int offset = 0;
+		for (int i = index; i > 0; i -= i & -i)
+			offset += tree[i];
+		return offset;
+	}
+
+	/**
+	 * @param offset
+	 * @return the index of the section containing the offset, or the number
+	 *         of sections if the offset is behind the last one
+	 */
+	int findSection(int offset) {
+		int index = 0;
+		int remaining = offset;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = index + step;
+			if (next < tree.length && tree[next] <= remaining) {
+				index = next;
+				remaining -= tree[next];
+			}
+		}
+		return index;
+	}
+}
@@ -9,6 +9,7 @@
 package org.eclipse.egit.ui.internal.decorators;
 
 import org.eclipse.core.resources.IResource;
+import org.eclipse.egit.core.internal.indexdiff.ResourceState;
 
 /**
  * Basic implementation of <code>IDecoratableResource</code>
@@ -135,4 +136,29 @@ public boolean hasConflicts() {
 	public boolean isAssumeValid() {
 		return assumeValid;
 	}
+
+	/**
+	 * Takes the state of the resource as recorded in the index diff
+	 *
+	 * @param state
+	 */
+	void apply(ResourceState state) {
+		ignored = state.isIgnored();
+		tracked = state.isTracked();
+		conflicts = state.hasConflicts();
+		dirty = state.isDirty();
+		switch (state.getStaged()) {
+		case ADDED:
+			staged = Staged.ADDED;
+			break;
+		case REMOVED:
+			staged = Staged.REMOVED;
+			break;
+		case MODIFIED:
+			staged = Staged.MODIFIED;
+			break;
+		default:
+			staged = Staged.NOT_STAGED;
+		}
+	}
 }
@@ -20,14 +20,13 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.indexdiff.ResourceState;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.ui.internal.trace.GitTraceLocation;
@@ -99,33 +98,9 @@ public String toString() {
 
 	private void extractResourceProperties() {
 		String repoRelativePath = makeRepoRelative(resource);
-
-		// ignored
-		Set<String> ignoredFiles = indexDiffData.getIgnoredNotInIndex();
-		ignored = ignoredFiles.contains(repoRelativePath)
-				|| containsPrefixPath(ignoredFiles, repoRelativePath);
-		Set<String> untracked = indexDiffData.getUntracked();
-		tracked = !untracked.contains(repoRelativePath) && !ignored;
-
-		Set<String> added = indexDiffData.getAdded();
-		Set<String> removed = indexDiffData.getRemoved();
-		Set<String> changed = indexDiffData.getChanged();
-		if (added.contains(repoRelativePath)) // added
-			staged = Staged.ADDED;
-		else if (removed.contains(repoRelativePath)) // removed
-			staged = Staged.REMOVED;
-		else if (changed.contains(repoRelativePath)) // changed and added into index
-			staged = Staged.MODIFIED;
-		else
-			staged = Staged.NOT_STAGED;
-
-		// conflicting
-		Set<String> conflicting = indexDiffData.getConflicting();
-		conflicts = conflicting.contains(repoRelativePath);
-
-		// locally modified
-		Set<String> modified = indexDiffData.getModified();
-		dirty = modified.contains(repoRelativePath);
+		if (repoRelativePath == null)
+			return;
+		apply(ResourceState.forFile(indexDiffData, repoRelativePath));
 	}
 
 	private void extractContainerProperties() {
@@ -139,40 +114,14 @@ private void extractContainerProperties() {
 			return;
 		}
 
-		Set<String> ignoredFiles = indexDiffData.getIgnoredNotInIndex();
-		Set<String> untrackedFolders = indexDiffData.getUntrackedFolders();
-		ignored = containsPrefixPath(ignoredFiles, repoRelativePath)
-				|| !hasContainerAnyFiles(resource);
-
-		if (ignored)
+		apply(ResourceState.forFolder(indexDiffData, repoRelativePath));
+		if (!ignored && !hasContainerAnyFiles(resource)) {
+			ignored = true;
 			tracked = false;
-		else
-			tracked = !containsPrefixPath(untrackedFolders, repoRelativePath);
-
-		// containers are marked as staged whenever file was added, removed or
-		// changed
-		Set<String> changed = new HashSet<String>(indexDiffData.getChanged());
-		changed.addAll(indexDiffData.getAdded());
-		changed.addAll(indexDiffData.getRemoved());
-		if (containsPrefix(changed, repoRelativePath))
-			staged = Staged.MODIFIED;
-		else
-			staged = Staged.NOT_STAGED;
-
-		// conflicting
-		Set<String> conflicting = indexDiffData.getConflicting();
-		conflicts = containsPrefix(conflicting, repoRelativePath);
-
-		// locally modified / untracked
-		Set<String> modified = indexDiffData.getModified();
-		Set<String> untracked = indexDiffData.getUntracked();
-		Set<String> missing = indexDiffData.getMissing();
-		dirty = containsPrefix(modified, repoRelativePath)
-				|| containsPrefix(untracked, repoRelativePath)
-				|| containsPrefix(missing, repoRelativePath);
+		}
 	}
 
-	private static boolean hasContainerAnyFiles(IResource resource) {
+	static boolean hasContainerAnyFiles(IResource resource) {
 		if (resource instanceof IContainer) {
 			IContainer container = (IContainer) resource;
 			try {
@@ -209,29 +158,4 @@ private String makeRepoRelative(IResource res) {
 		return stripWorkDir(workTree, location.toFile());
 	}
 
-	private boolean containsPrefix(Set<String> collection, String prefix) {
-		// when prefix is empty we are handling repository root, therefore we
-		// should return true whenever collection isn't empty
-		if (prefix.length() == 1 && !collection.isEmpty())
-			return true;
-
-		for (String path : collection)
-			if (path.startsWith(prefix))
-				return true;
-		return false;
-	}
-
-	private boolean containsPrefixPath(Set<String> collection, String path) {
-		for (String entry : collection) {
-			String entryPath;
-			if (entry.endsWith("/")) //$NON-NLS-1$
-				entryPath = entry;
-			else
-				entryPath = entry + "/"; //$NON-NLS-1$
-			if (path.startsWith(entryPath))
-				return true;
-		}
-		return false;
-	}
-
 }
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.decorators;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.indexdiff.ResourceState;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
+import org.eclipse.egit.core.internal.util.ResourceUtil;
+import org.eclipse.egit.core.project.RepositoryMapping;
+import org.eclipse.egit.ui.Activator;
+import org.eclipse.egit.ui.internal.decorators.GitLightweightDecorator.DecorationHelper;
+import org.eclipse.egit.ui.internal.trace.GitTraceLocation;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.viewers.IDecoration;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+
+/**
+ * Decorations of files and folders, computed for all members of a container at
+ * once and kept as long as the {@link IndexDiffData} they were computed from
+ * is in use.
+ * <p>
+ * Decorating the members of an expanded folder one by one means searching all
+ * sets of the {@link IndexDiffData} for every member folder. Instead, the
+ * first member of a container to be decorated triggers a single pass over the
+ * sets which collects the state of all members. Their decorations are then
+ * formatted once and replayed into the {@link IDecoration}s of later calls
+ * without formatting or allocating anything.
+ * <p>
+ * Every new {@link IndexDiffData} of a repository starts with an empty cache,
+ * the cache of the old one is dropped together with it.
+ */
+class DecorationCache {
+
+	/**
+	 * Number of containers whose members' decorations are kept per
+	 * {@link IndexDiffData}
+	 */
+	private static final int MAX_CONTAINERS = 200;
+
+	// guarded by this
+	private final Map<IndexDiffData, Generation> generations = new WeakHashMap<IndexDiffData, Generation>();
+
+	/**
+	 * Applies the cached decoration of a file or folder, computing the
+	 * decorations of all members of its parent first if necessary. Counts a
+	 * cache hit if the decoration was cached, and a miss if the members were
+	 * computed.
+	 *
+	 * @param resource
+	 *            a file or folder
+	 * @param indexDiffData
+	 *            the current index diff of the resource's repository
+	 * @param decoration
+	 * @return <code>false</code> if the resource can't be decorated from the
+	 *         cache, and has to be decorated on its own
+	 */
+	boolean decorate(IResource resource, IndexDiffData indexDiffData,
+			IDecoration decoration) {
+		if (resource.getType() != IResource.FILE
+				&& resource.getType() != IResource.FOLDER)
+			return false;
+		CachedDecoration cached = get(resource, indexDiffData);
+		if (cached != null)
+			GitMetrics.counter(GitMetrics.DECORATION_CACHE_HITS).increment();
+		else {
+			IContainer parent = resource.getParent();
+			if (isComputed(parent, indexDiffData))
+				// e.g. a linked resource, or created since
+				return false;
+			GitMetrics.counter(GitMetrics.DECORATION_CACHE_MISSES)
+					.increment();
+			Map<IResource, CachedDecoration> decorations = computeMembers(
+					parent, indexDiffData);
+			if (decorations == null)
+				return false;
+			synchronized (this) {
+				Generation generation = generations.get(indexDiffData);
+				if (generation == null) {
+					generation = new Generation();
+					generations.put(indexDiffData, generation);
+				}
+				generation.put(parent.getFullPath(), decorations);
+			}
+			cached = decorations.get(resource);
+			if (cached == null)
+				return false;
+		}
+		cached.apply(decoration);
+		return true;
+	}
+
+	/**
+	 * Forgets all decorations, e.g. after the decoration preferences changed
+	 */
+	synchronized void clear() {
+		generations.clear();
+	}
+
+	private synchronized CachedDecoration get(IResource resource,
+			IndexDiffData indexDiffData) {
+		Generation generation = generations.get(indexDiffData);
+		if (generation == null)
+			return null;
+		return generation.decorations.get(resource);
+	}
+
+	private synchronized boolean isComputed(IContainer container,
+			IndexDiffData indexDiffData) {
+		Generation generation = generations.get(indexDiffData);
+		return generation != null
+				&& generation.containers.get(container.getFullPath()) != null;
+	}
+
+	private static Map<IResource, CachedDecoration> computeMembers(
+			IContainer container, IndexDiffData indexDiffData) {
+		boolean trace = GitTraceLocation.DECORATION.isActive();
+		long start = trace ? System.currentTimeMillis() : 0;
+		List<DecoratableResource> members = getMemberStates(container,
+				indexDiffData);
+		if (members == null)
+			return null;
+		DecorationHelper helper = new DecorationHelper(Activator.getDefault()
+				.getPreferenceStore());
+		Map<IResource, CachedDecoration> decorations = new HashMap<IResource, CachedDecoration>(
+				members.size() * 2);
+		for (DecoratableResource member : members) {
+			DecorationResult result = new DecorationResult();
+			helper.decorate(result, member);
+			decorations.put(member.resource, new CachedDecoration(result));
+		}
+		if (trace)
+			GitTraceLocation.getTrace().trace(
+					GitTraceLocation.DECORATION.getLocation(),
+					"Decorated " + members.size() + " members of " //$NON-NLS-1$ //$NON-NLS-2$
+							+ container.getFullPath() + " in " //$NON-NLS-1$
+							+ (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$
+		return decorations;
+	}
+
+	/**
+	 * Determines the state of all files and folders in a container by a single
+	 * pass over the sets of the index diff, see
+	 * {@link ResourceState#forMembers}. The result is the same as constructing
+	 * a {@link DecoratableResourceAdapter} for every member.
+	 *
+	 * @param container
+	 * @param indexDiffData
+	 * @return the state of the files and folders of the container, or
+	 *         <code>null</code> if the container is not in a non-bare
+	 *         repository or is linked
+	 */
+	static List<DecoratableResource> getMemberStates(IContainer container,
+			IndexDiffData indexDiffData) {
+		if (container.getType() == IResource.ROOT
+				|| container.isLinked(IResource.CHECK_ANCESTORS))
+			return null;
+		RepositoryMapping mapping = RepositoryMapping.getMapping(container);
+		if (mapping == null)
+			return null;
+		Repository repository = mapping.getRepository();
+		if (repository == null || repository.isBare())
+			return null;
+		String containerPath = mapping.getRepoRelativePath(container);
+		if (containerPath == null)
+			return null;
+		IResource[] resources;
+		try {
+			resources = container.members();
+		} catch (CoreException e) {
+			return null;
+		}
+		String prefix = containerPath.length() == 0 ? containerPath
+				: containerPath + '/';
+
+		Map<String, IResource> members = new HashMap<String, IResource>(
+				resources.length * 2);
+		List<String> files = new ArrayList<String>();
+		List<String> folders = new ArrayList<String>();
+		for (IResource resource : resources) {
+			if (resource.isLinked())
+				continue;
+			if (resource.getType() == IResource.FILE
+					|| resource.getType() == IResource.FOLDER
+					&& ResourceUtil.isSymbolicLink(repository, prefix
+							+ resource.getName() + '/'))
+				files.add(resource.getName());
+			else if (resource.getType() == IResource.FOLDER)
+				folders.add(resource.getName());
+			else
+				continue;
+			members.put(resource.getName(), resource);
+		}
+		if (members.isEmpty())
+			return new ArrayList<DecoratableResource>();
+
+		Map<String, ResourceState> states = ResourceState.forMembers(
+				indexDiffData, prefix, files, folders);
+		List<DecoratableResource> result = new ArrayList<DecoratableResource>(
+				members.size());
+		for (String name : files)
+			result.add(new MemberState(members.get(name), states.get(name)));
+		for (String name : folders) {
+			MemberState member = new MemberState(members.get(name),
+					states.get(name));
+			// the index diff does not know folders without files
+			if (!member.isIgnored()
+					&& !DecoratableResourceAdapter
+							.hasContainerAnyFiles(member.resource)) {
+				member.ignored = true;
+				member.tracked = false;
+			}
+			result.add(member);
+		}
+		return result;
+	}
+
+	/**
+	 * The state of a member of a container, taken from the index diff
+	 */
+	private static class MemberState extends DecoratableResource {
+
+		MemberState(IResource resource, ResourceState state) {
+			super(resource);
+			apply(state);
+		}
+	}
+
+	/**
+	 * A decoration as recorded by a {@link DecorationResult}, ready to be
+	 * applied to any number of {@link IDecoration}s
+	 */
+	private static class CachedDecoration {
+
+		private final String prefix;
+
+		private final String suffix;
+
+		private final ImageDescriptor overlay;
+
+		private final Color backgroundColor;
+
+		private final Color foregroundColor;
+
+		private final Font font;
+
+		CachedDecoration(DecorationResult result) {
+			String p = result.getPrefix();
+			String s = result.getSuffix();
+			prefix = p.length() > 0 ? p : null;
+			suffix = s.length() > 0 ? s : null;
+			overlay = result.getOverlay();
+			backgroundColor = result.getBackgroundColor();
+			foregroundColor = result.getForegroundColor();
+			font = result.getFont();
+		}
+
+		void apply(IDecoration decoration) {
+			if (prefix != null)
+				decoration.addPrefix(prefix);
+			if (suffix != null)
+				decoration.addSuffix(suffix);
+			if (overlay != null)
+				decoration.addOverlay(overlay);
+			if (backgroundColor != null)
+				decoration.setBackgroundColor(backgroundColor);
+			if (foregroundColor != null)
+				decoration.setForegroundColor(foregroundColor);
+			if (font != null)
+				decoration.setFont(font);
+		}
+	}
+
+	/**
+	 * The decorations computed from one {@link IndexDiffData}
+	 */
+	private static class Generation {
+
+		final Map<IResource, CachedDecoration> decorations = new HashMap<IResource, CachedDecoration>();
+
+		// least recently computed first
+		final LinkedHashMap<IPath, Map<IResource, CachedDecoration>> containers = new LinkedHashMap<IPath, Map<IResource, CachedDecoration>>();
+
+		void put(IPath container, Map<IResource, CachedDecoration> members) {
+			Map<IResource, CachedDecoration> old = containers.put(container,
+					members);
+			if (old != null)
+				decorations.keySet().removeAll(old.keySet());
+			decorations.putAll(members);
+			Iterator<Map<IResource, CachedDecoration>> it = containers
+					.values().iterator();
+			while (containers.size() > MAX_CONTAINERS) {
+				decorations.keySet().removeAll(it.next().keySet());
+				it.remove();
+			}
+		}
+	}
+}
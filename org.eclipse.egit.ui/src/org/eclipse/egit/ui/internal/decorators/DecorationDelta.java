@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.decorators;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.util.ProjectUtil;
+import org.eclipse.egit.core.project.RepositoryMapping;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Determines the resources whose decoration may differ between two
+ * {@link IndexDiffData}s of a repository, so that only their labels need to
+ * be updated.
+ * <p>
+ * These are the resources whose path was added to or removed from one of the
+ * sets of the index diff, the members of such resources if they are folders
+ * (an ignored folder is listed without its contents), and the ancestors of
+ * all of them. The projects of the repository are always included since
+ * their decoration shows the branch, which may have changed without any
+ * change of the index diff.
+ */
+class DecorationDelta {
+
+	/**
+	 * Above this number of resources a refresh of all labels is cheaper than
+	 * updating the labels one by one
+	 */
+	private static final int MAX_RESOURCES = 1000;
+
+	/**
+	 * @param repository
+	 * @param oldData
+	 *            the index diff the current decorations are based on
+	 * @param newData
+	 *            the new index diff
+	 * @return the resources whose labels need to be updated, or
+	 *         <code>null</code> if all labels should be updated
+	 */
+	static Set<IResource> getChangedResources(Repository repository,
+			IndexDiffData oldData, IndexDiffData newData) {
+		Set<String> paths = new HashSet<String>();
+		if (!addChanged(oldData.getAdded(), newData.getAdded(), paths)
+				|| !addChanged(oldData.getChanged(), newData.getChanged(),
+						paths)
+				|| !addChanged(oldData.getRemoved(), newData.getRemoved(),
+						paths)
+				|| !addChanged(oldData.getMissing(), newData.getMissing(),
+						paths)
+				|| !addChanged(oldData.getModified(), newData.getModified(),
+						paths)
+				|| !addChanged(oldData.getUntracked(), newData.getUntracked(),
+						paths)
+				|| !addChanged(oldData.getUntrackedFolders(),
+						newData.getUntrackedFolders(), paths)
+				|| !addChanged(oldData.getConflicting(),
+						newData.getConflicting(), paths)
+				|| !addChanged(oldData.getIgnoredNotInIndex(),
+						newData.getIgnoredNotInIndex(), paths))
+			return null;
+
+		IProject[] projects = ProjectUtil.getProjects(repository);
+		Set<IResource> resources = new LinkedHashSet<IResource>();
+		for (IProject project : projects)
+			resources.add(project);
+		if (paths.isEmpty())
+			return resources;
+		for (IProject project : projects) {
+			RepositoryMapping mapping = RepositoryMapping.getMapping(project);
+			if (mapping == null)
+				continue;
+			String projectPath = mapping.getRepoRelativePath(project);
+			if (projectPath == null)
+				continue;
+			String prefix = projectPath.length() == 0 ? projectPath
+					: projectPath + '/';
+			for (String path : paths) {
+				if (path.length() <= prefix.length()
+						|| !path.startsWith(prefix))
+					continue;
+				String relativePath = path.substring(prefix.length());
+				IResource resource = project.findMember(relativePath);
+				if (resource == null)
+					// e.g. a deleted file
+					resource = relativePath.endsWith("/") ? project //$NON-NLS-1$
+							.getFolder(relativePath) : project
+							.getFile(relativePath);
+				if (!addWithMembers(resource, resources))
+					return null;
+				IContainer parent = resource.getParent();
+				while (parent.getType() != IResource.PROJECT
+						&& resources.add(parent))
+					parent = parent.getParent();
+				if (resources.size() > MAX_RESOURCES)
+					return null;
+			}
+		}
+		return resources;
+	}
+
+	private static boolean addChanged(Set<String> oldPaths,
+			Set<String> newPaths, Set<String> changed) {
+		if (oldPaths == newPaths)
+			return true;
+		for (String path : oldPaths)
+			if (!newPaths.contains(path))
+				changed.add(path);
+		for (String path : newPaths)
+			if (!oldPaths.contains(path))
+				changed.add(path);
+		return changed.size() <= MAX_RESOURCES;
+	}
+
+	private static boolean addWithMembers(IResource resource,
+			Set<IResource> resources) {
+		resources.add(resource);
+		if (resources.size() > MAX_RESOURCES)
+			return false;
+		if (resource.getType() == IResource.FOLDER && resource.isAccessible()) {
+			try {
+				for (IResource member : ((IContainer) resource).members())
+					if (!addWithMembers(member, resources))
+						return false;
+			} catch (CoreException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
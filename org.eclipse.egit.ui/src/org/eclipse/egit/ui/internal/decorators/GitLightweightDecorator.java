@@ -19,9 +19,14 @@
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.mapping.ResourceMapping;
@@ -34,6 +39,7 @@
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffCacheEntry;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffChangedListener;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.util.ExceptionCollector;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.ui.Activator;
@@ -105,6 +111,21 @@ public class GitLightweightDecorator extends LabelProvider implements
 
 	private static RGB defaultBackgroundRgb;
 
+	private final DecorationCache decorationCache = new DecorationCache();
+
+	/**
+	 * The index diff the current decorations of a repository's resources are
+	 * based on
+	 */
+	private final Map<Repository, IndexDiffData> decoratedIndexDiffs = Collections
+			.synchronizedMap(new WeakHashMap<Repository, IndexDiffData>());
+
+	/**
+	 * Whether resource mappings (i.e. Working Sets) have been decorated; their
+	 * labels are not covered by label events for the changed resources only
+	 */
+	private volatile boolean mappingsDecorated;
+
 	/**
 	 * Constructs a new Git resource decorator
 	 */
@@ -177,6 +198,7 @@ public void decorate(Object element, IDecoration decoration) {
 		}
 
 		final IResource resource = getResource(element);
+		long startNanos = System.nanoTime();
 		try {
 			if (resource == null) {
 				decorateResourceMapping(element, decoration);
@@ -188,6 +210,8 @@ public void decorate(Object element, IDecoration decoration) {
 		} catch (Exception e) {
 			handleException(resource, new CoreException(Activator
 					.createErrorStatus(NLS.bind(UIText.Decorator_exceptionMessage, resource), e)));
+		} finally {
+			GitMetrics.timer(GitMetrics.DECORATION).recordSince(startNanos);
 		}
 	}
 
@@ -205,6 +229,9 @@ private void decorateResource(@NonNull IResource resource,
 		if(indexDiffData == null) {
 			return;
 		}
+		if (decorationCache.decorate(resource, indexDiffData, decoration))
+			return;
+		GitMetrics.counter(GitMetrics.DECORATION_CACHE_MISSES).increment();
 		IDecoratableResource decoratableResource = null;
 		final DecorationHelper helper = new DecorationHelper(
 				Activator.getDefault().getPreferenceStore());
@@ -267,6 +294,7 @@ static IndexDiffData getIndexDiffDataOrNull(IResource resource) {
 	 * @throws CoreException
 	 */
 	private void decorateResourceMapping(Object element, IDecoration decoration) throws CoreException {
+		mappingsDecorated = true;
 		@SuppressWarnings("restriction")
 		ResourceMapping mapping = Utils.getResourceMapping(element);
 
@@ -673,6 +701,7 @@ public void propertyChange(PropertyChangeEvent event) {
 		if (prop.equals(TeamUI.GLOBAL_IGNORES_CHANGED)
 				|| prop.equals(TeamUI.GLOBAL_FILE_TYPES_CHANGED)
 				|| prop.equals(Activator.DECORATORS_CHANGED)) {
+			decorationCache.clear();
 			postLabelEvent();
 		} else if (prop.equals(UIPreferences.THEME_UncommittedChangeBackgroundColor)
 				|| prop.equals(UIPreferences.THEME_UncommittedChangeFont)
@@ -681,6 +710,7 @@ public void propertyChange(PropertyChangeEvent event) {
 				|| prop.equals(UIPreferences.THEME_IgnoredResourceBackgroundColor)
 				|| prop.equals(UIPreferences.THEME_IgnoredResourceForegroundColor)) {
 			ensureFontAndColorsCreated(FONT_IDS, COLOR_IDS);
+			decorationCache.clear();
 			postLabelEvent(); // TODO do I really need this?
 		}
 	}
@@ -690,7 +720,16 @@ public void indexDiffChanged(Repository repository,
 			IndexDiffData indexDiffData) {
 		// clear calculated repo data
 		DecoratableResourceHelper.clearState(repository);
-		postLabelEvent();
+		IndexDiffData previous = decoratedIndexDiffs.put(repository,
+				indexDiffData);
+		Set<IResource> changed = null;
+		if (previous != null && !mappingsDecorated)
+			changed = DecorationDelta.getChangedResources(repository,
+					previous, indexDiffData);
+		if (changed != null)
+			LabelEventJob.getInstance().postLabelEvent(this, changed);
+		else
+			postLabelEvent();
 	}
 
 	// -------- Helper methods --------
@@ -726,12 +765,19 @@ private static IResource getResource(Object actElement) {
 	 */
 	private void postLabelEvent() {
 		// Post label event to LabelEventJob
-		LabelEventJob.getInstance().postLabelEvent(this);
+		LabelEventJob.getInstance().postLabelEvent(this, null);
 	}
 
-	void fireLabelEvent() {
-		final LabelProviderChangedEvent event = new LabelProviderChangedEvent(
-				this);
+	/**
+	 * Fires a label event
+	 *
+	 * @param elements
+	 *            the elements whose labels changed, or <code>null</code> for
+	 *            all elements
+	 */
+	void fireLabelEvent(Object[] elements) {
+		final LabelProviderChangedEvent event = elements == null ? new LabelProviderChangedEvent(
+				this) : new LabelProviderChangedEvent(this, elements);
 		// Re-trigger decoration process (in UI thread)
 		PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
 			@Override
@@ -785,16 +831,27 @@ private LabelEventJob(final String name) {
 
 	private GitLightweightDecorator glwDecorator;
 
+	// guarded by this, null if all labels are to be updated
+	private Set<IResource> changedResources = new HashSet<IResource>();
+
 	/**
 	 * Post a label event
 	 *
 	 * @param decorator
 	 *            The GitLightweightDecorator that is used to fire a
 	 *            LabelProviderChangedEvent
+	 * @param resources
+	 *            the resources whose decoration changed, or <code>null</code>
+	 *            to update all labels; events are combined until the job runs
 	 */
-	void postLabelEvent(final GitLightweightDecorator decorator) {
+	synchronized void postLabelEvent(final GitLightweightDecorator decorator,
+			Collection<IResource> resources) {
 		if (glwDecorator == null)
 			glwDecorator = decorator;
+		if (resources == null)
+			changedResources = null;
+		else if (changedResources != null)
+			changedResources.addAll(resources);
 		if (getState() == SLEEPING || getState() == WAITING)
 			cancel();
 		schedule(DELAY);
@@ -802,8 +859,15 @@ void postLabelEvent(final GitLightweightDecorator decorator) {
 
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
-		if (glwDecorator != null)
-			glwDecorator.fireLabelEvent();
+		Object[] elements;
+		synchronized (this) {
+			elements = changedResources == null ? null : changedResources
+					.toArray();
+			changedResources = new HashSet<IResource>();
+		}
+		if (glwDecorator != null
+				&& (elements == null || elements.length > 0))
+			glwDecorator.fireLabelEvent(elements);
 		return Status.OK_STATUS;
 	}
 }
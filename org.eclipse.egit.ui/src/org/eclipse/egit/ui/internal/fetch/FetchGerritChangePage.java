@@ -15,8 +15,6 @@
 import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -30,7 +28,6 @@
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.egit.core.op.CreateLocalBranchOperation;
-import org.eclipse.egit.core.op.ListRemoteOperation;
 import org.eclipse.egit.core.op.TagOperation;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.JobFamilies;
@@ -63,7 +60,6 @@
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.PersonIdent;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.TagBuilder;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -100,8 +96,13 @@ public class FetchGerritChangePage extends WizardPage {
 
 	private static final String LAST_URI_POSTFIX = ".lastUri"; //$NON-NLS-1$
 
+	private static final Pattern DIGITS = Pattern.compile("\\d{0,10}"); //$NON-NLS-1$
+
 	private static final String RUN_IN_BACKGROUND = "runInBackground"; //$NON-NLS-1$
 
+	/** Maximum number of changes proposed by content assist */
+	private static final int MAX_PROPOSALS = 1000;
+
 	private final Repository repository;
 
 	private final IDialogSettings settings;
@@ -110,7 +111,7 @@ public class FetchGerritChangePage extends WizardPage {
 
 	private Combo uriCombo;
 
-	private List<Change> changeRefs;
+	private GerritChangeCache changeCache;
 
 	private Text refText;
 
@@ -204,7 +205,8 @@ public void createControl(Composite parent) {
 		uriCombo.addSelectionListener(new SelectionAdapter() {
 			@Override
 			public void widgetSelected(SelectionEvent e) {
-				changeRefs = null;
+				changeCache = null;
+				warmUpChangeCache();
 			}
 		});
 		new Label(main, SWT.NONE)
@@ -390,6 +392,41 @@ public void modifyText(ModifyEvent e) {
 		Dialog.applyDialogFont(main);
 		setControl(main);
 		checkPage();
+		warmUpChangeCache();
+	}
+
+	/**
+	 * Loads the changes of the selected server stored by an earlier session
+	 * and brings them up to date in the background, so content assist doesn't
+	 * have to wait for the server
+	 */
+	private void warmUpChangeCache() {
+		String uriText = uriCombo.getText();
+		if (uriText.length() == 0)
+			return;
+		final GerritChangeCache cache = GerritChangeCache.get(uriText);
+		final int timeout = Activator.getDefault().getPreferenceStore()
+				.getInt(UIPreferences.REMOTE_CONNECTION_TIMEOUT);
+		Job job = new Job(NLS.bind(
+				UIText.FetchGerritChangePage_UpdatingChangesJobName, uriText)) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				// only servers which have been listed before are contacted
+				// without the user asking for content assist
+				if (!cache.load())
+					return org.eclipse.core.runtime.Status.OK_STATUS;
+				try {
+					cache.refresh(repository, timeout, monitor);
+				} catch (InvocationTargetException e) {
+					Activator.logError(e.getCause().getMessage(), e.getCause());
+				} catch (InterruptedException e) {
+					return org.eclipse.core.runtime.Status.CANCEL_STATUS;
+				}
+				return org.eclipse.core.runtime.Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.schedule();
 	}
 
 	private void storeLastUsedUri(String uri) {
@@ -485,56 +522,25 @@ else if (createTagSelected)
 		}
 	}
 
-	private List<Change> getRefsForContentAssist()
+	private GerritChangeCache.Changes getChangesForContentAssist()
 			throws InvocationTargetException, InterruptedException {
-		if (changeRefs == null) {
-			final String uriText = uriCombo.getText();
+		if (changeCache == null)
+			changeCache = GerritChangeCache.get(uriCombo.getText());
+		final GerritChangeCache cache = changeCache;
+		if (cache.getChanges() == null) {
+			final int timeout = Activator.getDefault().getPreferenceStore()
+					.getInt(UIPreferences.REMOTE_CONNECTION_TIMEOUT);
 			getWizard().getContainer().run(true, true,
 					new IRunnableWithProgress() {
 						@Override
 						public void run(IProgressMonitor monitor)
 								throws InvocationTargetException,
 								InterruptedException {
-							ListRemoteOperation listOp;
-							try {
-								listOp = new ListRemoteOperation(
-										repository,
-										new URIish(uriText),
-										Activator
-												.getDefault()
-												.getPreferenceStore()
-												.getInt(UIPreferences.REMOTE_CONNECTION_TIMEOUT));
-							} catch (URISyntaxException e) {
-								throw new InvocationTargetException(e);
-							}
-
-							listOp.run(monitor);
-							changeRefs = new ArrayList<Change>();
-							for (Ref ref : listOp.getRemoteRefs()) {
-								Change change = Change.fromRef(ref.getName());
-								if (change != null)
-									changeRefs.add(change);
-							}
-							Collections.sort(changeRefs,
-									new Comparator<Change>() {
-										@Override
-										public int compare(Change o1, Change o2) {
-											// change number descending
-											int changeDiff = o2.changeNumber
-													.compareTo(o1.changeNumber);
-											if (changeDiff == 0)
-												// patch set number descending
-												changeDiff = o2
-														.getPatchSetNumber()
-														.compareTo(
-																o1.getPatchSetNumber());
-											return changeDiff;
-										}
-									});
+							cache.loadOrRefresh(repository, timeout, monitor);
 						}
 					});
 		}
-		return changeRefs;
+		return cache.getChanges();
 	}
 
 	boolean doFetch() {
@@ -765,6 +771,29 @@ public IContentProposal[] getProposals(String contents, int position) {
 						&& patternString.charAt(0) == ' ')
 					patternString = patternString.substring(1);
 
+				GerritChangeCache.Changes changes;
+				try {
+					changes = getChangesForContentAssist();
+				} catch (InvocationTargetException e) {
+					Activator.handleError(e.getMessage(), e, false);
+					return null;
+				} catch (InterruptedException e) {
+					return null;
+				}
+				if (changes == null)
+					return new IContentProposal[0];
+
+				if (DIGITS.matcher(patternString).matches()) {
+					// a prefix of the change number, use the index
+					for (int i : changes.findByPrefix(patternString,
+							MAX_PROPOSALS))
+						resultList.add(new ChangeContentProposal(new Change(
+								changes.getChangeNumber(i), changes
+										.getPatchSetNumber(i))));
+					return resultList.toArray(new IContentProposal[resultList
+							.size()]);
+				}
+
 				// we quote the string as it may contain spaces
 				// and other stuff colliding with the Pattern
 				patternString = Pattern.quote(patternString);
@@ -784,28 +813,18 @@ public IContentProposal[] getProposals(String contents, int position) {
 					pattern = null;
 				}
 
-				List<Change> proposals;
-				try {
-					proposals = getRefsForContentAssist();
-				} catch (InvocationTargetException e) {
-					Activator.handleError(e.getMessage(), e, false);
-					return null;
-				} catch (InterruptedException e) {
-					return null;
+				// newest first
+				for (int i = changes.size() - 1; i >= 0
+						&& resultList.size() < MAX_PROPOSALS; i--) {
+					int changeNumber = changes.getChangeNumber(i);
+					if (pattern != null
+							&& !pattern.matcher(Integer.toString(changeNumber))
+									.matches())
+						continue;
+					resultList.add(new ChangeContentProposal(new Change(
+							changeNumber, changes.getPatchSetNumber(i))));
 				}
 
-				if (proposals != null)
-					for (final Change ref : proposals) {
-						if (pattern != null
-								&& !pattern.matcher(
-										ref.getChangeNumber().toString())
-										.matches())
-							continue;
-						IContentProposal propsal = new ChangeContentProposal(
-								ref);
-						resultList.add(propsal);
-					}
-
 				return resultList.toArray(new IContentProposal[resultList
 						.size()]);
 			}
@@ -818,40 +837,24 @@ public IContentProposal[] getProposals(String contents, int position) {
 	}
 
 	private final static class Change {
-		private final String refName;
-
 		private final Integer changeNumber;
 
 		private final Integer patchSetNumber;
 
-		static Change fromRef(String refName) {
-			try {
-				if (!refName.startsWith("refs/changes/")) //$NON-NLS-1$
-					return null;
-				String[] tokens = refName.substring(13).split("/"); //$NON-NLS-1$
-				if (tokens.length != 3)
-					return null;
-				Integer changeNumber = Integer.valueOf(tokens[1]);
-				Integer patchSetNumber = Integer.valueOf(tokens[2]);
-				return new Change(refName, changeNumber, patchSetNumber);
-			} catch (NumberFormatException e) {
-				// if we can't parse this, just return null
-				return null;
-			} catch (IndexOutOfBoundsException e) {
-				// if we can't parse this, just return null
-				return null;
-			}
-		}
-
-		private Change(String refName, Integer changeNumber,
-				Integer patchSetNumber) {
-			this.refName = refName;
-			this.changeNumber = changeNumber;
-			this.patchSetNumber = patchSetNumber;
+		private Change(int changeNumber, int patchSetNumber) {
+			this.changeNumber = Integer.valueOf(changeNumber);
+			this.patchSetNumber = Integer.valueOf(patchSetNumber);
 		}
 
 		public String getRefName() {
-			return refName;
+			// Gerrit shards the changes by the last two digits
+			int shard = changeNumber.intValue() % 100;
+			StringBuilder name = new StringBuilder("refs/changes/"); //$NON-NLS-1$
+			if (shard < 10)
+				name.append('0');
+			name.append(shard).append('/').append(changeNumber).append('/')
+					.append(patchSetNumber);
+			return name.toString();
 		}
 
 		public Integer getChangeNumber() {
@@ -867,7 +870,7 @@ public Integer getPatchSetNumber() {
 		 */
 		@Override
 		public String toString() {
-			return refName;
+			return getRefName();
 		}
 	}
 
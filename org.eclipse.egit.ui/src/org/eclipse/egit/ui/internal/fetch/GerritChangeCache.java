@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.fetch;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.egit.core.op.ListRemoteOperation;
+import org.eclipse.egit.ui.Activator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FileUtils;
+
+/**
+ * The changes advertised by a Gerrit server, used for content assist when
+ * fetching a change.
+ * <p>
+ * Listing the refs of a Gerrit server with many changes takes long, so the
+ * changes are kept in memory for the rest of the session and stored in the
+ * plug-in's state location, where they can be read from when the dialog is
+ * opened next time, while the list is brought up to date in the background.
+ * Only the change and patch set numbers are kept, as sorted int arrays which
+ * allow to find the changes whose number starts with some digits by binary
+ * search.
+ * <p>
+ * Stored lists of servers which haven't been used for a while are deleted
+ * whenever a list is stored.
+ */
+class GerritChangeCache {
+
+	private static final String CACHE_FOLDER = "gerritChanges"; //$NON-NLS-1$
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String CHANGES_PREFIX = "refs/changes/"; //$NON-NLS-1$
+
+	/** Stored lists not used for this long are deleted, in milliseconds */
+	private static final long MAX_UNUSED_TIME = 30L * 24 * 60 * 60 * 1000;
+
+	/** Maximum number of servers whose changes are stored */
+	private static final int MAX_STORED_SERVERS = 20;
+
+	private static final Map<String, GerritChangeCache> CACHES = new HashMap<String, GerritChangeCache>();
+
+	private final String uri;
+
+	private volatile Changes changes;
+
+	private boolean loaded;
+
+	/**
+	 * @param uri
+	 *            the URI of the Gerrit server
+	 * @return the cache for the given server
+	 */
+	static GerritChangeCache get(String uri) {
+		synchronized (CACHES) {
+			GerritChangeCache cache = CACHES.get(uri);
+			if (cache == null) {
+				cache = new GerritChangeCache(uri);
+				CACHES.put(uri, cache);
+			}
+			return cache;
+		}
+	}
+
+	private GerritChangeCache(String uri) {
+		this.uri = uri;
+	}
+
+	/**
+	 * @return the changes known so far, or <code>null</code> if they have
+	 *         been neither loaded nor listed yet
+	 */
+	Changes getChanges() {
+		return changes;
+	}
+
+	/**
+	 * Reads the changes stored by an earlier session, unless the changes are
+	 * already known
+	 *
+	 * @return whether changes are known now
+	 */
+	synchronized boolean load() {
+		if (changes != null)
+			return true;
+		if (loaded)
+			return false;
+		loaded = true;
+		File file = getCacheFile();
+		if (file == null || !file.isFile())
+			return false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION)
+				return false;
+			int count = in.readInt();
+			int[] changeNumbers = new int[count];
+			int[] patchSetNumbers = new int[count];
+			for (int i = 0; i < count; i++) {
+				changeNumbers[i] = in.readInt();
+				patchSetNumbers[i] = in.readInt();
+			}
+			changes = new Changes(changeNumbers, patchSetNumbers);
+		} catch (IOException e) {
+			// the list will be fetched again
+			return false;
+		}
+		// keep the list from being deleted as unused
+		file.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Lists the changes on the server and stores them
+	 *
+	 * @param repository
+	 *            the repository used to connect to the server
+	 * @param timeout
+	 *            connection timeout in seconds
+	 * @param monitor
+	 * @throws InvocationTargetException
+	 * @throws InterruptedException
+	 */
+	synchronized void refresh(Repository repository, int timeout,
+			IProgressMonitor monitor) throws InvocationTargetException,
+			InterruptedException {
+		ListRemoteOperation listOp;
+		try {
+			listOp = new ListRemoteOperation(repository, new URIish(uri),
+					timeout);
+		} catch (URISyntaxException e) {
+			throw new InvocationTargetException(e);
+		}
+		listOp.run(monitor);
+		changes = Changes.fromRefs(listOp.getRemoteRefs());
+		loaded = true;
+		try {
+			store(changes);
+		} catch (IOException e) {
+			Activator.logError(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Makes sure the changes are known, listing them on the server if they
+	 * have not been stored by an earlier session
+	 *
+	 * @param repository
+	 * @param timeout
+	 * @param monitor
+	 * @return the changes
+	 * @throws InvocationTargetException
+	 * @throws InterruptedException
+	 */
+	synchronized Changes loadOrRefresh(Repository repository, int timeout,
+			IProgressMonitor monitor) throws InvocationTargetException,
+			InterruptedException {
+		if (!load())
+			refresh(repository, timeout, monitor);
+		return changes;
+	}
+
+	private void store(Changes toStore) throws IOException {
+		File file = getCacheFile();
+		if (file == null)
+			return;
+		FileUtils.mkdirs(file.getParentFile(), true);
+		File tmp = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(toStore.size());
+			for (int i = 0; i < toStore.size(); i++) {
+				out.writeInt(toStore.changeNumbers[i]);
+				out.writeInt(toStore.patchSetNumbers[i]);
+			}
+		}
+		FileUtils.delete(file, FileUtils.SKIP_MISSING);
+		FileUtils.rename(tmp, file);
+		deleteUnused(file.getParentFile());
+	}
+
+	/**
+	 * Deletes the lists of servers not used for a long time, and the least
+	 * recently used lists if there are too many
+	 *
+	 * @param folder
+	 */
+	private static void deleteUnused(File folder) {
+		File[] files = folder.listFiles();
+		if (files == null)
+			return;
+		Arrays.sort(files, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				long m1 = f1.lastModified();
+				long m2 = f2.lastModified();
+				return m1 > m2 ? -1 : m1 == m2 ? 0 : 1;
+			}
+		});
+		long oldest = System.currentTimeMillis() - MAX_UNUSED_TIME;
+		for (int i = 0; i < files.length; i++) {
+			if (i < MAX_STORED_SERVERS && files[i].lastModified() >= oldest)
+				continue;
+			try {
+				FileUtils.delete(files[i], FileUtils.SKIP_MISSING);
+			} catch (IOException e) {
+				// try again next time
+			}
+		}
+	}
+
+	private File getCacheFile() {
+		Activator plugin = Activator.getDefault();
+		if (plugin == null)
+			return null;
+		MessageDigest md = Constants.newMessageDigest();
+		String name = ObjectId.fromRaw(md.digest(Constants.encode(uri)))
+				.name();
+		return plugin.getStateLocation().append(CACHE_FOLDER).append(name)
+				.toFile();
+	}
+
+	/**
+	 * Immutable list of changes, sorted by change and patch set number
+	 */
+	static class Changes {
+
+		private final int[] changeNumbers;
+
+		private final int[] patchSetNumbers;
+
+		private Changes(int[] changeNumbers, int[] patchSetNumbers) {
+			this.changeNumbers = changeNumbers;
+			this.patchSetNumbers = patchSetNumbers;
+		}
+
+		static Changes fromRefs(Collection<Ref> refs) {
+			long[] keys = new long[refs.size()];
+			int count = 0;
+			for (Ref ref : refs) {
+				String name = ref.getName();
+				if (!name.startsWith(CHANGES_PREFIX))
+					continue;
+				String[] tokens = name.substring(CHANGES_PREFIX.length())
+						.split("/"); //$NON-NLS-1$
+				if (tokens.length != 3)
+					continue;
+				try {
+					long change = Integer.parseInt(tokens[1]);
+					long patchSet = Integer.parseInt(tokens[2]);
+					if (change >= 0 && patchSet >= 0)
+						keys[count++] = change << 32 | patchSet;
+				} catch (NumberFormatException e) {
+					// not a change ref
+				}
+			}
+			Arrays.sort(keys, 0, count);
+			int[] changeNumbers = new int[count];
+			int[] patchSetNumbers = new int[count];
+			for (int i = 0; i < count; i++) {
+				changeNumbers[i] = (int) (keys[i] >>> 32);
+				patchSetNumbers[i] = (int) keys[i];
+			}
+			return new Changes(changeNumbers, patchSetNumbers);
+		}
+
+		/**
+		 * @return the number of patch sets
+		 */
+		int size() {
+			return changeNumbers.length;
+		}
+
+		/**
+		 * @param index
+		 * @return the change number of the patch set at the given index
+		 */
+		int getChangeNumber(int index) {
+			return changeNumbers[index];
+		}
+
+		/**
+		 * @param index
+		 * @return the number of the patch set at the given index
+		 */
+		int getPatchSetNumber(int index) {
+			return patchSetNumbers[index];
+		}
+
+		/**
+		 * Finds the patch sets of the changes whose number starts with the
+		 * given digits, newest first
+		 *
+		 * @param digits
+		 *            decimal digits, may be empty
+		 * @param limit
+		 *            maximum number of patch sets to return
+		 * @return indexes of the matching patch sets
+		 */
+		int[] findByPrefix(String digits, int limit) {
+			int[] result = new int[Math.min(limit, size())];
+			if (result.length == 0)
+				return result;
+			int count = 0;
+			if (digits.length() == 0) {
+				for (int i = size() - 1; i >= 0 && count < limit; i--)
+					result[count++] = i;
+				return result;
+			}
+			long max = changeNumbers[size() - 1];
+			// longer prefixes can't match and may not even fit into a long
+			if (digits.charAt(0) == '0'
+					|| digits.length() > Long.toString(max).length())
+				return new int[0];
+			long prefix = Long.parseLong(digits);
+			if (prefix > max)
+				return new int[0];
+			// numbers with more digits are larger, so the ranges of the
+			// longer numbers come first
+			long scale = 1;
+			while (prefix * scale * 10 <= max)
+				scale *= 10;
+			for (; scale >= 1 && count < limit; scale /= 10) {
+				long low = prefix * scale;
+				long high = Math.min((prefix + 1) * scale - 1, max);
+				int end = upperBound(high);
+				int start = upperBound(low - 1);
+				for (int i = end - 1; i >= start && count < limit; i--)
+					result[count++] = i;
+			}
+			return Arrays.copyOf(result, count);
+		}
+
+		/**
+		 * @param changeNumber
+		 * @return index of the first patch set with a larger change number
+		 */
+		private int upperBound(long changeNumber) {
+			int low = 0;
+			int high = changeNumbers.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (changeNumbers[mid] <= changeNumber)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+	}
+}
@@ -15,6 +15,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -95,6 +96,8 @@ public class CommitFileDiffViewer extends TableViewer {
 
 	private TreeWalk walker;
 
+	private FileDiffPrefetcher prefetcher;
+
 	private Clipboard clipboard;
 
 	private IAction selectAll;
@@ -193,6 +196,8 @@ public void selectionChanged(SelectionChangedEvent event) {
 			@Override
 			public void widgetDisposed(final DisposeEvent e) {
 				clipboard.dispose();
+				if (prefetcher != null)
+					prefetcher.dispose();
 			}
 		});
 
@@ -654,6 +659,34 @@ Repository getRepository() {
 	public void setTreeWalk(Repository repository, TreeWalk walk) {
 		db = repository;
 		walker = walk;
+		if (prefetcher != null
+				&& (walk == null || prefetcher.getRepository() != repository)) {
+			prefetcher.dispose();
+			prefetcher = null;
+		}
+		if (prefetcher == null && walk != null && repository != null)
+			prefetcher = new FileDiffPrefetcher(repository);
+	}
+
+	/**
+	 * @return the prefetcher caching the file diffs of the commits shown in
+	 *         this viewer, or <code>null</code> if no tree walk has been set
+	 */
+	FileDiffPrefetcher getPrefetcher() {
+		return prefetcher;
+	}
+
+	/**
+	 * Computes the file diffs of the given commits in the background, so that
+	 * they can be shown without delay when one of them becomes the input of
+	 * this viewer.
+	 *
+	 * @param commits
+	 *            commits in order of decreasing likelihood of being shown next
+	 */
+	void prefetch(Collection<? extends RevCommit> commits) {
+		if (prefetcher != null)
+			prefetcher.prefetch(commits);
 	}
 
 	private void doSelectAll() {
@@ -692,6 +725,8 @@ private void doCopy() {
 	 * @param interestingPaths
 	 */
 	void setInterestingPaths(Set<String> interestingPaths) {
+		if (prefetcher != null)
+			prefetcher.setInterestingPaths(interestingPaths);
 		((FileDiffContentProvider) getContentProvider()).setInterestingPaths(interestingPaths);
 	}
 
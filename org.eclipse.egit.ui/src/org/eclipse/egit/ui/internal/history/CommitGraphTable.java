@@ -21,8 +21,10 @@
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.commands.Command;
@@ -126,6 +128,9 @@ static Font highlightFont() {
 
 	private static final String LINESEP = System.getProperty("line.separator"); //$NON-NLS-1$
 
+	/** Number of commits above and below the selection to prefetch */
+	private static final int PREFETCH_NEIGHBORS = 2;
+
 	private final TableViewer table;
 
 	private Clipboard clipboard;
@@ -140,9 +145,6 @@ static Font highlightFont() {
 
 	private int allCommitsLength = 0;
 
-	// used for resolving PlotCommit objects by ids
-	private HashMap<String, PlotCommit> commitsMap = null;
-
 	private RevFlag highlight;
 
 	private HistoryPageInput input;
@@ -247,6 +249,7 @@ public void widgetDisposed(DisposeEvent e) {
 				if (allCommits != null)
 					allCommits.dispose();
 				hoverManager.dispose();
+				renderer.dispose();
 			}
 		});
 
@@ -333,8 +336,13 @@ void selectCommitStored(final RevCommit c) {
 	void selectCommit(final RevCommit c) {
 		if (c instanceof PlotCommit)
 			table.setSelection(new StructuredSelection(c), true);
-		else if (commitsMap != null) {
-			PlotCommit swtCommit = commitsMap.get(c.getId().name());
+		else if (allCommits != null && allCommitsLength > 0) {
+			PlotCommit swtCommit = null;
+			synchronized (allCommits) {
+				int row = allCommits.indexOf(c);
+				if (row >= 0 && row < allCommitsLength)
+					swtCommit = allCommits.get(row);
+			}
 			if (swtCommit == null && tableLoader != null)
 				tableLoader.loadCommit(c);
 			if (swtCommit != null)
@@ -350,6 +358,36 @@ void removeSelectionChangedListener(final ISelectionChangedListener l) {
 		table.removePostSelectionChangedListener(l);
 	}
 
+	/**
+	 * @return the commits whose details are likely to be shown next: the
+	 *         neighbors of the selected commit followed by the commits
+	 *         currently scrolled into view
+	 */
+	List<RevCommit> getPrefetchCandidates() {
+		List<RevCommit> candidates = new ArrayList<RevCommit>();
+		if (allCommits == null)
+			return candidates;
+		Table rawTable = table.getTable();
+		int selected = rawTable.getSelectionIndex();
+		int top = rawTable.getTopIndex();
+		int visible = rawTable.getClientArea().height
+				/ Math.max(1, rawTable.getItemHeight()) + 1;
+		synchronized (allCommits) {
+			int size = allCommits.size();
+			if (selected >= 0)
+				for (int i = 1; i <= PREFETCH_NEIGHBORS; i++) {
+					if (selected + i < size)
+						candidates.add(allCommits.get(selected + i));
+					if (selected - i >= 0 && selected - i < size)
+						candidates.add(allCommits.get(selected - i));
+				}
+			for (int i = Math.max(0, top); i < top + visible && i < size; i++)
+				if (i != selected)
+					candidates.add(allCommits.get(i));
+		}
+		return candidates;
+	}
+
 	void setRelativeDate(boolean booleanValue) {
 		graphLabelProvider.setRelativeDate(booleanValue);
 	}
@@ -393,14 +431,12 @@ void setInput(final RevFlag hFlag, final SWTCommitList list,
 			oldList.dispose();
 		highlight = hFlag;
 		allCommits = list;
-		int newAllCommitsLength = allCommits.size();
+		// refs may have changed
+		renderer.invalidateLabels();
 		table.setInput(asArray);
-		if (asArray != null && asArray.length > 0) {
-			if (oldList != list || allCommitsLength < newAllCommitsLength)
-				initCommitsMap();
-		} else
+		if (asArray == null || asArray.length == 0)
 			table.getTable().deselectAll();
-		allCommitsLength = newAllCommitsLength;
+		allCommitsLength = asArray != null ? asArray.length : 0;
 		if (commitToShow != null)
 			selectCommit(commitToShow);
 		if (keepPosition)
@@ -413,17 +449,6 @@ void setHistoryPageInput(HistoryPageInput input) {
 			menuListener.setInput(input);
 	}
 
-	private void initCommitsMap() {
-		commitsMap = new HashMap<String, PlotCommit>();
-		// ensure that filling (GenerateHistoryJob) and reading (here)
-		// the commit list is thread safe
-		synchronized (allCommits) {
-			for (PlotCommit commit : allCommits)
-				if (commit != null)
-					commitsMap.put(commit.getId().name(), commit);
-		}
-	}
-
 	private void createColumns(final Table rawTable, final TableLayout layout) {
 		final TableColumn commitId = new TableColumn(rawTable, SWT.NONE);
 		commitId.setResizable(true);
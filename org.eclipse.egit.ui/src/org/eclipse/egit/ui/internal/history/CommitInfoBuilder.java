@@ -20,12 +20,13 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.egit.core.internal.util.PeeledRefIndex;
+import org.eclipse.egit.core.internal.util.ReachabilityIndex;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIPreferences;
 import org.eclipse.egit.ui.internal.UIText;
@@ -34,7 +35,6 @@
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -73,6 +73,8 @@ public class CommitInfoBuilder {
 
 	private final Collection<Ref> allRefs;
 
+	private int refsOffset;
+
 	/**
 	 * @param db the repository
 	 * @param commit the commit the info should be shown for
@@ -108,6 +110,23 @@ public void setColors(Color linkColor, Color darkGrey) {
 	 */
 	public String format(final List<StyleRange> styles,
 			IProgressMonitor monitor) throws IOException {
+		return format(styles, monitor, true);
+	}
+
+	/**
+	 * Format the commit info, optionally leaving out the branches and tags
+	 * which may take long to compute in large repositories
+	 *
+	 * @param styles styles for text formatting
+	 * @param monitor
+	 * @param withRefs
+	 *            whether to include the branches and tags containing the
+	 *            commit and the nearest tags
+	 * @return formatted commit info
+	 * @throws IOException
+	 */
+	public String format(final List<StyleRange> styles,
+			IProgressMonitor monitor, boolean withRefs) throws IOException {
 		boolean trace = GitTraceLocation.HISTORYVIEW.isActive();
 		if (trace)
 			GitTraceLocation.getTrace().traceEntry(
@@ -145,28 +164,87 @@ public String format(final List<StyleRange> styles,
 
 		for (int i = 0; i < commit.getParentCount(); i++) {
 			final SWTCommit p = (SWTCommit)commit.getParent(i);
-			p.parseBody();
 			d.append(UIText.CommitMessageViewer_parent);
 			d.append(": "); //$NON-NLS-1$
 			addLink(d, styles, p);
 			d.append(" ("); //$NON-NLS-1$
-			d.append(p.getShortMessage());
+			d.append(getShortMessage(p));
 			d.append(")"); //$NON-NLS-1$
 			d.append(LF);
 		}
 
 		for (int i = 0; i < commit.getChildCount(); i++) {
 			final SWTCommit p = (SWTCommit)commit.getChild(i);
-			p.parseBody();
 			d.append(UIText.CommitMessageViewer_child);
 			d.append(": "); //$NON-NLS-1$
 			addLink(d, styles, p);
 			d.append(" ("); //$NON-NLS-1$
-			d.append(p.getShortMessage());
+			d.append(getShortMessage(p));
 			d.append(")"); //$NON-NLS-1$
 			d.append(LF);
 		}
 
+		refsOffset = d.length();
+		if (withRefs)
+			formatRefs(d, styles, monitor);
+
+		makeGrayText(d, styles);
+		d.append(LF);
+		String msg = commit.getFullMessage();
+		Pattern p = Pattern.compile("\n([A-Z](?:[A-Za-z]+-)+by: [^\n]+)"); //$NON-NLS-1$
+		if (fill) {
+			Matcher spm = p.matcher(msg);
+			if (spm.find()) {
+				String subMsg = msg.substring(0, spm.end());
+				msg = subMsg.replaceAll("([\\w.,; \t])\n(\\w)", "$1 $2") //$NON-NLS-1$ //$NON-NLS-2$
+						+ msg.substring(spm.end());
+			}
+		}
+		int h0 = d.length();
+		d.append(msg);
+		if (!msg.endsWith(LF))
+			d.append(LF);
+
+		Matcher matcher = p.matcher(msg);
+		while (matcher.find()) {
+			styles.add(new StyleRange(h0 + matcher.start(), matcher.end()
+					- matcher.start(), null, null, SWT.ITALIC));
+		}
+
+		if (trace)
+			GitTraceLocation.getTrace().traceExit(
+					GitTraceLocation.HISTORYVIEW.getLocation());
+		return d.toString();
+	}
+
+	/**
+	 * @return the offset in the text returned by the last call of
+	 *         {@link #format(List, IProgressMonitor, boolean)} at which the
+	 *         branches and tags are or would be
+	 */
+	public int getRefsOffset() {
+		return refsOffset;
+	}
+
+	/**
+	 * Format only the branches and tags, e.g. to insert them into commit info
+	 * formatted without them at {@link #getRefsOffset()}
+	 *
+	 * @param styles
+	 *            styles for text formatting, relative to the returned text
+	 * @param monitor
+	 * @return the formatted branches and tags, may be empty
+	 */
+	public String formatRefs(final List<StyleRange> styles,
+			IProgressMonitor monitor) {
+		final StringBuilder d = new StringBuilder();
+		formatRefs(d, styles, monitor);
+		makeGrayText(d, styles);
+		return d.toString();
+	}
+
+	private void formatRefs(StringBuilder d, List<StyleRange> styles,
+			IProgressMonitor monitor) {
 		if(Activator.getDefault().getPreferenceStore().getBoolean(
 				UIPreferences.HISTORY_SHOW_BRANCH_SEQUENCE)) {
 			try (RevWalk rw = new RevWalk(db)) {
@@ -236,34 +314,6 @@ public String format(final List<StyleRange> styles,
 				Activator.logError(e.getMessage(), e);
 			}
 		}
-
-		makeGrayText(d, styles);
-		d.append(LF);
-		String msg = commit.getFullMessage();
-		Pattern p = Pattern.compile("\n([A-Z](?:[A-Za-z]+-)+by: [^\n]+)"); //$NON-NLS-1$
-		if (fill) {
-			Matcher spm = p.matcher(msg);
-			if (spm.find()) {
-				String subMsg = msg.substring(0, spm.end());
-				msg = subMsg.replaceAll("([\\w.,; \t])\n(\\w)", "$1 $2") //$NON-NLS-1$ //$NON-NLS-2$
-						+ msg.substring(spm.end());
-			}
-		}
-		int h0 = d.length();
-		d.append(msg);
-		if (!msg.endsWith(LF))
-			d.append(LF);
-
-		Matcher matcher = p.matcher(msg);
-		while (matcher.find()) {
-			styles.add(new StyleRange(h0 + matcher.start(), matcher.end()
-					- matcher.start(), null, null, SWT.ITALIC));
-		}
-
-		if (trace)
-			GitTraceLocation.getTrace().traceExit(
-					GitTraceLocation.HISTORYVIEW.getLocation());
-		return d.toString();
 	}
 
 	private void addLink(final StringBuilder d, String linkLabel,
@@ -283,6 +333,16 @@ private void addLink(final StringBuilder d, final List<StyleRange> styles,
 		addLink(d, to.getId().name(), styles, to);
 	}
 
+	private static String getShortMessage(SWTCommit c) throws IOException {
+		// the UI thread may discard the body of commits not shown anymore
+		c.pinBody();
+		try {
+			return c.getShortMessage();
+		} finally {
+			c.unpinBody();
+		}
+	}
+
 	/**
 	 * @param commit
 	 * @param allRefs
@@ -296,6 +356,11 @@ private static List<Ref> getBranches(RevCommit commit,
 			Collection<Ref> allRefs, Repository db)
 			throws MissingObjectException, IncorrectObjectTypeException,
 			IOException {
+		ReachabilityIndex index = ReachabilityIndex.get(db);
+		List<Ref> branches = index != null ? index.findRefsContaining(commit,
+				allRefs) : null;
+		if (branches != null)
+			return branches;
 		try (RevWalk revWalk = new RevWalk(db)) {
 			revWalk.setRetainBody(false);
 			return RevWalkUtils.findBranchesReachableFrom(commit, revWalk, allRefs);
@@ -342,16 +407,15 @@ private void makeGrayText(StringBuilder d, List<StyleRange> styles) {
 
 	private String getTagsString() {
 		StringBuilder sb = new StringBuilder();
-		Map<String, Ref> tagsMap = db.getTags();
-		for (Entry<String, Ref> tagEntry : tagsMap.entrySet()) {
-			ObjectId target = tagEntry.getValue().getPeeledObjectId();
-			if (target == null)
-				target = tagEntry.getValue().getObjectId();
-			if (target != null && target.equals(commit)) {
+		try {
+			for (Ref tag : PeeledRefIndex.get(db).getRefs(commit,
+					Constants.R_TAGS)) {
 				if (sb.length() > 0)
 					sb.append(", "); //$NON-NLS-1$
-				sb.append(tagEntry.getKey());
+				sb.append(Repository.shortenRefName(tag.getName()));
 			}
+		} catch (IOException e) {
+			Activator.logError(e.getMessage(), e);
 		}
 		return sb.toString();
 	}
@@ -372,6 +436,12 @@ private Ref getNextTag(boolean searchDescendant, IProgressMonitor monitor)
 			throws IOException, OperationCanceledException {
 		if (monitor.isCanceled())
 			throw new OperationCanceledException();
+		ReachabilityIndex index = ReachabilityIndex.get(db);
+		if (index != null && index.contains(commit))
+			return searchDescendant ? index.findFollowingTag(commit) : index
+					.findPrecedingTag(commit);
+		// the index is still being built or the commit is not reachable from
+		// any ref, fall back to walking
 		try (RevWalk revWalk = new RevWalk(db)) {
 			revWalk.setRetainBody(false);
 			Map<String, Ref> tagsMap = db.getTags();
@@ -16,7 +16,9 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
@@ -34,6 +36,7 @@
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.preference.IPersistentPreferenceStore;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DefaultTextDoubleClickStrategy;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
@@ -45,6 +48,7 @@
 import org.eclipse.jgit.events.RefsChangedEvent;
 import org.eclipse.jgit.events.RefsChangedListener;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefDatabase;
 import org.eclipse.jgit.lib.Repository;
@@ -81,6 +85,9 @@ class CommitMessageViewer extends SourceViewer {
 	private static final Cursor SYS_LINK_CURSOR = PlatformUI.getWorkbench()
 			.getDisplay().getSystemCursor(SWT.CURSOR_HAND);
 
+	/** number of formatted commits to keep */
+	private static final int MAX_CACHED_RESULTS = 50;
+
 	private final Cursor sys_normalCursor;
 
 	// notified when clicking on a link in the message (branch, commit...)
@@ -100,6 +107,27 @@ class CommitMessageViewer extends SourceViewer {
 
 	private FormatJob formatJob;
 
+	// the job whose partial result is shown; UI thread only
+	private FormatJob partialResultJob;
+
+	// formatted commit infos, least recently shown first; UI thread only
+	private final Map<ObjectId, FormatResult> formatCache = new LinkedHashMap<ObjectId, FormatResult>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<ObjectId, FormatResult> eldest) {
+			return size() > MAX_CACHED_RESULTS;
+		}
+	};
+
+	// incremented when the refs change, which invalidates the cache
+	private volatile int refsGeneration;
+
+	// the refs generation of the cached results; UI thread only
+	private int cacheGeneration;
+
 	private final IWorkbenchPartSite partSite;
 
 	private List<Ref> allRefs;
@@ -167,6 +195,7 @@ public void propertyChange(PropertyChangeEvent event) {
 				if (property.equals(UIPreferences.HISTORY_SHOW_TAG_SEQUENCE)
 						|| property.equals(
 								UIPreferences.HISTORY_SHOW_BRANCH_SEQUENCE)) {
+					formatCache.clear();
 					format();
 					return;
 				}
@@ -271,7 +300,8 @@ protected void apply(boolean value) {
 
 	}
 
-	void addDoneListenerToFormatJob() {
+	void addDoneListenerToFormatJob(final ObjectId commitId,
+			final int generation) {
 		formatJob.addJobChangeListener(new JobChangeAdapter() {
 
 			@Override
@@ -285,7 +315,17 @@ public void done(IJobChangeEvent event) {
 				text.getDisplay().asyncExec(new Runnable() {
 					@Override
 					public void run() {
-						applyFormatJobResultInUI(job.getFormatResult());
+						if (job != formatJob)
+							return;
+						FormatResult result = job.getFormatResult();
+						if (partialResultJob == job)
+							insertRefsInUI(result);
+						else
+							applyFormatJobResultInUI(result);
+						partialResultJob = null;
+						if (generation == refsGeneration
+								&& generation == cacheGeneration)
+							formatCache.put(commitId, result);
 					}
 				});
 			}
@@ -339,6 +379,7 @@ public void setInput(final Object input) {
 						@Override
 						public void onRefsChanged(RefsChangedEvent event) {
 							allRefs = getBranches(db);
+							refsGeneration++;
 						}
 					});
 		}
@@ -350,7 +391,15 @@ public Object getInput() {
 		return commit;
 	}
 
+	/**
+	 * Sets the repository of the commits shown. The history page calls this
+	 * for every new walk, also in the same repository; the cached results
+	 * link to commits of the previous walk and are dropped.
+	 *
+	 * @param repository
+	 */
 	void setRepository(final Repository repository) {
+		formatCache.clear();
 		this.db = repository;
 	}
 
@@ -379,6 +428,16 @@ private void format() {
 		}
 		if (formatJob != null && formatJob.getState() != Job.NONE)
 			formatJob.cancel();
+		if (cacheGeneration != refsGeneration) {
+			formatCache.clear();
+			cacheGeneration = refsGeneration;
+		}
+		FormatResult cached = formatCache.get(commit);
+		if (cached != null) {
+			formatJob = null;
+			applyFormatJobResultInUI(cached);
+			return;
+		}
 		scheduleFormatJob();
 	}
 
@@ -389,8 +448,26 @@ private void scheduleFormatJob() {
 		FormatJob.FormatRequest formatRequest = new FormatJob.FormatRequest(
 				getRepository(), commit, fill, SYS_LINKCOLOR, SYS_DARKGRAY,
 				allRefs);
-		formatJob = new FormatJob(formatRequest);
-		addDoneListenerToFormatJob();
+		formatJob = new FormatJob(formatRequest,
+				new FormatJob.PartialResultListener() {
+					@Override
+					public void partialResult(final FormatJob job,
+							final FormatResult result) {
+						StyledText text = getTextWidget();
+						if (text == null || text.isDisposed())
+							return;
+						text.getDisplay().asyncExec(new Runnable() {
+							@Override
+							public void run() {
+								if (job == formatJob) {
+									applyFormatJobResultInUI(result);
+									partialResultJob = job;
+								}
+							}
+						});
+					}
+				});
+		addDoneListenerToFormatJob(commit.copy(), cacheGeneration);
 		siteService.schedule(formatJob, 0 /* now */, true /*
 														 * use the half-busy
 														 * cursor in the part
@@ -405,8 +482,12 @@ private void applyFormatJobResultInUI(FormatResult formatResult) {
 		setDocument(new Document(formatResult.getCommitInfo()));
 
 		// Set style ranges from format job. We know that they are already
-		// ordered and don't overlap.
-		text.setStyleRanges(formatResult.getStyleRange());
+		// ordered and don't overlap. The text widget may modify them, but
+		// the result may be cached.
+		StyleRange[] ranges = formatResult.getStyleRange().clone();
+		for (int i = 0; i < ranges.length; i++)
+			ranges[i] = (StyleRange) ranges[i].clone();
+		text.setStyleRanges(ranges);
 
 		// Apply additional styles. If we combined them with the above style
 		// ranges and set them all at once, we would have to manually remove
@@ -415,6 +496,30 @@ private void applyFormatJobResultInUI(FormatResult formatResult) {
 				fHyperlinkDetectors);
 	}
 
+	/**
+	 * Inserts the branches and tags of a complete result into the partial
+	 * result shown, keeping the scroll position and the selection
+	 */
+	private void insertRefsInUI(FormatResult formatResult) {
+		StyledText text = getTextWidget();
+		if (!UIUtils.isUsable(text))
+			return;
+		String refs = formatResult.getRefsInfo();
+		if (refs.length() == 0)
+			return;
+		int offset = formatResult.getRefsOffset();
+		try {
+			getDocument().replace(offset, 0, refs);
+		} catch (BadLocationException e) {
+			applyFormatJobResultInUI(formatResult);
+			return;
+		}
+		StyleRange[] ranges = formatResult.getRefsStyleRange().clone();
+		for (int i = 0; i < ranges.length; i++)
+			ranges[i] = (StyleRange) ranges[i].clone();
+		text.replaceStyleRanges(offset, refs.length(), ranges);
+	}
+
 	static final class ObjectLink extends StyleRange {
 		RevCommit targetCommit;
 
@@ -441,6 +546,7 @@ public int hashCode() {
 
 	private void setFill(boolean fill) {
 		this.fill = fill;
+		formatCache.clear();
 		format();
 	}
 
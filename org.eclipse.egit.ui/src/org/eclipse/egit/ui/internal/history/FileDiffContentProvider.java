@@ -40,16 +40,20 @@ public class FileDiffContentProvider implements IStructuredContentProvider {
 
 	private Repository repo;
 
+	private FileDiffPrefetcher prefetcher;
+
 	@Override
 	public void inputChanged(final Viewer newViewer, final Object oldInput,
 			final Object newInput) {
 		if (newInput != null) {
 			repo = ((CommitFileDiffViewer) newViewer).getRepository();
 			walk = ((CommitFileDiffViewer) newViewer).getTreeWalk();
+			prefetcher = ((CommitFileDiffViewer) newViewer).getPrefetcher();
 			commit = (RevCommit) newInput;
 		} else {
 			repo = null;
 			walk = null;
+			prefetcher = null;
 			commit = null;
 		}
 		diff = null;
@@ -70,9 +74,13 @@ void setInterestingPaths(Set<String> interestingPaths) {
 
 	@Override
 	public Object[] getElements(final Object inputElement) {
+		if (diff == null && prefetcher != null && commit != null)
+			diff = prefetcher.get(commit);
 		if (diff == null && walk != null && commit != null)
 			try {
 				diff = FileDiff.compute(repo, walk, commit, markTreeFilter);
+				if (prefetcher != null)
+					prefetcher.put(commit, diff);
 			} catch (IOException err) {
 				Activator.handleError(NLS.bind(UIText.FileDiffContentProvider_errorGettingDifference,
 						commit.getId()), err, false);
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.history;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.ui.JobFamilies;
+import org.eclipse.egit.ui.internal.UIText;
+import org.eclipse.egit.ui.internal.trace.GitTraceLocation;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Computes the {@link FileDiff}s of commits the user is likely to look at next
+ * (the neighbors of the selected commit and the commits scrolled into view) in
+ * a background job, and keeps the results of the most recently used commits in
+ * a size-bounded cache keyed by commit id, parent ids and interesting paths.
+ * <p>
+ * The parents are part of the key because the commits of a filtered history
+ * have rewritten parents, and their file diffs differ from the ones against
+ * the real parents. Prefetched diffs are computed against the parents of the
+ * given commits, i.e. against the same parents the viewer uses.
+ * <p>
+ * The prefetcher uses its own {@link RevWalk} and {@link TreeWalk} since the
+ * walks of the history page must only be used from the UI thread.
+ */
+class FileDiffPrefetcher {
+
+	private static final int CACHE_SIZE = 200;
+
+	private final Repository repository;
+
+	private final Map<Key, FileDiff[]> cache = new LinkedHashMap<Key, FileDiff[]>(
+			CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, FileDiff[]> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	// guarded by itself
+	private final LinkedList<Key> queue = new LinkedList<Key>();
+
+	private volatile Set<String> interestingPaths;
+
+	private final Job job;
+
+	private boolean trace = GitTraceLocation.HISTORYVIEW.isActive();
+
+	FileDiffPrefetcher(Repository repository) {
+		this.repository = repository;
+		job = new Job(UIText.FileDiffPrefetcher_JobName) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return prefetch(monitor);
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				if (JobFamilies.HISTORY_FILE_DIFF_PREFETCH.equals(family))
+					return true;
+				return super.belongsTo(family);
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+	}
+
+	Repository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * @param paths
+	 *            the interesting paths used for marking the file diffs, or
+	 *            <code>null</code> if no path is interesting
+	 */
+	void setInterestingPaths(Set<String> paths) {
+		if (paths != null)
+			interestingPaths = Collections
+					.unmodifiableSet(new HashSet<String>(paths));
+		else
+			interestingPaths = null;
+	}
+
+	/**
+	 * @param commit
+	 * @return the cached file diffs of the given commit for the current
+	 *         interesting paths, or <code>null</code> if they have not been
+	 *         computed yet
+	 */
+	FileDiff[] get(RevCommit commit) {
+		Key key = new Key(commit, interestingPaths);
+		synchronized (cache) {
+			return cache.get(key);
+		}
+	}
+
+	/**
+	 * Caches file diffs computed elsewhere
+	 *
+	 * @param commit
+	 * @param diffs
+	 */
+	void put(RevCommit commit, FileDiff[] diffs) {
+		Key key = new Key(commit, interestingPaths);
+		synchronized (cache) {
+			cache.put(key, diffs);
+		}
+	}
+
+	/**
+	 * Replaces the pending prefetch requests with the given commits and starts
+	 * computing their file diffs in the background. Commits already in the
+	 * cache are skipped.
+	 *
+	 * @param commits
+	 *            commits in order of decreasing likelihood of being shown next
+	 */
+	void prefetch(Collection<? extends RevCommit> commits) {
+		synchronized (queue) {
+			queue.clear();
+			Set<String> paths = interestingPaths;
+			for (RevCommit commit : commits) {
+				if (commit == null)
+					continue;
+				Key key = new Key(commit, paths);
+				synchronized (cache) {
+					if (cache.containsKey(key))
+						continue;
+				}
+				queue.add(key);
+			}
+			if (queue.isEmpty())
+				return;
+		}
+		job.schedule();
+	}
+
+	void dispose() {
+		synchronized (queue) {
+			queue.clear();
+		}
+		job.cancel();
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	private IStatus prefetch(IProgressMonitor monitor) {
+		long start = System.currentTimeMillis();
+		int computed = 0;
+		try (RevWalk walk = new RevWalk(repository);
+				TreeWalk treeWalk = new TreeWalk(repository)) {
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(TreeFilter.ANY_DIFF);
+			while (!monitor.isCanceled()) {
+				Key key;
+				synchronized (queue) {
+					key = queue.poll();
+				}
+				if (key == null)
+					break;
+				Set<String> paths = interestingPaths;
+				if (paths == null ? key.paths != null : !paths
+						.equals(key.paths))
+					// requested for other paths, no longer of interest
+					continue;
+				synchronized (cache) {
+					if (cache.containsKey(key))
+						continue;
+				}
+				RevCommit commit = walk.parseCommit(key.id);
+				RevCommit[] parents = new RevCommit[key.parents.length];
+				for (int i = 0; i < parents.length; i++)
+					parents[i] = walk.parseCommit(key.parents[i]);
+				TreeFilter markTreeFilter = key.paths != null ? PathFilterGroup
+						.createFromStrings(key.paths) : TreeFilter.ALL;
+				FileDiff[] diffs = FileDiff.compute(repository, treeWalk,
+						commit, parents, markTreeFilter);
+				synchronized (cache) {
+					cache.put(key, diffs);
+				}
+				computed++;
+			}
+		} catch (IOException e) {
+			// the diffs are computed again when the commit is shown
+			return Status.OK_STATUS;
+		}
+		if (trace)
+			GitTraceLocation.getTrace().trace(
+					GitTraceLocation.HISTORYVIEW.getLocation(),
+					"Prefetched file diffs of " + computed + " commits in " //$NON-NLS-1$ //$NON-NLS-2$
+							+ (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$
+		if (monitor.isCanceled())
+			return Status.CANCEL_STATUS;
+		return Status.OK_STATUS;
+	}
+
+	private static final class Key {
+		final ObjectId id;
+
+		final ObjectId[] parents;
+
+		final Set<String> paths;
+
+		Key(RevCommit commit, Set<String> paths) {
+			this.id = commit.copy();
+			this.parents = new ObjectId[commit.getParentCount()];
+			for (int i = 0; i < parents.length; i++)
+				parents[i] = commit.getParent(i).copy();
+			this.paths = paths;
+		}
+
+		@Override
+		public int hashCode() {
+			return (id.hashCode() * 31 + Arrays.hashCode(parents)) * 31
+					+ (paths == null ? 0 : paths.hashCode());
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			if (!id.equals(other.id) || !Arrays.equals(parents, other.parents))
+				return false;
+			return paths == null ? other.paths == null : paths
+					.equals(other.paths);
+		}
+	}
+}
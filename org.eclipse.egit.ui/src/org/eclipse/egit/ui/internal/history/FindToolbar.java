@@ -21,6 +21,7 @@
 import org.eclipse.egit.ui.internal.UIIcons;
 import org.eclipse.egit.ui.internal.UIText;
 import org.eclipse.jface.preference.IPersistentPreferenceStore;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevFlag;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
@@ -91,6 +92,8 @@ public class FindToolbar extends Composite {
 
 	private SWTCommit[] fileRevisions;
 
+	private Repository repository;
+
 	private Text patternField;
 
 	private Button nextButton;
@@ -445,6 +448,7 @@ private FindToolbarThread createFinder() {
 		final FindToolbarThread finder = new FindToolbarThread();
 		finder.pattern = patternField.getText();
 		finder.fileRevisions = fileRevisions;
+		finder.repository = repository;
 		finder.toolbar = this;
 		finder.ignoreCase = caseItem.getSelection();
 		if (allItem.getSelection()) {
@@ -469,14 +473,17 @@ private FindToolbarThread createFinder() {
 	 *
 	 * @param hFlag
 	 * @param historyTable
+	 * @param repository
+	 *            the repository of the commits
 	 * @param commitArray
 	 */
 	void setInput(final RevFlag hFlag, final Table historyTable,
-			final SWTCommit[] commitArray) {
+			final Repository repository, final SWTCommit[] commitArray) {
 		// this may cause a FindBugs warning, but
 		// copying the array is probably not a good
 		// idea
 		this.fileRevisions = commitArray;
+		this.repository = repository;
 		this.historyTable = historyTable;
 		findResults.setHighlightFlag(hFlag);
 	}
@@ -11,8 +11,11 @@
 import java.io.IOException;
 
 import org.eclipse.egit.ui.Activator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
 
 /**
  * This class executes the search function for the find toolbar. Only one thread
@@ -43,6 +46,8 @@ public class FindToolbarThread extends Thread {
 
 	SWTCommit[] fileRevisions;
 
+	Repository repository;
+
 	FindToolbar toolbar;
 
 	boolean ignoreCase;
@@ -74,11 +79,13 @@ public FindToolbarThread() {
 	@Override
 	public void run() {
 		synchronized (EXEC_LOCK) {
-			execFind();
+			try (ObjectReader reader = repository.newObjectReader()) {
+				execFind(reader);
+			}
 		}
 	}
 
-	private void execFind() {
+	private void execFind(ObjectReader reader) {
 		// If it isn't the last event, just ignore it.
 		if (currentThreadIx < globalThreadIx) {
 			return;
@@ -124,12 +131,17 @@ public void run() {
 				// Finds for the pattern in the revision history.
 				notFound = true;
 				SWTCommit revision = fileRevisions[i];
-				try {
-					revision.parseBody();
-				} catch (IOException e) {
-					Activator.error("Error parsing body", e); //$NON-NLS-1$
-					continue;
-				}
+				// search a copy, the UI thread discards the bodies of the
+				// history's commits when their rows scroll out of view
+				RevCommit content = null;
+				if (findInComments || findInAuthor || findInCommitter)
+					try {
+						content = RevCommit.parse(reader.open(revision,
+								Constants.OBJ_COMMIT).getCachedBytes());
+					} catch (IOException e) {
+						Activator.error("Error parsing body", e); //$NON-NLS-1$
+						continue;
+					}
 
 				if (findInCommitId) {
 					String contentId = revision.getId().name();
@@ -146,7 +158,7 @@ public void run() {
 				}
 
 				if (findInComments && notFound) {
-					String comment = revision.getFullMessage();
+					String comment = content.getFullMessage();
 					if (comment != null) {
 						if (ignoreCase) {
 							comment = comment.toLowerCase();
@@ -160,7 +172,7 @@ public void run() {
 				}
 
 				if (findInAuthor && notFound) {
-					String author = revision.getAuthorIdent().getName();
+					String author = content.getAuthorIdent().getName();
 					if (author != null) {
 						if (ignoreCase) {
 							author = author.toLowerCase();
@@ -172,7 +184,7 @@ public void run() {
 						}
 					}
 					if (notFound) {
-						String email = revision.getAuthorIdent()
+						String email = content.getAuthorIdent()
 								.getEmailAddress();
 						if (email != null) {
 							if (ignoreCase) {
@@ -188,7 +200,7 @@ public void run() {
 				}
 
 				if (findInCommitter && notFound) {
-					String committer = revision.getCommitterIdent().getName();
+					String committer = content.getCommitterIdent().getName();
 					if (committer != null) {
 						if (ignoreCase) {
 							committer = committer.toLowerCase();
@@ -200,7 +212,7 @@ public void run() {
 						}
 					}
 					if (notFound) {
-						String email = revision.getCommitterIdent()
+						String email = content.getCommitterIdent()
 								.getEmailAddress();
 						if (email != null) {
 							if (ignoreCase) {
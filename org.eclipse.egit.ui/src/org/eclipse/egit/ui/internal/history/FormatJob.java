@@ -38,13 +38,33 @@ public boolean belongsTo(Object family) {
 		return super.belongsTo(family);
 	}
 
+	/**
+	 * Receives the commit info without the branches and tags as soon as it is
+	 * formatted, before the complete info is available from
+	 * {@link FormatJob#getFormatResult()}
+	 */
+	interface PartialResultListener {
+
+		/**
+		 * Called in the job's thread
+		 *
+		 * @param job
+		 * @param result
+		 */
+		void partialResult(FormatJob job, FormatResult result);
+	}
+
 	private Object lock = new Object(); // guards formatRequest and formatResult
 	private FormatRequest formatRequest;
 	private FormatResult formatResult;
 
-	FormatJob(FormatRequest formatRequest) {
+	private final PartialResultListener partialResultListener;
+
+	FormatJob(FormatRequest formatRequest,
+			PartialResultListener partialResultListener) {
 		super(UIText.FormatJob_buildingCommitInfo);
 		this.formatRequest = formatRequest;
+		this.partialResultListener = partialResultListener;
 	}
 
 	FormatResult getFormatResult() {
@@ -57,23 +77,54 @@ FormatResult getFormatResult() {
 	protected IStatus run(IProgressMonitor monitor) {
 		if(monitor.isCanceled())
 			return Status.CANCEL_STATUS;
-		final List<StyleRange> styles = new ArrayList<StyleRange>();
-		final String commitInfo;
 		CommitInfoBuilder builder;
+		FormatResult result;
+		SWTCommit commit = (SWTCommit) formatRequest.getCommit();
+		try {
+			commit.pinBody();
+		} catch (IOException e) {
+			return Activator.createErrorStatus(e.getMessage(), e);
+		}
 		try {
 			synchronized(lock) {
-				SWTCommit commit = (SWTCommit)formatRequest.getCommit();
-				commit.parseBody();
 				builder = new CommitInfoBuilder(formatRequest.getRepository(),
 						commit, formatRequest.isFill(),
 						formatRequest.getAllRefs());
 				builder.setColors(formatRequest.getLinkColor(),
 						formatRequest.getDarkGrey());
 			}
-			commitInfo = builder.format(styles, monitor);
+			// the header and message first, the branches and tags may take
+			// long to compute and are inserted afterwards
+			FormatResult partial = format(builder, monitor);
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			if (partialResultListener != null)
+				partialResultListener.partialResult(this, partial);
+			List<StyleRange> refStyles = new ArrayList<StyleRange>();
+			String refs = builder.formatRefs(refStyles, monitor);
+			result = partial.insertRefs(builder.getRefsOffset(), refs,
+					refStyles);
 		} catch (IOException e) {
 			return Activator.createErrorStatus(e.getMessage(), e);
+		} finally {
+			commit.unpinBody();
 		}
+		if(monitor.isCanceled())
+			return Status.CANCEL_STATUS;
+		synchronized(lock) {
+			formatResult = result;
+		}
+		return Status.OK_STATUS;
+	}
+
+	private static FormatResult format(CommitInfoBuilder builder,
+			IProgressMonitor monitor) throws IOException {
+		final List<StyleRange> styles = new ArrayList<StyleRange>();
+		String commitInfo = builder.format(styles, monitor, false);
+		return new FormatResult(commitInfo, sort(styles));
+	}
+
+	private static StyleRange[] sort(List<StyleRange> styles) {
 		final StyleRange[] arr = new StyleRange[styles.size()];
 		styles.toArray(arr);
 		Arrays.sort(arr, new Comparator<StyleRange>() {
@@ -82,12 +133,7 @@ public int compare(StyleRange o1, StyleRange o2) {
 				return o1.start - o2.start;
 			}
 		});
-		if(monitor.isCanceled())
-			return Status.CANCEL_STATUS;
-		synchronized(lock) {
-			formatResult = new FormatResult(commitInfo, arr);
-		}
-		return Status.OK_STATUS;
+		return arr;
 	}
 
 	static class FormatRequest {
@@ -157,6 +203,12 @@ public boolean isFill() {
 		String commitInfo;
 		StyleRange[] styleRange;
 
+		private int refsOffset;
+
+		private String refsInfo = ""; //$NON-NLS-1$
+
+		private StyleRange[] refsStyleRange = new StyleRange[0];
+
 		FormatResult(String commmitInfo, StyleRange[] styleRange) {
 			this.commitInfo = commmitInfo;
 			this.styleRange = styleRange;
@@ -169,6 +221,68 @@ public String getCommitInfo() {
 		public StyleRange[] getStyleRange() {
 			return styleRange;
 		}
+
+		/**
+		 * @return the offset of the branches and tags in the commit info
+		 */
+		public int getRefsOffset() {
+			return refsOffset;
+		}
+
+		/**
+		 * @return the branches and tags inserted into the commit info of the
+		 *         partial result, may be empty
+		 */
+		public String getRefsInfo() {
+			return refsInfo;
+		}
+
+		/**
+		 * @return the styles of the branches and tags, relative to the commit
+		 *         info
+		 */
+		public StyleRange[] getRefsStyleRange() {
+			return refsStyleRange;
+		}
+
+		/**
+		 * @param offset
+		 * @param refs
+		 * @param refStyles
+		 *            the styles of the refs, relative to the refs
+		 * @return the complete result with the refs inserted at the given
+		 *         offset into this partial result
+		 */
+		FormatResult insertRefs(int offset, String refs,
+				List<StyleRange> refStyles) {
+			int length = refs.length();
+			for (StyleRange range : refStyles)
+				range.start += offset;
+			StyleRange[] inserted = sort(refStyles);
+			// the header styles end before the offset, the message styles
+			// start after it
+			List<StyleRange> all = new ArrayList<StyleRange>(styleRange.length
+					+ inserted.length);
+			for (StyleRange range : styleRange)
+				if (range.start < offset)
+					all.add(range);
+			all.addAll(Arrays.asList(inserted));
+			for (StyleRange range : styleRange)
+				if (range.start >= offset) {
+					StyleRange moved = (StyleRange) range.clone();
+					moved.start += length;
+					all.add(moved);
+				}
+
+			FormatResult result = new FormatResult(
+					commitInfo.substring(0, offset) + refs
+							+ commitInfo.substring(offset),
+					all.toArray(new StyleRange[all.size()]));
+			result.refsOffset = offset;
+			result.refsInfo = refs;
+			result.refsStyleRange = inserted;
+			return result;
+		}
 	}
 
 }
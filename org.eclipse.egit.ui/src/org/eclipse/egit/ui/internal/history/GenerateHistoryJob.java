@@ -97,14 +97,8 @@ protected IStatus run(final IProgressMonitor monitor) {
 							loadedCommits.fillTo(commitToLoad, maxCommits);
 							commitToShow = commitToLoad;
 							commitToLoad = null;
-							boolean commitFound = false;
-							for (RevCommit commit : loadedCommits) {
-								if (commit.getId().equals(commitToShow.getId())) {
-									commitFound = true;
-									break;
-								}
-							}
-							commitNotFound = !commitFound;
+							commitNotFound = loadedCommits
+									.indexOf(commitToShow) < 0;
 						} else {
 							loadedCommits.fillTo(oldsz + BATCH_SIZE - 1);
 							if (oldsz == loadedCommits.size()) {
@@ -132,6 +132,7 @@
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Link;
 import org.eclipse.swt.widgets.Listener;
+import org.eclipse.swt.widgets.ScrollBar;
 import org.eclipse.team.ui.history.HistoryPage;
 import org.eclipse.team.ui.history.IHistoryView;
 import org.eclipse.ui.ISharedImages;
@@ -154,6 +155,9 @@ public class GitHistoryPage extends HistoryPage implements RefsChangedListener,
 
 	private static final int INITIAL_ITEM = -1;
 
+	/** Milliseconds scrolling has to pause before file diffs are prefetched */
+	private static final int PREFETCH_DELAY = 200;
+
 	/** actions used in GitHistoryPage **/
 	private static class GitHistoryPageActions {
 
@@ -1083,8 +1087,28 @@ public void selectionChanged(final SelectionChangedEvent event) {
 
 				if (input.getSingleFile() != null)
 					fileViewer.selectFirstInterestingElement();
+				fileViewer.prefetch(graph.getPrefetchCandidates());
 			}
 		});
+		final ScrollBar verticalBar = graph.getTableView().getTable()
+				.getVerticalBar();
+		if (verticalBar != null) {
+			// prefetch once scrolling pauses, not for every scroll step
+			final Runnable prefetchVisible = new Runnable() {
+				@Override
+				public void run() {
+					if (!verticalBar.isDisposed())
+						fileViewer.prefetch(graph.getPrefetchCandidates());
+				}
+			};
+			verticalBar.addSelectionListener(new SelectionAdapter() {
+				@Override
+				public void widgetSelected(SelectionEvent e) {
+					verticalBar.getDisplay().timerExec(PREFETCH_DELAY,
+							prefetchVisible);
+				}
+			});
+		}
 		commentViewer
 				.addCommitNavigationListener(new CommitNavigationListener() {
 					@Override
@@ -1695,7 +1719,7 @@ public void run() {
 								GitTraceLocation.HISTORYVIEW.getLocation(),
 								"Setting input to table"); //$NON-NLS-1$
 					findToolbar.setInput(highlightFlag, graph.getTableView()
-							.getTable(), asArray);
+							.getTable(), input.getRepository(), asArray);
 					if (incomplete)
 						setWarningText(UIText.GitHistoryPage_ListIncompleteWarningMessage);
 					else
@@ -28,7 +28,7 @@ public String getColumnText(Object element, int columnIndex) {
 		}
 		final SWTCommit c = (SWTCommit) element;
 		try {
-			c.parseBody();
+			c.parseVisibleBody();
 		} catch (IOException e) {
 			Activator.error("Error parsing body", e); //$NON-NLS-1$
 			return ""; //$NON-NLS-1$
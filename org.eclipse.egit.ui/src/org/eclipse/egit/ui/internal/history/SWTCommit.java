@@ -19,6 +19,12 @@ class SWTCommit extends PlotCommit<SWTCommitList.SWTLane> {
 	Widget widget;
 	private RevWalk walk;
 
+	/** readers using the body on other threads, guarded by this */
+	private int bodyPins;
+
+	/** whether the body is to be discarded once it is no longer pinned */
+	private boolean discardPending;
+
 	SWTCommit(final AnyObjectId id, RevWalk walk) {
 		super(id);
 		this.walk = walk;
@@ -31,8 +37,58 @@ public void reset() {
 		super.reset();
 	}
 
-	public void parseBody() throws IOException {
+	public synchronized void parseBody() throws IOException {
+		discardPending = false;
 		if (getRawBuffer() == null)
 			walk.parseBody(this);
 	}
+
+	/**
+	 * Parses the body if necessary and keeps it from being discarded until
+	 * {@link #unpinBody()} is called. Threads other than the UI thread must
+	 * pin the body while reading it.
+	 *
+	 * @throws IOException
+	 */
+	synchronized void pinBody() throws IOException {
+		parseBody();
+		bodyPins++;
+	}
+
+	/**
+	 * Releases a pin taken by {@link #pinBody()}.
+	 */
+	synchronized void unpinBody() {
+		bodyPins--;
+		if (bodyPins == 0 && discardPending) {
+			discardPending = false;
+			disposeBody();
+		}
+	}
+
+	/**
+	 * Discards the body of a row which has scrolled out of view, or, if the
+	 * body is pinned, as soon as the last pin is released.
+	 */
+	synchronized void discardBody() {
+		if (bodyPins > 0)
+			discardPending = true;
+		else
+			disposeBody();
+	}
+
+	/**
+	 * Parses the body of a commit shown in a visible row of the history
+	 * table. Only the bodies of the most recently shown rows are retained, the
+	 * bodies of rows which have scrolled out of view are discarded again.
+	 * <p>
+	 * Must be called from the UI thread.
+	 *
+	 * @throws IOException
+	 */
+	void parseVisibleBody() throws IOException {
+		parseBody();
+		if (walk instanceof SWTWalk)
+			((SWTWalk) walk).retainBody(this);
+	}
 }
@@ -16,6 +16,8 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.resource.ResourceManager;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.revplot.PlotCommit;
 import org.eclipse.jgit.revplot.PlotCommitList;
 import org.eclipse.jgit.revplot.PlotLane;
 import org.eclipse.swt.events.DisposeEvent;
@@ -45,6 +47,16 @@ class SWTCommitList extends PlotCommitList<SWTCommitList.SWTLane> implements Dis
 
 	private final Control control;
 
+	/**
+	 * Open addressing hash table mapping commit ids to rows, storing
+	 * <code>row + 1</code> (0 marks a free slot). The ids themselves are not
+	 * duplicated, they are taken from the commits in this list, so the index
+	 * costs two ints per commit instead of a map entry and an id string.
+	 */
+	private int[] rowIndex = new int[1024];
+
+	private int indexedRows;
+
 	SWTCommitList(final Control control, final ResourceManager resources) {
 		this.control = control;
 		allColors = new ArrayList<Color>(COMMIT_RGB.length);
@@ -73,6 +85,57 @@ protected IStatus run(IProgressMonitor monitor) {
 			control.removeDisposeListener(this);
 	}
 
+	/**
+	 * Finds the row of a commit. Callers filling the list concurrently must
+	 * synchronize on this list.
+	 *
+	 * @param id
+	 * @return the row of the commit with the given id, or -1 if the commit has
+	 *         not been loaded
+	 */
+	synchronized int indexOf(AnyObjectId id) {
+		int mask = rowIndex.length - 1;
+		for (int slot = id.hashCode() & mask;; slot = (slot + 1) & mask) {
+			int row = rowIndex[slot] - 1;
+			if (row < 0)
+				return -1;
+			if (row < size() && id.equals(get(row)))
+				return row;
+		}
+	}
+
+	@Override
+	protected void enter(int index, PlotCommit<SWTLane> currCommit) {
+		super.enter(index, currCommit);
+		if ((indexedRows + 1) * 2 > rowIndex.length)
+			growIndex();
+		addToIndex(index, currCommit);
+		indexedRows++;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		rowIndex = new int[1024];
+		indexedRows = 0;
+	}
+
+	private void addToIndex(int row, AnyObjectId id) {
+		int mask = rowIndex.length - 1;
+		int slot = id.hashCode() & mask;
+		while (rowIndex[slot] != 0)
+			slot = (slot + 1) & mask;
+		rowIndex[slot] = row + 1;
+	}
+
+	private void growIndex() {
+		int[] old = rowIndex;
+		rowIndex = new int[old.length * 2];
+		for (int entry : old)
+			if (entry != 0)
+				addToIndex(entry - 1, get(entry - 1));
+	}
+
 	private void repackColors() {
 		availableColors.addAll(allColors);
 	}
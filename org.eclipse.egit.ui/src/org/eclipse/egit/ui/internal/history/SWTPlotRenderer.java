@@ -19,7 +19,10 @@
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIPreferences;
 import org.eclipse.egit.ui.internal.history.SWTCommitList.SWTLane;
+import org.eclipse.egit.ui.internal.trace.GitTraceLocation;
 import org.eclipse.jface.resource.ResourceManager;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revplot.AbstractPlotRenderer;
@@ -32,6 +35,7 @@
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.ui.PlatformUI;
 
 class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
@@ -69,6 +73,65 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
 	private final Color commitDotOutline;
 
+	private final Color outerHead;
+
+	private final Color innerHead;
+
+	private final Color outerTag;
+
+	private final Color innerTag;
+
+	private final Color outerAnnotated;
+
+	private final Color innerAnnotated;
+
+	private final Color outerRemote;
+
+	private final Color innerRemote;
+
+	private final Color outerOther;
+
+	private final Color innerOther;
+
+	/**
+	 * Cached layout of the ref labels per font and label key, see
+	 * {@link #getLabelLayout(Ref, boolean)}. Only accessed from the UI thread.
+	 */
+	private final Map<Font, Map<String, LabelLayout>> labelLayouts = new HashMap<Font, Map<String, LabelLayout>>();
+
+	private Font headFont;
+
+	/** Set from any thread, the layouts are discarded on the next paint */
+	private volatile boolean labelsInvalid;
+
+	private final IPropertyChangeListener themeListener = new IPropertyChangeListener() {
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			invalidateLabels();
+		}
+	};
+
+	private final IPropertyChangeListener preferenceListener = new IPropertyChangeListener() {
+		@Override
+		public void propertyChange(PropertyChangeEvent event) {
+			String property = event.getProperty();
+			if (UIPreferences.HISTORY_MAX_TAG_LENGTH.equals(property)
+					|| UIPreferences.HISTORY_MAX_BRANCH_LENGTH.equals(property)
+					|| UIPreferences.HISTORY_CUT_AT_START.equals(property))
+				invalidateLabels();
+		}
+	};
+
+	private final boolean trace = GitTraceLocation.HISTORYVIEW.isActive();
+
+	private int paintedCells;
+
+	private long paintNanos;
+
+	private int labelCacheHits;
+
+	private int labelCacheMisses;
+
 	/**
 	 * Map from ref name to its label coordinates
 	 */
@@ -81,8 +144,6 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
 	private int textHeight;
 
-	private final ResourceManager resources;
-
 	GC g;
 
 	int cellX;
@@ -102,13 +163,44 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 	private int tagCount = 0;
 
 	SWTPlotRenderer(final Display d, final ResourceManager resources) {
-		this.resources = resources;
 		sys_black = d.getSystemColor(SWT.COLOR_BLACK);
 		sys_gray = d.getSystemColor(SWT.COLOR_GRAY);
 		sys_white = d.getSystemColor(SWT.COLOR_WHITE);
 
 		commitDotFill = resources.createColor(new RGB(220, 220, 220));
 		commitDotOutline = resources.createColor(new RGB(110, 110, 110));
+
+		outerHead = resources.createColor(OUTER_HEAD);
+		innerHead = resources.createColor(INNER_HEAD);
+		outerTag = resources.createColor(OUTER_TAG);
+		innerTag = resources.createColor(INNER_TAG);
+		outerAnnotated = resources.createColor(OUTER_ANNOTATED);
+		innerAnnotated = resources.createColor(INNER_ANNOTATED);
+		outerRemote = resources.createColor(OUTER_REMOTE);
+		innerRemote = resources.createColor(INNER_REMOTE);
+		outerOther = resources.createColor(OUTER_OTHER);
+		innerOther = resources.createColor(INNER_OTHER);
+
+		PlatformUI.getWorkbench().getThemeManager()
+				.addPropertyChangeListener(themeListener);
+		Activator.getDefault().getPreferenceStore()
+				.addPropertyChangeListener(preferenceListener);
+	}
+
+	void dispose() {
+		PlatformUI.getWorkbench().getThemeManager()
+				.removePropertyChangeListener(themeListener);
+		Activator.getDefault().getPreferenceStore()
+				.removePropertyChangeListener(preferenceListener);
+		labelLayouts.clear();
+	}
+
+	/**
+	 * Discards the cached label layouts, needs to be called when refs have
+	 * changed or the fonts or label preferences have changed.
+	 */
+	void invalidateLabels() {
+		labelsInvalid = true;
 	}
 
 	void paint(final Event event, Ref actHeadRef) {
@@ -121,16 +213,39 @@ void paint(final Event event, Ref actHeadRef) {
 		cellBG = g.getBackground();
 		if (textHeight == 0)
 			textHeight = g.stringExtent("/").y; //$NON-NLS-1$
+		if (labelsInvalid) {
+			labelsInvalid = false;
+			labelLayouts.clear();
+			headFont = null;
+		}
 
 		final TableItem ti = (TableItem) event.item;
 		SWTCommit commit = (SWTCommit) ti.getData();
 		try {
-			commit.parseBody();
+			commit.parseVisibleBody();
 		} catch (IOException e) {
 			Activator.error("Error parsing body", e); //$NON-NLS-1$
 			return;
 		}
-		paintCommit(commit , event.height);
+		if (!trace) {
+			paintCommit(commit, event.height);
+			return;
+		}
+		long start = System.nanoTime();
+		paintCommit(commit, event.height);
+		paintNanos += System.nanoTime() - start;
+		if (++paintedCells == 500) {
+			GitTraceLocation.getTrace().trace(
+					GitTraceLocation.HISTORYVIEW.getLocation(),
+					"Painted " + paintedCells + " graph cells in " //$NON-NLS-1$ //$NON-NLS-2$
+							+ paintNanos / 1000000 + " ms, label layout cache " //$NON-NLS-1$
+							+ labelCacheHits + " hits, " + labelCacheMisses //$NON-NLS-1$
+							+ " misses"); //$NON-NLS-1$
+			paintedCells = 0;
+			paintNanos = 0;
+			labelCacheHits = 0;
+			labelCacheMisses = 0;
+		}
 	}
 
 	@Override
@@ -179,81 +294,34 @@ protected void drawText(final String msg, final int x, final int y) {
 
 	@Override
 	protected int drawLabel(int x, int y, Ref ref) {
-		String txt;
 		String name = ref.getName();
-		boolean tag = false;
-		boolean branch = false;
-		RGB labelOuter;
-		RGB labelInner;
-		if (name.startsWith(Constants.R_HEADS)) {
-			branch = true;
-			labelOuter = OUTER_HEAD;
-			labelInner = INNER_HEAD;
-			txt = name.substring(Constants.R_HEADS.length());
-		} else if (name.startsWith(Constants.R_REMOTES)) {
-			branch = true;
-			labelOuter = OUTER_REMOTE;
-			labelInner = INNER_REMOTE;
-			txt = name.substring(Constants.R_REMOTES.length());
-		} else if (name.startsWith(Constants.R_TAGS)) {
+		boolean ellipsis = false;
+		if (name.startsWith(Constants.R_TAGS)) {
 			tagCount++;
 
-			tag = true;
-			if (ref.getPeeledObjectId() != null) {
-				labelOuter = OUTER_ANNOTATED;
-				labelInner = INNER_ANNOTATED;
-			} else {
-				labelOuter = OUTER_TAG;
-				labelInner = INNER_TAG;
-			}
-
 			int maxNumberOfTags = 1;
-			if (tagCount == maxNumberOfTags) {
-				txt = name.substring(Constants.R_TAGS.length());
-			} else if (tagCount == maxNumberOfTags + 1) {
-				txt = ELLIPSIS;
+			if (tagCount == maxNumberOfTags + 1) {
+				ellipsis = true;
 				ellipsisTags.add(name);
-			} else {
+			} else if (tagCount > maxNumberOfTags + 1) {
 				// Don't draw additional tags, they are shown when hovering the
 				// ellipsis
 				return 0;
 			}
-		} else {
-			labelOuter = OUTER_OTHER;
-			labelInner = INNER_OTHER;
-
-			if (name.startsWith(Constants.R_REFS))
-				txt = name.substring(Constants.R_REFS.length());
-			else
-				txt = name; // HEAD and such
-		}
-
-		int maxLength;
-		if (tag)
-			maxLength = Activator.getDefault().getPreferenceStore()
-					.getInt(UIPreferences.HISTORY_MAX_TAG_LENGTH);
-		else if (branch)
-			maxLength = Activator.getDefault().getPreferenceStore()
-					.getInt(UIPreferences.HISTORY_MAX_BRANCH_LENGTH);
-		else
-			maxLength = MAX_LABEL_LENGTH;
-		if (txt.length() > maxLength) {
-			// Account for the ellipsis length
-			int textLength = maxLength - 3;
-			if (Activator.getDefault().getPreferenceStore()
-					.getBoolean(UIPreferences.HISTORY_CUT_AT_START))
-				txt = ELLIPSIS + txt.substring(txt.length() - textLength);
-			else
-				txt = txt.substring(0, textLength) + ELLIPSIS;
 		}
 
 		// highlight checked out branch
 		Font oldFont = g.getFont();
 		boolean isHead = isHead(name);
-		if (isHead)
-			g.setFont(CommitGraphTable.highlightFont());
+		if (isHead) {
+			if (headFont == null)
+				headFont = CommitGraphTable.highlightFont();
+			g.setFont(headFont);
+		}
 
-		Point textsz = g.stringExtent(txt);
+		LabelLayout layout = getLabelLayout(ref, ellipsis);
+		String txt = layout.text;
+		Point textsz = layout.size;
 		int arc = textsz.y / 2;
 		final int texty = (y * 2 - textsz.y) / 2;
 		final int outerWidth = textsz.x + 7;
@@ -265,11 +333,11 @@ else if (branch)
 		g.fillRoundRectangle(cellX + x + 1, cellY + texty, textsz.x + 6,
 				textsz.y + 1, arc, arc);
 
-		g.setBackground(resources.createColor(labelInner));
+		g.setBackground(layout.inner);
 		g.fillRoundRectangle(cellX + x + 2, cellY + texty + 1, textsz.x + 4,
 				textsz.y - 2, arc - 1, arc - 1);
 
-		g.setForeground(resources.createColor(labelOuter));
+		g.setForeground(layout.outer);
 		g.drawRoundRectangle(cellX + x, cellY + texty - 1, outerWidth,
 				textsz.y + 1, arc, arc);
 
@@ -285,6 +353,96 @@ else if (branch)
 		return 10 + textsz.x;
 	}
 
+	/**
+	 * Returns the text, text extent and colors of a ref label for the current
+	 * font of the GC, computing and caching them on first use.
+	 *
+	 * @param ref
+	 * @param ellipsis
+	 *            whether the label is the ellipsis standing for further tags
+	 * @return the layout of the label
+	 */
+	private LabelLayout getLabelLayout(Ref ref, boolean ellipsis) {
+		String name = ref.getName();
+		boolean annotated = ref.getPeeledObjectId() != null;
+		String key = (ellipsis ? "e" : "n") + (annotated ? "a" : "l") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ name;
+		Font font = g.getFont();
+		Map<String, LabelLayout> layouts = labelLayouts.get(font);
+		if (layouts == null) {
+			layouts = new HashMap<String, LabelLayout>();
+			labelLayouts.put(font, layouts);
+		}
+		LabelLayout layout = layouts.get(key);
+		if (layout != null) {
+			labelCacheHits++;
+			return layout;
+		}
+		labelCacheMisses++;
+
+		String txt;
+		boolean tag = false;
+		boolean branch = false;
+		Color labelOuter;
+		Color labelInner;
+		if (name.startsWith(Constants.R_HEADS)) {
+			branch = true;
+			labelOuter = outerHead;
+			labelInner = innerHead;
+			txt = name.substring(Constants.R_HEADS.length());
+		} else if (name.startsWith(Constants.R_REMOTES)) {
+			branch = true;
+			labelOuter = outerRemote;
+			labelInner = innerRemote;
+			txt = name.substring(Constants.R_REMOTES.length());
+		} else if (name.startsWith(Constants.R_TAGS)) {
+			tag = true;
+			if (annotated) {
+				labelOuter = outerAnnotated;
+				labelInner = innerAnnotated;
+			} else {
+				labelOuter = outerTag;
+				labelInner = innerTag;
+			}
+			if (ellipsis)
+				txt = ELLIPSIS;
+			else
+				txt = name.substring(Constants.R_TAGS.length());
+		} else {
+			labelOuter = outerOther;
+			labelInner = innerOther;
+
+			if (name.startsWith(Constants.R_REFS))
+				txt = name.substring(Constants.R_REFS.length());
+			else
+				txt = name; // HEAD and such
+		}
+
+		int maxLength;
+		if (tag)
+			maxLength = Activator.getDefault().getPreferenceStore()
+					.getInt(UIPreferences.HISTORY_MAX_TAG_LENGTH);
+		else if (branch)
+			maxLength = Activator.getDefault().getPreferenceStore()
+					.getInt(UIPreferences.HISTORY_MAX_BRANCH_LENGTH);
+		else
+			maxLength = MAX_LABEL_LENGTH;
+		if (txt.length() > maxLength) {
+			// Account for the ellipsis length
+			int textLength = maxLength - 3;
+			if (Activator.getDefault().getPreferenceStore()
+					.getBoolean(UIPreferences.HISTORY_CUT_AT_START))
+				txt = ELLIPSIS + txt.substring(txt.length() - textLength);
+			else
+				txt = txt.substring(0, textLength) + ELLIPSIS;
+		}
+
+		layout = new LabelLayout(txt, g.stringExtent(txt), labelOuter,
+				labelInner);
+		layouts.put(key, layout);
+		return layout;
+	}
+
 	private boolean isHead(String name) {
 		boolean isHead = false;
 		if (headRef != null) {
@@ -328,4 +486,21 @@ boolean isShownAsEllipsis(Ref ref) {
 	public int getTextHeight() {
 		return textHeight;
 	}
+
+	private static final class LabelLayout {
+		final String text;
+
+		final Point size;
+
+		final Color outer;
+
+		final Color inner;
+
+		LabelLayout(String text, Point size, Color outer, Color inner) {
+			this.text = text;
+			this.size = size;
+			this.outer = outer;
+			this.inner = inner;
+		}
+	}
 }
@@ -8,12 +8,33 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revplot.PlotWalk;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 class SWTWalk extends PlotWalk {
+	/** Number of commit bodies of shown rows which are kept in memory */
+	static final int RETAINED_BODIES = 1024;
+
+	// only accessed from the UI thread, see SWTCommit.parseVisibleBody()
+	private final Map<SWTCommit, Boolean> retainedBodies = new LinkedHashMap<SWTCommit, Boolean>(
+			RETAINED_BODIES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<SWTCommit, Boolean> eldest) {
+			if (size() <= RETAINED_BODIES)
+				return false;
+			eldest.getKey().discardBody();
+			return true;
+		}
+	};
+
 	SWTWalk(final Repository repo) {
 		super(repo);
 	}
@@ -22,4 +43,8 @@ class SWTWalk extends PlotWalk {
 	protected RevCommit createCommit(final AnyObjectId id) {
 		return new SWTCommit(id, this);
 	}
+
+	void retainBody(SWTCommit commit) {
+		retainedBodies.put(commit, Boolean.TRUE);
+	}
 }
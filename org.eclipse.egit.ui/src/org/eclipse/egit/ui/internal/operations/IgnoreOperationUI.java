@@ -23,7 +23,6 @@
 import org.eclipse.egit.core.op.IgnoreOperation;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.internal.UIText;
-import org.eclipse.egit.ui.internal.decorators.GitLightweightDecorator;
 import org.eclipse.jgit.lib.Repository;
 
 /**
@@ -78,6 +77,5 @@ private void refresh() {
 			if (entry != null)
 				entry.refresh();
 		}
-		GitLightweightDecorator.refresh();
 	}
 }
@@ -913,7 +913,10 @@ private void refreshUI() {
 			for (TreeViewerColumn col : dynamicColumns)
 				col.getColumn().pack();
 		}
+		updateActions();
+	}
 
+	private void updateActions() {
 		startItem.setEnabled(false);
 		continueItem.setEnabled(false);
 		skipItem.setEnabled(false);
@@ -1031,6 +1034,33 @@ public void planWasUpdatedFromRepository(final RebaseInteractivePlan plan) {
 		refresh();
 	}
 
+	@Override
+	public void planElementsProcessed(final RebaseInteractivePlan plan,
+			List<PlanElement> elements) {
+		if (!isReady())
+			return;
+		// the tree items can be kept, only the processed elements moved and
+		// changed their state, so neither the labels of the other elements
+		// nor the column widths need to be computed again
+		final Object[] processed = elements.toArray();
+		asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				Tree t = planTreeViewer.getTree();
+				if (t.isDisposed() || plan != currentPlan)
+					return;
+				t.setRedraw(false);
+				try {
+					planTreeViewer.refresh(false);
+					planTreeViewer.update(processed, null);
+				} finally {
+					t.setRedraw(true);
+				}
+				updateActions();
+			}
+		});
+	}
+
 	@Override
 	public void planElementTypeChanged(
 			RebaseInteractivePlan rebaseInteractivePlan, PlanElement element,
@@ -143,5 +143,11 @@ public void planElementsOrderChanged(
 		public void planWasUpdatedFromRepository(RebaseInteractivePlan newPlan) {
 			createIndex();
 		}
+
+		@Override
+		public void planElementsProcessed(RebaseInteractivePlan newPlan,
+				List<PlanElement> elements) {
+			// processing steps keeps the order of the non-comment elements
+		}
 	}
 }
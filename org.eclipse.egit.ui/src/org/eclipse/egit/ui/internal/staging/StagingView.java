@@ -50,6 +50,7 @@
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffChangedListener;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
 import org.eclipse.egit.core.internal.job.RuleUtil;
+import org.eclipse.egit.core.internal.util.BulkIndexAdder;
 import org.eclipse.egit.core.op.CommitOperation;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.ui.Activator;
@@ -2243,6 +2244,7 @@ private void stage(IStructuredSelection selection) {
 		final Git git = new Git(currentRepository);
 		Iterator iterator = selection.iterator();
 		final List<String> addPaths = new ArrayList<String>();
+		final List<String> addPatterns = new ArrayList<String>();
 		final List<String> rmPaths = new ArrayList<String>();
 		resetPathsToExpand();
 		while (iterator.hasNext()) {
@@ -2269,24 +2271,29 @@ private void stage(IStructuredSelection selection) {
 						String path = mapping.getRepoRelativePath(resource);
 						// If resource corresponds to root of working directory
 						if ("".equals(path)) //$NON-NLS-1$
-							addPaths.add("."); //$NON-NLS-1$
+							addPatterns.add("."); //$NON-NLS-1$
 						else
-							addPaths.add(path);
+							addPatterns.add(path);
 					}
 				}
 			}
 		}
 
 		// start long running operations
-		if (!addPaths.isEmpty()) {
+		if (!addPaths.isEmpty() || !addPatterns.isEmpty()) {
 			Job addJob = new Job(UIText.StagingView_AddJob) {
 				@Override
 				protected IStatus run(IProgressMonitor monitor) {
 					try {
-						AddCommand add = git.add();
-						for (String addPath : addPaths)
-							add.addFilepattern(addPath);
-						add.call();
+						// staging entries are files, stage them in bulk
+						new BulkIndexAdder(git.getRepository(), addPaths)
+								.addToIndex(monitor);
+						if (!addPatterns.isEmpty()) {
+							AddCommand add = git.add();
+							for (String addPattern : addPatterns)
+								add.addFilepattern(addPattern);
+							add.call();
+						}
 					} catch (NoFilepatternException e1) {
 						// cannot happen
 					} catch (JGitInternalException e1) {
@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * Copyright (C) 2015, EGit contributors
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.trace;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.egit.core.internal.trace.GitMetrics;
+import org.eclipse.egit.core.internal.trace.MetricSnapshot;
+import org.eclipse.egit.ui.Activator;
+import org.eclipse.egit.ui.internal.UIIcons;
+import org.eclipse.egit.ui.internal.UIText;
+import org.eclipse.egit.ui.internal.dialogs.GitTraceConfigurationDialog;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.layout.TreeColumnLayout;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.ColumnWeightData;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.TreeViewerColumn;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Tree;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the {@link GitMetrics} recorded by EGit, grouped by repository, and
+ * refreshes them every second while visible.
+ * <p>
+ * Besides the recorded values the view shows the rate at which each metric
+ * was recorded since the last refresh, e.g. decorations or history commits per
+ * second, and the hit ratio of the decoration cache.
+ */
+public class GitPerformanceView extends ViewPart {
+
+	/** View id */
+	public static final String VIEW_ID = "org.eclipse.egit.ui.GitPerformanceView"; //$NON-NLS-1$
+
+	private static final String HIT_RATIO = "decoration.cache.hitratio"; //$NON-NLS-1$
+
+	private static final int REFRESH_INTERVAL = 1000;
+
+	private TreeViewer viewer;
+
+	private final List<ScopeNode> nodes = new ArrayList<ScopeNode>();
+
+	private Map<MetricRow, Long> previousCounts = new HashMap<MetricRow, Long>();
+
+	private long previousRefresh;
+
+	private final Runnable refresher = new Runnable() {
+		@Override
+		public void run() {
+			if (viewer == null || viewer.getTree().isDisposed())
+				return;
+			if (viewer.getTree().isVisible())
+				refresh();
+			viewer.getTree().getDisplay().timerExec(REFRESH_INTERVAL, this);
+		}
+	};
+
+	@Override
+	public void createPartControl(Composite parent) {
+		Composite main = new Composite(parent, SWT.NONE);
+		TreeColumnLayout layout = new TreeColumnLayout();
+		main.setLayout(layout);
+
+		viewer = new TreeViewer(main, SWT.FULL_SELECTION | SWT.MULTI);
+		Tree tree = viewer.getTree();
+		tree.setHeaderVisible(true);
+		tree.setLinesVisible(true);
+		viewer.setContentProvider(new MetricsContentProvider());
+
+		createColumn(layout, UIText.GitPerformanceView_MetricColumn, 30,
+				SWT.LEFT, new ColumnLabelProvider() {
+					@Override
+					public String getText(Object element) {
+						if (element instanceof ScopeNode)
+							return ((ScopeNode) element).getLabel();
+						return ((MetricRow) element).snapshot.getName();
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_CountColumn, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (isGauge(s))
+							return ""; //$NON-NLS-1$
+						return Long.toString(s.getCount());
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_RateColumn, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (isGauge(s))
+							return ""; //$NON-NLS-1$
+						return format(row.rate);
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_LastColumn, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (isCounter(s))
+							return ""; //$NON-NLS-1$
+						return Long.toString(s.getLast());
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_MeanColumn, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (!isDistribution(s))
+							return ""; //$NON-NLS-1$
+						return format(s.getMean());
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_P95Column, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (!isDistribution(s))
+							return ""; //$NON-NLS-1$
+						return Long.toString(s.getP95());
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_MaxColumn, 8,
+				SWT.RIGHT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						if (!isDistribution(s))
+							return ""; //$NON-NLS-1$
+						return Long.toString(s.getMax());
+					}
+				});
+		createColumn(layout, UIText.GitPerformanceView_UnitColumn, 6,
+				SWT.LEFT, new MetricLabelProvider() {
+					@Override
+					String getText(MetricSnapshot s, MetricRow row) {
+						return s.getUnit();
+					}
+				});
+
+		viewer.setInput(nodes);
+		createActions();
+		refresh();
+		tree.getDisplay().timerExec(REFRESH_INTERVAL, refresher);
+	}
+
+	private void createColumn(TreeColumnLayout layout, String text,
+			int weight, int style, ColumnLabelProvider labelProvider) {
+		TreeViewerColumn column = new TreeViewerColumn(viewer, style);
+		column.getColumn().setText(text);
+		column.setLabelProvider(labelProvider);
+		layout.setColumnData(column.getColumn(), new ColumnWeightData(weight,
+				true));
+	}
+
+	private void createActions() {
+		IToolBarManager toolbar = getViewSite().getActionBars()
+				.getToolBarManager();
+
+		Action refreshAction = new Action(
+				UIText.GitPerformanceView_RefreshAction) {
+			@Override
+			public void run() {
+				refresh();
+			}
+		};
+		refreshAction.setImageDescriptor(UIIcons.ELCL16_REFRESH);
+		toolbar.add(refreshAction);
+
+		Action resetAction = new Action(UIText.GitPerformanceView_ResetAction) {
+			@Override
+			public void run() {
+				GitMetrics.reset();
+				previousCounts.clear();
+				refresh();
+			}
+		};
+		resetAction.setImageDescriptor(UIIcons.ELCL16_CLEAR);
+		toolbar.add(resetAction);
+
+		getViewSite().getActionBars().getMenuManager()
+				.add(new Action(UIText.GitPerformanceView_ExportAction) {
+					@Override
+					public void run() {
+						export();
+					}
+				});
+		getViewSite().getActionBars().getMenuManager()
+				.add(new Action(UIText.GitPerformanceView_ConfigureTraceAction) {
+					@Override
+					public void run() {
+						new GitTraceConfigurationDialog(getSite().getShell())
+								.open();
+					}
+				});
+	}
+
+	private void refresh() {
+		long now = System.currentTimeMillis();
+		double seconds = previousRefresh > 0 ? (now - previousRefresh) / 1000.0
+				: 0;
+		previousRefresh = now;
+
+		Map<String, ScopeNode> scopes = new LinkedHashMap<String, ScopeNode>();
+		Map<MetricRow, Long> counts = new HashMap<MetricRow, Long>();
+		ScopeNode global = new ScopeNode(""); //$NON-NLS-1$
+		scopes.put(global.scope, global);
+		long hits = 0;
+		long misses = 0;
+		for (MetricSnapshot s : GitMetrics.snapshot()) {
+			ScopeNode node = scopes.get(s.getScope());
+			if (node == null) {
+				node = new ScopeNode(s.getScope());
+				scopes.put(s.getScope(), node);
+			}
+			MetricRow row = new MetricRow(node, s);
+			counts.put(row, Long.valueOf(s.getCount()));
+			Long previous = previousCounts.get(row);
+			if (previous != null && seconds > 0)
+				row.rate = Math.max(0, s.getCount() - previous.longValue())
+						/ seconds;
+			node.rows.add(row);
+			if (s.getScope().length() == 0) {
+				if (GitMetrics.DECORATION_CACHE_HITS.equals(s.getName()))
+					hits = s.getCount();
+				else if (GitMetrics.DECORATION_CACHE_MISSES.equals(s.getName()))
+					misses = s.getCount();
+			}
+		}
+		previousCounts = counts;
+		if (hits + misses > 0) {
+			long ratio = hits * 100 / (hits + misses);
+			global.rows.add(new MetricRow(global, new MetricSnapshot(
+					HIT_RATIO, "", MetricSnapshot.GAUGE, "%", 0, 0, ratio, //$NON-NLS-1$ //$NON-NLS-2$
+					ratio, ratio, ratio, ratio, ratio)));
+		}
+
+		boolean newScopes = !new ArrayList<ScopeNode>(scopes.values())
+				.equals(nodes);
+		nodes.clear();
+		nodes.addAll(scopes.values());
+		viewer.refresh();
+		if (newScopes)
+			viewer.expandAll();
+	}
+
+	private void export() {
+		FileDialog dialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.json" }); //$NON-NLS-1$
+		dialog.setFileName("egit-metrics.json"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null)
+			return;
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(
+				path), "UTF-8")) { //$NON-NLS-1$
+			GitMetrics.exportJson(writer);
+		} catch (IOException e) {
+			Activator.handleError(NLS.bind(
+					UIText.GitPerformanceView_ExportError, path), e, true);
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	private static boolean isCounter(MetricSnapshot s) {
+		return MetricSnapshot.COUNTER.equals(s.getType());
+	}
+
+	private static boolean isGauge(MetricSnapshot s) {
+		return MetricSnapshot.GAUGE.equals(s.getType());
+	}
+
+	private static boolean isDistribution(MetricSnapshot s) {
+		return !isCounter(s) && !isGauge(s);
+	}
+
+	private static String format(double value) {
+		return String.format("%.1f", Double.valueOf(value)); //$NON-NLS-1$
+	}
+
+	private static final class ScopeNode {
+
+		final String scope;
+
+		final List<MetricRow> rows = new ArrayList<MetricRow>();
+
+		ScopeNode(String scope) {
+			this.scope = scope;
+		}
+
+		String getLabel() {
+			if (scope.length() == 0)
+				return UIText.GitPerformanceView_GlobalNode;
+			File directory = new File(scope);
+			String name = directory.getName();
+			if (".git".equals(name) && directory.getParentFile() != null) //$NON-NLS-1$
+				name = directory.getParentFile().getName();
+			return NLS.bind(UIText.GitPerformanceView_RepositoryNode, name,
+					scope);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof ScopeNode
+					&& scope.equals(((ScopeNode) obj).scope);
+		}
+
+		@Override
+		public int hashCode() {
+			return scope.hashCode();
+		}
+	}
+
+	private static final class MetricRow {
+
+		final ScopeNode parent;
+
+		final MetricSnapshot snapshot;
+
+		double rate;
+
+		MetricRow(ScopeNode parent, MetricSnapshot snapshot) {
+			this.parent = parent;
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MetricRow))
+				return false;
+			MetricRow other = (MetricRow) obj;
+			return snapshot.getName().equals(other.snapshot.getName())
+					&& snapshot.getScope().equals(other.snapshot.getScope());
+		}
+
+		@Override
+		public int hashCode() {
+			return snapshot.getName().hashCode() * 31
+					+ snapshot.getScope().hashCode();
+		}
+	}
+
+	private static abstract class MetricLabelProvider extends
+			ColumnLabelProvider {
+
+		@Override
+		public String getText(Object element) {
+			if (element instanceof MetricRow) {
+				MetricRow row = (MetricRow) element;
+				return getText(row.snapshot, row);
+			}
+			return ""; //$NON-NLS-1$
+		}
+
+		abstract String getText(MetricSnapshot snapshot, MetricRow row);
+	}
+
+	private final class MetricsContentProvider implements
+			ITreeContentProvider {
+
+		@Override
+		public Object[] getElements(Object inputElement) {
+			return nodes.toArray();
+		}
+
+		@Override
+		public Object[] getChildren(Object parentElement) {
+			if (parentElement instanceof ScopeNode)
+				return ((ScopeNode) parentElement).rows.toArray();
+			return new Object[0];
+		}
+
+		@Override
+		public Object getParent(Object element) {
+			if (element instanceof MetricRow)
+				return ((MetricRow) element).parent;
+			return null;
+		}
+
+		@Override
+		public boolean hasChildren(Object element) {
+			return element instanceof ScopeNode
+					&& !((ScopeNode) element).rows.isEmpty();
+		}
+
+		@Override
+		public void inputChanged(Viewer v, Object oldInput, Object newInput) {
+			// nothing to do
+		}
+
+		@Override
+		public void dispose() {
+			// nothing to do
+		}
+	}
+}